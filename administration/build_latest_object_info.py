@@ -0,0 +1,90 @@
+'''
+Adds the latest version information to the object documents of a workspace
+database created prior to version 0.12.0, and marks the information as
+complete in the configuration document.
+
+Each object document holds a copy of the information from the object's
+latest version, which allows listing the latest versions of objects without
+reading every version from the version collection. Workspace servers >=
+0.12.0 maintain the information on save, copy, revert, and clone, but only
+use it for listing objects once it's marked as complete.
+
+To upgrade:
+1) Deploy the 0.12.0+ workspace servers.
+2) Run this script. It is safe to run while the servers are handling
+   requests, and safe to rerun if it fails.
+3) Restart the workspace servers.
+
+Usage:
+python build_latest_object_info.py <mongo host:port> <workspace db name> \
+    [<mongo user> <mongo pwd>]
+'''
+from __future__ import print_function
+import sys
+import time
+
+from pymongo import MongoClient, UpdateOne
+
+COL_OBJS = 'workspaceObjects'
+COL_VERS = 'workspaceObjVersions'
+COL_CONFIG = 'config'
+
+LATEST_INFO = 'latestinfo'
+INFO_FIELDS = ['ver', 'type', 'savedate', 'savedby', 'chksum', 'size', 'meta']
+
+BATCH_SIZE = 1000
+
+
+def write_info(db, objs):
+    q = {'$or': [{'ws': ws, 'id': id_, 'ver': ver} for ws, id_, ver in objs]}
+    proj = {f: 1 for f in INFO_FIELDS}
+    proj.update({'_id': 0, 'ws': 1, 'id': 1, 'ver': 1})
+    updates = []
+    for v in db[COL_VERS].find(q, proj):
+        info = {f: v.get(f) for f in INFO_FIELDS}
+        # only update if the version is still the latest version, as the server does
+        updates.append(UpdateOne(
+            {'ws': v['ws'], 'id': v['id'], 'numver': v['ver']},
+            {'$set': {LATEST_INFO: info}}))
+    if updates:
+        db[COL_OBJS].bulk_write(updates, ordered=False)
+    return len(updates)
+
+
+def main():
+    if len(sys.argv) not in (3, 5):
+        print(__doc__)
+        sys.exit(1)
+    if len(sys.argv) == 5:
+        client = MongoClient(sys.argv[1], username=sys.argv[3],
+                             password=sys.argv[4], authSource=sys.argv[2])
+    else:
+        client = MongoClient(sys.argv[1])
+    db = client[sys.argv[2]]
+
+    start = time.time()
+    objects = 0
+    count = 0
+    objs = []
+    cur = db[COL_OBJS].find({'numver': {'$gt': 0}},
+                            {'_id': 0, 'ws': 1, 'id': 1, 'numver': 1})
+    for o in cur:
+        objects += 1
+        objs.append((o['ws'], o['id'], o['numver']))
+        if len(objs) >= BATCH_SIZE:
+            count += write_info(db, objs)
+            objs = []
+            print('processed {} objects, {} updated, {:.0f}s'.format(
+                objects, count, time.time() - start))
+    if objs:
+        count += write_info(db, objs)
+
+    db[COL_CONFIG].update_one({'config': 'config'},
+                              {'$set': {LATEST_INFO: True}})
+    print('Done. Processed {} objects, {} updated, {:.0f}s'.format(
+        objects, count, time.time() - start))
+    print('Restart the workspace servers to use the latest version information.')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,90 @@
+'''
+Builds the object references collection for a workspace database created
+prior to version 0.12.0, and marks the collection as complete in the
+configuration document.
+
+The object references collection holds one document per reference from an
+object version to another object version, and replaces queries on the
+refs and provrefs arrays of the version collection when finding incoming
+references. Workspace servers >= 0.12.0 maintain the collection on save,
+copy and clone, but only use it for lookups once it's marked as complete.
+
+To upgrade:
+1) Deploy the 0.12.0+ workspace servers.
+2) Run this script. It is safe to run while the servers are handling
+   requests, and safe to rerun if it fails.
+3) Restart the workspace servers.
+
+Usage:
+python build_object_references.py <mongo host:port> <workspace db name> \
+    [<mongo user> <mongo pwd>]
+'''
+from __future__ import print_function
+import sys
+import time
+
+from pymongo import MongoClient, InsertOne
+from pymongo.errors import BulkWriteError
+
+COL_VERS = 'workspaceObjVersions'
+COL_REFS = 'objectReferences'
+COL_CONFIG = 'config'
+
+BATCH_SIZE = 10000
+DUPLICATE_KEY = 11000
+
+
+def write_refs(db, refs):
+    try:
+        db[COL_REFS].bulk_write([InsertOne(r) for r in refs], ordered=False)
+    except BulkWriteError as e:
+        # references saved by a running server or a previous run of this script
+        for err in e.details['writeErrors']:
+            if err['code'] != DUPLICATE_KEY:
+                raise
+
+
+def main():
+    if len(sys.argv) not in (3, 5):
+        print(__doc__)
+        sys.exit(1)
+    if len(sys.argv) == 5:
+        client = MongoClient(sys.argv[1], username=sys.argv[3],
+                             password=sys.argv[4], authSource=sys.argv[2])
+    else:
+        client = MongoClient(sys.argv[1])
+    db = client[sys.argv[2]]
+
+    start = time.time()
+    versions = 0
+    count = 0
+    refs = []
+    cur = db[COL_VERS].find(
+        {'$or': [{'refs.0': {'$exists': True}},
+                 {'provrefs.0': {'$exists': True}}]},
+        {'_id': 0, 'ws': 1, 'id': 1, 'ver': 1, 'refs': 1, 'provrefs': 1})
+    for v in cur:
+        versions += 1
+        for field, prov in (('refs', False), ('provrefs', True)):
+            for target in set(v.get(field) or []):
+                refs.append({'tgt': target, 'ws': v['ws'], 'id': v['id'],
+                             'ver': v['ver'], 'prov': prov})
+        if len(refs) >= BATCH_SIZE:
+            write_refs(db, refs)
+            count += len(refs)
+            refs = []
+            print('processed {} versions, {} references, {:.0f}s'.format(
+                versions, count, time.time() - start))
+    if refs:
+        write_refs(db, refs)
+        count += len(refs)
+
+    db[COL_CONFIG].update_one({'config': 'config'},
+                              {'$set': {'refindex': True}})
+    print('Done. Processed {} versions, {} references, {:.0f}s'.format(
+        versions, count, time.time() - start))
+    print('Restart the workspace servers to use the object references collection.')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,105 @@
+package us.kbase.workspace.performance.idref;
+
+import static us.kbase.workspace.performance.utils.Utils.printElapse;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import us.kbase.typedobj.idref.AssociatedIdIndex;
+
+/** Measures the heap used per tracked ID by the nested boxed collections previously used to track
+ * IDs in ID handlers versus {@link AssociatedIdIndex}.
+ *
+ * The simulated save is a batch of objects at the maximum unique ID count per call, where each
+ * object references IDs (e.g. features referencing contigs) that are shared with other objects,
+ * and each ID has an @id ws type restriction attribute.
+ *
+ * Run with a fixed heap, e.g. -Xms2g -Xmx2g, so that GC heuristics don't skew the results.
+ */
+public class IdTrackingMemory {
+
+	private static final int OBJECTS = 1000;
+	private static final int IDS_PER_OBJECT = 100; // 100k IDs, the default maximum per call
+	private static final int DISTINCT_IDS = 20000;
+	private static final List<String> ATTRIBUTES = Arrays.asList("KBaseGenomes.Contig");
+	private static final int ITERS = 5;
+	
+	// keeps the built structures reachable during the measurement
+	private static volatile Object sink;
+
+	public static void main(final String[] args) throws Exception {
+		for (int i = 0; i < ITERS; i++) {
+			measure("Nested maps", () -> buildNestedMaps());
+			measure("AssociatedIdIndex", () -> buildIndex());
+		}
+	}
+
+	private static String id(final int obj, final int idnum) {
+		// new string instances for every ID, as when IDs are parsed from JSON
+		return new String("12345/" + ((obj * 37 + idnum) % DISTINCT_IDS) + "/1");
+	}
+
+	private static Object buildNestedMaps() {
+		final Map<Integer, Map<String, Set<List<String>>>> ids = new HashMap<>();
+		for (int obj = 0; obj < OBJECTS; obj++) {
+			final Map<String, Set<List<String>>> objids = new HashMap<>();
+			ids.put(obj, objids);
+			for (int idnum = 0; idnum < IDS_PER_OBJECT; idnum++) {
+				final String id = id(obj, idnum);
+				if (!objids.containsKey(id)) {
+					objids.put(id, new HashSet<>());
+				}
+				objids.get(id).add(ATTRIBUTES);
+			}
+		}
+		final Map<String, String> remapped = new HashMap<>();
+		for (final Map<String, Set<List<String>>> objids: ids.values()) {
+			for (final String id: objids.keySet()) {
+				remapped.put(id, id);
+			}
+		}
+		return Arrays.asList(ids, remapped);
+	}
+
+	private static Object buildIndex() {
+		final AssociatedIdIndex<Integer> ids = new AssociatedIdIndex<>();
+		for (int obj = 0; obj < OBJECTS; obj++) {
+			for (int idnum = 0; idnum < IDS_PER_OBJECT; idnum++) {
+				ids.add(obj, id(obj, idnum), ATTRIBUTES);
+			}
+		}
+		final String[] remapped = new String[ids.getIdCount()];
+		for (int i = 0; i < remapped.length; i++) {
+			remapped[i] = ids.getIds().get(i);
+		}
+		return Arrays.asList(ids, remapped);
+	}
+
+	private interface Builder {
+		Object build();
+	}
+
+	private static void measure(final String name, final Builder b) {
+		final long before = usedMemory();
+		final long start = System.nanoTime();
+		sink = b.build();
+		printElapse(name, start);
+		final long after = usedMemory();
+		System.out.println(String.format("%s: %s bytes per tracked ID",
+				name, (after - before) / (OBJECTS * IDS_PER_OBJECT)));
+		sink = null;
+	}
+
+	private static long usedMemory() {
+		final Runtime r = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return r.totalMemory() - r.freeMemory();
+	}
+
+}
@@ -0,0 +1,119 @@
+package us.kbase.workspace.performance.workspace;
+
+import static us.kbase.workspace.performance.utils.Utils.printElapse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.WorkspaceInformation;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.WorkspaceUserMetadata;
+import us.kbase.workspace.database.mongo.GridFSBlobStore;
+import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+
+/** Times cloning a workspace containing 100,000 object versions with
+ * {@link MongoWorkspaceDB#cloneWorkspace}, both copying and sharing the versions, and the time
+ * to copy the shared versions into the clone. The source workspace's object and version documents
+ * are written directly to the database, as the clone never reads the object data. Every version
+ * references the first version of the previous object so reference counts are updated.
+ *
+ * The database is dropped and reseeded on every run. Usage:
+ *
+ * CloneWorkspaceTiming [mongo host:port]
+ */
+public class CloneWorkspaceTiming {
+
+	private static final String DB_NAME = "ws_perf_clone";
+
+	private static final int OBJECTS = 20000;
+	private static final int VERSIONS_PER_OBJECT = 5;
+	private static final int ITERS = 3;
+	private static final String CHKSUM = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+	private static final WorkspaceUser USER = new WorkspaceUser("user");
+
+	public static void main(final String[] args) throws Exception {
+		final MongoClient mc = new MongoClient(args.length > 0 ? args[0] : "localhost");
+		final DB db = mc.getDB(DB_NAME);
+		db.dropDatabase();
+		final TempFilesManager tfm = new TempFilesManager(new File("temp_clonews"));
+		final MongoWorkspaceDB mws = new MongoWorkspaceDB(db, new GridFSBlobStore(db), tfm);
+
+		mws.createWorkspace(USER, "source", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID rwsi = mws.resolveWorkspace(new WorkspaceIdentifier("source"));
+		seed(db, rwsi.getID());
+
+		for (final boolean share: Arrays.asList(false, true)) {
+			for (int i = 0; i < ITERS; i++) {
+				final String name = (share ? "shared" : "clone") + i;
+				final long start = System.nanoTime();
+				final WorkspaceInformation wsi = mws.cloneWorkspace(USER, rwsi, name, false,
+						null, new WorkspaceUserMetadata(), Collections.emptySet(), share);
+				final double elapsed = printElapse(name, start);
+				System.out.println(String.format("Cloned %s objects, %.0f versions/s",
+						wsi.getMaximumObjectID(), OBJECTS * VERSIONS_PER_OBJECT / elapsed));
+			}
+		}
+		// cloning a workspace with shared versions copies the versions into it first
+		final long start = System.nanoTime();
+		mws.cloneWorkspace(USER, mws.resolveWorkspace(new WorkspaceIdentifier("shared0")),
+				"fromshared", false, null, new WorkspaceUserMetadata(), Collections.emptySet(),
+				true);
+		printElapse("copy shared versions and clone", start);
+		mc.close();
+	}
+
+	private static void seed(final DB db, final long wsid) {
+		final long start = System.nanoTime();
+		final ObjectId prov = new ObjectId();
+		final Date now = new Date();
+		for (int batch = 0; batch < OBJECTS; batch += 1000) {
+			final List<DBObject> objs = new ArrayList<>();
+			final List<DBObject> vers = new ArrayList<>();
+			for (long id = batch + 1; id <= batch + 1000; id++) {
+				final List<String> refs = id == 1 ? Collections.emptyList() :
+						Arrays.asList(wsid + "/" + (id - 1) + "/1");
+				DBObject latest = null;
+				for (int ver = 1; ver <= VERSIONS_PER_OBJECT; ver++) {
+					latest = new BasicDBObject("ws", wsid).append("id", id).append("ver", ver)
+							.append("type", "Mod.Type-1.0").append("chksum", CHKSUM)
+							.append("size", 22L).append("provenance", prov)
+							.append("refs", refs).append("provrefs", Collections.emptyList())
+							.append("meta", Collections.emptyList())
+							.append("extids", Collections.emptyMap())
+							.append("savedate", now).append("savedby", USER.getUser())
+							.append("revert", null).append("copied", null);
+					vers.add(latest);
+				}
+				objs.add(new BasicDBObject("ws", wsid).append("id", id).append("name", "obj" + id)
+						.append("numver", VERSIONS_PER_OBJECT)
+						.append("refcnt", Collections.nCopies(VERSIONS_PER_OBJECT, 0))
+						.append("del", false).append("hide", false).append("latest", null)
+						.append("moddate", now)
+						.append("latestinfo", new BasicDBObject("ver", VERSIONS_PER_OBJECT)
+								.append("type", "Mod.Type-1.0").append("savedate", now)
+								.append("savedby", USER.getUser())
+								.append("chksum", CHKSUM).append("size", 22L)
+								.append("meta", Collections.emptyList())));
+			}
+			db.getCollection("workspaceObjVersions").insert(vers);
+			db.getCollection("workspaceObjects").insert(objs);
+		}
+		printElapse(String.format("Seeded %s objects with %s versions",
+				OBJECTS, OBJECTS * VERSIONS_PER_OBJECT), start);
+	}
+}
@@ -5,6 +5,7 @@ import static us.kbase.workspace.performance.utils.Utils.printElapse;
 import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -70,7 +71,8 @@ public class GetObjectsMongoWSDB {
 			
 			final long preiter = System.nanoTime();
 			final Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> res =
-					mws.getObjects(objs, man, 0, true, false, true);
+					mws.getObjects(objs, man, 0, true, false, true,
+							Collections.emptySet());
 			for (final Map<SubsetSelection, WorkspaceObjectData> ss2wos: res.values()) {
 				for (final WorkspaceObjectData wos: ss2wos.values()) {
 					wos.destroy();
@@ -0,0 +1,116 @@
+package us.kbase.workspace.performance.workspace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.workspace.database.mongo.WorkspaceQueryExecutor;
+import us.kbase.workspace.database.mongo.WorkspaceQueryExecutor.Strategy;
+
+/** Times the $or and concurrent per-workspace query strategies of
+ * {@link WorkspaceQueryExecutor} against a seeded local MongoDB, for a range of workspace counts
+ * and object counts per workspace. Use the results to set the executor's thresholds.
+ *
+ * The database is dropped and reseeded on every run. Usage:
+ *
+ * QueryStrategyTiming [mongo host:port]
+ */
+public class QueryStrategyTiming {
+
+	private static final String DB_NAME = "ws_perf_query_strategy";
+	private static final String COL = "workspaceObjects";
+
+	private static final int WORKSPACES = 1000;
+	private static final int OBJECTS_PER_WS = 100;
+	private static final int ITERS = 20;
+
+	private static final List<Integer> WS_COUNTS = Arrays.asList(1, 2, 5, 10, 20, 50, 100, 500);
+	private static final List<Integer> IDS_PER_WS = Arrays.asList(1, 10, 100);
+
+	private static final Set<String> FIELDS = new HashSet<>(Arrays.asList(
+			"ws", "id", "name", "numver", "del", "hide"));
+
+	public static void main(final String[] args) throws Exception {
+		final MongoClient mc = new MongoClient(args.length > 0 ? args[0] : "localhost");
+		final DB db = mc.getDB(DB_NAME);
+		seed(db);
+
+		final WorkspaceQueryExecutor exec = new WorkspaceQueryExecutor(db);
+		final Random rand = new Random(42);
+		System.out.println("workspaces\tids/ws\tor_ms\tconcurrent_ms\tchosen");
+		for (final int wsCount: WS_COUNTS) {
+			for (final int idsPerWS: IDS_PER_WS) {
+				final List<DBObject> clauses = buildClauses(rand, wsCount, idsPerWS);
+				final double or = time(exec, clauses, Strategy.OR);
+				final double conc = time(exec, clauses, Strategy.CONCURRENT);
+				System.out.println(String.format("%s\t%s\t%.3f\t%.3f\t%s", wsCount, idsPerWS,
+						or, conc, exec.chooseStrategy(wsCount, wsCount * idsPerWS)));
+			}
+		}
+		mc.close();
+	}
+
+	private static void seed(final DB db) {
+		db.dropDatabase();
+		final DBCollection col = db.getCollection(COL);
+		col.createIndex(new BasicDBObject("ws", 1).append("id", 1),
+				new BasicDBObject("unique", 1));
+		col.createIndex(new BasicDBObject("ws", 1).append("name", 1),
+				new BasicDBObject("unique", 1));
+		final long start = System.nanoTime();
+		for (long ws = 1; ws <= WORKSPACES; ws++) {
+			final List<DBObject> docs = new ArrayList<>();
+			for (long id = 1; id <= OBJECTS_PER_WS; id++) {
+				docs.add(new BasicDBObject("ws", ws).append("id", id)
+						.append("name", "obj" + id).append("numver", 1)
+						.append("del", false).append("hide", false));
+			}
+			col.insert(docs);
+		}
+		System.out.println(String.format("Seeded %s objects in %.1fs",
+				WORKSPACES * OBJECTS_PER_WS, (System.nanoTime() - start) / 1000000000.0));
+	}
+
+	private static List<DBObject> buildClauses(
+			final Random rand,
+			final int wsCount,
+			final int idsPerWS) {
+		final Set<Long> wsids = new HashSet<>();
+		while (wsids.size() < wsCount) {
+			wsids.add((long) rand.nextInt(WORKSPACES) + 1);
+		}
+		final List<DBObject> clauses = new ArrayList<>();
+		for (final long ws: wsids) {
+			final Set<Long> ids = new HashSet<>();
+			while (ids.size() < idsPerWS) {
+				ids.add((long) rand.nextInt(OBJECTS_PER_WS) + 1);
+			}
+			clauses.add(new BasicDBObject("ws", ws).append("id", new BasicDBObject("$in", ids))
+					.append("numver", new BasicDBObject("$gt", 0)));
+		}
+		return clauses;
+	}
+
+	// returns the mean time in ms
+	private static double time(
+			final WorkspaceQueryExecutor exec,
+			final List<DBObject> clauses,
+			final Strategy strategy)
+			throws Exception {
+		exec.query(COL, clauses, FIELDS, strategy); // warm up
+		final long start = System.nanoTime();
+		for (int i = 0; i < ITERS; i++) {
+			exec.query(COL, clauses, FIELDS, strategy);
+		}
+		return (System.nanoTime() - start) / 1000000.0 / ITERS;
+	}
+}
@@ -0,0 +1,151 @@
+package us.kbase.workspace.performance.workspace;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.workspace.kbase.ResponseEncodingHandler;
+
+/** Compares the size, server side transcoding time, and client side decode time of
+ * get_objects2 responses encoded as JSON and as each binary format offered by
+ * {@link ResponseEncodingHandler}. The responses contain objects shaped like expression matrices
+ * (large arrays of floats) and assemblies (long sequence strings with numeric statistics).
+ * Only the formats whose Jackson data format jars are on the classpath are timed.
+ *
+ * The transcode time is the server CPU a binary response costs on top of generating the JSON,
+ * since the servlet's JSON is parsed again and written in the binary format.
+ *
+ * Usage:
+ *
+ * ResponseEncodingTiming
+ */
+public class ResponseEncodingTiming {
+
+	private static final int ITERS = 10;
+
+	private static final int GENES = 20000;
+	private static final int CONDITIONS = 50;
+	private static final int CONTIGS = 200;
+	private static final int CONTIG_LENGTH = 50000;
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, JsonFactory> factories = new LinkedHashMap<>();
+		factories.put("application/json", new JsonFactory());
+		factories.putAll(ResponseEncodingHandler.getAvailableFactories());
+		final Map<String, Object> data = new LinkedHashMap<>();
+		data.put("ExpressionMatrix", response(expressionMatrix()));
+		data.put("Assembly", response(assembly()));
+
+		System.out.println("type\tformat\tbytes\ttranscode_ms\tdecode_ms");
+		for (final String type: data.keySet()) {
+			final byte[] json = new ObjectMapper().writeValueAsBytes(data.get(type));
+			for (final String format: factories.keySet()) {
+				final JsonFactory fac = factories.get(format);
+				byte[] encoded = null;
+				long transcode = 0;
+				long decode = 0;
+				for (int i = 0; i < ITERS; i++) {
+					long start = System.nanoTime();
+					encoded = transcode(json, fac);
+					transcode += System.nanoTime() - start;
+					start = System.nanoTime();
+					new ObjectMapper(fac).readTree(encoded);
+					decode += System.nanoTime() - start;
+				}
+				System.out.println(String.format("%s\t%s\t%s\t%.1f\t%.1f", type, format,
+						encoded.length, transcode / ITERS / 1000000.0,
+						decode / ITERS / 1000000.0));
+			}
+		}
+	}
+
+	// the same token copy the handler performs, without the servlet
+	private static byte[] transcode(final byte[] json, final JsonFactory fac) throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (final JsonParser p = new JsonFactory().createParser(json);
+				final JsonGenerator g = fac.createGenerator(out)) {
+			while (p.nextToken() != null) {
+				g.copyCurrentEvent(p);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static Map<String, Object> response(final Map<String, Object> data) {
+		final Map<String, Object> obj = new HashMap<>();
+		obj.put("data", data);
+		obj.put("info", Arrays.asList(1, "obj", "Mod.Type-1.0", "2021-01-01T00:00:00+0000", 1,
+				"user", 1, "ws", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", 1000, new HashMap<>()));
+		obj.put("provenance", new ArrayList<>());
+		obj.put("refs", new ArrayList<>());
+		final Map<String, Object> ret = new HashMap<>();
+		ret.put("version", "1.1");
+		ret.put("id", "12345");
+		ret.put("result", Arrays.asList(
+				Collections.singletonMap("data", Arrays.asList(obj))));
+		return ret;
+	}
+
+	private static Map<String, Object> expressionMatrix() {
+		final Random r = new Random(42);
+		final List<String> rows = new ArrayList<>();
+		final List<List<Double>> values = new ArrayList<>();
+		for (int g = 0; g < GENES; g++) {
+			rows.add("gene_" + g);
+			final List<Double> row = new ArrayList<>();
+			for (int c = 0; c < CONDITIONS; c++) {
+				row.add(r.nextGaussian() * 10);
+			}
+			values.add(row);
+		}
+		final List<String> cols = new ArrayList<>();
+		for (int c = 0; c < CONDITIONS; c++) {
+			cols.add("condition_" + c);
+		}
+		final Map<String, Object> matrix = new HashMap<>();
+		matrix.put("row_ids", rows);
+		matrix.put("col_ids", cols);
+		matrix.put("values", values);
+		final Map<String, Object> ret = new HashMap<>();
+		ret.put("type", "log2 level");
+		ret.put("scale", "log2");
+		ret.put("data", matrix);
+		return ret;
+	}
+
+	private static Map<String, Object> assembly() {
+		final Random r = new Random(42);
+		final char[] bases = {'A', 'C', 'G', 'T'};
+		final Map<String, Object> contigs = new HashMap<>();
+		for (int c = 0; c < CONTIGS; c++) {
+			final StringBuilder seq = new StringBuilder();
+			for (int i = 0; i < CONTIG_LENGTH; i++) {
+				seq.append(bases[r.nextInt(4)]);
+			}
+			final Map<String, Object> contig = new HashMap<>();
+			contig.put("contig_id", "contig_" + c);
+			contig.put("length", CONTIG_LENGTH);
+			contig.put("gc_content", r.nextDouble());
+			contig.put("md5", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+			contig.put("sequence", seq.toString());
+			contigs.put("contig_" + c, contig);
+		}
+		final Map<String, Object> ret = new HashMap<>();
+		ret.put("assembly_id", "assembly");
+		ret.put("num_contigs", CONTIGS);
+		ret.put("dna_size", CONTIGS * CONTIG_LENGTH);
+		ret.put("contigs", contigs);
+		return ret;
+	}
+}
@@ -0,0 +1,181 @@
+package us.kbase.workspace.performance.workspace;
+
+import static us.kbase.workspace.performance.utils.Utils.printElapse;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import com.mongodb.DB;
+
+import us.kbase.common.mongo.GetMongoDB;
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.typedobj.core.AbsoluteTypeDefId;
+import us.kbase.typedobj.core.LocalTypeProvider;
+import us.kbase.typedobj.core.TempFilesManager;
+import us.kbase.typedobj.core.TypeDefName;
+import us.kbase.typedobj.core.TypedObjectValidator;
+import us.kbase.typedobj.db.MongoTypeStorage;
+import us.kbase.typedobj.db.TypeDefinitionDB;
+import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
+import us.kbase.typedobj.idref.IdReferenceHandlerSetFactoryBuilder;
+import us.kbase.workspace.database.ObjectIDNoWSNoVer;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
+import us.kbase.workspace.database.Types;
+import us.kbase.workspace.database.Workspace;
+import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.WorkspaceSaveObject;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.mongo.GridFSBlobStore;
+import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.test.WorkspaceTestCommon;
+
+/** Times saving a batch of objects that all reference the same assembly, and counts the
+ * workspace database calls made during the save. Workspace references are resolved and type
+ * checked for the batch as a whole, so the number of calls should not depend on the number of
+ * objects.
+ */
+public class SaveObjectsWithSharedReference {
+
+	private static final int TEST_REPS = 5;
+	private static final int OBJECT_COUNT = 1000;
+
+	private static final String MONGO_EXE = "/kb/runtime/bin/mongod";
+	private static final String TEMP_DIR = "SaveObjectsWithSharedReference_temp";
+	private static final boolean USE_WIRED_TIGER = false;
+
+	private static final String MOD_NAME_STR = "TestModule";
+	private static final String ASSEMBLY_TYPE_STR = "Assembly";
+	private static final String GENOME_TYPE_STR = "Genome";
+
+	private static final String DB_WS = "SaveObjectsWithSharedReference";
+	private static final String DB_TYPES = DB_WS + "_types";
+
+	private static final AbsoluteTypeDefId ASSEMBLY_TYPE = new AbsoluteTypeDefId(
+			new TypeDefName(MOD_NAME_STR, ASSEMBLY_TYPE_STR), 1, 0);
+	private static final AbsoluteTypeDefId GENOME_TYPE = new AbsoluteTypeDefId(
+			new TypeDefName(MOD_NAME_STR, GENOME_TYPE_STR), 1, 0);
+
+	// method name -> call count
+	private static final Map<String, Integer> DB_CALLS = new TreeMap<>();
+
+	public static void main(final String[] args) throws Exception {
+		final Logger rootLogger = ((Logger) LoggerFactory.getLogger(
+				org.slf4j.Logger.ROOT_LOGGER_NAME));
+		rootLogger.setLevel(Level.OFF);
+
+		final MongoController mongo = new MongoController(
+				MONGO_EXE,
+				Paths.get(TEMP_DIR),
+				USE_WIRED_TIGER);
+		System.out.println("Using Mongo temp dir " + mongo.getTempDir());
+		final DB wsdb = GetMongoDB.getDB("localhost:" + mongo.getServerPort(), DB_WS);
+		WorkspaceTestCommon.destroyWSandTypeDBs(wsdb, DB_TYPES);
+
+		final TempFilesManager tfm = new TempFilesManager(new File(TEMP_DIR));
+		tfm.cleanup();
+
+		final TypeDefinitionDB typeDB = new TypeDefinitionDB(new MongoTypeStorage(
+				GetMongoDB.getDB("localhost:" + mongo.getServerPort(), DB_TYPES)));
+		final TypedObjectValidator val = new TypedObjectValidator(new LocalTypeProvider(typeDB));
+		final WorkspaceDatabase db = countCalls(
+				new MongoWorkspaceDB(wsdb, new GridFSBlobStore(wsdb), tfm));
+
+		final Workspace ws = new Workspace(db, new ResourceUsageConfigurationBuilder().build(), val);
+		installTypes(new Types(typeDB));
+		try {
+			run(ws);
+		} finally {
+			TestCommon.destroyDB(wsdb);
+			tfm.cleanup();
+			mongo.destroy(true);
+		}
+	}
+
+	private static WorkspaceDatabase countCalls(final WorkspaceDatabase db) {
+		return (WorkspaceDatabase) Proxy.newProxyInstance(
+				WorkspaceDatabase.class.getClassLoader(),
+				new Class<?>[] {WorkspaceDatabase.class},
+				(proxy, method, args) -> {
+					DB_CALLS.merge(method.getName(), 1, Integer::sum);
+					try {
+						return method.invoke(db, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	private static void installTypes(final Types types) throws Exception {
+		final WorkspaceUser foo = new WorkspaceUser("foo");
+		types.requestModuleRegistration(foo, MOD_NAME_STR);
+		types.resolveModuleRegistration(MOD_NAME_STR, true);
+		types.compileNewTypeSpec(foo,
+				"module " + MOD_NAME_STR + " {" +
+					"typedef structure {" +
+						"string contigs;" +
+					"} " + ASSEMBLY_TYPE_STR + ";" +
+					"/* @id ws " + MOD_NAME_STR + "." + ASSEMBLY_TYPE_STR + " */" +
+					"typedef string assembly_ref;" +
+					"typedef structure {" +
+						"assembly_ref assembly;" +
+						"list<assembly_ref> other_assemblies;" +
+					"} " + GENOME_TYPE_STR + ";" +
+				"};",
+				Arrays.asList(ASSEMBLY_TYPE_STR, GENOME_TYPE_STR), null, null, false, null);
+		types.releaseTypes(foo, MOD_NAME_STR);
+	}
+
+	private static void run(final Workspace ws) throws Exception {
+		final WorkspaceUser user = new WorkspaceUser("u1");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("sharedref");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		final IdReferenceHandlerSetFactory fac = IdReferenceHandlerSetFactoryBuilder
+				.getBuilder(100000).build().getFactory(null);
+		final Provenance p = new Provenance(user);
+		final Map<String, String> assembly = new HashMap<>();
+		assembly.put("contigs", "ACGT");
+		final ObjectInformation oi = ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("assembly"), assembly,
+						ASSEMBLY_TYPE, null, p, false)), fac).get(0);
+
+		// reference the assembly in each of the ways a user might
+		final List<String> refs = Arrays.asList(
+				oi.getWorkspaceId() + "/" + oi.getObjectId() + "/" + oi.getVersion(),
+				oi.getWorkspaceId() + "/" + oi.getObjectId(),
+				wsi.getName() + "/" + oi.getObjectName());
+
+		final List<WorkspaceSaveObject> objs = new LinkedList<>();
+		for (int i = 0; i < OBJECT_COUNT; i++) {
+			final Map<String, Object> genome = new HashMap<>();
+			genome.put("assembly", refs.get(i % refs.size()));
+			genome.put("other_assemblies", refs);
+			objs.add(new WorkspaceSaveObject(new ObjectIDNoWSNoVer("genome" + i), genome,
+					GENOME_TYPE, null, p, false));
+		}
+		for (int i = 0; i < TEST_REPS; i++) {
+			DB_CALLS.clear();
+			final long start = System.nanoTime();
+			ws.saveObjects(user, wsi, objs, IdReferenceHandlerSetFactoryBuilder
+					.getBuilder(100000).build().getFactory(null));
+			printElapse("Save " + OBJECT_COUNT + " objects referencing one assembly", start);
+			System.out.println("Workspace database calls: " + DB_CALLS);
+		}
+	}
+}
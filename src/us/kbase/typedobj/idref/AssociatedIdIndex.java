@@ -0,0 +1,251 @@
+package us.kbase.typedobj.idref;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandler;
+
+/** A compact index of IDs, the objects with which they are associated, and their attributes,
+ * for use in {@link IdReferenceHandler} implementations.
+ *
+ * A save may contain up to hundreds of thousands of IDs, and storing them in nested boxed
+ * collections (e.g. a map of associated object to a set of IDs) costs several objects per ID.
+ * This index instead stores each associated object, distinct ID string, and distinct attribute
+ * list once and assigns each an integer index. Associations are stored as packed
+ * (object index, ID index) pairs in a primitive open addressing hash table, and the IDs for each
+ * associated object are stored in an int array.
+ *
+ * Associated objects and IDs are returned in the order they were first added.
+ *
+ * Not thread safe.
+ * @param <T> the type of the objects associated with the IDs.
+ */
+public class AssociatedIdIndex<T> {
+
+	private static final int NO_ATTRIBUTES = -1;
+	private static final int MISSING = Integer.MIN_VALUE;
+	private static final int INITIAL_ARRAY_SIZE = 8;
+
+	private final ObjectIntHashMap<T> assocIndex = new ObjectIntHashMap<>();
+	private final List<T> assocs = new ArrayList<>();
+	// the indexes of the IDs associated with each object, in insertion order
+	private int[][] assocIDs = new int[INITIAL_ARRAY_SIZE][];
+	private int[] assocIDCounts = new int[INITIAL_ARRAY_SIZE];
+
+	private final ObjectIntHashMap<String> idIndex = new ObjectIntHashMap<>();
+	private final List<String> ids = new ArrayList<>();
+	// the index of the first object with which each ID was associated
+	private int[] idFirstAssoc = new int[INITIAL_ARRAY_SIZE];
+
+	// packed (object index, ID index) pair -> head of the pair's attribute chain, or NO_ATTRIBUTES
+	private final LongIntHashMap pairs = new LongIntHashMap();
+
+	private final ObjectIntHashMap<List<String>> attribIndex = new ObjectIntHashMap<>();
+	private final List<List<String>> attribs = new ArrayList<>();
+	// linked lists of attribute list indexes for each pair
+	private int[] chainAttrib = new int[INITIAL_ARRAY_SIZE];
+	private int[] chainNext = new int[INITIAL_ARRAY_SIZE];
+	private int chainSize = 0;
+
+	/** Add an ID to the index.
+	 * @param associatedObject the object associated with the ID.
+	 * @param id the ID.
+	 * @return true if the ID was not previously associated with the object.
+	 */
+	public boolean add(final T associatedObject, final String id) {
+		return add(associatedObject, id, null);
+	}
+
+	/** Add an ID and its attributes to the index. Null or empty attribute lists are ignored.
+	 *
+	 * Note that the attribute list is stored as is, so modifying the list will modify the
+	 * contents of the index.
+	 * @param associatedObject the object associated with the ID.
+	 * @param id the ID.
+	 * @param attributes the attributes of the ID.
+	 * @return true if the ID was not previously associated with the object.
+	 */
+	public boolean add(
+			final T associatedObject,
+			final String id,
+			final List<String> attributes) {
+		if (associatedObject == null || id == null) {
+			throw new NullPointerException("associatedObject and id cannot be null");
+		}
+		final int assoc = getOrAddAssociatedObject(associatedObject);
+		final int idx = getOrAddID(id, assoc);
+		final long pair = pair(assoc, idx);
+		int chain = pairs.get(pair, MISSING);
+		final boolean unique = chain == MISSING;
+		if (unique) {
+			chain = NO_ATTRIBUTES;
+			assocIDs[assoc] = append(assocIDs[assoc], assocIDCounts[assoc]++, idx);
+		}
+		if (attributes != null && !attributes.isEmpty()) {
+			final int attrib = getOrAddAttributes(attributes);
+			if (!chainContains(chain, attrib)) {
+				if (chainSize == chainAttrib.length) {
+					chainAttrib = Arrays.copyOf(chainAttrib, chainSize * 2);
+					chainNext = Arrays.copyOf(chainNext, chainSize * 2);
+				}
+				chainAttrib[chainSize] = attrib;
+				chainNext[chainSize] = chain;
+				chain = chainSize++;
+			}
+		}
+		pairs.put(pair, chain);
+		return unique;
+	}
+
+	private static long pair(final int assoc, final int id) {
+		return ((long) assoc << 32) | id;
+	}
+
+	private static int[] append(int[] array, final int index, final int value) {
+		if (array == null) {
+			array = new int[2];
+		} else if (index == array.length) {
+			array = Arrays.copyOf(array, array.length * 2);
+		}
+		array[index] = value;
+		return array;
+	}
+
+	private int getOrAddAssociatedObject(final T associatedObject) {
+		int assoc = assocIndex.get(associatedObject);
+		if (assoc == ObjectIntHashMap.NO_VALUE) {
+			assoc = assocs.size();
+			assocs.add(associatedObject);
+			assocIndex.put(associatedObject, assoc);
+			if (assoc == assocIDs.length) {
+				assocIDs = Arrays.copyOf(assocIDs, assoc * 2);
+				assocIDCounts = Arrays.copyOf(assocIDCounts, assoc * 2);
+			}
+		}
+		return assoc;
+	}
+
+	private int getOrAddID(final String id, final int assoc) {
+		int idx = idIndex.get(id);
+		if (idx == ObjectIntHashMap.NO_VALUE) {
+			idx = ids.size();
+			ids.add(id);
+			idIndex.put(id, idx);
+			idFirstAssoc = append(idFirstAssoc, idx, assoc);
+		}
+		return idx;
+	}
+
+	private int getOrAddAttributes(final List<String> attributes) {
+		int attrib = attribIndex.get(attributes);
+		if (attrib == ObjectIntHashMap.NO_VALUE) {
+			attrib = attribs.size();
+			attribs.add(attributes);
+			attribIndex.put(attributes, attrib);
+		}
+		return attrib;
+	}
+
+	private boolean chainContains(int chain, final int attrib) {
+		for (; chain != NO_ATTRIBUTES; chain = chainNext[chain]) {
+			if (chainAttrib[chain] == attrib) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Get the number of unique (associated object, ID) pairs in the index.
+	 * @return the number of pairs.
+	 */
+	public int size() {
+		return pairs.size();
+	}
+
+	/** Check if the index is empty.
+	 * @return true if no IDs have been added to the index.
+	 */
+	public boolean isEmpty() {
+		return ids.isEmpty();
+	}
+
+	/** Get the number of distinct IDs in the index.
+	 * @return the number of IDs.
+	 */
+	public int getIdCount() {
+		return ids.size();
+	}
+
+	/** Get the distinct IDs in the index. The position of each ID in the list is its index -
+	 * see {@link #indexOf(String)}.
+	 * @return the IDs.
+	 */
+	public List<String> getIds() {
+		return Collections.unmodifiableList(ids);
+	}
+
+	/** Get the index of an ID. The indexes of the IDs are the integers from 0 to
+	 * {@link #getIdCount()} - 1, allowing callers to store per ID data in arrays.
+	 * @param id the ID.
+	 * @return the index of the ID, or -1 if the ID is not in the index.
+	 */
+	public int indexOf(final String id) {
+		return idIndex.get(id);
+	}
+
+	/** Get the objects with which IDs are associated.
+	 * @return the associated objects.
+	 */
+	public List<T> getAssociatedObjects() {
+		return Collections.unmodifiableList(assocs);
+	}
+
+	/** Get the first object with which an ID was associated.
+	 * @param id the ID.
+	 * @return the associated object, or null if the ID is not in the index.
+	 */
+	public T getFirstAssociatedObject(final String id) {
+		final int idx = idIndex.get(id);
+		return idx == ObjectIntHashMap.NO_VALUE ? null : assocs.get(idFirstAssoc[idx]);
+	}
+
+	/** Get the IDs associated with an object.
+	 * @param associatedObject the object.
+	 * @return the IDs associated with the object. The list is empty if there are no
+	 * associated IDs.
+	 */
+	public List<String> getIds(final T associatedObject) {
+		final int assoc = assocIndex.get(associatedObject);
+		if (assoc == ObjectIntHashMap.NO_VALUE) {
+			return Collections.emptyList();
+		}
+		final List<String> ret = new ArrayList<>(assocIDCounts[assoc]);
+		for (int i = 0; i < assocIDCounts[assoc]; i++) {
+			ret.add(ids.get(assocIDs[assoc][i]));
+		}
+		return ret;
+	}
+
+	/** Get the distinct attribute lists for an ID associated with an object.
+	 * @param associatedObject the object.
+	 * @param id the ID.
+	 * @return the attribute lists. The list is empty if there are no attributes for the ID or
+	 * the ID is not associated with the object.
+	 */
+	public List<List<String>> getAttributes(final T associatedObject, final String id) {
+		final int assoc = assocIndex.get(associatedObject);
+		final int idx = idIndex.get(id);
+		if (assoc == ObjectIntHashMap.NO_VALUE || idx == ObjectIntHashMap.NO_VALUE) {
+			return Collections.emptyList();
+		}
+		final List<List<String>> ret = new LinkedList<>();
+		for (int chain = pairs.get(pair(assoc, idx), NO_ATTRIBUTES); chain != NO_ATTRIBUTES;
+				chain = chainNext[chain]) {
+			ret.add(0, attribs.get(chainAttrib[chain]));
+		}
+		return ret;
+	}
+}
@@ -5,8 +5,10 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import us.kbase.typedobj.idref.ParallelTaskRunner.Task;
 
 public class IdReferenceHandlerSet<T> {
 	
@@ -19,6 +21,7 @@ public class IdReferenceHandlerSet<T> {
 	private T associated = null;
 	
 	private final Map<IdReferenceType, IdReferenceHandler<T>> handlers;
+	private final ExecutorService executor;
 	
 	/** A handler for typed object IDs. Responsible for checking the
 	 * syntax of the id and its attributes, and remapping IDs if necessary.
@@ -162,9 +165,23 @@ public class IdReferenceHandlerSet<T> {
 	protected IdReferenceHandlerSet(
 			final int maxUniqueIdCount,
 			final Map<IdReferenceType, IdReferenceHandler<T>> handlers) {
+		this(maxUniqueIdCount, handlers, null);
+	}
+	
+	/** Create a handler set.
+	 * @param maxUniqueIdCount the maximum number of unique IDs allowed in the set.
+	 * @param handlers the handlers, mapped by the type of ID they process.
+	 * @param executor an executor used to process the IDs in each handler concurrently. If null,
+	 * the handlers are processed serially in the calling thread.
+	 */
+	protected IdReferenceHandlerSet(
+			final int maxUniqueIdCount,
+			final Map<IdReferenceType, IdReferenceHandler<T>> handlers,
+			final ExecutorService executor) {
 		this.maxUniqueIdCount = maxUniqueIdCount;
 		this.handlers = new HashMap<IdReferenceType, IdReferenceHandler<T>>(
 				handlers);
+		this.executor = executor;
 	}
 
 	/** Returns true if this handler set contains a handler for the ID type
@@ -249,6 +266,11 @@ public class IdReferenceHandlerSet<T> {
 	
 	/** Process all the IDs saved in all the registered handlers and locks
 	 * the handlers. Calling this methond twice will have no effect.
+	 * 
+	 * If the set was created with an executor, the handlers are processed concurrently, and the
+	 * first failure cancels processing in handlers that have not yet completed. If more than
+	 * one handler fails, the exception thrown is the same as that which would be thrown if the
+	 * handlers were processed serially.
 	 * @return this.
 	 * @throws IdReferenceHandlerException if there was an error processing
 	 * the IDs.
@@ -259,10 +281,11 @@ public class IdReferenceHandlerSet<T> {
 			return this;
 		}
 		processed = true;
-		for (final Entry<IdReferenceType, IdReferenceHandler<T>> es:
-				handlers.entrySet()) {
-			es.getValue().processIds();
+		final List<Task<IdReferenceHandlerException>> tasks = new LinkedList<>();
+		for (final IdReferenceHandler<T> h: handlers.values()) {
+			tasks.add(() -> h.processIds());
 		}
+		ParallelTaskRunner.run(executor, tasks);
 		return this;
 	}
 	
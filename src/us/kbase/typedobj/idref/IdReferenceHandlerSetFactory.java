@@ -3,6 +3,7 @@ package us.kbase.typedobj.idref;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 import us.kbase.auth.AuthToken;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandler;
@@ -28,6 +29,7 @@ public class IdReferenceHandlerSetFactory {
 	private final Map<IdReferenceType, IdReferenceHandlerFactory> factories;
 	private final int maxUniqueIdCount;
 	private final AuthToken userToken;
+	private final ExecutorService executor;
 	
 	/** An interface for a factory that creates an ID handler.
 	 * @author gaprice@lbl.gov
@@ -75,16 +77,20 @@ public class IdReferenceHandlerSetFactory {
 	 * may be used to lookup and/or process information in authenticated resources. The token
 	 * may be null in the case where all the registered {@link IdReferenceHandlerFactory}s
 	 * do not require a token.
+	 * @param executor an executor for processing the IDs in each handler concurrently, or null
+	 * to process the handlers serially.
 	 */
 	IdReferenceHandlerSetFactory(
 			final int maxUniqueIdCount,
 			final Map<IdReferenceType, IdReferenceHandlerFactory> factories,
-			final AuthToken userToken) {
+			final AuthToken userToken,
+			final ExecutorService executor) {
 		if (maxUniqueIdCount < 0) {
 			throw new IllegalArgumentException(
 					"maxUniqueIdCount must be at least 0");
 		}
 		this.userToken = userToken;
+		this.executor = executor;
 		this.maxUniqueIdCount = maxUniqueIdCount;
 		this.factories = new HashMap<>(factories);
 	}
@@ -119,7 +125,7 @@ public class IdReferenceHandlerSetFactory {
 		for (final Entry<IdReferenceType, IdReferenceHandlerFactory> e: factories.entrySet()) {
 			handlers.put(e.getKey(), e.getValue().createHandler(clazz, userToken));
 		}
-		return new IdReferenceHandlerSet<T>(maxUniqueIdCount, handlers);
+		return new IdReferenceHandlerSet<T>(maxUniqueIdCount, handlers, executor);
 	}
 	
 }
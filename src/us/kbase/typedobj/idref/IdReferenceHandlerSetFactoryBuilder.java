@@ -4,6 +4,7 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import us.kbase.auth.AuthToken;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandler;
@@ -35,12 +36,15 @@ public class IdReferenceHandlerSetFactoryBuilder {
 	
 	private final Map<IdReferenceType, IdReferenceHandlerFactory> factories;
 	private final int maxUniqueIdCount;
+	private final ExecutorService executor;
 	
 	private IdReferenceHandlerSetFactoryBuilder(
 			final Map<IdReferenceType, IdReferenceHandlerFactory> factories,
-			final int maxUniqueIdCount) {
+			final int maxUniqueIdCount,
+			final ExecutorService executor) {
 		this.factories = factories;
 		this.maxUniqueIdCount = maxUniqueIdCount;
+		this.executor = executor;
 	}
 	
 	// deliberately not implementing hashcode & equals
@@ -53,7 +57,8 @@ public class IdReferenceHandlerSetFactoryBuilder {
 	 * @return a handler factory.
 	 */
 	public IdReferenceHandlerSetFactory getFactory(final AuthToken userToken) {
-		return new IdReferenceHandlerSetFactory(maxUniqueIdCount, factories, userToken);
+		return new IdReferenceHandlerSetFactory(
+				maxUniqueIdCount, factories, userToken, executor);
 	}
 	
 	/** Create a permission handler set that makes data associated with any
@@ -65,7 +70,7 @@ public class IdReferenceHandlerSetFactoryBuilder {
 		for (final IdReferenceType t: factories.keySet()) {
 			handlers.put(t, factories.get(t).createPermissionHandler());
 		}
-		return new IdReferencePermissionHandlerSet(handlers);
+		return new IdReferencePermissionHandlerSet(handlers, executor);
 	}
 	
 	/** Create a permission handler set.
@@ -79,7 +84,7 @@ public class IdReferenceHandlerSetFactoryBuilder {
 		for (final IdReferenceType t: factories.keySet()) {
 			handlers.put(t, factories.get(t).createPermissionHandler(userName));
 		}
-		return new IdReferencePermissionHandlerSet(handlers);
+		return new IdReferencePermissionHandlerSet(handlers, executor);
 	}
 
 	/** Get a builder for a {@link IdReferenceHandlerSetFactoryBuilder}.
@@ -101,6 +106,7 @@ public class IdReferenceHandlerSetFactoryBuilder {
 
 		private final int maxUniqueIdCount;
 		private final Map<IdReferenceType,IdReferenceHandlerFactory> factories = new HashMap<>();
+		private ExecutorService executor = null;
 
 		private Builder(final int maxUniqueIdCount) {
 			if (maxUniqueIdCount < 0) {
@@ -128,11 +134,28 @@ public class IdReferenceHandlerSetFactoryBuilder {
 			return this;
 		}
 		
+		/** Add an executor to the builder. The handler sets produced by the factories created by
+		 * the builder will use the executor to process each type of ID concurrently, for
+		 * example so that contacting several external services does not take the sum of the
+		 * services' latencies. Similarly, permission handler sets will use the executor when
+		 * processing more than one type of ID at once.
+		 * 
+		 * By default, or if the executor is null, handlers are processed serially.
+		 * 
+		 * The executor is not shut down by any of the produced classes.
+		 * @param executor the executor.
+		 * @return this builder.
+		 */
+		public Builder withProcessingExecutor(final ExecutorService executor) {
+			this.executor = executor;
+			return this;
+		}
+		
 		/** Build the factory builder.
 		 * @return the new factory builder.
 		 */
 		public IdReferenceHandlerSetFactoryBuilder build() {
-			return new IdReferenceHandlerSetFactoryBuilder(factories, maxUniqueIdCount);
+			return new IdReferenceHandlerSetFactoryBuilder(factories, maxUniqueIdCount, executor);
 		}
 	}
 	
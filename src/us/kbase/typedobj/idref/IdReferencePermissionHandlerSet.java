@@ -5,8 +5,13 @@ import static us.kbase.workspace.database.Util.checkNoNullsOrEmpties;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import us.kbase.typedobj.idref.ParallelTaskRunner.Task;
 
 /** A set of {@link IdReferencePermissionHandler}s.
  * Created by {@link IdReferenceHandlerSetFactoryBuilder#createPermissionHandler()} or
@@ -17,6 +22,7 @@ import java.util.Set;
 public class IdReferencePermissionHandlerSet {
 	
 	private final Map<IdReferenceType, IdReferencePermissionHandler> handlers;
+	private final ExecutorService executor;
 	
 	/** A handler that modifies permissions on a set of IDs.
 	 * @author gaprice@lbl.gov
@@ -39,8 +45,20 @@ public class IdReferencePermissionHandlerSet {
 	 */
 	protected IdReferencePermissionHandlerSet(
 			final Map<IdReferenceType, IdReferencePermissionHandler> handlers) {
+		this(handlers, null);
+	}
+	
+	/** Create the permission handler set.
+	 * @param handlers the handlers.
+	 * @param executor an executor used to run handlers for different ID types concurrently in
+	 * {@link #addReadPermissions(Map)}. If null, the handlers are run serially.
+	 */
+	protected IdReferencePermissionHandlerSet(
+			final Map<IdReferenceType, IdReferencePermissionHandler> handlers,
+			final ExecutorService executor) {
 		this.handlers = new HashMap<IdReferenceType, IdReferencePermissionHandler>(
 				handlers);
+		this.executor = executor;
 	}
 
 	/** Returns true if this handler set contains a handler for the ID type
@@ -79,6 +97,33 @@ public class IdReferencePermissionHandlerSet {
 		handlers.get(idType).addReadPermission(ids);
 	}
 	
+	/** Add read permission to data associated with sets of IDs of one or more types.
+	 * 
+	 * If this set was created with an executor, the handlers for each type are run
+	 * concurrently and the first failure cancels any handlers that have not yet completed.
+	 * If more than one handler fails, the exception thrown is from the handler for the type
+	 * that occurs first in the iteration order of the map, as if the handlers were run serially.
+	 * @param ids the IDs to modify, mapped by their type.
+	 * @throws IdReferencePermissionHandlerException if an error occurs setting the permissions.
+	 */
+	public void addReadPermissions(final Map<IdReferenceType, ? extends Collection<String>> ids)
+			throws IdReferencePermissionHandlerException {
+		requireNonNull(ids, "ids");
+		final List<Task<IdReferencePermissionHandlerException>> tasks = new LinkedList<>();
+		for (final IdReferenceType idType: ids.keySet()) {
+			if (!hasHandler(idType)) {
+				throw new NoSuchIdReferenceHandlerException(
+						"There is no handler registered for the ID type " + idType.getType());
+			}
+			final Collection<String> typeIDs = ids.get(idType);
+			checkNoNullsOrEmpties(typeIDs, "ids");
+			if (!typeIDs.isEmpty()) {
+				tasks.add(() -> handlers.get(idType).addReadPermission(typeIDs));
+			}
+		}
+		ParallelTaskRunner.run(executor, tasks);
+	}
+	
 	/** A general permission handler exception.
 	 * @author gaprice@lbl.gov
 	 *
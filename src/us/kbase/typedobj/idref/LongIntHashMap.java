@@ -0,0 +1,108 @@
+package us.kbase.typedobj.idref;
+
+import java.util.Arrays;
+
+/** A minimal open addressing hash map from non-negative longs to ints, with no per entry
+ * objects.
+ *
+ * Removal is not supported. Not thread safe.
+ */
+class LongIntHashMap {
+
+	private static final long EMPTY = -1L;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private int size = 0;
+	private int resizeAt;
+
+	/** Create an empty map. */
+	LongIntHashMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		resizeAt = capacity / 2;
+	}
+
+	private static int slot(final long key, final int mask) {
+		// the murmur3 64 bit finalizer
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h & mask;
+	}
+
+	private int find(final long key) {
+		final int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (keys[i] != EMPTY && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/** Get the value associated with a key.
+	 * @param key the key.
+	 * @param missing the value to return if the key is not in the map.
+	 * @return the value, or the missing value if the key is not in the map.
+	 */
+	int get(final long key, final int missing) {
+		final int i = find(key);
+		return keys[i] == EMPTY ? missing : values[i];
+	}
+
+	/** Check whether a key is in the map.
+	 * @param key the key.
+	 * @return true if the key is in the map.
+	 */
+	boolean containsKey(final long key) {
+		return keys[find(key)] != EMPTY;
+	}
+
+	/** Associate a key with a value, replacing any previous value.
+	 * @param key the key. Must be non-negative.
+	 * @param value the value.
+	 */
+	void put(final long key, final int value) {
+		if (key < 0) {
+			throw new IllegalArgumentException("key must be non-negative");
+		}
+		final int i = find(key);
+		values[i] = value;
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			if (++size > resizeAt) {
+				rehash();
+			}
+		}
+	}
+
+	private void rehash() {
+		final long[] oldKeys = keys;
+		final int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != EMPTY) {
+				final int i = find(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/** Get the number of keys in the map.
+	 * @return the size of the map.
+	 */
+	int size() {
+		return size;
+	}
+
+}
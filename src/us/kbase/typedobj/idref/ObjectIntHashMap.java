@@ -0,0 +1,102 @@
+package us.kbase.typedobj.idref;
+
+/** A minimal open addressing hash map from objects to non-negative ints. Compared to a
+ * {@link java.util.HashMap} with boxed values there are no per entry objects, which matters
+ * when interning hundreds of thousands of IDs.
+ *
+ * Null keys and removal are not supported. Not thread safe.
+ * @param <K> the type of the keys.
+ */
+class ObjectIntHashMap<K> {
+
+	/** The value returned by {@link #get(Object)} for keys that are not in the map. */
+	static final int NO_VALUE = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private Object[] keys;
+	private int[] values;
+	private int size = 0;
+	private int resizeAt;
+
+	/** Create an empty map. */
+	ObjectIntHashMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(final int capacity) {
+		keys = new Object[capacity];
+		values = new int[capacity];
+		resizeAt = capacity / 2;
+	}
+
+	private static int slot(final Object key, final int mask) {
+		final int h = key.hashCode() * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/** Get the value associated with a key.
+	 * @param key the key.
+	 * @return the value, or {@link #NO_VALUE} if the key is not in the map.
+	 */
+	int get(final K key) {
+		final int mask = keys.length - 1;
+		for (int i = slot(key, mask); keys[i] != null; i = (i + 1) & mask) {
+			if (keys[i].equals(key)) {
+				return values[i];
+			}
+		}
+		return NO_VALUE;
+	}
+
+	/** Associate a key with a value, replacing any previous value.
+	 * @param key the key.
+	 * @param value the value. Must be non-negative.
+	 */
+	void put(final K key, final int value) {
+		if (key == null) {
+			throw new NullPointerException("key");
+		}
+		if (value < 0) {
+			throw new IllegalArgumentException("value must be non-negative");
+		}
+		final int mask = keys.length - 1;
+		int i = slot(key, mask);
+		for (; keys[i] != null; i = (i + 1) & mask) {
+			if (keys[i].equals(key)) {
+				values[i] = value;
+				return;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > resizeAt) {
+			rehash();
+		}
+	}
+
+	private void rehash() {
+		final Object[] oldKeys = keys;
+		final int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		final int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != null) {
+				int i = slot(oldKeys[j], mask);
+				while (keys[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/** Get the number of keys in the map.
+	 * @return the size of the map.
+	 */
+	int size() {
+		return size;
+	}
+
+}
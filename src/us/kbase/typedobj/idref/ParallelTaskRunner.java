@@ -0,0 +1,102 @@
+package us.kbase.typedobj.idref;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/** Runs a list of independent tasks, such as the processing step of a set of ID handlers,
+ * concurrently.
+ *
+ * Error precedence is the same as if the tasks were run serially in list order: if more than one
+ * task fails, the exception from the task earliest in the list is thrown. When a task fails, all
+ * tasks later in the list are cancelled, since their results can no longer matter. Tasks earlier
+ * in the list are allowed to complete as they may fail with an exception of higher precedence.
+ */
+class ParallelTaskRunner {
+
+	/** A task that may throw a checked exception.
+	 * @param <E> the type of the exception.
+	 */
+	interface Task<E extends Exception> {
+
+		/** Run the task.
+		 * @throws E if the task fails.
+		 */
+		void run() throws E;
+	}
+
+	private ParallelTaskRunner() {}
+
+	/** Run a set of tasks. If the executor is null or there are fewer than two tasks, the tasks
+	 * are run serially in the calling thread.
+	 * @param executor the executor with which to run the tasks, or null.
+	 * @param tasks the tasks to run.
+	 * @throws E if a task fails.
+	 */
+	static <E extends Exception> void run(
+			final ExecutorService executor,
+			final List<Task<E>> tasks)
+			throws E {
+		if (executor == null || tasks.size() < 2) {
+			for (final Task<E> t: tasks) {
+				t.run();
+			}
+			return;
+		}
+		final CompletionService<Void> cs = new ExecutorCompletionService<>(executor);
+		final List<Future<Void>> futures = new ArrayList<>();
+		for (final Task<E> t: tasks) {
+			futures.add(cs.submit(() -> {
+				t.run();
+				return null;
+			}));
+		}
+		int failedIndex = futures.size();
+		Throwable failure = null;
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				final Future<Void> f = cs.take();
+				final int index = futures.indexOf(f);
+				try {
+					f.get();
+				} catch (CancellationException e) {
+					// cancelled due to a failure earlier in the list, ignore
+				} catch (ExecutionException e) {
+					if (index < failedIndex) {
+						failedIndex = index;
+						failure = e.getCause();
+						for (final Future<Void> later: futures.subList(index + 1, futures.size())) {
+							later.cancel(true);
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			for (final Future<Void> f: futures) {
+				f.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for tasks to complete", e);
+		}
+		if (failure != null) {
+			ParallelTaskRunner.<E>throwFailure(failure);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E extends Exception> void throwFailure(final Throwable failure) throws E {
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		// the only checked exceptions a task can throw are of type E
+		throw (E) failure;
+	}
+}
@@ -0,0 +1,129 @@
+package us.kbase.typedobj.test.idref;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.typedobj.idref.AssociatedIdIndex;
+
+public class AssociatedIdIndexTest {
+
+	@Test
+	public void empty() throws Exception {
+		final AssociatedIdIndex<Integer> i = new AssociatedIdIndex<>();
+
+		assertThat("incorrect size", i.size(), is(0));
+		assertThat("incorrect empty", i.isEmpty(), is(true));
+		assertThat("incorrect id count", i.getIdCount(), is(0));
+		assertThat("incorrect ids", i.getIds(), is(Collections.emptyList()));
+		assertThat("incorrect assobjs", i.getAssociatedObjects(), is(Collections.emptyList()));
+		assertThat("incorrect ids", i.getIds(1), is(Collections.emptyList()));
+		assertThat("incorrect index", i.indexOf("foo"), is(-1));
+		assertThat("incorrect first", i.getFirstAssociatedObject("foo"), is(nullValue()));
+		assertThat("incorrect attribs", i.getAttributes(1, "foo"),
+				is(Collections.emptyList()));
+	}
+
+	@Test
+	public void add() throws Exception {
+		final AssociatedIdIndex<Integer> i = new AssociatedIdIndex<>();
+
+		assertThat("incorrect unique", i.add(2, "id1"), is(true));
+		assertThat("incorrect unique", i.add(2, "id2", Arrays.asList("a", "b")), is(true));
+		assertThat("incorrect unique", i.add(1, "id2", Arrays.asList("a", "b")), is(true));
+		assertThat("incorrect unique", i.add(1, "id3", Collections.emptyList()), is(true));
+		assertThat("incorrect unique", i.add(2, "id1", Arrays.asList("c")), is(false));
+		assertThat("incorrect unique", i.add(2, "id2", Arrays.asList("a", "b")), is(false));
+		assertThat("incorrect unique", i.add(2, "id2", Arrays.asList("d")), is(false));
+		assertThat("incorrect unique", i.add(2, "id2"), is(false));
+
+		assertThat("incorrect size", i.size(), is(4));
+		assertThat("incorrect empty", i.isEmpty(), is(false));
+		assertThat("incorrect id count", i.getIdCount(), is(3));
+		assertThat("incorrect ids", i.getIds(), is(Arrays.asList("id1", "id2", "id3")));
+		assertThat("incorrect assobjs", i.getAssociatedObjects(), is(Arrays.asList(2, 1)));
+		assertThat("incorrect ids", i.getIds(2), is(Arrays.asList("id1", "id2")));
+		assertThat("incorrect ids", i.getIds(1), is(Arrays.asList("id2", "id3")));
+		assertThat("incorrect ids", i.getIds(3), is(Collections.emptyList()));
+		assertThat("incorrect index", i.indexOf("id1"), is(0));
+		assertThat("incorrect index", i.indexOf("id2"), is(1));
+		assertThat("incorrect index", i.indexOf("id3"), is(2));
+		assertThat("incorrect first", i.getFirstAssociatedObject("id1"), is(2));
+		assertThat("incorrect first", i.getFirstAssociatedObject("id2"), is(2));
+		assertThat("incorrect first", i.getFirstAssociatedObject("id3"), is(1));
+
+		assertThat("incorrect attribs", i.getAttributes(2, "id1"),
+				is(Arrays.asList(Arrays.asList("c"))));
+		assertThat("incorrect attribs", i.getAttributes(2, "id2"),
+				is(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("d"))));
+		assertThat("incorrect attribs", i.getAttributes(1, "id2"),
+				is(Arrays.asList(Arrays.asList("a", "b"))));
+		assertThat("incorrect attribs", i.getAttributes(1, "id3"),
+				is(Collections.emptyList()));
+		assertThat("incorrect attribs", i.getAttributes(1, "id1"),
+				is(Collections.emptyList()));
+		assertThat("incorrect attribs", i.getAttributes(3, "id1"),
+				is(Collections.emptyList()));
+	}
+
+	@Test
+	public void addMany() throws Exception {
+		// forces the tables to resize many times
+		final AssociatedIdIndex<Integer> i = new AssociatedIdIndex<>();
+		final List<String> expected = new LinkedList<>();
+		for (int obj = 0; obj < 100; obj++) {
+			for (int id = 0; id < 1000; id++) {
+				final boolean unique = i.add(obj, "id" + (obj * 500 + id),
+						Arrays.asList("type" + (id % 3)));
+				assertThat("incorrect unique", unique, is(true));
+			}
+		}
+		for (int id = 0; id < 50500; id++) {
+			expected.add("id" + id);
+		}
+		assertThat("incorrect size", i.size(), is(100000));
+		assertThat("incorrect id count", i.getIdCount(), is(50500));
+		assertThat("incorrect ids", i.getIds(), is(expected));
+		assertThat("incorrect ids", i.getIds(99), is(expected.subList(49500, 50500)));
+		assertThat("incorrect first", i.getFirstAssociatedObject("id750"), is(0));
+		assertThat("incorrect index", i.indexOf("id50499"), is(50499));
+		assertThat("incorrect attribs", i.getAttributes(1, "id750"),
+				is(Arrays.asList(Arrays.asList("type1"))));
+		assertThat("incorrect attribs", i.getAttributes(0, "id750"),
+				is(Arrays.asList(Arrays.asList("type0"))));
+		assertThat("incorrect unique", i.add(42, "id21500"), is(false));
+	}
+
+	@Test
+	public void addFail() throws Exception {
+		final AssociatedIdIndex<Integer> i = new AssociatedIdIndex<>();
+		failAdd(i, null, "id");
+		failAdd(i, 1, null);
+	}
+
+	private void failAdd(final AssociatedIdIndex<Integer> i, final Integer obj, final String id) {
+		final Exception expected = new NullPointerException(
+				"associatedObject and id cannot be null");
+		try {
+			i.add(obj, id);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+		try {
+			i.add(obj, id, Arrays.asList("a"));
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
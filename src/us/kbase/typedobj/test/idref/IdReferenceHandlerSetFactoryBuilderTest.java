@@ -3,6 +3,8 @@ package us.kbase.typedobj.test.idref;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -11,6 +13,10 @@ import static us.kbase.common.test.TestCommon.set;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -19,6 +25,7 @@ import us.kbase.common.test.TestCommon;
 import us.kbase.typedobj.idref.IdReference;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandler;
+import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandlerException;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory.IdReferenceHandlerFactory;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactoryBuilder;
@@ -98,6 +105,92 @@ public class IdReferenceHandlerSetFactoryBuilderTest {
 		verify(h3).addId(8L, "whee", Collections.emptyList());
 	}
 	
+	@Test
+	public void buildWithExecutorProcessConcurrently() throws Exception {
+		final ExecutorService ex = Executors.newCachedThreadPool();
+		try {
+			final IdReferenceHandler<Long> h1 = getMockHandler();
+			final IdReferenceHandler<Long> h2 = getMockHandler();
+			final IdReferenceHandlerSet<Long> s = getHandlerSet(h1, h2, ex);
+			
+			// each handler waits for the other to start, which deadlocks if run serially
+			final CountDownLatch latch = new CountDownLatch(2);
+			for (final IdReferenceHandler<Long> h: Arrays.asList(h1, h2)) {
+				doAnswer(inv -> {
+					latch.countDown();
+					if (!latch.await(10, TimeUnit.SECONDS)) {
+						throw new IdReferenceHandlerException(
+								"not concurrent", new IdReferenceType("t1"), null);
+					}
+					return null;
+				}).when(h).processIds();
+			}
+			
+			s.processIDs();
+			
+			assertThat("incorrect processed", s.wereIdsProcessed(), is(true));
+			verify(h1).processIds();
+			verify(h2).processIds();
+		} finally {
+			ex.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void buildWithExecutorProcessFailErrorPrecedence() throws Exception {
+		final ExecutorService ex = Executors.newCachedThreadPool();
+		try {
+			// the error thrown must be the same as for serial processing
+			final Exception serial = processFailBothHandlers(null);
+			final Exception concurrent = processFailBothHandlers(ex);
+			assertThat("incorrect exception", concurrent.getMessage(), is(serial.getMessage()));
+		} finally {
+			ex.shutdownNow();
+		}
+	}
+
+	private Exception processFailBothHandlers(final ExecutorService ex) throws Exception {
+		final IdReferenceHandler<Long> h1 = getMockHandler();
+		final IdReferenceHandler<Long> h2 = getMockHandler();
+		doThrow(new IdReferenceHandlerException("t1 fail", new IdReferenceType("t1"), null))
+				.when(h1).processIds();
+		doThrow(new IdReferenceHandlerException("t2 fail", new IdReferenceType("t2"), null))
+				.when(h2).processIds();
+		final IdReferenceHandlerSet<Long> s = getHandlerSet(h1, h2, ex);
+		try {
+			s.processIDs();
+			fail("expected exception");
+			return null; // can't get here
+		} catch (IdReferenceHandlerException got) {
+			return got;
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private IdReferenceHandler<Long> getMockHandler() {
+		return mock(IdReferenceHandler.class);
+	}
+	
+	private IdReferenceHandlerSet<Long> getHandlerSet(
+			final IdReferenceHandler<Long> h1,
+			final IdReferenceHandler<Long> h2,
+			final ExecutorService ex) {
+		final IdReferenceHandlerFactory fac1 = mock(IdReferenceHandlerFactory.class);
+		final IdReferenceHandlerFactory fac2 = mock(IdReferenceHandlerFactory.class);
+		when(fac1.getIDType()).thenReturn(new IdReferenceType("t1"));
+		when(fac2.getIDType()).thenReturn(new IdReferenceType("t2"));
+		when(fac1.createHandler(Long.class, null)).thenReturn(h1);
+		when(fac2.createHandler(Long.class, null)).thenReturn(h2);
+		
+		return IdReferenceHandlerSetFactoryBuilder.getBuilder(8)
+				.withFactory(fac1)
+				.withFactory(fac2)
+				.withProcessingExecutor(ex)
+				.build()
+				.getFactory(null)
+				.createHandlers(Long.class);
+	}
+	
 	@Test
 	public void buildWithPermissionFactories() throws Exception {
 		final IdReferenceHandlerFactory fac1 = mock(IdReferenceHandlerFactory.class);
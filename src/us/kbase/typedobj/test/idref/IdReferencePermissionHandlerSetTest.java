@@ -3,13 +3,24 @@ package us.kbase.typedobj.test.idref;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static us.kbase.common.test.TestCommon.set;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -18,6 +29,7 @@ import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory.IdReferenceHandlerFa
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactoryBuilder;
 import us.kbase.typedobj.idref.IdReferencePermissionHandlerSet;
 import us.kbase.typedobj.idref.IdReferencePermissionHandlerSet.IdReferencePermissionHandler;
+import us.kbase.typedobj.idref.IdReferencePermissionHandlerSet.IdReferencePermissionHandlerException;
 import us.kbase.typedobj.idref.IdReferenceType;
 import us.kbase.typedobj.idref.NoSuchIdReferenceHandlerException;
 
@@ -137,6 +149,139 @@ public class IdReferencePermissionHandlerSetTest {
 		}
 	}
 	
+	private IdReferencePermissionHandlerSet getMultiTypeSet(
+			final IdReferencePermissionHandler h1,
+			final IdReferencePermissionHandler h2,
+			final ExecutorService executor) {
+		final IdReferenceHandlerFactory fac1 = mock(IdReferenceHandlerFactory.class);
+		final IdReferenceHandlerFactory fac2 = mock(IdReferenceHandlerFactory.class);
+		when(fac1.getIDType()).thenReturn(new IdReferenceType("handle"));
+		when(fac2.getIDType()).thenReturn(new IdReferenceType("shock"));
+		when(fac1.createPermissionHandler()).thenReturn(h1);
+		when(fac2.createPermissionHandler()).thenReturn(h2);
+		
+		return IdReferenceHandlerSetFactoryBuilder.getBuilder(1)
+				.withFactory(fac1)
+				.withFactory(fac2)
+				.withProcessingExecutor(executor)
+				.build().createPermissionHandler();
+	}
+	
+	private Map<IdReferenceType, Collection<String>> getMultiTypeIDs() {
+		final Map<IdReferenceType, Collection<String>> ids = new LinkedHashMap<>();
+		ids.put(new IdReferenceType("shock"), set("node1", "node2"));
+		ids.put(new IdReferenceType("handle"), set("KBHNDLE_1"));
+		return ids;
+	}
+	
+	@Test
+	public void addReadPermissionsSerial() throws Exception {
+		final IdReferencePermissionHandler h1 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandler h2 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandlerSet s = getMultiTypeSet(h1, h2, null);
+		
+		s.addReadPermissions(getMultiTypeIDs());
+		
+		verify(h1).addReadPermission(set("KBHNDLE_1"));
+		verify(h2).addReadPermission(set("node1", "node2"));
+	}
+	
+	@Test
+	public void addReadPermissionsConcurrent() throws Exception {
+		final ExecutorService ex = Executors.newCachedThreadPool();
+		try {
+			final IdReferencePermissionHandler h1 = mock(IdReferencePermissionHandler.class);
+			final IdReferencePermissionHandler h2 = mock(IdReferencePermissionHandler.class);
+			final IdReferencePermissionHandlerSet s = getMultiTypeSet(h1, h2, ex);
+			
+			// each handler waits for the other to start, which deadlocks if run serially
+			final CountDownLatch latch = new CountDownLatch(2);
+			for (final IdReferencePermissionHandler h: Arrays.asList(h1, h2)) {
+				doAnswer(inv -> {
+					latch.countDown();
+					if (!latch.await(10, TimeUnit.SECONDS)) {
+						throw new IdReferencePermissionHandlerException("not concurrent");
+					}
+					return null;
+				}).when(h).addReadPermission(any());
+			}
+			
+			s.addReadPermissions(getMultiTypeIDs());
+			
+			verify(h1).addReadPermission(set("KBHNDLE_1"));
+			verify(h2).addReadPermission(set("node1", "node2"));
+		} finally {
+			ex.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void addReadPermissionsNoIDs() throws Exception {
+		final IdReferencePermissionHandler h1 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandler h2 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandlerSet s = getMultiTypeSet(h1, h2, null);
+		
+		s.addReadPermissions(Collections.singletonMap(new IdReferenceType("shock"), set()));
+		
+		verifyZeroInteractions(h1, h2);
+	}
+	
+	@Test
+	public void addReadPermissionsFailErrorPrecedence() throws Exception {
+		final ExecutorService ex = Executors.newCachedThreadPool();
+		try {
+			for (final ExecutorService e: Arrays.asList(null, ex)) {
+				final IdReferencePermissionHandler h1 = mock(IdReferencePermissionHandler.class);
+				final IdReferencePermissionHandler h2 = mock(IdReferencePermissionHandler.class);
+				final IdReferencePermissionHandlerSet s = getMultiTypeSet(h1, h2, e);
+				doThrow(new IdReferencePermissionHandlerException("handle fail"))
+						.when(h1).addReadPermission(set("KBHNDLE_1"));
+				doThrow(new IdReferencePermissionHandlerException("shock fail"))
+						.when(h2).addReadPermission(set("node1", "node2"));
+				
+				// shock is first in the map
+				addReadPermissionsFail(s, getMultiTypeIDs(),
+						new IdReferencePermissionHandlerException("shock fail"));
+			}
+		} finally {
+			ex.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void addReadPermissionsFailBadArgs() throws Exception {
+		final IdReferencePermissionHandler h1 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandler h2 = mock(IdReferencePermissionHandler.class);
+		final IdReferencePermissionHandlerSet s = getMultiTypeSet(h1, h2, null);
+		
+		final Map<IdReferenceType, Collection<String>> badType = getMultiTypeIDs();
+		badType.put(new IdReferenceType("shocky"), set("foo"));
+		final Map<IdReferenceType, Collection<String>> nullIDs = getMultiTypeIDs();
+		nullIDs.put(new IdReferenceType("handle"), null);
+		final Map<IdReferenceType, Collection<String>> badIDs = getMultiTypeIDs();
+		badIDs.put(new IdReferenceType("handle"), set("foo", "   \t    "));
+		
+		addReadPermissionsFail(s, null, new NullPointerException("ids"));
+		addReadPermissionsFail(s, badType, new NoSuchIdReferenceHandlerException(
+				"There is no handler registered for the ID type shocky"));
+		addReadPermissionsFail(s, nullIDs, new NullPointerException("ids"));
+		addReadPermissionsFail(s, badIDs, new IllegalArgumentException(
+				"Null or whitespace only string in collection ids"));
+		verifyZeroInteractions(h1, h2);
+	}
+	
+	private void addReadPermissionsFail(
+			final IdReferencePermissionHandlerSet s,
+			final Map<IdReferenceType, Collection<String>> ids,
+			final Exception expected) {
+		try {
+			s.addReadPermissions(ids);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void hasTypeFailNull() throws Exception {
 		final IdReferenceHandlerFactory fac1 = mock(IdReferenceHandlerFactory.class);
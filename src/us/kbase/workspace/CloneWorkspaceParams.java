@@ -34,6 +34,11 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *                 cloned workspace. Either an object ID or a object name must be
  *                 specified in each ObjectIdentity - any supplied reference strings,
  *                 workspace names or IDs, and versions are ignored.
+ *         boolean share_versions - share the object versions with the cloned
+ *                 workspace rather than copying them, which is much faster for
+ *                 workspaces with many versions. The new workspace is otherwise
+ *                 identical to a copy. Ignored if the workspace database does not
+ *                 support sharing versions. Default false.
  * </pre>
  * 
  */
@@ -45,7 +50,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "globalread",
     "description",
     "meta",
-    "exclude"
+    "exclude",
+    "share_versions"
 })
 public class CloneWorkspaceParams {
 
@@ -71,6 +77,8 @@ public class CloneWorkspaceParams {
     private Map<String, String> meta;
     @JsonProperty("exclude")
     private List<ObjectIdentity> exclude;
+    @JsonProperty("share_versions")
+    private Long shareVersions;
     private Map<java.lang.String, Object> additionalProperties = new HashMap<java.lang.String, Object>();
 
     /**
@@ -183,6 +191,21 @@ public class CloneWorkspaceParams {
         return this;
     }
 
+    @JsonProperty("share_versions")
+    public Long getShareVersions() {
+        return shareVersions;
+    }
+
+    @JsonProperty("share_versions")
+    public void setShareVersions(Long shareVersions) {
+        this.shareVersions = shareVersions;
+    }
+
+    public CloneWorkspaceParams withShareVersions(Long shareVersions) {
+        this.shareVersions = shareVersions;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<java.lang.String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -195,7 +218,7 @@ public class CloneWorkspaceParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((((((("CloneWorkspaceParams"+" [wsi=")+ wsi)+", workspace=")+ workspace)+", globalread=")+ globalread)+", description=")+ description)+", meta=")+ meta)+", exclude=")+ exclude)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((("CloneWorkspaceParams"+" [wsi=")+ wsi)+", workspace=")+ workspace)+", globalread=")+ globalread)+", description=")+ description)+", meta=")+ meta)+", exclude=")+ exclude)+", shareVersions=")+ shareVersions)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
@@ -0,0 +1,197 @@
+package us.kbase.workspace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.auth.AuthToken;
+import us.kbase.common.service.JsonClientException;
+import us.kbase.common.service.ServerException;
+import us.kbase.common.service.UnauthorizedException;
+
+/** Calls the workspace service asking for the response in a compact binary format, Smile or
+ * CBOR, rather than JSON, and decodes the response. Binary responses are smaller and faster to
+ * decode than JSON for objects containing many numbers, such as expression matrices.
+ *
+ * {@link WorkspaceClient} is generated and always receives JSON, so this client wraps a
+ * WorkspaceClient and uses its URL, token, and insecure connection setting. The server falls
+ * back to JSON if it doesn't support the requested format, and JSON responses are decoded as
+ * normal.
+ *
+ * The Jackson data format jar for the requested format, jackson-dataformat-smile or
+ * jackson-dataformat-cbor, must be on the classpath. The client doesn't otherwise depend on it.
+ *
+ * Trusting all SSL certificates and streaming mode are not supported.
+ */
+public class EncodedResponseClient {
+
+	/** The Smile media type. */
+	public static final String SMILE = "application/x-jackson-smile";
+	/** The CBOR media type. */
+	public static final String CBOR = "application/cbor";
+
+	private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+	private static final Map<String, String> FACTORY_CLASSES = new LinkedHashMap<String, String>();
+	static {
+		FACTORY_CLASSES.put(SMILE, "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+		FACTORY_CLASSES.put(CBOR, "com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+	}
+
+	private final WorkspaceClient client;
+	private final String mediaType;
+	private final ObjectMapper mapper;
+	private Integer readTimeout = null;
+
+	/** Create the client.
+	 * @param client the workspace client that supplies the service URL and token.
+	 * @param mediaType the media type of the response format, either {@link #SMILE} or
+	 * {@link #CBOR}.
+	 * @throws IllegalStateException if the Jackson data format jar for the media type isn't on
+	 * the classpath.
+	 */
+	public EncodedResponseClient(final WorkspaceClient client, final String mediaType) {
+		if (client == null) {
+			throw new NullPointerException("client");
+		}
+		if (!FACTORY_CLASSES.containsKey(mediaType)) {
+			throw new IllegalArgumentException("Unsupported media type: " + mediaType);
+		}
+		this.client = client;
+		this.mediaType = mediaType;
+		this.mapper = new ObjectMapper(getFactory(mediaType));
+	}
+
+	private static JsonFactory getFactory(final String mediaType) {
+		final String className = FACTORY_CLASSES.get(mediaType);
+		try {
+			return (JsonFactory) Class.forName(className).newInstance();
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(String.format(
+					"%s is required for %s responses", className, mediaType), e);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("Unable to create " + className, e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Unable to create " + className, e);
+		}
+	}
+
+	/** Get the media type of the response format.
+	 * @return the media type.
+	 */
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/** Set the timeout between establishing a connection to a server and
+	 * receiving a response. A value of zero or null implies no timeout.
+	 * @param milliseconds the milliseconds to wait before timing out when
+	 * attempting to read from a server.
+	 */
+	public void setConnectionReadTimeOut(final Integer milliseconds) {
+		this.readTimeout = milliseconds;
+	}
+
+	/** Get objects from the workspace. See {@link WorkspaceClient#getObjects2}.
+	 * @param params the parameters.
+	 * @return the objects.
+	 * @throws IOException if an IO exception occurs.
+	 * @throws JsonClientException if a JSON RPC exception occurs.
+	 */
+	public GetObjects2Results getObjects2(final GetObjects2Params params)
+			throws IOException, JsonClientException {
+		final List<Object> args = new ArrayList<Object>();
+		args.add(params);
+		final List<GetObjects2Results> res = call("Workspace.get_objects2", args,
+				new TypeReference<List<GetObjects2Results>>() {});
+		return res.get(0);
+	}
+
+	/** Call a workspace method.
+	 * @param <RET> the type of the method's result.
+	 * @param method the full method name, e.g. Workspace.get_objects2.
+	 * @param args the method arguments.
+	 * @param retType the type of the method's result, which is always a list.
+	 * @return the method's result.
+	 * @throws IOException if an IO exception occurs.
+	 * @throws JsonClientException if a JSON RPC exception occurs.
+	 */
+	public <RET> RET call(
+			final String method,
+			final List<Object> args,
+			final TypeReference<RET> retType)
+			throws IOException, JsonClientException {
+		final URL url = client.getURL();
+		final AuthToken token = client.getToken();
+		if (token != null && "http".equals(url.getProtocol()) &&
+				!client.isInsecureHttpConnectionAllowed()) {
+			throw new UnauthorizedException("RPC method required authentication shouldn't be " +
+					"called through unsecured http, use https instead or call " +
+					"setIsInsecureHttpConnectionAllowed(true) on the client");
+		}
+		final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+		if (readTimeout != null) {
+			conn.setReadTimeout(readTimeout);
+		}
+		conn.setDoOutput(true);
+		conn.setRequestMethod("POST");
+		conn.setRequestProperty("Content-Type", "application/json");
+		conn.setRequestProperty("Accept", mediaType);
+		if (token != null) {
+			conn.setRequestProperty("Authorization", token.getToken());
+		}
+		final Map<String, Object> call = new LinkedHashMap<String, Object>();
+		call.put("params", args);
+		call.put("method", method);
+		call.put("version", "1.1");
+		call.put("id", UUID.randomUUID().toString());
+		final OutputStream os = conn.getOutputStream();
+		try {
+			JSON_MAPPER.writeValue(os, call);
+		} finally {
+			os.close();
+		}
+		final int code = conn.getResponseCode();
+		final InputStream is = code < 400 ? conn.getInputStream() : conn.getErrorStream();
+		if (is == null) {
+			throw new JsonClientException("No response from server, HTTP code " + code);
+		}
+		final String contentType = conn.getContentType();
+		final ObjectMapper m = contentType != null && contentType.startsWith(mediaType) ?
+				mapper : JSON_MAPPER;
+		final JsonNode response;
+		try {
+			response = m.readTree(is);
+		} catch (IOException e) {
+			throw new JsonClientException(String.format(
+					"Unable to decode response from server, HTTP code %s: %s",
+					code, e.getMessage()));
+		} finally {
+			is.close();
+		}
+		final JsonNode error = response.get("error");
+		if (error != null && !error.isNull()) {
+			final JsonNode data = error.get("error");
+			throw new ServerException(error.path("message").asText(),
+					error.path("code").asInt(), error.path("name").asText(),
+					data == null || data.isNull() ? null : data.asText());
+		}
+		final JsonNode result = response.get("result");
+		if (result == null) {
+			throw new JsonClientException("Server response contains no result");
+		}
+		return m.readValue(m.treeAsTokens(result), retType);
+	}
+}
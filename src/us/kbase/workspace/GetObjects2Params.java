@@ -27,6 +27,12 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *                 Default false.
  *         boolean no_data - return the provenance, references, and
  *                 object_info for this object without the object data. Default false.
+ *         boolean skip_provenance - don't return the provenance, creator, orig_wsid,
+ *                 created, and epoch fields for the objects. Default false.
+ *         boolean skip_refs - don't return the references extracted from the
+ *                 objects. Default false.
+ *         boolean skip_extracted_ids - don't return the external IDs extracted
+ *                 from the objects. Default false.
  * </pre>
  * 
  */
@@ -35,7 +41,10 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 @JsonPropertyOrder({
     "objects",
     "ignoreErrors",
-    "no_data"
+    "no_data",
+    "skip_provenance",
+    "skip_refs",
+    "skip_extracted_ids"
 })
 public class GetObjects2Params {
 
@@ -45,6 +54,12 @@ public class GetObjects2Params {
     private Long ignoreErrors;
     @JsonProperty("no_data")
     private Long noData;
+    @JsonProperty("skip_provenance")
+    private Long skipProvenance;
+    @JsonProperty("skip_refs")
+    private Long skipRefs;
+    @JsonProperty("skip_extracted_ids")
+    private Long skipExtractedIds;
     private Map<String, Object> additionalProperties = new HashMap<String, Object>();
 
     @JsonProperty("objects")
@@ -92,6 +107,51 @@ public class GetObjects2Params {
         return this;
     }
 
+    @JsonProperty("skip_provenance")
+    public Long getSkipProvenance() {
+        return skipProvenance;
+    }
+
+    @JsonProperty("skip_provenance")
+    public void setSkipProvenance(Long skipProvenance) {
+        this.skipProvenance = skipProvenance;
+    }
+
+    public GetObjects2Params withSkipProvenance(Long skipProvenance) {
+        this.skipProvenance = skipProvenance;
+        return this;
+    }
+
+    @JsonProperty("skip_refs")
+    public Long getSkipRefs() {
+        return skipRefs;
+    }
+
+    @JsonProperty("skip_refs")
+    public void setSkipRefs(Long skipRefs) {
+        this.skipRefs = skipRefs;
+    }
+
+    public GetObjects2Params withSkipRefs(Long skipRefs) {
+        this.skipRefs = skipRefs;
+        return this;
+    }
+
+    @JsonProperty("skip_extracted_ids")
+    public Long getSkipExtractedIds() {
+        return skipExtractedIds;
+    }
+
+    @JsonProperty("skip_extracted_ids")
+    public void setSkipExtractedIds(Long skipExtractedIds) {
+        this.skipExtractedIds = skipExtractedIds;
+    }
+
+    public GetObjects2Params withSkipExtractedIds(Long skipExtractedIds) {
+        this.skipExtractedIds = skipExtractedIds;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -104,7 +164,7 @@ public class GetObjects2Params {
 
     @Override
     public String toString() {
-        return ((((((((("GetObjects2Params"+" [objects=")+ objects)+", ignoreErrors=")+ ignoreErrors)+", noData=")+ noData)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((("GetObjects2Params"+" [objects=")+ objects)+", ignoreErrors=")+ ignoreErrors)+", noData=")+ noData)+", skipProvenance=")+ skipProvenance)+", skipRefs=")+ skipRefs)+", skipExtractedIds=")+ skipExtractedIds)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
@@ -63,6 +63,15 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *                         parameter only has an effect when filtering by types alone.
  *                 int limit - limit the output to X objects. Default and maximum value
  *                         is 10000. Limit values < 1 are treated as 10000, the default.
+ *                 obj_ref start_after - only return objects after this object version,
+ *                         which must be an absolute reference (e.g. 2/3/4), in order of
+ *                         workspace ID, then object ID, then descending version. To page
+ *                         through the objects, set start_after to the reference of the last
+ *                         object in the previous page. Each page costs the same to fetch
+ *                         regardless of how many pages precede it. The first page is
+ *                         returned in the same order if only the latest versions are listed
+ *                         or no filters other than the workspace and object ID filters are
+ *                         provided.
  * </pre>
  * 
  */
@@ -87,7 +96,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "showAllVersions",
     "includeMetadata",
     "excludeGlobal",
-    "limit"
+    "limit",
+    "start_after"
 })
 public class ListObjectsParams {
 
@@ -129,6 +139,8 @@ public class ListObjectsParams {
     private java.lang.Long excludeGlobal;
     @JsonProperty("limit")
     private java.lang.Long limit;
+    @JsonProperty("start_after")
+    private java.lang.String startAfter;
     private Map<java.lang.String, Object> additionalProperties = new HashMap<java.lang.String, Object>();
 
     @JsonProperty("workspaces")
@@ -416,6 +428,21 @@ public class ListObjectsParams {
         return this;
     }
 
+    @JsonProperty("start_after")
+    public java.lang.String getStartAfter() {
+        return startAfter;
+    }
+
+    @JsonProperty("start_after")
+    public void setStartAfter(java.lang.String startAfter) {
+        this.startAfter = startAfter;
+    }
+
+    public ListObjectsParams withStartAfter(java.lang.String startAfter) {
+        this.startAfter = startAfter;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<java.lang.String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -428,7 +455,7 @@ public class ListObjectsParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((((((((((((((((((((((((((((((((("ListObjectsParams"+" [workspaces=")+ workspaces)+", ids=")+ ids)+", type=")+ type)+", perm=")+ perm)+", savedby=")+ savedby)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", minObjectID=")+ minObjectID)+", maxObjectID=")+ maxObjectID)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", showHidden=")+ showHidden)+", showAllVersions=")+ showAllVersions)+", includeMetadata=")+ includeMetadata)+", excludeGlobal=")+ excludeGlobal)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((((((((((((((((((((((((("ListObjectsParams"+" [workspaces=")+ workspaces)+", ids=")+ ids)+", type=")+ type)+", perm=")+ perm)+", savedby=")+ savedby)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", minObjectID=")+ minObjectID)+", maxObjectID=")+ maxObjectID)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", showHidden=")+ showHidden)+", showAllVersions=")+ showAllVersions)+", includeMetadata=")+ includeMetadata)+", excludeGlobal=")+ excludeGlobal)+", limit=")+ limit)+", startAfter=")+ startAfter)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
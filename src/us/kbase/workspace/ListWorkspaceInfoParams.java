@@ -39,6 +39,12 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *         user.
  * boolean showOnlyDeleted - only show deleted workspaces that are owned
  *         by the user.
+ * ws_id start_after - only return workspaces with an ID greater than
+ *         this value. The workspaces are returned in order of their IDs, so
+ *         to page through the workspaces, set start_after to the ID of the
+ *         last workspace in the previous page.
+ * int limit - limit the output to X workspaces. Limit values < 1, the
+ *         default, mean no limit.
  * </pre>
  * 
  */
@@ -54,7 +60,9 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "before_epoch",
     "excludeGlobal",
     "showDeleted",
-    "showOnlyDeleted"
+    "showOnlyDeleted",
+    "start_after",
+    "limit"
 })
 public class ListWorkspaceInfoParams {
 
@@ -78,6 +86,10 @@ public class ListWorkspaceInfoParams {
     private Long showDeleted;
     @JsonProperty("showOnlyDeleted")
     private Long showOnlyDeleted;
+    @JsonProperty("start_after")
+    private Long startAfter;
+    @JsonProperty("limit")
+    private Long limit;
     private Map<java.lang.String, Object> additionalProperties = new HashMap<java.lang.String, Object>();
 
     @JsonProperty("perm")
@@ -230,6 +242,36 @@ public class ListWorkspaceInfoParams {
         return this;
     }
 
+    @JsonProperty("start_after")
+    public Long getStartAfter() {
+        return startAfter;
+    }
+
+    @JsonProperty("start_after")
+    public void setStartAfter(Long startAfter) {
+        this.startAfter = startAfter;
+    }
+
+    public ListWorkspaceInfoParams withStartAfter(Long startAfter) {
+        this.startAfter = startAfter;
+        return this;
+    }
+
+    @JsonProperty("limit")
+    public Long getLimit() {
+        return limit;
+    }
+
+    @JsonProperty("limit")
+    public void setLimit(Long limit) {
+        this.limit = limit;
+    }
+
+    public ListWorkspaceInfoParams withLimit(Long limit) {
+        this.limit = limit;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<java.lang.String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -242,7 +284,7 @@ public class ListWorkspaceInfoParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((((((((((((((("ListWorkspaceInfoParams"+" [perm=")+ perm)+", owners=")+ owners)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", excludeGlobal=")+ excludeGlobal)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((((((((("ListWorkspaceInfoParams"+" [perm=")+ perm)+", owners=")+ owners)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", excludeGlobal=")+ excludeGlobal)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", startAfter=")+ startAfter)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
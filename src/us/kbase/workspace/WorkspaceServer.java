@@ -40,6 +40,12 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Set;
 
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.Level;
@@ -77,7 +83,11 @@ import us.kbase.workspace.kbase.InitWorkspaceServer.InitReporter;
 import us.kbase.workspace.kbase.InitWorkspaceServer;
 import us.kbase.workspace.kbase.InitWorkspaceServer.WorkspaceInitResults;
 import us.kbase.workspace.kbase.admin.WorkspaceAdministration;
+import us.kbase.workspace.kbase.JsonRpcBatchHandler;
 import us.kbase.workspace.kbase.KBaseWorkspaceConfig;
+import us.kbase.workspace.kbase.MethodConcurrencyLimits;
+import us.kbase.workspace.kbase.ResponseCompressionHandler;
+import us.kbase.workspace.kbase.ResponseEncodingHandler;
 import us.kbase.workspace.kbase.WorkspaceServerMethods;
 //END_HEADER
 
@@ -122,6 +132,7 @@ public class WorkspaceServer extends JsonServerServlet {
 	private final WorkspaceServerMethods wsmeth;
 	private final Types types;
 	private final WorkspaceAdministration wsadmin;
+	private final MethodConcurrencyLimits limits;
 	
 	private final BasicShockClient linkedShockClient;
 	private final AbstractHandleClient linkedHandleServiceClient;
@@ -129,6 +140,8 @@ public class WorkspaceServer extends JsonServerServlet {
 	private ThreadLocal<List<WorkspaceObjectData>> resourcesToDelete =
 			new ThreadLocal<List<WorkspaceObjectData>>();
 	
+	private final ResponseCompressionHandler compressionHandler;
+	
 	
 	public static void clearConfigForTests() {
 		wsConfig = null;
@@ -143,6 +156,17 @@ public class WorkspaceServer extends JsonServerServlet {
 		return ws.getTempFilesManager();
 	}
 
+	@Override
+	public void service(final ServletRequest req, final ServletResponse res)
+			throws ServletException, IOException {
+		try {
+			compressionHandler.handle((HttpServletRequest) req, (HttpServletResponse) res);
+		} finally {
+			// the capped methods hold their permit until the response is completely written
+			limits.releaseHeld();
+		}
+	}
+	
 	@Override
 	protected void onRpcMethodDone() {
 		if (resourcesToDelete.get() != null &&
@@ -270,6 +294,18 @@ public class WorkspaceServer extends JsonServerServlet {
 		this.wsmeth = wsmeth;
 		this.types = types;
 		this.wsadmin = wsadmin;
+		this.limits = new MethodConcurrencyLimits(cfg.getMethodConcurrencyLimits());
+		final JsonRpcBatchHandler batchHandler = new JsonRpcBatchHandler(
+				(req, res) -> super.service(req, res),
+				cfg.getBatchThreads() < 1 ?
+						JsonRpcBatchHandler.DEFAULT_THREADS : cfg.getBatchThreads(),
+				cfg.getBatchCallConcurrency() < 1 ?
+						JsonRpcBatchHandler.DEFAULT_CALL_CONCURRENCY :
+						cfg.getBatchCallConcurrency());
+		final ResponseEncodingHandler encodingHandler =
+				new ResponseEncodingHandler(batchHandler::handle);
+		this.compressionHandler = new ResponseCompressionHandler(
+				encodingHandler::handle, cfg.getResponseCompressionLevel());
 		this.linkedShockClient = linkedShockClient;
 		this.linkedHandleServiceClient = linkedHandleServiceClient;
         //END_CONSTRUCTOR
@@ -373,7 +409,8 @@ public class WorkspaceServer extends JsonServerServlet {
 				p.equals(Permission.READ),
 				params.getDescription(),
 				new WorkspaceUserMetadata(params.getMeta()),
-				exclude);
+				exclude,
+				longToBoolean(params.getShareVersions()));
 		returnVal = wsInfoToTuple(meta);
         //END clone_workspace
         return returnVal;
@@ -607,6 +644,7 @@ public class WorkspaceServer extends JsonServerServlet {
     public List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> saveObjects(SaveObjectsParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String,String>>> returnVal = null;
         //BEGIN save_objects
+		limits.hold("save_objects");
 		returnVal = wsmeth.saveObjects(params, wsmeth.getUser(authPart), authPart);
         //END save_objects
         return returnVal;
@@ -627,6 +665,7 @@ public class WorkspaceServer extends JsonServerServlet {
     public GetObjectOutput getObject(GetObjectParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         GetObjectOutput returnVal = null;
         //BEGIN get_object
+		limits.hold("get_object");
 		final ObjectIdentifier oi = processObjectIdentifier(
 				params.getWorkspace(), null, params.getId(), null,
 				params.getInstance());
@@ -677,6 +716,7 @@ public class WorkspaceServer extends JsonServerServlet {
     public List<ObjectData> getObjects(List<ObjectIdentity> objectIds, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         List<ObjectData> returnVal = null;
         //BEGIN get_objects
+		limits.hold("get_objects");
 		final List<ObjectIdentifier> loi = processObjectIdentifiers(objectIds);
 		final List<WorkspaceObjectData> objects =
 				ws.getObjects(wsmeth.getUser(authPart), loi);
@@ -698,7 +738,9 @@ public class WorkspaceServer extends JsonServerServlet {
     public GetObjects2Results getObjects2(GetObjects2Params params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         GetObjects2Results returnVal = null;
         //BEGIN get_objects2
-		returnVal = wsmeth.getObjects(params, wsmeth.getUser(authPart), false, resourcesToDelete);
+		limits.hold("get_objects2");
+		returnVal = wsmeth.getObjects(
+				params, wsmeth.getUser(authPart), false, resourcesToDelete);
         //END get_objects2
         return returnVal;
     }
@@ -728,6 +770,7 @@ public class WorkspaceServer extends JsonServerServlet {
     public List<ObjectData> getObjectSubset(List<SubObjectIdentity> subObjectIds, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         List<ObjectData> returnVal = null;
         //BEGIN get_object_subset
+		limits.hold("get_object_subset");
 		final List<ObjectIdentifier> loi = processSubObjectIdentifiers(
 				subObjectIds);
 		final List<WorkspaceObjectData> objects =
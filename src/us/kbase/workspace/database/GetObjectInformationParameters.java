@@ -28,6 +28,7 @@ public class GetObjectInformationParameters {
 	final private boolean includeMetaData;
 	final private boolean asAdmin;
 	final private int limit;
+	final private Reference startAfter;
 	
 	GetObjectInformationParameters(
 			final PermissionSet pset,
@@ -44,6 +45,7 @@ public class GetObjectInformationParameters {
 			final boolean showAllVers,
 			final boolean includeMetaData,
 			final int limit,
+			final Reference startAfter,
 			final boolean asAdmin) {
 		super();
 		this.pset = pset;
@@ -60,6 +62,7 @@ public class GetObjectInformationParameters {
 		this.showAllVers = showAllVers;
 		this.includeMetaData = includeMetaData;
 		this.limit = limit;
+		this.startAfter = startAfter;
 		this.asAdmin = asAdmin;
 	}
 
@@ -165,6 +168,15 @@ public class GetObjectInformationParameters {
 		return limit;
 	}
 	
+	/** Get the reference of the last object version listed in the previous page of results.
+	 * Only object versions that sort after the reference should be listed, and the results must
+	 * be sorted by the workspace ID and object ID ascending and the version descending.
+	 * @return the reference, or null if the listing starts from the beginning.
+	 */
+	public Reference getStartAfter() {
+		return startAfter;
+	}
+	
 	/** Return whether this query should be executed with administrator privileges.
 	 * @return whether the user requesting the query is a global administrator.
 	 */
@@ -42,6 +42,7 @@ public class ListObjectsParameters {
 	private boolean excludeGlobal = false;
 	private boolean asAdmin = false;
 	private int limit = MAX_INFO_COUNT;
+	private Reference startAfter = null;
 	
 	/** Create a set of parameters for calling the list objects method.
 	 * @param user the user calling the method. If null, only globally
@@ -425,6 +426,24 @@ public class ListObjectsParameters {
 		return this;
 	}
 	
+	/** Get the reference of the last object version listed in the previous page of results.
+	 * @return the reference, or null if the listing starts from the beginning.
+	 */
+	public Reference getStartAfter() {
+		return startAfter;
+	}
+
+	/** Set the reference of the last object version listed in the previous page of results.
+	 * Only object versions that sort after the reference will be listed, and the results will
+	 * be sorted by the workspace ID and object ID ascending and the version descending.
+	 * @param startAfter the reference. Pass null to start listing from the beginning.
+	 * @return this ListObjectsParameters instance.
+	 */
+	public ListObjectsParameters withStartAfter(final Reference startAfter) {
+		this.startAfter = startAfter;
+		return this;
+	}
+	
 	/** Get whether the command should be run as an admin. If this is the case the user will always
 	 * be null.
 	 * @return whether the effective user is an admin.
@@ -441,7 +460,7 @@ public class ListObjectsParameters {
 		return new GetObjectInformationParameters(
 				perms, type, savers, meta, after, before, minObjectID,
 				maxObjectID, showHidden, showDeleted, showOnlyDeleted,
-				showAllVers, includeMetaData, limit, asAdmin);
+				showAllVers, includeMetaData, limit, startAfter, asAdmin);
 		
 	}
 }
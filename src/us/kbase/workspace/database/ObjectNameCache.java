@@ -0,0 +1,293 @@
+package us.kbase.workspace.database;
+
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** A cache of the names of the undeleted objects in workspaces, used to find object names by
+ * prefix without querying the storage system.
+ *
+ * Each workspace's names are held in a sorted array, and the names with a prefix are found by
+ * binary search. Workspaces with more than the maximum number of names are not cached and are
+ * always looked up in the storage system.
+ *
+ * Object saves made via this server should call {@link #addNames(long, Map)}, and renames and
+ * changes to hidden or deletion state should call {@link #invalidate(long)}. Changes made via
+ * other servers sharing the same database will not be visible until the cache entry expires.
+ * Names loaded from the storage system while a workspace's names change are returned to the
+ * caller but not cached.
+ *
+ * Saved names are merged into the cached names in time linear in the number of cached names.
+ * Saves of many names relative to the number cached remove the workspace's names from the
+ * cache instead, so the names are reloaded on the next lookup. Changes to workspaces in
+ * different lock stripes don't contend with each other.
+ */
+public class ObjectNameCache {
+
+	// the number of locks and counters used to detect changes to workspaces' names during loads
+	private static final int GENERATION_STRIPES = 256;
+	// saves of up to this many names are always merged into the cached names
+	private static final int MIN_MERGE_NAMES = 100;
+	/* saves of more names are only merged if the cached names outnumber them by at least this
+	 * ratio, otherwise the names are invalidated
+	 */
+	private static final int MERGE_RATIO = 10;
+
+	private final WorkspaceDatabase db;
+	private final int maxNames;
+	private final long cacheTimeInNanos;
+	private final Ticker ticker;
+	// absent if the workspace has too many names to cache
+	private final Cache<Long, Optional<NameIndex>> cache;
+	/* incremented when the names of any workspace in the stripe change. A load is only cached
+	 * if the counter for the workspace's stripe didn't change during the load. Each counter, and
+	 * the cache entries of the workspaces in its stripe, are guarded by the stripe's lock.
+	 */
+	private final long[] generations = new long[GENERATION_STRIPES];
+	private final Object[] locks = new Object[GENERATION_STRIPES];
+
+	private static class NameIndex {
+
+		private final String[] names;
+		private final boolean[] hidden;
+		// when the names were loaded from the storage system
+		private final long loadedNanos;
+
+		private NameIndex(final Map<String, Boolean> names, final long loadedNanos) {
+			this.loadedNanos = loadedNanos;
+			this.names = names.keySet().toArray(new String[names.size()]);
+			Arrays.sort(this.names);
+			hidden = new boolean[this.names.length];
+			for (int i = 0; i < this.names.length; i++) {
+				hidden[i] = names.get(this.names[i]);
+			}
+		}
+
+		private List<String> find(
+				final String prefix,
+				final boolean includeHidden,
+				final int limit) {
+			final List<String> ret = new LinkedList<>();
+			int i = Arrays.binarySearch(names, prefix);
+			if (i < 0) {
+				i = -i - 1; // the insertion point, which is the first name > the prefix
+			}
+			for (; i < names.length && ret.size() < limit && names[i].startsWith(prefix); i++) {
+				if (includeHidden || !hidden[i]) {
+					ret.add(names[i]);
+				}
+			}
+			return ret;
+		}
+
+		// merges the added names into the index. Added names replace existing names.
+		private NameIndex(final NameIndex index, final Map<String, Boolean> added) {
+			loadedNanos = index.loadedNanos;
+			final String[] add = added.keySet().toArray(new String[added.size()]);
+			Arrays.sort(add);
+			final String[] merged = new String[index.names.length + add.length];
+			final boolean[] mergedHidden = new boolean[merged.length];
+			int i = 0;
+			int a = 0;
+			int m = 0;
+			while (i < index.names.length || a < add.length) {
+				final int cmp = i == index.names.length ? 1 :
+					a == add.length ? -1 : index.names[i].compareTo(add[a]);
+				if (cmp < 0) {
+					merged[m] = index.names[i];
+					mergedHidden[m++] = index.hidden[i++];
+				} else {
+					if (cmp == 0) {
+						i++;
+					}
+					merged[m] = add[a];
+					mergedHidden[m++] = added.get(add[a++]);
+				}
+			}
+			names = Arrays.copyOf(merged, m);
+			hidden = Arrays.copyOf(mergedHidden, m);
+		}
+	}
+
+	/** Create the cache.
+	 * @param db the workspace database.
+	 * @param maxCacheSize the maximum number of workspaces for which names will be cached.
+	 * @param maxNames the maximum number of names in a workspace for the names to be cached.
+	 * @param cacheTimeInMS the maximum time names will be cached in milliseconds.
+	 */
+	public ObjectNameCache(
+			final WorkspaceDatabase db,
+			final int maxCacheSize,
+			final int maxNames,
+			final int cacheTimeInMS) {
+		this(db, maxCacheSize, maxNames, cacheTimeInMS, Ticker.systemTicker());
+	}
+
+	/** This constructor should only be used for tests. */
+	public ObjectNameCache(
+			final WorkspaceDatabase db,
+			final int maxCacheSize,
+			final int maxNames,
+			final int cacheTimeInMS,
+			final Ticker ticker) {
+		nonNull(db, "db");
+		nonNull(ticker, "ticker");
+		if (maxNames < 1) {
+			throw new IllegalArgumentException("maxNames must be > 0");
+		}
+		this.db = db;
+		this.maxNames = maxNames;
+		this.ticker = ticker;
+		cacheTimeInNanos = TimeUnit.MILLISECONDS.toNanos(cacheTimeInMS);
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxCacheSize)
+				.expireAfterWrite(cacheTimeInMS, TimeUnit.MILLISECONDS)
+				.ticker(ticker)
+				.build();
+	}
+
+	/** Get object names based on a provided name prefix. Names are returned in sorted order for
+	 * each cached workspace and in no particular order otherwise.
+	 * @param rwsis the workspaces in which to look for names.
+	 * @param prefix the prefix returned names must have.
+	 * @param includeHidden include hidden objects in the output.
+	 * @param limit the maximum number of names to return.
+	 * @return map of workspace to a list of object names. Workspaces with no matching names
+	 * may be absent from the map.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
+	public Map<ResolvedWorkspaceID, List<String>> getNamesByPrefix(
+			final Set<ResolvedWorkspaceID> rwsis,
+			final String prefix,
+			final boolean includeHidden,
+			final int limit)
+			throws WorkspaceCommunicationException {
+		nonNull(rwsis, "rwsis");
+		nonNull(prefix, "prefix");
+		final Map<ResolvedWorkspaceID, List<String>> ret = new HashMap<>();
+		final Set<ResolvedWorkspaceID> uncached = new HashSet<>();
+		int remaining = limit;
+		for (final ResolvedWorkspaceID rwsi: rwsis) {
+			if (remaining < 1) {
+				return ret;
+			}
+			final Optional<NameIndex> index = getIndex(rwsi);
+			if (index.isPresent()) {
+				final List<String> names = index.get().find(prefix, includeHidden, remaining);
+				if (!names.isEmpty()) {
+					ret.put(rwsi, names);
+					remaining -= names.size();
+				}
+			} else {
+				uncached.add(rwsi);
+			}
+		}
+		if (!uncached.isEmpty() && remaining > 0) {
+			ret.putAll(db.getNamesByPrefix(uncached, prefix, includeHidden, remaining));
+		}
+		return ret;
+	}
+
+	private Optional<NameIndex> getIndex(final ResolvedWorkspaceID rwsi)
+			throws WorkspaceCommunicationException {
+		final long id = rwsi.getID();
+		final Optional<NameIndex> cached = cache.getIfPresent(id);
+		/* updates with saved names replace the cache entry, which resets the entry's expiration
+		 * time, so the names are expired based on when they were loaded.
+		 */
+		if (cached != null && (!cached.isPresent() ||
+				ticker.read() - cached.get().loadedNanos < cacheTimeInNanos)) {
+			return cached;
+		}
+		final long gen = getGeneration(id);
+		final long loaded = ticker.read();
+		final Map<String, Boolean> names = db.getObjectNames(rwsi, maxNames + 1);
+		final Optional<NameIndex> index = names.size() > maxNames ?
+				Optional.empty() : Optional.of(new NameIndex(names, loaded));
+		final int stripe = stripe(id);
+		synchronized (locks[stripe]) {
+			if (gen == generations[stripe]) {
+				cache.put(id, index);
+			}
+		}
+		return index;
+	}
+
+	private long getGeneration(final long workspaceID) {
+		final int stripe = stripe(workspaceID);
+		synchronized (locks[stripe]) {
+			return generations[stripe];
+		}
+	}
+
+	private static int stripe(final long workspaceID) {
+		return (int) (Math.abs(workspaceID) % GENERATION_STRIPES);
+	}
+
+	/** Add the names of saved objects to a workspace's names, if the names are cached. Call this
+	 * method when objects are saved in the workspace. Saved objects are undeleted, and their
+	 * hidden state is set to the state provided when they were saved.
+	 * @param workspaceID the ID of the workspace.
+	 * @param names the names of the saved objects mapped to whether the object is hidden.
+	 */
+	public void addNames(final long workspaceID, final Map<String, Boolean> names) {
+		nonNull(names, "names");
+		final int stripe = stripe(workspaceID);
+		synchronized (locks[stripe]) {
+			generations[stripe]++;
+			final Optional<NameIndex> cached = cache.getIfPresent(workspaceID);
+			// if the workspace has too many names, adding more names won't change that
+			if (cached == null || !cached.isPresent()) {
+				return;
+			}
+			if (names.size() > MIN_MERGE_NAMES &&
+					(long) names.size() * MERGE_RATIO > cached.get().names.length) {
+				cache.invalidate(workspaceID);
+				return;
+			}
+			final NameIndex merged = new NameIndex(cached.get(), names);
+			cache.put(workspaceID, merged.names.length > maxNames ?
+					Optional.empty() : Optional.of(merged));
+		}
+	}
+
+	/** Remove a workspace's names from the cache. Call this method when objects are renamed,
+	 * hidden, unhidden, deleted, or undeleted in the workspace.
+	 * @param workspaceID the ID of the workspace.
+	 */
+	public void invalidate(final long workspaceID) {
+		final int stripe = stripe(workspaceID);
+		synchronized (locks[stripe]) {
+			generations[stripe]++;
+			cache.invalidate(workspaceID);
+		}
+	}
+
+	/** Remove all the entries from the cache. */
+	public void invalidateAll() {
+		for (int i = 0; i < generations.length; i++) {
+			synchronized (locks[i]) {
+				generations[i]++;
+			}
+		}
+		cache.invalidateAll();
+	}
+}
@@ -13,7 +13,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
 import us.kbase.workspace.database.exceptions.InaccessibleObjectException;
@@ -46,6 +45,7 @@ public class ObjectResolver {
 	private final boolean nullIfInaccessible;
 	private final boolean asAdmin;
 	private final int maximumObjectSearchCount;
+	private final ReadableWorkspaceIDCache readableWorkspaceIDCache;
 	
 	/* only the below are accessible via the api. The variables above are only needed during the
 	 * object resolution process. 
@@ -65,7 +65,8 @@ public class ObjectResolver {
 			final List<ObjectIdentifier> objects,
 			final boolean nullIfInaccessible,
 			final boolean asAdmin,
-			final int maxSearch)
+			final int maxSearch,
+			final ReadableWorkspaceIDCache readableWorkspaceIDCache)
 			throws WorkspaceCommunicationException, InaccessibleObjectException,
 				CorruptWorkspaceDBException, NoSuchReferenceException,
 				ReferenceSearchMaximumSizeExceededException {
@@ -76,6 +77,7 @@ public class ObjectResolver {
 		this.nullIfInaccessible = nullIfInaccessible;
 		this.asAdmin = asAdmin;
 		this.maximumObjectSearchCount = maxSearch;
+		this.readableWorkspaceIDCache = readableWorkspaceIDCache;
 		resolve();
 	}
 	
@@ -229,21 +231,19 @@ public class ObjectResolver {
 	}
 	
 
-	private Set<Long> getReadableWorkspaces()
+	private WorkspaceIDSet getReadableWorkspaces()
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
-		//could make a method to just get IDs of workspace with specific permission to save mem
-		final PermissionSet pset = db.getPermissions(user, Permission.READ, false);
-		return pset.getWorkspaces().stream()
-				.filter(ws -> !ws.isDeleted())
-				.map(ws -> ws.getID())
-				.collect(Collectors.toSet());
+		if (readableWorkspaceIDCache == null) {
+			return ReadableWorkspaceIDCache.queryReadableWorkspaceIDs(db, user);
+		}
+		return readableWorkspaceIDCache.getReadableWorkspaceIDs(user);
 	}
 	
 	private class TopoProvider implements ReferenceGraphTopologyProvider {
 			
-		private final Set<Long> readableWorkspaceIDs;
+		private final WorkspaceIDSet readableWorkspaceIDs;
 		
-		private TopoProvider(final Set<Long> readableWorkspaceIDs) {
+		private TopoProvider(final WorkspaceIDSet readableWorkspaceIDs) {
 			this.readableWorkspaceIDs = readableWorkspaceIDs;
 		}
 
@@ -287,7 +287,8 @@ public class ObjectResolver {
 		if (lookup.isEmpty()) {
 			return;
 		}
-		final Set<Long> readableWorkspaceIDs = asAdmin? new HashSet<>() : getReadableWorkspaces();
+		final WorkspaceIDSet readableWorkspaceIDs = asAdmin ?
+				WorkspaceIDSet.empty() : getReadableWorkspaces();
 		final Map<ObjectIdentifier, ObjectIDResolvedWS> resobjs = permissionsFactory
 				.getObjectChecker(lookup, Permission.NONE)
 				.withIncludeDeletedWorkspaces().check();
@@ -327,7 +328,7 @@ public class ObjectResolver {
 	}
 
 	private Set<Reference> searchObjectDAGGetStartingRefs(
-			final Set<Long> readableWorkspaceIDs,
+			final WorkspaceIDSet readableWorkspaceIDs,
 			final Set<ObjectIdentifier> lookup,
 			final Map<ObjectIdentifier, ObjectIDResolvedWS> resobjs,
 			final Map<ObjectIDResolvedWS, Reference> objrefs)
@@ -566,6 +567,7 @@ public class ObjectResolver {
 		private boolean nullIfInaccessible = false;
 		private boolean asAdmin = false;
 		private int maxSearch = MAX_OBJECT_SEARCH_COUNT_DEFAULT;
+		private ReadableWorkspaceIDCache readableWorkspaceIDCache = null;
 		
 		private Builder(final WorkspaceDatabase db, final WorkspaceUser user) {
 			nonNull(db, "db");
@@ -590,7 +592,8 @@ public class ObjectResolver {
 			if (objects.isEmpty()) {
 				throw new IllegalArgumentException("No object identifiers provided");
 			}
-			return new ObjectResolver(db, user, objects, nullIfInaccessible, asAdmin, maxSearch);
+			return new ObjectResolver(db, user, objects, nullIfInaccessible, asAdmin, maxSearch,
+					readableWorkspaceIDCache);
 		}
 		
 		/** Build an empty ObjectResolver containing no objects. Ignores any objects added to the
@@ -601,7 +604,7 @@ public class ObjectResolver {
 
 			try {
 				return new ObjectResolver(db, user, Collections.emptyList(), nullIfInaccessible,
-						asAdmin, maxSearch);
+						asAdmin, maxSearch, readableWorkspaceIDCache);
 			} catch (WorkspaceCommunicationException | InaccessibleObjectException |
 					CorruptWorkspaceDBException | NoSuchReferenceException |
 					ReferenceSearchMaximumSizeExceededException e) {
@@ -642,6 +645,17 @@ public class ObjectResolver {
 			return this;
 		}
 		
+		/** Use a cache to look up the workspaces the user can read when searching the object
+		 * graph for a path to an object. If no cache is provided, the workspaces are looked up
+		 * in the database for each resolution.
+		 * @param cache the cache, or null to not use a cache.
+		 * @return this builder.
+		 */
+		public Builder withReadableWorkspaceIDCache(final ReadableWorkspaceIDCache cache) {
+			this.readableWorkspaceIDCache = cache;
+			return this;
+		}
+		
 		/** Add an object to be resolved.
 		 * @param object the object.
 		 * @return this builder.
@@ -0,0 +1,119 @@
+package us.kbase.workspace.database;
+
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** A cache of the IDs of the undeleted workspaces each user can read, either via explicit
+ * permissions or because the workspace is public.
+ *
+ * Permission changes made via this server should call {@link #invalidateAll()}. Permission
+ * changes made via other servers sharing the same database will not be visible until the
+ * cache entry expires.
+ *
+ * Workspace IDs loaded from the database while an invalidation occurs are returned to the caller
+ * but are not cached, since they may predate the change that caused the invalidation.
+ */
+public class ReadableWorkspaceIDCache {
+
+	private final WorkspaceDatabase db;
+	// empty for anonymous users
+	private final Cache<Optional<WorkspaceUser>, WorkspaceIDSet> cache;
+	// incremented on every invalidation. Guarded by this.
+	private long generation = 0;
+
+	/** Create the cache.
+	 * @param db the workspace database.
+	 * @param maxCacheSize the maximum number of users for which workspace IDs will be cached.
+	 * @param cacheTimeInMS the maximum time workspace IDs will be cached in milliseconds.
+	 */
+	public ReadableWorkspaceIDCache(
+			final WorkspaceDatabase db,
+			final int maxCacheSize,
+			final int cacheTimeInMS) {
+		this(db, maxCacheSize, cacheTimeInMS, Ticker.systemTicker());
+	}
+
+	/** This constructor should only be used for tests. */
+	public ReadableWorkspaceIDCache(
+			final WorkspaceDatabase db,
+			final int maxCacheSize,
+			final int cacheTimeInMS,
+			final Ticker ticker) {
+		nonNull(db, "db");
+		nonNull(ticker, "ticker");
+		this.db = db;
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxCacheSize)
+				.expireAfterWrite(cacheTimeInMS, TimeUnit.MILLISECONDS)
+				.ticker(ticker)
+				.build();
+	}
+
+	/** Get the IDs of the undeleted workspaces a user can read.
+	 * @param user the user, or null for an anonymous user.
+	 * @return the workspace IDs.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 * @throws CorruptWorkspaceDBException if corrupt data is found in the storage system.
+	 */
+	public WorkspaceIDSet getReadableWorkspaceIDs(final WorkspaceUser user)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		final Optional<WorkspaceUser> key = Optional.ofNullable(user);
+		final WorkspaceIDSet cached = cache.getIfPresent(key);
+		if (cached != null) {
+			return cached;
+		}
+		final long gen = getGeneration();
+		final WorkspaceIDSet ids = queryReadableWorkspaceIDs(db, user);
+		synchronized (this) {
+			// don't cache the IDs if the cache was invalidated while they were loading
+			if (gen == generation) {
+				cache.put(key, ids);
+			}
+		}
+		return ids;
+	}
+
+	private synchronized long getGeneration() {
+		return generation;
+	}
+
+	/** Remove all the entries from the cache. Call this method when any workspace's permissions
+	 * or deletion state change.
+	 */
+	public synchronized void invalidateAll() {
+		generation++;
+		cache.invalidateAll();
+	}
+
+	/** Get the IDs of the undeleted workspaces a user can read without caching.
+	 * @param db the workspace database.
+	 * @param user the user, or null for an anonymous user.
+	 * @return the workspace IDs.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 * @throws CorruptWorkspaceDBException if corrupt data is found in the storage system.
+	 */
+	public static WorkspaceIDSet queryReadableWorkspaceIDs(
+			final WorkspaceDatabase db,
+			final WorkspaceUser user)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		final WorkspaceIDSet pub = db.getWorkspaceIDs(Workspace.ALL_USERS, Permission.READ, true);
+		if (user == null) {
+			return pub;
+		}
+		return WorkspaceIDSet.getBuilder()
+				.withIDs(db.getWorkspaceIDs(user, Permission.READ, true))
+				.withIDs(pub)
+				.build();
+	}
+}
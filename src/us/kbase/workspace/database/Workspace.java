@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.google.common.base.Optional;
@@ -41,6 +42,7 @@ import us.kbase.typedobj.exceptions.TypeStorageException;
 import us.kbase.typedobj.exceptions.TypedObjectExtractionException;
 import us.kbase.typedobj.exceptions.TypedObjectSchemaException;
 import us.kbase.typedobj.exceptions.TypedObjectValidationException;
+import us.kbase.typedobj.idref.AssociatedIdIndex;
 import us.kbase.typedobj.idref.IdReference;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdParseException;
@@ -88,6 +90,20 @@ public class Workspace {
 	 */
 	private final static int MAX_OBJECT_SEARCH_COUNT_DEFAULT = 10000;
 	
+	/* The readable workspace cache is invalidated when permissions change via this instance, so
+	 * the expiry time is the maximum time a permission change via another server sharing the
+	 * database takes to affect object graph searches.
+	 */
+	private final static int READABLE_WS_CACHE_SIZE = 10000;
+	private final static int READABLE_WS_CACHE_TIME_MS = 5000;
+	
+	/* The object name cache is invalidated when names change via this instance, so the expiry
+	 * time is the maximum time a name change via another server takes to affect name lookups.
+	 * Workspaces with more names than the maximum always query the database.
+	 */
+	private final static int OBJECT_NAME_CACHE_MAX_NAMES = 100000;
+	private final static int OBJECT_NAME_CACHE_TIME_MS = 30000;
+	
 	private final static IdReferenceType WS_ID_TYPE = new IdReferenceType("ws");
 	
 	private final WorkspaceDatabase db;
@@ -95,6 +111,9 @@ public class Workspace {
 	private final TypedObjectValidator validator;
 	private final List<WorkspaceEventListener> listeners;
 	private int maximumObjectSearchCount;
+	private final ReadableWorkspaceIDCache readableWorkspaceIDCache;
+	// null if object names are not cached
+	private ObjectNameCache objectNameCache = null;
 	
 	public Workspace(
 			final WorkspaceDatabase db,
@@ -126,6 +145,8 @@ public class Workspace {
 		this.listeners = Collections.unmodifiableList(listeners);
 		db.setResourceUsageConfiguration(rescfg);
 		this.maximumObjectSearchCount = MAX_OBJECT_SEARCH_COUNT_DEFAULT;
+		this.readableWorkspaceIDCache = new ReadableWorkspaceIDCache(
+				db, READABLE_WS_CACHE_SIZE, READABLE_WS_CACHE_TIME_MS);
 	}
 	
 	/* this is temporary until we have path returning code when searching for objects.
@@ -140,6 +161,40 @@ public class Workspace {
 		return maximumObjectSearchCount;
 	}
 	
+	/** Cache object names in memory to speed up
+	 * {@link #getNamesByPrefix(WorkspaceUser, List, String, boolean, int)}. The cache is
+	 * disabled by default.
+	 * @param workspaces the maximum number of workspaces for which names will be cached, or 0
+	 * to disable the cache.
+	 */
+	public void setObjectNameCacheSize(final int workspaces) {
+		if (workspaces < 0) {
+			throw new IllegalArgumentException("workspaces must be >= 0");
+		}
+		objectNameCache = workspaces == 0 ? null : new ObjectNameCache(
+				db, workspaces, OBJECT_NAME_CACHE_MAX_NAMES, OBJECT_NAME_CACHE_TIME_MS);
+	}
+	
+	private void invalidateObjectNames(final ResolvedWorkspaceID wsid) {
+		if (objectNameCache != null) {
+			objectNameCache.invalidate(wsid.getID());
+		}
+	}
+	
+	// the saved object information is in the same order as the saved objects
+	private void addObjectNames(
+			final ResolvedWorkspaceID wsid,
+			final List<ResolvedSaveObject> saved,
+			final List<ObjectInformation> info) {
+		if (objectNameCache != null) {
+			final Map<String, Boolean> names = new HashMap<>();
+			for (int i = 0; i < info.size(); i++) {
+				names.put(info.get(i).getObjectName(), saved.get(i).isHidden());
+			}
+			objectNameCache.addNames(wsid.getID(), names);
+		}
+	}
+	
 	public ResourceUsageConfiguration getResourceConfig() {
 		return rescfg;
 	}
@@ -169,6 +224,7 @@ public class Workspace {
 		final WorkspaceInformation ret = db.createWorkspace(user, wsname, globalread,
 				pruneWorkspaceDescription(description),
 				meta == null ? new WorkspaceUserMetadata() : meta);
+		readableWorkspaceIDCache.invalidateAll();
 		for (final WorkspaceEventListener l: listeners) {
 			l.createWorkspace(user, ret.getId(), ret.getModDate());
 		}
@@ -233,13 +289,42 @@ public class Workspace {
 			throws CorruptWorkspaceDBException, NoSuchWorkspaceException,
 			WorkspaceCommunicationException, WorkspaceAuthorizationException,
 			PreExistingWorkspaceException, NoSuchObjectException {
+		return cloneWorkspace(user, wsi, newname, globalread, description, meta, exclude, false);
+	}
+	
+	/** Clone a workspace.
+	 * @param user the user cloning the workspace.
+	 * @param wsi the workspace to clone.
+	 * @param newname the name of the new workspace.
+	 * @param globalread true to make the new workspace globally readable.
+	 * @param description the description of the new workspace.
+	 * @param meta the metadata of the new workspace.
+	 * @param exclude objects to exclude from the new workspace.
+	 * @param shareVersions share the object versions with the source workspace rather than
+	 * copying them, which makes cloning workspaces with many versions much faster. Ignored if
+	 * the database doesn't support sharing versions.
+	 * @return information about the new workspace.
+	 */
+	public WorkspaceInformation cloneWorkspace(
+			final WorkspaceUser user,
+			final WorkspaceIdentifier wsi,
+			final String newname,
+			final boolean globalread,
+			final String description,
+			final WorkspaceUserMetadata meta,
+			final Set<ObjectIDNoWSNoVer> exclude,
+			final boolean shareVersions)
+			throws CorruptWorkspaceDBException, NoSuchWorkspaceException,
+			WorkspaceCommunicationException, WorkspaceAuthorizationException,
+			PreExistingWorkspaceException, NoSuchObjectException {
 		final ResolvedWorkspaceID wsid = new PermissionsCheckerFactory(db, user)
 				.getWorkspaceChecker(wsi, Permission.READ).check();
 		new WorkspaceIdentifier(newname, user); //check for errors, ensures user != null
 		final WorkspaceInformation info = db.cloneWorkspace(user, wsid, newname, globalread,
 				pruneWorkspaceDescription(description),
 				meta == null ? new WorkspaceUserMetadata() : meta,
-				exclude);
+				exclude, shareVersions);
+		readableWorkspaceIDCache.invalidateAll();
 		for (final WorkspaceEventListener l: listeners) {
 			l.cloneWorkspace(user, info.getId(), info.isGloballyReadable(), info.getModDate());
 		}
@@ -406,6 +491,7 @@ public class Workspace {
 			}
 		}
 		final Instant time = db.setWorkspaceOwner(rwsi, owner, newUser, newName);
+		readableWorkspaceIDCache.invalidateAll();
 		for (final WorkspaceEventListener l: listeners) {
 			l.setWorkspaceOwner(asAdmin ? null : owner, rwsi.getID(), newUser, newName, time);
 		}
@@ -461,6 +547,7 @@ public class Workspace {
 			}
 		}
 		final Instant time = db.setPermissions(wsid, users, permission);
+		readableWorkspaceIDCache.invalidateAll();
 		for (final WorkspaceEventListener l: listeners) {
 			l.setPermissions(user, wsid.getID(), permission, users, time);
 		}
@@ -504,6 +591,7 @@ public class Workspace {
 					", is locked and may not be modified");
 		}
 		final Instant time = db.setGlobalPermission(rwsi, permission);
+		readableWorkspaceIDCache.invalidateAll();
 		for (final WorkspaceEventListener l: listeners) {
 			l.setGlobalPermission(user, rwsi.getID(), permission, time);
 		}
@@ -749,6 +837,7 @@ public class Workspace {
 		try {
 			sortObjects(saveobjs, ttlObjSize);
 			final List<ObjectInformation> ret = db.saveObjects(user, rwsi, saveobjs);
+			addObjectNames(rwsi, saveobjs, ret);
 			for (final WorkspaceEventListener l: listeners) {
 				for (final ObjectInformation oi: ret) {
 					l.saveObject(oi, wsinfo.isGloballyReadable());
@@ -964,6 +1053,45 @@ public class Workspace {
 			final boolean showOnlyDeleted)
 			throws WorkspaceCommunicationException,
 			CorruptWorkspaceDBException {
+		return listWorkspaces(user, minPerm, users, meta, after, before, excludeGlobal,
+				showDeleted, showOnlyDeleted, -1, -1);
+	}
+	
+	/** List workspaces in order of their IDs. Pages of workspaces may be listed by passing the ID
+	 * of the last workspace in the previous page as startAfter.
+	 * @param user the user for which workspaces will be listed. If null, only public workspaces
+	 * will be listed.
+	 * @param minPerm the minimum permission the user must have to the workspaces. READ will be
+	 * used if minPerm is null or NONE.
+	 * @param users only list workspaces owned by these users. If null or empty, all owners.
+	 * @param meta only list workspaces with this metadata. At most one key/value pair is allowed.
+	 * @param after only list workspaces modified after this date. May be null.
+	 * @param before only list workspaces modified before this date. May be null.
+	 * @param excludeGlobal don't include public workspaces in the results.
+	 * @param showDeleted include deleted workspaces the user owns.
+	 * @param showOnlyDeleted only list deleted workspaces the user owns.
+	 * @param startAfter only list workspaces with IDs greater than this ID. Pass a value < 1 to
+	 * start with the first workspace.
+	 * @param limit the maximum number of workspaces to list. Pass a value < 1 for no limit.
+	 * @return the workspace information.
+	 * @throws WorkspaceCommunicationException if a communication error occurs when contacting the
+	 * storage system.
+	 * @throws CorruptWorkspaceDBException if corrupt data is found in the storage system.
+	 */
+	public List<WorkspaceInformation> listWorkspaces(
+			final WorkspaceUser user,
+			Permission minPerm,
+			final List<WorkspaceUser> users,
+			final WorkspaceUserMetadata meta,
+			final Date after,
+			final Date before,
+			final boolean excludeGlobal,
+			final boolean showDeleted,
+			final boolean showOnlyDeleted,
+			final long startAfter,
+			final int limit)
+			throws WorkspaceCommunicationException,
+			CorruptWorkspaceDBException {
 		if (minPerm == null || Permission.READ.compareTo(minPerm) > 0) {
 			minPerm = Permission.READ;
 		}
@@ -972,7 +1100,7 @@ public class Workspace {
 		}
 		final PermissionSet perms = db.getPermissions(user, minPerm, excludeGlobal);
 		return db.getWorkspaceInformation(perms, users, meta, after, before,
-				showDeleted, showOnlyDeleted);
+				showDeleted, showOnlyDeleted, startAfter, limit);
 	}
 	
 	/** List workspace IDs to which a user has access. Returns much less data than
@@ -996,17 +1124,14 @@ public class Workspace {
 		if (minPerm == null || Permission.READ.compareTo(minPerm) > 0) {
 			minPerm = Permission.READ;
 		}
-		final PermissionSet perms = db.getPermissions(
-				user, null, minPerm, excludeGlobal, true, false);
-		final List<Long> workspaceIDs = new LinkedList<>();
-		final List<Long> publicIDs = new LinkedList<>();
-		for (final ResolvedWorkspaceID ws: perms.getWorkspaces()) {
-			if (perms.getUserPermission(ws).equals(Permission.NONE)) {
-				publicIDs.add(ws.getID());
-			} else {
-				workspaceIDs.add(ws.getID());
-			}
-		}
+		// only the IDs are needed, so don't fetch the workspace information
+		final WorkspaceIDSet userIDs = user == null ? WorkspaceIDSet.empty() :
+				db.getWorkspaceIDs(user, minPerm, true);
+		final WorkspaceIDSet pubIDs = excludeGlobal || minPerm.compareTo(Permission.READ) > 0 ?
+				WorkspaceIDSet.empty() : db.getWorkspaceIDs(ALL_USERS, Permission.READ, true);
+		final List<Long> workspaceIDs = userIDs.stream().boxed().collect(Collectors.toList());
+		final List<Long> publicIDs = pubIDs.stream().filter(id -> !userIDs.contains(id))
+				.boxed().collect(Collectors.toList());
 		return new UserWorkspaceIDs(user, minPerm, workspaceIDs, publicIDs);
 	}
 	
@@ -1062,11 +1187,42 @@ public class Workspace {
 				WorkspaceCommunicationException, InaccessibleObjectException,
 				NoSuchReferenceException, TypedObjectExtractionException,
 				ReferenceSearchMaximumSizeExceededException, NoSuchObjectException {
+		return getObjects(user, loi, noData, nullIfInaccessible, asAdmin,
+				Collections.emptySet());
+	}
+	
+	/** Get objects from the workspace.
+	 * @param user the user retrieving the objects. Null for an anonymous user.
+	 * @param loi the objects to retrieve.
+	 * @param noData true to return the object information, provenance and references without
+	 * the object data.
+	 * @param nullIfInaccessible return null for inaccessible objects rather than throwing an
+	 * exception.
+	 * @param asAdmin true to ignore workspace permissions.
+	 * @param skip parts of the returned data packages to omit. Omitted parts are not retrieved
+	 * from the database and are null in the data packages.
+	 * @return the objects, in the same order as the object identifiers.
+	 */
+	public List<WorkspaceObjectData> getObjects(
+			final WorkspaceUser user,
+			final List<ObjectIdentifier> loi,
+			final boolean noData,
+			final boolean nullIfInaccessible,
+			final boolean asAdmin,
+			final Set<WorkspaceObjectData.OptionalField> skip)
+			throws CorruptWorkspaceDBException,
+				WorkspaceCommunicationException, InaccessibleObjectException,
+				NoSuchReferenceException, TypedObjectExtractionException,
+				ReferenceSearchMaximumSizeExceededException, NoSuchObjectException {
+		if (skip == null) {
+			throw new NullPointerException("skip cannot be null");
+		}
 		
 		final ObjectResolver.Builder orb = ObjectResolver.getBuilder(db, user)
 				.withIgnoreInaccessible(nullIfInaccessible)
 				.withAsAdmin(asAdmin)
-				.withMaximumObjectsSearched(maximumObjectSearchCount);
+				.withMaximumObjectsSearched(maximumObjectSearchCount)
+				.withReadableWorkspaceIDCache(readableWorkspaceIDCache);
 		for (final ObjectIdentifier oi: loi) {
 			orb.withObject(oi);
 		}
@@ -1085,10 +1241,10 @@ public class Workspace {
 		Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> refdata = null;
 		try {
 			stddata = db.getObjects(stdpaths, dataMan, 0,
-					!nullIfInaccessible, false, !nullIfInaccessible);
+					!nullIfInaccessible, false, !nullIfInaccessible, skip);
 			refdata = db.getObjects(refpaths, dataMan, calculateDataSize(stddata),
 					//objects cannot be missing at this stage
-					false, true, true);
+					false, true, true, skip);
 			
 			refpaths.clear();
 			stdpaths.clear();
@@ -1379,7 +1535,8 @@ public class Workspace {
 		final ObjectResolver.Builder orb = ObjectResolver.getBuilder(db, user)
 				.withIgnoreInaccessible(nullIfInaccessible)
 				.withAsAdmin(asAdmin)
-				.withMaximumObjectsSearched(maximumObjectSearchCount);
+				.withMaximumObjectsSearched(maximumObjectSearchCount)
+				.withReadableWorkspaceIDCache(readableWorkspaceIDCache);
 		for (final ObjectIdentifier oi: loi) {
 			orb.withObject(oi);
 		}
@@ -1463,10 +1620,10 @@ public class Workspace {
 		final Map<WorkspaceIdentifier, ResolvedWorkspaceID> rwsis =
 				new PermissionsCheckerFactory(db, user).getWorkspaceChecker(wsis, Permission.READ)
 					.check();
-		final Map<ResolvedWorkspaceID, List<String>> names =
-				db.getNamesByPrefix(
-						new HashSet<ResolvedWorkspaceID>(rwsis.values()),
-						prefix, includeHidden, limit);
+		final Set<ResolvedWorkspaceID> rwsiset = new HashSet<ResolvedWorkspaceID>(rwsis.values());
+		final Map<ResolvedWorkspaceID, List<String>> names = objectNameCache == null ?
+				db.getNamesByPrefix(rwsiset, prefix, includeHidden, limit) :
+				objectNameCache.getNamesByPrefix(rwsiset, prefix, includeHidden, limit);
 		final List<List<String>> ret = new LinkedList<List<String>>();
 		for (final WorkspaceIdentifier wi: wsis) {
 			final ResolvedWorkspaceID rwi = rwsis.get(wi);
@@ -1518,6 +1675,7 @@ public class Workspace {
 				.getObjectChecker(oi, Permission.WRITE)
 				.withOperation("rename objects in").check();
 		final ObjectInfoWithModDate objdate = db.renameObject(obj, newname);
+		invalidateObjectNames(obj.getWorkspaceIdentifier());
 		final ObjectInformation objinfo = objdate.getObjectInfo();
 		for (final WorkspaceEventListener l: listeners) {
 			l.renameObject(user, objinfo.getWorkspaceId(), objinfo.getObjectId(), newname,
@@ -1537,6 +1695,7 @@ public class Workspace {
 		final ObjectIDResolvedWS t = new PermissionsCheckerFactory(db, user)
 				.getObjectChecker(to, Permission.WRITE).check();
 		final CopyResult cr = db.copyObject(user, f, t);
+		invalidateObjectNames(t.getWorkspaceIdentifier());
 		final ObjectInformation oi = cr.getObjectInformation();
 		final WorkspaceInformation wsinfo = db.getWorkspaceInformation(
 				user, t.getWorkspaceIdentifier());
@@ -1578,6 +1737,9 @@ public class Workspace {
 						.check();
 		db.setObjectsHidden(new HashSet<ObjectIDResolvedWS>(ws.values()),
 				hide);
+		for (final ObjectIDResolvedWS o: ws.values()) {
+			invalidateObjectNames(o.getWorkspaceIdentifier());
+		}
 	}
 	
 	public void setObjectsDeleted(final WorkspaceUser user,
@@ -1591,6 +1753,9 @@ public class Workspace {
 						.check();
 		final Map<ResolvedObjectIDNoVer, Instant> objs = db.setObjectsDeleted(
 				new HashSet<ObjectIDResolvedWS>(ws.values()), delete);
+		for (final ObjectIDResolvedWS o: ws.values()) {
+			invalidateObjectNames(o.getWorkspaceIdentifier());
+		}
 		for (final WorkspaceEventListener l: listeners) {
 			for (final ResolvedObjectIDNoVer o: objs.keySet()) {
 				l.setObjectDeleted(user, o.getWorkspaceIdentifier().getID(), o.getId(), delete,
@@ -1655,6 +1820,7 @@ public class Workspace {
 		// once a workpace is locked, it's locked. Period.
 		PermissionsCheckerFactory.checkLocked(Permission.ADMIN, wsid);
 		final Instant time = db.setWorkspaceDeleted(wsid, delete);
+		readableWorkspaceIDCache.invalidateAll();
 		final WorkspaceInformation wsinfo = db.getWorkspaceInformation(user, wsid);
 		for (final WorkspaceEventListener l: listeners) {
 			l.setWorkspaceDeleted(user, wsid.getID(), delete, wsinfo.getMaximumObjectID(), time);
@@ -1739,9 +1905,9 @@ public class Workspace {
 
 		private final WorkspaceUser user;
 		
-		// associatedObject -> id -> list of attributes
-		private final Map<T, Map<String, Set<List<String>>>> ids = new HashMap<>();
-		private final Map<String, RemappedId> remapped = new HashMap<>();
+		private final AssociatedIdIndex<T> ids = new AssociatedIdIndex<>();
+		// remapped IDs, indexed by the ID's index in the ID index
+		private RemappedId[] remapped;
 		
 		private WorkspaceIDHandler(final WorkspaceUser user) {
 			super();
@@ -1766,42 +1932,41 @@ public class Workspace {
 				final String id,
 				final List<String> attributes)
 				throws IdParseException {
-			boolean unique = true;
-			if (!ids.containsKey(associatedObject)) {
-				ids.put(associatedObject, new HashMap<String, Set<List<String>>>());
-			}
-			if (!ids.get(associatedObject).containsKey(id)) {
-				ids.get(associatedObject).put(id, new HashSet<List<String>>());
-			} else {
-				unique = false;
-			}
-			if (attributes != null && !attributes.isEmpty()) {
-				ids.get(associatedObject).get(id).add(attributes);
-			}
-			return unique;
+			return ids.add(associatedObject, id, attributes);
 		}
 
 		@Override
 		protected void processIdsImpl()
 				throws IdReferenceHandlerException {
+			final List<String> idlist = ids.getIds();
+			final ObjectIdentifier[] parsed = new ObjectIdentifier[idlist.size()];
 			final Set<ObjectIdentifier> idset = new HashSet<ObjectIdentifier>();
-			for (final T assObj: ids.keySet()) {
-				for (final String id: ids.get(assObj).keySet()) {
-					idset.add(parseIDString(id, assObj));
-				}
+			for (int i = 0; i < parsed.length; i++) {
+				final String id = idlist.get(i);
+				parsed[i] = parseIDString(id, ids.getFirstAssociatedObject(id));
+				idset.add(parsed[i]);
 			}
 			final ObjectResolver wsresolvedids = resolveIDs(idset);
 			
 			final Map<ObjectIDResolvedWS, TypeAndReference> objtypes =
 					getObjectTypes(wsresolvedids);
 
-			for (final T assObj: ids.keySet()) {
-				for (final String id: ids.get(assObj).keySet()) {
-					final ObjectIdentifier oi = parseIDString(id, assObj);
-					final ObjectIDResolvedWS roi = wsresolvedids.getResolvedObject(oi);
-					final TypeAndReference tnr = objtypes.get(roi);
-					typeCheckReference(id, tnr.getType(), assObj);
-					remapped.put(id, tnr.getReference());
+			// the resolved type of each ID, indexed by the ID's index in the ID index.
+			// Many objects in a save usually reference the same few objects, so types are looked
+			// up once per distinct ID rather than once per object.
+			final AbsoluteTypeDefId[] types = new AbsoluteTypeDefId[parsed.length];
+			remapped = new RemappedId[parsed.length];
+			for (int i = 0; i < parsed.length; i++) {
+				final ObjectIDResolvedWS roi = wsresolvedids.getResolvedObject(parsed[i]);
+				final TypeAndReference tnr = objtypes.get(roi);
+				types[i] = tnr.getType();
+				remapped[i] = tnr.getReference();
+			}
+			// the allowed types for each distinct @id ws attribute list, parsed once per save
+			final Map<List<String>, Set<TypeDefName>> allowedTypes = new HashMap<>();
+			for (final T assObj: ids.getAssociatedObjects()) {
+				for (final String id: ids.getIds(assObj)) {
+					typeCheckReference(id, types[ids.indexOf(id)], assObj, allowedTypes);
 				}
 			}
 		}
@@ -1842,7 +2007,7 @@ public class Workspace {
 		//parse error, deleted object, etc.
 		private List<String> getAnyAttributeSet(final T assObj, final String id) {
 			final List<String> attribs;
-			final Set<List<String>> attribset = ids.get(assObj).get(id);
+			final List<List<String>> attribset = ids.getAttributes(assObj, id);
 			if (attribset.isEmpty()) {
 				attribs = null;
 			} else {
@@ -1856,16 +2021,21 @@ public class Workspace {
 		private void typeCheckReference(
 				final String id,
 				final AbsoluteTypeDefId type,
-				final T assObj)
+				final T assObj,
+				final Map<List<String>, Set<TypeDefName>> allowedTypesCache)
 				throws IdReferenceException {
-			final Set<List<String>> typeSets = ids.get(assObj).get(id);
+			final List<List<String>> typeSets = ids.getAttributes(assObj, id);
 			if (typeSets.isEmpty()) {
 				return;
 			}
 			for (final List<String> allowed: typeSets) {
-				final List<TypeDefName> allowedTypes = new ArrayList<TypeDefName>();
-				for (final String t: allowed) {
-					allowedTypes.add(new TypeDefName(t));
+				Set<TypeDefName> allowedTypes = allowedTypesCache.get(allowed);
+				if (allowedTypes == null) {
+					allowedTypes = new HashSet<>();
+					for (final String t: allowed) {
+						allowedTypes.add(new TypeDefName(t));
+					}
+					allowedTypesCache.put(allowed, allowedTypes);
 				}
 				if (!allowedTypes.contains(type.getType())) {
 					throw new IdReferenceException(String.format(
@@ -1919,7 +2089,8 @@ public class Workspace {
 				final Set<ObjectIdentifier> idset)
 				throws IdReferenceHandlerException {
 			final ObjectResolver.Builder orb = ObjectResolver.getBuilder(db, user)
-					.withMaximumObjectsSearched(maximumObjectSearchCount);
+					.withMaximumObjectsSearched(maximumObjectSearchCount)
+					.withReadableWorkspaceIDCache(readableWorkspaceIDCache);
 			if (!idset.isEmpty()) {
 				try {
 					for (final ObjectIdentifier oi: idset) {
@@ -1954,14 +2125,13 @@ public class Workspace {
 					e.getFromPosition(),
 					e.getFromObject().getReferenceString(),
 					e.getToObject().getReferenceString());
-			for (final T assObj: ids.keySet()) {
-				for (final String id: ids.get(assObj).keySet()) {
-					final ObjectIdentifier oi = parseIDString(id, assObj);
-					if (oi.equals(start)) {
-						final List<String> attribs = getAnyAttributeSet(assObj, id);
-						return new IdReferenceException(
-								exception, getIdType(), assObj, id, attribs, e);
-					}
+			for (final String id: ids.getIds()) {
+				final T assObj = ids.getFirstAssociatedObject(id);
+				final ObjectIdentifier oi = parseIDString(id, assObj);
+				if (oi.equals(start)) {
+					final List<String> attribs = getAnyAttributeSet(assObj, id);
+					return new IdReferenceException(
+							exception, getIdType(), assObj, id, attribs, e);
 				}
 			}
 			throw new RuntimeException(String.format(
@@ -1995,14 +2165,13 @@ public class Workspace {
 				final ObjectIdentifier originalObject,
 				final String exception)
 				throws IdParseException {
-			for (final T assObj: ids.keySet()) {
-				for (final String id: ids.get(assObj).keySet()) {
-					final ObjectIdentifier oi = parseIDString(id, assObj);
-					if (oi.equals(originalObject)) {
-						final List<String> attribs = getAnyAttributeSet(assObj, id);
-						return new IdReferenceException(exception + id + ": " + e.getMessage(),
-								getIdType(), assObj, id, attribs, e);
-					}
+			for (final String id: ids.getIds()) {
+				final T assObj = ids.getFirstAssociatedObject(id);
+				final ObjectIdentifier oi = parseIDString(id, assObj);
+				if (oi.equals(originalObject)) {
+					final List<String> attribs = getAnyAttributeSet(assObj, id);
+					return new IdReferenceException(exception + id + ": " + e.getMessage(),
+							getIdType(), assObj, id, attribs, e);
 				}
 			}
 			throw new RuntimeException(String.format(
@@ -2013,21 +2182,19 @@ public class Workspace {
 		@Override
 		protected RemappedId getRemappedIdImpl(final String oldId)
 				throws NoSuchIdException {
-			if (!remapped.containsKey(oldId)) {
+			final int idx = ids.indexOf(oldId);
+			if (idx < 0) {
 				throw new NoSuchIdException(
 						"No such ID contained in this mapper: " + oldId);
 			}
-			return remapped.get(oldId);
+			return remapped[idx];
 		}
 
 		@Override
 		protected Set<RemappedId> getRemappedIdsImpl(T associatedObject) {
 			Set<RemappedId> newids = new HashSet<RemappedId>();
-			if (!ids.containsKey(associatedObject)) {
-				return newids;
-			}
-			for (final String id: ids.get(associatedObject).keySet()) {
-				newids.add(remapped.get(id));
+			for (final String id: ids.getIds(associatedObject)) {
+				newids.add(remapped[ids.indexOf(id)]);
 			}
 			return newids;
 		}
@@ -117,6 +117,9 @@ public interface WorkspaceDatabase {
 	 * @param description the description of the new workspace.
 	 * @param meta the metadata of the new workspace.
 	 * @param exclude objects to exlude from the cloned workspace.
+	 * @param shareVersions share the object versions with the source workspace rather than
+	 * copying them, if the database supports it. Shared versions are copied into the new
+	 * workspace later if an operation requires it. The clone is otherwise identical to a copy.
 	 * @return information about the new workspace
 	 * @throws PreExistingWorkspaceException if the workspace name already
 	 * exists.
@@ -132,7 +135,8 @@ public interface WorkspaceDatabase {
 			boolean globalread,
 			String description,
 			WorkspaceUserMetadata meta,
-			Set<ObjectIDNoWSNoVer> exclude)
+			Set<ObjectIDNoWSNoVer> exclude,
+			boolean shareVersions)
 			throws PreExistingWorkspaceException,
 			WorkspaceCommunicationException, CorruptWorkspaceDBException,
 			NoSuchObjectException;
@@ -262,6 +266,23 @@ public interface WorkspaceDatabase {
 			boolean excludeGlobalRead)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException;
 
+	/** Get the IDs of the workspaces to which a user has been explicitly granted a permission.
+	 * Unlike the getPermissions methods, workspace information is not retrieved, and
+	 * globally readable workspaces are only included if the user is {@link AllUsers}.
+	 * @param user the user for whom to get workspace IDs.
+	 * @param perm the minimum permission required for a workspace to be included in the set.
+	 * Minimum READ.
+	 * @param excludeDeletedWorkspaces exclude deleted workspaces.
+	 * @return the workspace IDs.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 * @throws CorruptWorkspaceDBException if the workspace database is corrupt.
+	 */
+	public WorkspaceIDSet getWorkspaceIDs(
+			User user,
+			Permission perm,
+			boolean excludeDeletedWorkspaces)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException;
+
 	/** Get permissions for a set of workspaces for one user.
 	 * 
 	 * @param user the user for whom to get permissions. If the user is null,
@@ -352,6 +373,8 @@ public interface WorkspaceDatabase {
 	 * effect if exceptIfDeleted is set.
 	 * @param exceptIfMissing throw an exception if the object does not exist
 	 * in the database.
+	 * @param skip parts of the data packages to omit. Omitted parts are not retrieved from the
+	 * database and are null in the returned data packages.
 	 * @return a mapping of object id -> subdata paths -> data.
 	 * @throws NoSuchObjectException if there is no such object.
 	 * @throws WorkspaceCommunicationException if a communication error with
@@ -367,7 +390,8 @@ public interface WorkspaceDatabase {
 					long usedDataAllocation,
 					boolean exceptIfDeleted,
 					boolean includeDeleted,
-					boolean exceptIfMissing)
+					boolean exceptIfMissing,
+					Set<WorkspaceObjectData.OptionalField> skip)
 			throws NoSuchObjectException,WorkspaceCommunicationException,
 			CorruptWorkspaceDBException, TypedObjectExtractionException;
 	
@@ -498,6 +522,16 @@ public interface WorkspaceDatabase {
 			boolean includeHidden, int limit)
 			throws WorkspaceCommunicationException;
 	
+	/** Get the names of the undeleted objects in a workspace, in no particular order.
+	 * @param rwsi the workspace.
+	 * @param limit the maximum number of names to return.
+	 * @return a map of object name to whether the object is hidden.
+	 * @throws WorkspaceCommunicationException if a communication error with
+	 * the backend occurs
+	 */
+	public Map<String, Boolean> getObjectNames(ResolvedWorkspaceID rwsi, int limit)
+			throws WorkspaceCommunicationException;
+	
 	/** Rename a workspace.
 	 * @param wsid the workspace.
 	 * @param newname the new name for the workspace.
@@ -539,10 +573,27 @@ public interface WorkspaceDatabase {
 	public Instant setWorkspaceDeleted(ResolvedWorkspaceID wsid, boolean delete)
 			throws WorkspaceCommunicationException;
 	
+	/** Get information about workspaces, sorted by the workspace ID.
+	 * @param pset the workspaces to consider and the user's permissions to them.
+	 * @param owners only include workspaces owned by these users. If null or empty, all owners.
+	 * @param meta only include workspaces with this metadata. May be null.
+	 * @param after only include workspaces modified after this date. May be null.
+	 * @param before only include workspaces modified before this date. May be null.
+	 * @param showDeleted include deleted workspaces the user owns.
+	 * @param showOnlyDeleted only include deleted workspaces the user owns.
+	 * @param startAfter only include workspaces with IDs greater than this ID. Pass a value < 1
+	 * to include all workspaces.
+	 * @param limit the maximum number of workspaces to return. Pass a value < 1 for no limit.
+	 * @return the workspace information.
+	 * @throws WorkspaceCommunicationException if a communication error occurs when contacting the
+	 * storage system.
+	 * @throws CorruptWorkspaceDBException if corrupt data is found in the storage system.
+	 */
 	public List<WorkspaceInformation> getWorkspaceInformation(
 			PermissionSet pset, List<WorkspaceUser> owners,
 			WorkspaceUserMetadata meta, Date after, Date before,
-			boolean showDeleted, boolean showOnlyDeleted)
+			boolean showDeleted, boolean showOnlyDeleted,
+			long startAfter, int limit)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException;
 
 	public WorkspaceUser getWorkspaceOwner(ResolvedWorkspaceID rwsi)
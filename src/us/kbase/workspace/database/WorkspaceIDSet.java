@@ -0,0 +1,186 @@
+package us.kbase.workspace.database;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.LongStream;
+
+/** An immutable set of workspace IDs.
+ *
+ * A user may have access to many thousands of workspaces, and the set is consulted for every
+ * object visited during a reference graph search, so the IDs are stored without boxing. Workspace
+ * IDs are assigned sequentially, so the IDs are usually stored as a bitmap offset from the
+ * minimum ID. If the IDs are sparse enough that a bitmap would be larger than a sorted array of
+ * the IDs, a sorted array is used instead.
+ */
+public class WorkspaceIDSet {
+
+	private static final WorkspaceIDSet EMPTY = new WorkspaceIDSet(new long[0]);
+
+	// the minimum ID, which is the zeroth bit in the bitmap
+	private final long offset;
+	// null if the IDs are stored in the sorted array
+	private final BitSet bitmap;
+	// null if the IDs are stored in the bitmap
+	private final long[] sorted;
+	private final int size;
+
+	private WorkspaceIDSet(final long[] sortedUniqueIDs) {
+		size = sortedUniqueIDs.length;
+		if (size == 0) {
+			offset = 0;
+			bitmap = null;
+			sorted = sortedUniqueIDs;
+			return;
+		}
+		offset = sortedUniqueIDs[0];
+		final long span = sortedUniqueIDs[size - 1] - offset + 1;
+		// a bitmap costs 1 bit per ID in the span, an array 64 bits per ID
+		if (span < Integer.MAX_VALUE && span <= size * 64L) {
+			bitmap = new BitSet((int) span);
+			for (final long id: sortedUniqueIDs) {
+				bitmap.set((int) (id - offset));
+			}
+			sorted = null;
+		} else {
+			bitmap = null;
+			sorted = sortedUniqueIDs;
+		}
+	}
+
+	/** Get an empty set.
+	 * @return an empty set.
+	 */
+	public static WorkspaceIDSet empty() {
+		return EMPTY;
+	}
+
+	/** Check whether the set contains a workspace ID.
+	 * @param id the workspace ID.
+	 * @return true if the set contains the ID.
+	 */
+	public boolean contains(final long id) {
+		if (bitmap != null) {
+			final long bit = id - offset;
+			return bit >= 0 && bit < bitmap.length() && bitmap.get((int) bit);
+		}
+		return Arrays.binarySearch(sorted, id) >= 0;
+	}
+
+	/** Get the number of workspace IDs in the set.
+	 * @return the size of the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Check whether the set is empty.
+	 * @return true if the set is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Get the workspace IDs in the set in ascending order.
+	 * @return the workspace IDs.
+	 */
+	public LongStream stream() {
+		if (bitmap != null) {
+			return bitmap.stream().mapToLong(i -> i + offset);
+		}
+		return Arrays.stream(sorted);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("WorkspaceIDSet [ids=");
+		builder.append(Arrays.toString(stream().toArray()));
+		builder.append("]");
+		return builder.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(stream().toArray());
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final WorkspaceIDSet other = (WorkspaceIDSet) obj;
+		if (size != other.size) {
+			return false;
+		}
+		return Arrays.equals(stream().toArray(), other.stream().toArray());
+	}
+
+	/** Get a builder for a {@link WorkspaceIDSet}.
+	 * @return a new builder.
+	 */
+	public static Builder getBuilder() {
+		return new Builder();
+	}
+
+	/** A builder for a {@link WorkspaceIDSet}.
+	 */
+	public static class Builder {
+
+		private long[] ids = new long[16];
+		private int count = 0;
+
+		private Builder() {}
+
+		/** Add a workspace ID to the set. Duplicate IDs are ignored.
+		 * @param id the workspace ID.
+		 * @return this builder.
+		 */
+		public Builder withID(final long id) {
+			if (id < 1) {
+				throw new IllegalArgumentException("Workspace IDs must be > 0");
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			ids[count++] = id;
+			return this;
+		}
+
+		/** Add all the workspace IDs in a set to this set.
+		 * @param ids the workspace IDs.
+		 * @return this builder.
+		 */
+		public Builder withIDs(final WorkspaceIDSet ids) {
+			if (ids == null) {
+				throw new NullPointerException("ids");
+			}
+			ids.stream().forEach(this::withID);
+			return this;
+		}
+
+		/** Build the set.
+		 * @return the set.
+		 */
+		public WorkspaceIDSet build() {
+			if (count == 0) {
+				return EMPTY;
+			}
+			final long[] sorted = Arrays.copyOf(ids, count);
+			Arrays.sort(sorted);
+			int unique = 1;
+			for (int i = 1; i < sorted.length; i++) {
+				if (sorted[i] != sorted[unique - 1]) {
+					sorted[unique++] = sorted[i];
+				}
+			}
+			return new WorkspaceIDSet(Arrays.copyOf(sorted, unique));
+		}
+	}
+}
@@ -2,7 +2,6 @@ package us.kbase.workspace.database;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Collections;
 
 import us.kbase.typedobj.idref.IdReferenceType;
 import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
@@ -16,6 +15,16 @@ public class WorkspaceObjectData {
 	
 	//TODO TEST unit tests
 	
+	/** Parts of a data package that may optionally be omitted when retrieving objects. */
+	public enum OptionalField {
+		/** The object provenance. */
+		PROVENANCE,
+		/** The workspace references extracted from the object. */
+		REFERENCES,
+		/** The external IDs extracted from the object. */
+		EXTRACTED_IDS;
+	}
+	
 	private final ByteArrayFileCache data;
 	private final ObjectInformation info;
 	private final Provenance prov;
@@ -27,10 +36,12 @@ public class WorkspaceObjectData {
 
 	/** Create a data package with only the provenance and other metadata.
 	 * @param info information about the object.
-	 * @param prov the object's provenance.
-	 * @param references references to other workspace objects extracted from the object.
+	 * @param prov the object's provenance, or null if it was not retrieved.
+	 * @param references references to other workspace objects extracted from the object, or null
+	 * if they were not retrieved.
 	 * @param copied the source of the object if it was copied from another object. May be null.
-	 * @param extIDs any external IDs extracted from the object, mapped by the ID type.
+	 * @param extIDs any external IDs extracted from the object, mapped by the ID type, or null if
+	 * they were not retrieved.
 	 */
 	public WorkspaceObjectData(
 			final ObjectInformation info,
@@ -38,25 +49,26 @@ public class WorkspaceObjectData {
 			final List<String> references,
 			final Reference copied,
 			final Map<IdReferenceType, List<String>> extIDs) {
-		if (info == null || prov == null || references == null) {
-			throw new IllegalArgumentException(
-					"references, prov and info cannot be null");
+		if (info == null) {
+			throw new IllegalArgumentException("info cannot be null");
 		}
 		this.info = info;
 		this.prov = prov;
 		this.references = references;
 		this.copied = copied;
-		this.extIDs = extIDs == null ? Collections.emptyMap() : extIDs;
+		this.extIDs = extIDs;
 		this.data = null;
 	}
 	
 	/** Create a data package.
 	 * @param data the object data.
 	 * @param info information about the object.
-	 * @param prov the object's provenance.
-	 * @param references references to other workspace objects extracted from the object.
+	 * @param prov the object's provenance, or null if it was not retrieved.
+	 * @param references references to other workspace objects extracted from the object, or null
+	 * if they were not retrieved.
 	 * @param copied the source of the object if it was copied from another object. May be null.
-	 * @param extIDs any external IDs extracted from the object, mapped by the ID type.
+	 * @param extIDs any external IDs extracted from the object, mapped by the ID type, or null if
+	 * they were not retrieved.
 	 */
 	public WorkspaceObjectData(
 			final ByteArrayFileCache data,
@@ -65,15 +77,14 @@ public class WorkspaceObjectData {
 			final List<String> references,
 			final Reference copied,
 			final Map<IdReferenceType, List<String>> extIDs) {
-		if (info == null || prov == null || references == null) {
-			throw new IllegalArgumentException(
-					"references, prov and info cannot be null");
+		if (info == null) {
+			throw new IllegalArgumentException("info cannot be null");
 		}
 		this.info = info;
 		this.prov = prov;
 		this.references = references;
 		this.copied = copied;
-		this.extIDs = extIDs == null ? Collections.emptyMap() : extIDs;
+		this.extIDs = extIDs;
 		this.data = data;
 	}
 
@@ -85,14 +96,14 @@ public class WorkspaceObjectData {
 	}
 
 	/** Returns the object provenance.
-	 * @return the object provenance.
+	 * @return the object provenance, or null if it was not retrieved.
 	 */
 	public Provenance getProvenance() {
 		return prov;
 	}
 	
 	/** Returns any workspace references extracted from the object.
-	 * @return a list of workspace references.
+	 * @return a list of workspace references, or null if they were not retrieved.
 	 */
 	public List<String> getReferences() {
 		return references;
@@ -106,7 +117,7 @@ public class WorkspaceObjectData {
 	}
 	
 	/** Returns any external IDs extracted from the object, mapped by the ID type.
-	 * @return 
+	 * @return the external IDs, or null if they were not retrieved.
 	 */
 	public Map<IdReferenceType, List<String>> getExtractedIds() {
 		return extIDs;
@@ -9,5 +9,6 @@ public class CollectionNames {
 	public static final String COL_WORKSPACE_OBJS = "workspaceObjects";
 	public static final String COL_WORKSPACE_VERS = "workspaceObjVersions";
 	public static final String COL_PROVENANCE = "provenance";
+	public static final String COL_OBJ_REFS = "objectReferences";
 	public static final String COL_CONFIG = "config";
 }
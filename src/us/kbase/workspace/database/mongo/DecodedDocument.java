@@ -0,0 +1,38 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+
+/** A top level document decoded from the workspace, object, version, or provenance collections.
+ * The driver decodes documents directly into this class, which is a {@link Map}, so query
+ * results can be used as maps without copying them field by field.
+ *
+ * Unlike {@link BasicDBObject}, the document is equal to any map with the same entries and
+ * hashes like any other map, so it can be used in place of a {@link java.util.HashMap}.
+ *
+ * This class is public only so the driver can instantiate it.
+ */
+public class DecodedDocument extends BasicDBObject {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Create an empty document. */
+	public DecodedDocument() {}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Map)) {
+			return false;
+		}
+		return entrySet().equals(((Map<?, ?>) o).entrySet());
+	}
+
+	@Override
+	public int hashCode() {
+		return entrySet().hashCode();
+	}
+}
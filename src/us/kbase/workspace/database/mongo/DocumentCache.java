@@ -0,0 +1,91 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/** A cache of database documents that never change once written, such as object versions and
+ * provenance. The cache is bounded by the approximate memory used by the documents.
+ *
+ * Documents are stored and returned as unmodifiable maps, so they're shared with callers
+ * without copying. Callers that need to add or remove fields must copy the document. Nested
+ * lists and maps are also shared and must not be modified.
+ */
+class DocumentCache<K> {
+
+	// rough per field / element overhead in bytes for references, boxing and map entries
+	private static final int OVERHEAD = 32;
+
+	// null if the cache is disabled
+	private final Cache<K, Map<String, Object>> cache;
+
+	/** Create the cache.
+	 * @param maxSizeInBytes the approximate maximum memory the cached documents may use, or 0
+	 * to disable the cache.
+	 */
+	DocumentCache(final long maxSizeInBytes) {
+		if (maxSizeInBytes < 0) {
+			throw new IllegalArgumentException("maxSizeInBytes must be >= 0");
+		}
+		if (maxSizeInBytes == 0) {
+			cache = null;
+			return;
+		}
+		cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxSizeInBytes)
+				.weigher(new Weigher<K, Map<String, Object>>() {
+
+					@Override
+					public int weigh(final K key, final Map<String, Object> doc) {
+						return (int) Math.min(Integer.MAX_VALUE, estimateSize(doc));
+					}
+				})
+				.build();
+	}
+
+	/** Get a document.
+	 * @param key the document's key.
+	 * @return the unmodifiable document, or null if the document is not cached.
+	 */
+	Map<String, Object> get(final K key) {
+		return cache == null ? null : cache.getIfPresent(key);
+	}
+
+	/** Add a document to the cache. The document must not be modified after it is added.
+	 * @param key the document's key.
+	 * @param doc the document.
+	 * @return an unmodifiable view of the document, which is the instance that is cached.
+	 */
+	Map<String, Object> put(final K key, final Map<String, Object> doc) {
+		final Map<String, Object> ret = Collections.unmodifiableMap(doc);
+		if (cache != null) {
+			cache.put(key, ret);
+		}
+		return ret;
+	}
+
+	/** Estimate the memory used by a document.
+	 * @param o the document or a value within the document.
+	 * @return the approximate size in bytes.
+	 */
+	static long estimateSize(final Object o) {
+		if (o instanceof String) {
+			return OVERHEAD + 2L * ((String) o).length();
+		}
+		long size = OVERHEAD;
+		if (o instanceof Map) {
+			for (final Map.Entry<?, ?> e: ((Map<?, ?>) o).entrySet()) {
+				size += estimateSize(e.getKey()) + estimateSize(e.getValue());
+			}
+		} else if (o instanceof Collection) {
+			for (final Object item: (Collection<?>) o) {
+				size += estimateSize(item);
+			}
+		}
+		return size;
+	}
+}
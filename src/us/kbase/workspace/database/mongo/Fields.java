@@ -26,6 +26,11 @@ public class Fields {
 	 * other process. Either true or omitted, never false.
 	 */
 	public static final String WS_CLONING = "cloning";
+	/* since 0.12.0
+	 * for workspaces cloned with shared versions where some objects still contain the
+	 * OBJ_SOURCE field. Either true or omitted, never false.
+	 */
+	public static final String WS_SHARED_VERS = "sharedvers";
 
 	// workspace acl fields
 	public static final String ACL_WSID = "id";
@@ -43,6 +48,27 @@ public class Fields {
 	public static final String OBJ_REFCOUNTS = "refcnt";
 	//TODO DBUPDATE remove this field. Deleting versions is out, just delete the entire object.
 	public static final String OBJ_LATEST = "latest";
+	/* since 0.12.0
+	 * The latest version's information, denormalized from the version document so the latest
+	 * versions of objects can be listed without reading every version. Contains the VER_VER,
+	 * VER_TYPE, VER_SAVEDATE, VER_SAVEDBY, VER_CHKSUM, VER_SIZE, and VER_META fields. Stale
+	 * if the VER_VER field does not match OBJ_VCNT.
+	 */
+	public static final String OBJ_LATEST_INFO = "latestinfo";
+	/* since 0.12.0
+	 * Present in objects cloned with shared versions until the versions are copied into the
+	 * clone. Versions up to and including SRC_VER are not stored for the object and are read
+	 * from the source object instead, with the SRC_SAVEDBY and SRC_SAVEDATE fields replacing
+	 * the saver and save date. The source workspace never has shared versions.
+	 */
+	public static final String OBJ_SOURCE = "src";
+	
+	// object source fields
+	public static final String SRC_WS_ID = "ws";
+	public static final String SRC_ID = "id";
+	public static final String SRC_VER = "ver";
+	public static final String SRC_SAVEDBY = "savedby";
+	public static final String SRC_SAVEDATE = "savedate";
 
 	// workspace version fields
 	public static final String VER_WS_ID = "ws";
@@ -61,6 +87,22 @@ public class Fields {
 	public static final String VER_COPIED = "copied";
 	//in 0.3.0, if missing assume no external IDs
 	public static final String VER_EXT_IDS = "extids";
+	/* since 0.12.0, the provenance date and workspace ID, which are stored per version so the
+	 * provenance document can be shared. If missing, they're in the provenance document.
+	 */
+	public static final String VER_PROV_DATE = "provdate";
+	public static final String VER_PROV_WS_ID = "provwsid";
+	
+	/* object reference fields, since 0.12.0
+	 * Each document is an edge in the reference graph from a source object version to the
+	 * target object version it references.
+	 */
+	public static final String REF_TARGET = "tgt";
+	public static final String REF_SOURCE_WS_ID = "ws";
+	public static final String REF_SOURCE_ID = "id";
+	public static final String REF_SOURCE_VER = "ver";
+	// true for provenance references, false for references in the object data
+	public static final String REF_PROV = "prov";
 	
 	// meta document key & value
 	public static final String META_KEY = "k";
@@ -71,6 +113,7 @@ public class Fields {
 	public static final String PROV_WS_ID = "wsid";
 	public static final String PROV_DATE = "date";
 	public static final String PROV_ACTIONS = "actions";
+	public static final String PROV_HASH = "hash";
 	//provenance action fields
 	public static final String PROV_ACTION_TIME = "time";
 	public static final String PROV_ACTION_CALLER = "caller";
@@ -129,6 +172,17 @@ public class Fields {
 	public static final String CONFIG_VALUE = "config";
 	public static final String CONFIG_UPDATE = "inupdate";
 	public static final String CONFIG_SCHEMA_VERSION = "schemaver";
+	/* since 0.12.0, if missing assume false
+	 * true if the object references collection contains the references for every object
+	 * version. Databases created prior to 0.12.0 must have the collection built before this
+	 * can be set to true.
+	 */
+	public static final String CONFIG_REF_INDEX = "refindex";
+	/* since 0.12.0, if missing assume false
+	 * true if every object document contains the OBJ_LATEST_INFO field. Databases created
+	 * prior to 0.12.0 must have the field added before this can be set to true.
+	 */
+	public static final String CONFIG_LATEST_INFO = "latestinfo";
 	
 	
 }
@@ -0,0 +1,236 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+import us.kbase.workspace.database.GetObjectInformationParameters;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.PermissionSet;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+
+/** A cache of query results for locked workspaces. The objects in a locked workspace can never
+ * be saved, renamed, hidden, deleted, or otherwise altered, so the results never go stale and
+ * are not expired.
+ *
+ * The workspace name and lock state are part of every cache key via the
+ * {@link ResolvedWorkspaceID}, so a workspace rename under a new owner, one of the few operations
+ * still allowed on a locked workspace, only orphans entries. Call {@link #invalidate(long)} to
+ * free them.
+ *
+ * Reference counts may still change in a locked workspace when objects in other workspaces
+ * refer to its objects, and are never cached here.
+ *
+ * Only results read from the primary should be cached, as a secondary may not yet have seen
+ * the writes made before the workspace was locked.
+ */
+class LockedWorkspaceCache {
+
+	// null if the cache is disabled
+	private final Cache<ObjectIDResolvedWSNoVer, Map<String, Object>> objects;
+	private final Cache<List<Object>, List<ObjectInformation>> lists;
+	/* The keys in the caches for each workspace, so a workspace can be invalidated without
+	 * scanning the caches. Sets are only accessed within the map's atomic operations.
+	 */
+	private final ConcurrentMap<Long, Set<Object>> keys = new ConcurrentHashMap<>();
+
+	/** Create the cache.
+	 * @param maxObjects the maximum number of object documents to cache, or 0 to disable
+	 * object caching.
+	 * @param maxListedObjects the maximum number of objects in all the cached listings, or 0 to
+	 * disable listing caching.
+	 */
+	LockedWorkspaceCache(final int maxObjects, final int maxListedObjects) {
+		if (maxObjects < 0 || maxListedObjects < 0) {
+			throw new IllegalArgumentException("Cache sizes must be >= 0");
+		}
+		objects = maxObjects == 0 ? null : CacheBuilder.newBuilder()
+				.maximumSize(maxObjects)
+				.removalListener(new RemovalListener<ObjectIDResolvedWSNoVer, Object>() {
+
+					@Override
+					public void onRemoval(
+							final RemovalNotification<ObjectIDResolvedWSNoVer, Object> n) {
+						if (n.getCause() != RemovalCause.REPLACED) {
+							removeKey(n.getKey().getWorkspaceIdentifier().getID(), n.getKey());
+						}
+					}
+				})
+				.build();
+		lists = maxListedObjects == 0 ? null : CacheBuilder.newBuilder()
+				.maximumWeight(maxListedObjects)
+				.weigher(new Weigher<List<Object>, List<ObjectInformation>>() {
+
+					@Override
+					public int weigh(
+							final List<Object> key,
+							final List<ObjectInformation> value) {
+						return value.size() + 1;
+					}
+				})
+				.removalListener(new RemovalListener<List<Object>, Object>() {
+
+					@Override
+					public void onRemoval(final RemovalNotification<List<Object>, Object> n) {
+						if (n.getCause() != RemovalCause.REPLACED) {
+							for (final long id: getWorkspaceIDs(n.getKey())) {
+								removeKey(id, n.getKey());
+							}
+						}
+					}
+				})
+				.build();
+	}
+	
+	private void addKey(final long workspaceID, final Object key) {
+		keys.compute(workspaceID, (id, ks) -> {
+			final Set<Object> ret = ks == null ? new HashSet<>() : ks;
+			ret.add(key);
+			return ret;
+		});
+	}
+	
+	private void removeKey(final long workspaceID, final Object key) {
+		keys.computeIfPresent(workspaceID, (id, ks) -> {
+			ks.remove(key);
+			return ks.isEmpty() ? null : ks;
+		});
+	}
+	
+	private static Set<Long> getWorkspaceIDs(final List<Object> listKey) {
+		@SuppressWarnings("unchecked")
+		final Set<ResolvedWorkspaceID> wss = (Set<ResolvedWorkspaceID>) listKey.get(0);
+		final Set<Long> ret = new HashSet<>();
+		for (final ResolvedWorkspaceID rwsi: wss) {
+			ret.add(rwsi.getID());
+		}
+		return ret;
+	}
+
+	/** Get an object document from the objects collection.
+	 * @param id the object ID. If the workspace isn't locked, null is always returned.
+	 * @return a copy of the document, or null if the document is not cached.
+	 */
+	Map<String, Object> getObject(final ObjectIDResolvedWSNoVer id) {
+		if (objects == null || !id.getWorkspaceIdentifier().isLocked()) {
+			return null;
+		}
+		final Map<String, Object> doc = objects.getIfPresent(id);
+		return doc == null ? null : new HashMap<>(doc);
+	}
+
+	/** Cache an object document from the objects collection. Documents for objects in unlocked
+	 * workspaces are ignored. The document is cached under both the object's name and ID.
+	 * @param id the object ID.
+	 * @param doc the document, which must contain the object name and ID and only fields that
+	 * never change in a locked workspace.
+	 */
+	void putObject(final ObjectIDResolvedWSNoVer id, final Map<String, Object> doc) {
+		final ResolvedWorkspaceID rwsi = id.getWorkspaceIdentifier();
+		if (objects == null || !rwsi.isLocked()) {
+			return;
+		}
+		final Map<String, Object> copy = new HashMap<>(doc);
+		for (final ObjectIDResolvedWSNoVer key: Arrays.asList(
+				new ObjectIDResolvedWSNoVer(rwsi, (String) doc.get(Fields.OBJ_NAME)),
+				new ObjectIDResolvedWSNoVer(rwsi, (Long) doc.get(Fields.OBJ_ID)))) {
+			addKey(rwsi.getID(), key);
+			objects.put(key, copy);
+		}
+	}
+
+	/** Get an object listing.
+	 * @param params the listing parameters. If any workspace in the parameters is not locked,
+	 * null is always returned.
+	 * @return a copy of the listing, or null if the listing is not cached.
+	 */
+	List<ObjectInformation> getList(final GetObjectInformationParameters params) {
+		final List<Object> key = toListKey(params);
+		if (lists == null || key == null) {
+			return null;
+		}
+		final List<ObjectInformation> list = lists.getIfPresent(key);
+		return list == null ? null : new ArrayList<>(list);
+	}
+
+	/** Cache an object listing. Listings including unlocked workspaces are ignored.
+	 * @param params the listing parameters.
+	 * @param list the listing.
+	 */
+	void putList(final GetObjectInformationParameters params, final List<ObjectInformation> list) {
+		final List<Object> key = toListKey(params);
+		if (lists != null && key != null) {
+			for (final long id: getWorkspaceIDs(key)) {
+				addKey(id, key);
+			}
+			lists.put(key, new ArrayList<>(list));
+		}
+	}
+
+	/** Remove all the cached results for a workspace.
+	 * @param workspaceID the ID of the workspace.
+	 */
+	void invalidate(final long workspaceID) {
+		final Set<Object> ks = keys.remove(workspaceID);
+		if (ks == null) {
+			return;
+		}
+		for (final Object key: ks) {
+			if (key instanceof ObjectIDResolvedWSNoVer) {
+				objects.invalidate(key);
+			} else {
+				lists.invalidate(key);
+			}
+		}
+	}
+
+	// returns null if the listing can't be cached
+	private List<Object> toListKey(final GetObjectInformationParameters params) {
+		final PermissionSet pset = params.getPermissionSet();
+		if (pset.isEmpty()) {
+			return null;
+		}
+		final Set<Long> writable = new HashSet<>();
+		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
+			if (!rwsi.isLocked()) {
+				return null;
+			}
+			// deleted objects are only listed in writable workspaces, see ObjectInfoUtils
+			if (params.asAdmin() || pset.hasPermission(rwsi, Permission.WRITE)) {
+				writable.add(rwsi.getID());
+			}
+		}
+		final boolean deleted = params.isShowDeleted() || params.isShowOnlyDeleted();
+		return Arrays.asList(
+				new HashSet<>(pset.getWorkspaces()),
+				deleted ? writable : null,
+				params.getType(),
+				params.getSavers(),
+				params.getMetadata(),
+				params.getAfter(),
+				params.getBefore(),
+				params.getMinObjectID(),
+				params.getMaxObjectID(),
+				params.isShowHidden(),
+				params.isShowDeleted(),
+				params.isShowOnlyDeleted(),
+				params.isShowAllVersions(),
+				params.isIncludeMetaData(),
+				params.getLimit(),
+				params.getStartAfter());
+	}
+}
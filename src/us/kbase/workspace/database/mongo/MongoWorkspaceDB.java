@@ -17,10 +17,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.Set;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.bson.types.ObjectId;
 import org.slf4j.LoggerFactory;
 
@@ -66,9 +70,11 @@ import us.kbase.workspace.database.UncheckedUserMetadata;
 import us.kbase.workspace.database.User;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.WorkspaceIDSet;
 import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
+import us.kbase.workspace.database.WorkspaceObjectData.OptionalField;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
 import us.kbase.workspace.database.WorkspaceUserMetadata.MetadataSizeException;
@@ -85,16 +91,23 @@ import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationExcept
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
 import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.base.Optional;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.CommandResult;
 import com.mongodb.DB;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.DuplicateKeyException;
+import com.mongodb.InsertOptions;
+import com.mongodb.MongoClient;
 import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
 import com.mongodb.WriteResult;
 
 public class MongoWorkspaceDB implements WorkspaceDatabase {
@@ -122,6 +135,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	public static final String COL_WORKSPACE_OBJS = CollectionNames.COL_WORKSPACE_OBJS;
 	public static final String COL_WORKSPACE_VERS = CollectionNames.COL_WORKSPACE_VERS;
 	public static final String COL_PROVENANCE = CollectionNames.COL_PROVENANCE;
+	public static final String COL_OBJ_REFS = CollectionNames.COL_OBJ_REFS;
 	public static final String COL_CONFIG = CollectionNames.COL_CONFIG;
 	public static final AllUsers ALL_USERS = Workspace.ALL_USERS;
 	
@@ -130,13 +144,38 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	private static final long MAX_PROV_SIZE = 1000000;
 	private static final int SCHEMA_VERSION = 1;
 	
+	private static final int DEFAULT_OBJECT_ID_BLOCK_MAX_WORKSPACES = 10000;
+	
 	private static final ObjectMapper MAPPER = new ObjectMapper();
+	// map keys are sorted so that identical provenance always hashes identically
+	private static final ObjectWriter PROV_HASH_WRITER = MAPPER.writer()
+			.with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
 	
 	private ResourceUsageConfiguration rescfg;
 	private final DB wsmongo;
 	private final BlobStore blob;
 	private final QueryMethods query;
 	private final ObjectInfoUtils objutils;
+	// whether the object references collection is complete and can be used for lookups
+	private final boolean useReferenceIndex;
+	// whether every object document contains the latest version information
+	private final boolean useLatestInfo;
+	/* Object versions and provenance never change once written, so they may be cached until
+	 * evicted for space. Mutable object state - name, hidden, and deleted - is always read from
+	 * the object collection when resolving object IDs. The caches are disabled by default.
+	 */
+	private DocumentCache<Reference> versionCache = new DocumentCache<>(0);
+	private DocumentCache<ObjectId> provenanceCache = new DocumentCache<>(0);
+	/* Objects in locked workspaces never change, so object ID resolution and listings may be
+	 * cached for locked workspaces until evicted for space. Disabled by default.
+	 */
+	private LockedWorkspaceCache lockedCache = new LockedWorkspaceCache(0, 0);
+	// null if object IDs are allocated one save at a time
+	private ObjectIDBlocks objectIDBlocks = null;
+	private int objectIDBlockSize = 0;
+	private SecondaryReads secondaryReads = new SecondaryReads(Collections.emptySet(), 0);
+	// the minimum time between workspace modification date updates
+	private long modDateIntervalMS = 0;
 	
 	private final TempFilesManager tfm;
 	
@@ -160,6 +199,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		ws.add(idxSpec(Fields.WS_NAME, 1, IDX_UNIQ, IDX_SPARSE));
 		//find workspaces by metadata
 		ws.add(idxSpec(Fields.WS_META, 1, IDX_SPARSE));
+		// find workspaces that share versions. Sparse since very few workspaces do.
+		ws.add(idxSpec(Fields.WS_SHARED_VERS, 1, IDX_SPARSE));
 		indexes.put(COL_WORKSPACES, ws);
 		
 		//workspace acl indexes
@@ -180,6 +221,16 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsObj.add(idxSpec(Fields.OBJ_MODDATE, 1));
 		//find object to garbage collect
 		wsObj.add(idxSpec(Fields.OBJ_DEL, 1, Fields.OBJ_REFCOUNTS, 1));
+		//find the latest versions of objects by type within workspaces
+		wsObj.add(idxSpec(Fields.OBJ_WS_ID, 1,
+				Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_TYPE, 1,
+				Fields.OBJ_ID, 1));
+		//find the latest versions of objects by user, saved date, and metadata, as for
+		//the version collection
+		wsObj.add(idxSpec(Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_SAVEDBY, 1));
+		wsObj.add(idxSpec(Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_SAVEDATE, 1));
+		wsObj.add(idxSpec(Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_META, 1,
+				IDX_SPARSE));
 		indexes.put(COL_WORKSPACE_OBJS, wsObj);
 
 		//workspace object version indexes
@@ -190,6 +241,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsVer.add(idxSpec(Fields.VER_WS_ID, 1, Fields.VER_ID, 1, Fields.VER_VER, -1, IDX_UNIQ));
 		//find versions by data object
 		wsVer.add(idxSpec(Fields.VER_TYPE, 1, Fields.VER_CHKSUM, 1));
+		//find versions by type within workspaces
+		wsVer.add(new IndexSpecification(
+				new BasicDBObject(Fields.VER_WS_ID, 1)
+						.append(Fields.VER_TYPE, 1)
+						.append(Fields.VER_ID, 1)
+						.append(Fields.VER_VER, -1),
+				getIndexOptions(new String[] {})));
 		//find versions by user
 		wsVer.add(idxSpec(Fields.VER_SAVEDBY, 1));
 		//determine whether a particular object is referenced by this object
@@ -204,7 +262,25 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsVer.add(idxSpec(Fields.VER_META, 1, IDX_SPARSE));
 		indexes.put(COL_WORKSPACE_VERS, wsVer);
 		
-		//no indexes needed for provenance since all lookups are by _id
+		//object reference indexes
+		final LinkedList<IndexSpecification> objRefs = new LinkedList<>();
+		//find the incoming references to object versions, optionally filtered by the
+		//referencing workspaces. Index covers queries and prevents duplicate references.
+		objRefs.add(new IndexSpecification(
+				new BasicDBObject(Fields.REF_TARGET, 1)
+						.append(Fields.REF_SOURCE_WS_ID, 1)
+						.append(Fields.REF_SOURCE_ID, 1)
+						.append(Fields.REF_SOURCE_VER, 1)
+						.append(Fields.REF_PROV, 1),
+				getIndexOptions(new String[] {IDX_UNIQ})));
+		indexes.put(COL_OBJ_REFS, objRefs);
+		
+		//provenance indexes
+		final LinkedList<IndexSpecification> prov = new LinkedList<>();
+		//find provenance by content hash to deduplicate provenance. Sparse since provenance
+		//saved before deduplication has no hash.
+		prov.add(idxSpec(Fields.PROV_HASH, 1, IDX_UNIQ, IDX_SPARSE));
+		indexes.put(COL_PROVENANCE, prov);
 		
 		//admin indexes
 		final LinkedList<IndexSpecification> admin = new LinkedList<>();
@@ -233,11 +309,126 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsmongo = workspaceDB;
 		query = new QueryMethods(wsmongo, (AllUsers) ALL_USERS, COL_WORKSPACES,
 				COL_WORKSPACE_OBJS, COL_WORKSPACE_VERS, COL_WS_ACLS);
-		objutils = new ObjectInfoUtils(query);
 		blob = blobStore;
+		for (final String col: Arrays.asList(COL_WORKSPACES, COL_WORKSPACE_OBJS,
+				COL_WORKSPACE_VERS, COL_PROVENANCE)) {
+			wsmongo.getCollection(col).setObjectClass(DecodedDocument.class);
+		}
 		//TODO DBCONSIST check a few random types and make sure they exist
 		ensureIndexes();
-		checkConfig();
+		final DBObject cfg = checkConfig();
+		useReferenceIndex = Boolean.TRUE.equals(cfg.get(Fields.CONFIG_REF_INDEX));
+		useLatestInfo = Boolean.TRUE.equals(cfg.get(Fields.CONFIG_LATEST_INFO));
+		objutils = new ObjectInfoUtils(query, useLatestInfo, useLatestInfo && useReferenceIndex);
+	}
+	
+	/** Reserve object IDs for new objects from workspace counters in blocks, and hand the IDs
+	 * out from the blocks in memory. This avoids incrementing the workspace counter on every
+	 * save when many clients are saving new objects to the same workspace, at the cost of
+	 * gaps in the object IDs and a maximum object ID, as reported in the workspace information,
+	 * that may be larger than the largest ID in use. IDs are allocated one save at a time by
+	 * default.
+	 * @param blockSize the number of IDs to reserve at once, or 0 or 1 to allocate IDs one
+	 * save at a time.
+	 * @param maxWorkspaces the maximum number of workspaces for which a block is kept. The
+	 * blocks of the least recently used workspaces are dropped and their unused IDs skipped.
+	 * 0 for the default of 10000.
+	 */
+	public void setObjectIDBlockSize(final int blockSize, final int maxWorkspaces) {
+		if (blockSize < 0) {
+			throw new IllegalArgumentException("blockSize must be >= 0");
+		}
+		if (maxWorkspaces < 0) {
+			throw new IllegalArgumentException("maxWorkspaces must be >= 0");
+		}
+		objectIDBlockSize = blockSize;
+		objectIDBlocks = blockSize < 2 ? null : new ObjectIDBlocks(maxWorkspaces < 1 ?
+				DEFAULT_OBJECT_ID_BLOCK_MAX_WORKSPACES : maxWorkspaces);
+	}
+	
+	/** Set the minimum time between updates of a workspace's modification date. Changes to a
+	 * workspace within the interval of the last recorded modification don't update the date, so
+	 * frequent saves to the same workspace don't all write the workspace document, at the cost
+	 * of the date lagging the last change by up to the interval. The date is updated on every
+	 * change by default.
+	 * @param seconds the interval in seconds, or 0 to update the date on every change.
+	 */
+	public void setWorkspaceModDateInterval(final int seconds) {
+		if (seconds < 0) {
+			throw new IllegalArgumentException("seconds must be >= 0");
+		}
+		modDateIntervalMS = seconds * 1000L;
+	}
+	
+	/** Cache object versions and provenance, which never change once saved, in memory. Only
+	 * versions read with all their fields, as when getting objects, are cached. The caches
+	 * are disabled by default.
+	 * @param versionCacheSizeInBytes the approximate maximum memory used by cached versions, or
+	 * 0 to disable the version cache.
+	 * @param provenanceCacheSizeInBytes the approximate maximum memory used by cached
+	 * provenance, or 0 to disable the provenance cache.
+	 */
+	public void setDocumentCacheSizes(
+			final long versionCacheSizeInBytes,
+			final long provenanceCacheSizeInBytes) {
+		if (versionCacheSizeInBytes < 0 || provenanceCacheSizeInBytes < 0) {
+			throw new IllegalArgumentException("Cache sizes must be >= 0");
+		}
+		versionCache = new DocumentCache<>(versionCacheSizeInBytes);
+		provenanceCache = new DocumentCache<>(provenanceCacheSizeInBytes);
+	}
+	
+	/** Cache object ID resolution and object listings for locked workspaces, whose objects
+	 * never change, in memory. Listings read from replica set secondaries are not cached. The
+	 * caches are disabled by default.
+	 * @param maxObjects the maximum number of objects whose resolution is cached, or 0 to
+	 * disable the resolution cache.
+	 * @param maxListedObjects the maximum total number of objects in the cached listings, or
+	 * 0 to disable the listing cache.
+	 */
+	public void setLockedWorkspaceCacheSizes(final int maxObjects, final int maxListedObjects) {
+		if (maxObjects < 0 || maxListedObjects < 0) {
+			throw new IllegalArgumentException("Cache sizes must be >= 0");
+		}
+		lockedCache = new LockedWorkspaceCache(maxObjects, maxListedObjects);
+	}
+	
+	/** Set the thresholds used to choose between a single $or query and concurrent per
+	 * workspace queries when fetching objects from many workspaces. See
+	 * {@link WorkspaceQueryExecutor}.
+	 * @param maxOrClauses the maximum number of workspaces to combine into an $or query, or 0
+	 * for the default, {@link WorkspaceQueryExecutor#DEFAULT_MAX_OR_CLAUSES}.
+	 * @param minConcurrentItems the minimum number of objects requested for the workspaces to be
+	 * queried concurrently, or 0 for the default,
+	 * {@link WorkspaceQueryExecutor#DEFAULT_MIN_CONCURRENT_ITEMS}.
+	 */
+	public void setWorkspaceQueryThresholds(
+			final int maxOrClauses,
+			final int minConcurrentItems) {
+		if (maxOrClauses < 0 || minConcurrentItems < 0) {
+			throw new IllegalArgumentException("Thresholds must be >= 0");
+		}
+		query.setWorkspaceQueryExecutor(new WorkspaceQueryExecutor(wsmongo,
+				maxOrClauses < 1 ? WorkspaceQueryExecutor.DEFAULT_MAX_OR_CLAUSES : maxOrClauses,
+				minConcurrentItems < 1 ?
+						WorkspaceQueryExecutor.DEFAULT_MIN_CONCURRENT_ITEMS : minConcurrentItems));
+	}
+	
+	/** Send classes of read only calls to MongoDB replica set secondaries with a maximum
+	 * staleness of 90 seconds, rather than the primary. Reads of workspaces written via this
+	 * instance within the last 90 seconds plus the MongoDB client's heartbeat frequency still go
+	 * to the primary so that clients see their own writes, but writes via other instances
+	 * sharing the same database may take that long to be visible to routed reads. All reads go
+	 * to the primary by default.
+	 * @param readClasses the classes of reads to send to secondaries.
+	 */
+	public void setSecondaryReads(final Set<ReadClass> readClasses) {
+		if (readClasses == null) {
+			throw new NullPointerException("readClasses");
+		}
+		// the object listing code already requires a MongoClient
+		secondaryReads = new SecondaryReads(readClasses, ((MongoClient) wsmongo.getMongo())
+				.getMongoClientOptions().getHeartbeatFrequency());
 	}
 	
 	private static class IndexSpecification {
@@ -321,14 +512,20 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return tfm;
 	}
 	
-	private void checkConfig() throws WorkspaceCommunicationException,
+	// returns the configuration document
+	private DBObject checkConfig() throws WorkspaceCommunicationException,
 			WorkspaceDBInitializationException, CorruptWorkspaceDBException {
 		final DBObject cfg = new BasicDBObject(
 				Fields.CONFIG_KEY, Fields.CONFIG_VALUE);
 		cfg.put(Fields.CONFIG_UPDATE, false);
 		cfg.put(Fields.CONFIG_SCHEMA_VERSION, SCHEMA_VERSION);
+		// a new database has no objects, so the references collection and latest version
+		// information are trivially complete
+		cfg.put(Fields.CONFIG_REF_INDEX, true);
+		cfg.put(Fields.CONFIG_LATEST_INFO, true);
 		try {
 			wsmongo.getCollection(COL_CONFIG).insert(cfg);
+			return cfg;
 		} catch (DuplicateKeyException dk) {
 			//ok, the version doc is already there, this isn't the first
 			//startup
@@ -354,6 +551,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 						"v%s of the schema. Aborting startup.", 
 						storedCfg.get(Fields.CONFIG_SCHEMA_VERSION)));
 			}
+			return storedCfg;
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -376,12 +574,20 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 	
+	/* Only moves the date forward, and doesn't write to the workspace document if a
+	 * concurrent save has already set a later date or the date is within the modification date
+	 * interval, so concurrent writers to the same workspace don't all update the document.
+	 */
 	private void updateWorkspaceModifiedDate(final ResolvedWorkspaceID rwsi)
 			throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(rwsi.getID());
+		final Date now = new Date();
 		try {
 			wsmongo.getCollection(COL_WORKSPACES).update(
-					new BasicDBObject(Fields.WS_ID, rwsi.getID()),
-					new BasicDBObject("$set", new BasicDBObject(Fields.WS_MODDATE, new Date())));
+					new BasicDBObject(Fields.WS_ID, rwsi.getID())
+							.append(Fields.WS_MODDATE, new BasicDBObject(
+									"$lt", new Date(now.getTime() - modDateIntervalMS))),
+					new BasicDBObject("$max", new BasicDBObject(Fields.WS_MODDATE, now)));
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -469,6 +675,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		secondaryReads.recordWrite(count);
 		if (!cloning) {
 			setCreatedWorkspacePermissions(user, globalRead,
 					new ResolvedWorkspaceID(count, wsname, false, false));
@@ -525,6 +732,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final WorkspaceUserMetadata newMeta)
 			throws WorkspaceCommunicationException,
 			CorruptWorkspaceDBException {
+		secondaryReads.recordWrite(rwsi.getID());
 		
 		if (newMeta == null || newMeta.isEmpty()) {
 			throw new IllegalArgumentException("Metadata cannot be null or empty");
@@ -607,6 +815,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	@Override
 	public Instant removeWorkspaceMetaKey(final ResolvedWorkspaceID rwsi,
 			final String key) throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(rwsi.getID());
 		final Instant time = Instant.now();
 		final String mkey = Fields.WS_META + Fields.FIELD_SEP + Fields.META_KEY;
 		try {
@@ -624,8 +833,11 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return time;
 	}
 	
-	private static final Set<String> FLDS_CLONE_WS =
-			newHashSet(Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL, Fields.OBJ_HIDE);
+	private static final Set<String> FLDS_CLONE_WS = newHashSet(
+			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_HIDE, Fields.OBJ_VCNT);
+	private static final Set<String> FLDS_CLONE_WS_SHARED = newHashSet(
+			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_HIDE, Fields.OBJ_VCNT,
+			Fields.OBJ_LATEST_INFO);
 	
 	@Override
 	public WorkspaceInformation cloneWorkspace(
@@ -635,13 +847,23 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final boolean globalRead,
 			final String description,
 			final WorkspaceUserMetadata meta,
-			final Set<ObjectIDNoWSNoVer> exclude)
+			final Set<ObjectIDNoWSNoVer> exclude,
+			final boolean shareVersions)
 			throws PreExistingWorkspaceException,
 			WorkspaceCommunicationException, CorruptWorkspaceDBException,
 			NoSuchObjectException {
 		
 		// looked at using copyObject to do this but was too messy
 		final ResolvedWorkspaceID fromWS = wsid;
+		// versions can't be shared with a workspace that shares its own versions, and shared
+		// versions can't be copied by cloneObjects
+		materializeSharedVersions(fromWS.getID());
+		/* Listing all versions and finding referencing objects when the object references
+		 * collection is incomplete query the version collection directly, so versions are only
+		 * shared when the object documents and references collection make those queries
+		 * unnecessary for the latest versions.
+		 */
+		final boolean share = shareVersions && useLatestInfo && useReferenceIndex;
 		// resolve the object before making a new workspace in case something
 		// fails
 		final Collection<ResolvedObjectID> resexclude =
@@ -650,6 +872,10 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				user, newname, globalRead, description, meta, true);
 		final ResolvedWorkspaceID toWS = new ResolvedWorkspaceID(wsinfo.getId(),
 				wsinfo.getName(), wsinfo.isLocked(), false); //assume it's not deleted already
+		if (share) {
+			// mark the workspace first so a failed clone's objects are still materialized
+			setSharedVersions(toWS.getID());
+		}
 		final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, fromWS.getID());
 		//skip any objects with no versions, likely a race condition
 		//or worse the db went down post version increment pre version save
@@ -659,49 +885,39 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		addExcludedToCloneQuery(fromWS, resexclude, q);
 		final DBObject hint = new BasicDBObject(Fields.OBJ_WS_ID, 1);
 		hint.put(Fields.OBJ_ID, 1);
+		/* Objects are cloned in batches with bulk inserts rather than one at a time. The
+		 * reference counts for all the cloned versions are summed and applied once at the end,
+		 * so a clone that fails part way leaves the counts too low, as for any other failed save.
+		 */
+		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = new HashMap<>();
+		final CloneProgress progress = new CloneProgress();
 		long maxid = 0;
 		try {
-			final DBCursor wsobjects = query.queryCollectionCursor(
-					COL_WORKSPACE_OBJS, q, FLDS_CLONE_WS, hint, -1);
+			final DBCursor wsobjects = query.queryCollectionCursor(COL_WORKSPACE_OBJS, q,
+					share ? FLDS_CLONE_WS_SHARED : FLDS_CLONE_WS, hint, -1);
+			wsobjects.batchSize(CLONE_BATCH_SIZE);
+			final List<DBObject> batch = new ArrayList<>(CLONE_BATCH_SIZE);
+			long batchVersions = 0;
 			for (final DBObject o: wsobjects) {
-				final long objid = (Long) o.get(Fields.OBJ_ID);
-				final String name = (String) o.get(Fields.OBJ_NAME);
-				final boolean hidden = (Boolean) o.get(Fields.OBJ_HIDE);
-				final boolean deleted = (Boolean) o.get(Fields.OBJ_DEL);
-				maxid = Math.max(maxid, objid);
-				final ResolvedObjectIDNoVer roi =
-						new ResolvedObjectIDNoVer(fromWS, objid, name, deleted);
-				final List<Map<String, Object>> versions;
-				try {
-					versions = queryAllVersions(
-							new HashSet<ResolvedObjectIDNoVer>(Arrays.asList(roi)),
-							FLDS_VER_COPYOBJ).get(roi);
-				} catch (NoSuchObjectException nsoe) {
-					/* The object was saved to the objects collections and the
-					 * version was incremented at least once. However, no
-					 * versions exist in the version collection. So either a
-					 * race condition or the system died before versions could
-					 * be saved, so skip it. Really need to move to a backend
-					 * with transactions or simplify the schema so it's
-					 * relationless.
-					 */
-					continue;
-				}
-				for (final Map<String, Object> v: versions) {
-					final int ver = (Integer) v.get(Fields.VER_VER);
-					v.remove(Fields.MONGO_ID);
-					v.put(Fields.VER_SAVEDBY, user.getUser());
-					v.put(Fields.VER_RVRT, null);
-					v.put(Fields.VER_COPIED, new Reference(fromWS.getID(), objid, ver).toString());
+				maxid = Math.max(maxid, (Long) o.get(Fields.OBJ_ID));
+				batch.add(o);
+				batchVersions += (Integer) o.get(Fields.OBJ_VCNT);
+				if (isCloneBatchFull(batch, batchVersions)) {
+					cloneObjects(user, fromWS, toWS, batch, share, refcounts, progress);
+					batch.clear();
+					batchVersions = 0;
+					logCloneProgress(fromWS, toWS, progress);
 				}
-				updateReferenceCountsForVersions(versions);
-				saveWorkspaceObject(toWS, objid, name);
-				saveObjectVersions(user, toWS, objid, versions, hidden);
+			}
+			if (!batch.isEmpty()) {
+				cloneObjects(user, fromWS, toWS, batch, share, refcounts, progress);
+				logCloneProgress(fromWS, toWS, progress);
 			}
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		updateReferenceCounts(refcounts);
 		if (maxid > 0) {
 			incrementWorkspaceCounter(toWS, maxid);
 		}
@@ -720,6 +936,382 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				.build();
 	}
 
+	private static final int CLONE_BATCH_SIZE = 1000;
+	/* All the versions of a batch of objects are held in memory while the batch is copied, so
+	 * batches are also limited by the version count of their objects. An object with more
+	 * versions than the limit is copied in a batch of its own.
+	 */
+	private static final int CLONE_BATCH_VERSIONS = 10000;
+	
+	private static boolean isCloneBatchFull(final List<DBObject> batch, final long versions) {
+		return batch.size() >= CLONE_BATCH_SIZE || versions >= CLONE_BATCH_VERSIONS;
+	}
+	
+	private static class CloneProgress {
+		private long objects = 0;
+		private long versions = 0;
+	}
+	
+	private void cloneObjects(
+			final WorkspaceUser user,
+			final ResolvedWorkspaceID fromWS,
+			final ResolvedWorkspaceID toWS,
+			final List<DBObject> objects,
+			final boolean shareVersions,
+			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts,
+			final CloneProgress progress)
+			throws WorkspaceCommunicationException {
+		if (shareVersions) {
+			final List<DBObject> unshareable = shareObjects(
+					user, fromWS, toWS, objects, refcounts, progress);
+			if (!unshareable.isEmpty()) {
+				cloneObjects(user, fromWS, toWS, unshareable, false, refcounts, progress);
+			}
+			return;
+		}
+		final List<Long> ids = new ArrayList<>();
+		for (final DBObject o: objects) {
+			ids.add((Long) o.get(Fields.OBJ_ID));
+		}
+		final Map<Long, List<Map<String, Object>>> versions = queryCloneVersions(
+				fromWS.getID(), ids, FLDS_VER_COPYOBJ);
+		final Date saved = new Date();
+		final List<DBObject> objdocs = new LinkedList<>();
+		final List<DBObject> verdocs = new LinkedList<>();
+		for (final DBObject o: objects) {
+			final long objid = (Long) o.get(Fields.OBJ_ID);
+			final List<Map<String, Object>> vers = versions.get(objid);
+			if (vers == null) {
+				/* The object was saved to the objects collections and the
+				 * version was incremented at least once. However, no
+				 * versions exist in the version collection. So either a
+				 * race condition or the system died before versions could
+				 * be saved, so skip it. Really need to move to a backend
+				 * with transactions or simplify the schema so it's
+				 * relationless.
+				 */
+				continue;
+			}
+			countReferencesForVersions(refcounts, vers);
+			// versions are renumbered from 1 as saveObjectVersions would do
+			int ver = 1;
+			BasicDBObject latest = null;
+			for (final Map<String, Object> v: vers) {
+				final int origver = (Integer) v.get(Fields.VER_VER);
+				v.put(Fields.VER_SAVEDBY, user.getUser());
+				v.put(Fields.VER_RVRT, null);
+				v.put(Fields.VER_COPIED, new Reference(fromWS.getID(), objid, origver).toString());
+				v.put(Fields.VER_SAVEDATE, saved);
+				v.put(Fields.VER_WS_ID, toWS.getID());
+				v.put(Fields.VER_ID, objid);
+				v.put(Fields.VER_VER, ver++);
+				latest = new BasicDBObject(v);
+				verdocs.add(latest);
+			}
+			objdocs.add(buildClonedObject(
+					toWS, o, vers.size(), saved, buildLatestVersionInfo(latest)));
+		}
+		if (objdocs.isEmpty()) {
+			return;
+		}
+		/* The versions are written before the objects so that a failure leaves unreachable
+		 * versions rather than objects with no versions. The target workspace is new and can't
+		 * be written to by anyone else until the clone completes, so there are no name or ID
+		 * collisions to handle.
+		 */
+		final InsertOptions unordered = new InsertOptions().continueOnError(true);
+		try {
+			wsmongo.getCollection(COL_WORKSPACE_VERS).insert(verdocs, unordered);
+			wsmongo.getCollection(COL_WORKSPACE_OBJS).insert(objdocs, unordered);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		saveObjectReferences(verdocs);
+		progress.objects += objdocs.size();
+		progress.versions += verdocs.size();
+	}
+	
+	private static final Set<String> FLDS_VER_SHARE = newHashSet(
+			Fields.VER_ID, Fields.VER_VER, Fields.VER_REF, Fields.VER_PROVREF);
+	
+	/* Clones objects without copying their versions. Each object records its source object,
+	 * see Fields.OBJ_SOURCE, and the versions are read from the source until they're copied by
+	 * materializeSharedVersions. Only the references of the versions are read, to maintain the
+	 * reference counts and object references collection as a full copy would.
+	 * Returns the objects that can't share versions because the source object's latest version
+	 * information is stale or some of its versions are missing. Those objects must be copied.
+	 */
+	private List<DBObject> shareObjects(
+			final WorkspaceUser user,
+			final ResolvedWorkspaceID fromWS,
+			final ResolvedWorkspaceID toWS,
+			final List<DBObject> objects,
+			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts,
+			final CloneProgress progress)
+			throws WorkspaceCommunicationException {
+		final List<Long> ids = new ArrayList<>();
+		for (final DBObject o: objects) {
+			ids.add((Long) o.get(Fields.OBJ_ID));
+		}
+		final Map<Long, List<Map<String, Object>>> versions = queryCloneVersions(
+				fromWS.getID(), ids, FLDS_VER_SHARE);
+		final Date saved = new Date();
+		final List<DBObject> objdocs = new LinkedList<>();
+		final List<DBObject> refdocs = new LinkedList<>();
+		final List<DBObject> unshareable = new LinkedList<>();
+		for (final DBObject o: objects) {
+			final long objid = (Long) o.get(Fields.OBJ_ID);
+			final int numver = (Integer) o.get(Fields.OBJ_VCNT);
+			final List<Map<String, Object>> vers = versions.get(objid);
+			@SuppressWarnings("unchecked")
+			final Map<String, Object> srcinfo =
+					(Map<String, Object>) o.get(Fields.OBJ_LATEST_INFO);
+			// versions are sorted and unique, so this means all the versions 1 - numver exist
+			if (vers == null || vers.size() != numver ||
+					!vers.get(numver - 1).get(Fields.VER_VER).equals(numver) ||
+					srcinfo == null || !srcinfo.get(Fields.VER_VER).equals(numver)) {
+				unshareable.add(o);
+				continue;
+			}
+			countReferencesForVersions(refcounts, vers);
+			for (final Map<String, Object> v: vers) {
+				refdocs.add(new BasicDBObject(Fields.VER_WS_ID, toWS.getID())
+						.append(Fields.VER_ID, objid)
+						.append(Fields.VER_VER, v.get(Fields.VER_VER))
+						.append(Fields.VER_REF, v.get(Fields.VER_REF))
+						.append(Fields.VER_PROVREF, v.get(Fields.VER_PROVREF)));
+			}
+			final DBObject info = new BasicDBObject(srcinfo);
+			info.put(Fields.VER_SAVEDBY, user.getUser());
+			info.put(Fields.VER_SAVEDATE, saved);
+			objdocs.add(buildClonedObject(toWS, o, numver, saved, info)
+					.append(Fields.OBJ_SOURCE, new BasicDBObject(Fields.SRC_WS_ID, fromWS.getID())
+							.append(Fields.SRC_ID, objid)
+							.append(Fields.SRC_VER, numver)
+							.append(Fields.SRC_SAVEDBY, user.getUser())
+							.append(Fields.SRC_SAVEDATE, saved)));
+		}
+		if (!objdocs.isEmpty()) {
+			try {
+				wsmongo.getCollection(COL_WORKSPACE_OBJS).insert(
+						objdocs, new InsertOptions().continueOnError(true));
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+			saveObjectReferences(refdocs);
+			progress.objects += objdocs.size();
+			progress.versions += refdocs.size();
+		}
+		return unshareable;
+	}
+	
+	private BasicDBObject buildClonedObject(
+			final ResolvedWorkspaceID toWS,
+			final DBObject source,
+			final int numver,
+			final Date saved,
+			final DBObject latestInfo) {
+		return new BasicDBObject(Fields.OBJ_WS_ID, toWS.getID())
+				.append(Fields.OBJ_ID, source.get(Fields.OBJ_ID))
+				.append(Fields.OBJ_VCNT, numver)
+				.append(Fields.OBJ_REFCOUNTS, new ArrayList<>(Collections.nCopies(numver, 0)))
+				.append(Fields.OBJ_NAME, source.get(Fields.OBJ_NAME))
+				.append(Fields.OBJ_LATEST, null)
+				.append(Fields.OBJ_DEL, false)
+				.append(Fields.OBJ_HIDE, source.get(Fields.OBJ_HIDE))
+				.append(Fields.OBJ_MODDATE, saved)
+				.append(Fields.OBJ_LATEST_INFO, latestInfo);
+	}
+	
+	/* Gets all the versions for a set of objects in one query, rather than the query per object
+	 * used by queryAllVersions. Objects with no versions are not included in the returned map.
+	 */
+	private Map<Long, List<Map<String, Object>>> queryCloneVersions(
+			final long workspaceID,
+			final Collection<Long> objectIDs,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(Fields.VER_WS_ID, workspaceID)
+				.append(Fields.VER_ID, new BasicDBObject("$in", objectIDs));
+		final Map<Long, List<Map<String, Object>>> ret = new HashMap<>();
+		try {
+			final DBCursor cur = query.queryCollectionCursor(
+					COL_WORKSPACE_VERS, q, fields, null, -1);
+			cur.sort(new BasicDBObject(Fields.VER_ID, 1).append(Fields.VER_VER, 1));
+			for (final DBObject v: cur) {
+				final Long id = (Long) v.get(Fields.VER_ID);
+				if (!ret.containsKey(id)) {
+					ret.put(id, new LinkedList<>());
+				}
+				ret.get(id).add(QueryMethods.dbObjectToMap(v));
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+	
+	private void logCloneProgress(
+			final ResolvedWorkspaceID fromWS,
+			final ResolvedWorkspaceID toWS,
+			final CloneProgress progress) {
+		LoggerFactory.getLogger(getClass()).info(String.format(
+				"Cloned %s objects and %s versions from workspace %s to workspace %s",
+				progress.objects, progress.versions, fromWS.getID(), toWS.getID()));
+	}
+
+	private void setSharedVersions(final long workspaceID)
+			throws WorkspaceCommunicationException {
+		try {
+			wsmongo.getCollection(COL_WORKSPACES).update(
+					new BasicDBObject(Fields.WS_ID, workspaceID),
+					new BasicDBObject("$set", new BasicDBObject(Fields.WS_SHARED_VERS, true)));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+	
+	private static final Set<String> FLDS_VER_MATERIALIZE = newHashSet(
+			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER,
+			Fields.VER_TYPE, Fields.VER_CHKSUM, Fields.VER_SIZE,
+			Fields.VER_PROV, Fields.VER_REF, Fields.VER_PROVREF,
+			Fields.VER_PROV_DATE, Fields.VER_PROV_WS_ID,
+			Fields.VER_COPIED, Fields.VER_META, Fields.VER_EXT_IDS,
+			Fields.VER_SAVEDBY, Fields.VER_SAVEDATE, Fields.VER_RVRT);
+	
+	// workspace ID -> the copy of the workspace's shared versions in progress in this process
+	private final ConcurrentMap<Long, CountDownLatch> materializing = new ConcurrentHashMap<>();
+	
+	/* Copies the versions that objects in a workspace cloned with shared versions read from
+	 * their source objects into the workspace. Only needed before the workspace is itself
+	 * cloned, as other operations resolve the shared versions when they're read. Only one
+	 * thread in this process copies a workspace at once, and any others wait for it and then
+	 * find the copy complete. Concurrent copies in multiple processes, and reruns after a
+	 * failure, leave the workspace in the same state.
+	 *
+	 * Listing all the versions of the workspace's objects while the copy runs is not safe.
+	 * The listing reads the version collection and then the objects that still have a source,
+	 * so it can miss the versions of objects whose copy completed in between, or list
+	 * versions twice if they were copied before the version collection was read but the
+	 * source wasn't yet removed when the objects were read. Reads of specific versions are
+	 * safe, since the versions are copied before the source is removed and the shared version
+	 * lookup skips versions already present.
+	 */
+	private void materializeSharedVersions(final long workspaceID)
+			throws WorkspaceCommunicationException {
+		final CountDownLatch copy = new CountDownLatch(1);
+		CountDownLatch running;
+		while ((running = materializing.putIfAbsent(workspaceID, copy)) != null) {
+			try {
+				running.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WorkspaceCommunicationException(
+						"Interrupted while waiting for shared versions to be copied", e);
+			}
+		}
+		try {
+			if (query.getSharedVersionWorkspaces(Arrays.asList(workspaceID)).isEmpty()) {
+				return;
+			}
+			final DBCursor objs = query.queryCollectionCursor(COL_WORKSPACE_OBJS,
+					new BasicDBObject(Fields.OBJ_WS_ID, workspaceID)
+							.append(Fields.OBJ_SOURCE, new BasicDBObject("$exists", true)),
+					newHashSet(Fields.OBJ_ID, Fields.OBJ_SOURCE), null, -1);
+			objs.batchSize(CLONE_BATCH_SIZE);
+			final List<DBObject> batch = new ArrayList<>(CLONE_BATCH_SIZE);
+			long batchVersions = 0;
+			for (final DBObject o: objs) {
+				batch.add(o);
+				batchVersions += (Integer) ((DBObject) o.get(Fields.OBJ_SOURCE))
+						.get(Fields.SRC_VER);
+				if (isCloneBatchFull(batch, batchVersions)) {
+					materializeObjects(workspaceID, batch);
+					batch.clear();
+					batchVersions = 0;
+				}
+			}
+			if (!batch.isEmpty()) {
+				materializeObjects(workspaceID, batch);
+			}
+			wsmongo.getCollection(COL_WORKSPACES).update(
+					new BasicDBObject(Fields.WS_ID, workspaceID),
+					new BasicDBObject("$unset", new BasicDBObject(Fields.WS_SHARED_VERS, "")));
+			LoggerFactory.getLogger(getClass()).info(
+					"Copied shared versions into workspace " + workspaceID);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		} finally {
+			materializing.remove(workspaceID);
+			copy.countDown();
+		}
+	}
+	
+	private void materializeObjects(final long workspaceID, final List<DBObject> objects)
+			throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(workspaceID);
+		// source workspace -> source object ID -> object
+		final Map<Long, Map<Long, DBObject>> sources = new HashMap<>();
+		for (final DBObject o: objects) {
+			final DBObject src = (DBObject) o.get(Fields.OBJ_SOURCE);
+			final long srcws = (Long) src.get(Fields.SRC_WS_ID);
+			if (!sources.containsKey(srcws)) {
+				sources.put(srcws, new HashMap<>());
+			}
+			sources.get(srcws).put((Long) src.get(Fields.SRC_ID), o);
+		}
+		final List<DBObject> verdocs = new LinkedList<>();
+		final List<Long> ids = new ArrayList<>();
+		for (final Long srcws: sources.keySet()) {
+			final Map<Long, DBObject> srcobjs = sources.get(srcws);
+			final Map<Long, List<Map<String, Object>>> versions = queryCloneVersions(
+					srcws, srcobjs.keySet(), FLDS_VER_MATERIALIZE);
+			for (final Long srcid: srcobjs.keySet()) {
+				final DBObject o = srcobjs.get(srcid);
+				final long objid = (Long) o.get(Fields.OBJ_ID);
+				ids.add(objid);
+				@SuppressWarnings("unchecked")
+				final Map<String, Object> src = ((DBObject) o.get(Fields.OBJ_SOURCE)).toMap();
+				final int srcver = (Integer) src.get(Fields.SRC_VER);
+				final List<Map<String, Object>> vers = versions.get(srcid);
+				for (final Map<String, Object> v: vers == null ?
+						new LinkedList<Map<String, Object>>() : vers) {
+					if ((Integer) v.get(Fields.VER_VER) <= srcver) {
+						verdocs.add(new BasicDBObject(QueryMethods.toSharedVersion(
+								v, workspaceID, objid, src, FLDS_VER_MATERIALIZE)));
+					}
+				}
+			}
+		}
+		try {
+			if (!verdocs.isEmpty()) {
+				wsmongo.getCollection(COL_WORKSPACE_VERS).insert(
+						verdocs, new InsertOptions().continueOnError(true));
+			}
+		} catch (DuplicateKeyException dk) {
+			// another materialization copied some of the same versions
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		// the versions are copied before the source is removed so they're always readable
+		try {
+			wsmongo.getCollection(COL_WORKSPACE_OBJS).update(
+					new BasicDBObject(Fields.OBJ_WS_ID, workspaceID)
+							.append(Fields.OBJ_ID, new BasicDBObject("$in", ids)),
+					new BasicDBObject("$unset", new BasicDBObject(Fields.OBJ_SOURCE, "")),
+					false, true);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+	
 	// this method expects that the id exists. If it does not it'll throw an
 	// IllegalState exception.
 	private Instant updateClonedWorkspaceInformation(
@@ -729,6 +1321,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final String newname)
 			throws PreExistingWorkspaceException, WorkspaceCommunicationException,
 				CorruptWorkspaceDBException {
+		secondaryReads.recordWrite(id);
 		
 		final DBObject q = new BasicDBObject(Fields.WS_ID, id);
 
@@ -777,6 +1370,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	@Override
 	public Instant lockWorkspace(final ResolvedWorkspaceID rwsi)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		secondaryReads.recordWrite(rwsi.getID());
 		try {
 			wsmongo.getCollection(COL_WORKSPACES).update(
 					new BasicDBObject(Fields.WS_ID, rwsi.getID()),
@@ -793,6 +1387,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER,
 			Fields.VER_TYPE, Fields.VER_CHKSUM, Fields.VER_SIZE,
 			Fields.VER_PROV, Fields.VER_REF, Fields.VER_PROVREF,
+			Fields.VER_PROV_DATE, Fields.VER_PROV_WS_ID,
 			Fields.VER_COPIED, Fields.VER_META, Fields.VER_EXT_IDS);
 	
 	@Override
@@ -843,9 +1438,10 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 					FLDS_VER_COPYOBJ).get(o);
 			copyAll = true;
 		} else {
-			versions = Arrays.asList(queryVersions(
+			// the version may be an unmodifiable cached document
+			versions = Arrays.asList(new HashMap<>(queryVersions(
 					new HashSet<ResolvedObjectID>(Arrays.asList(rfrom)),
-					FLDS_VER_COPYOBJ, false).get(rfrom));
+					FLDS_VER_COPYOBJ, false).get(rfrom)));
 			copyAll = false;
 		}
 		for (final Map<String, Object> v: versions) {
@@ -880,6 +1476,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	@Override
 	public Instant renameWorkspace(final ResolvedWorkspaceID rwsi, final String newname)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		secondaryReads.recordWrite(rwsi.getID());
 		if (newname.equals(rwsi.getName())) {
 			throw new IllegalArgumentException("Workspace is already named " +
 					newname);
@@ -897,6 +1494,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		lockedCache.invalidate(rwsi.getID());
 		return now;
 	}
 	
@@ -960,6 +1558,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	@Override
 	public Instant setWorkspaceDescription(final ResolvedWorkspaceID rwsi,
 			final String description) throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(rwsi.getID());
 		//TODO CODE generalized method for setting fields?
 		final Instant now = Instant.now();
 		try {
@@ -1127,6 +1726,53 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return buildPermissionSet(user, rwsis, userperms, globalperms, includeProvidedWorkspaces);
 	}
 
+	@Override
+	public WorkspaceIDSet getWorkspaceIDs(
+			final User user,
+			final Permission perm,
+			final boolean excludeDeletedWorkspaces)
+			throws WorkspaceCommunicationException {
+		if (perm == null || Permission.NONE.equals(perm)) {
+			throw new IllegalArgumentException(
+					"Permission cannot be null or NONE");
+		}
+		// covered by the user / perm / id index
+		final DBObject query = new BasicDBObject(Fields.ACL_USER, user.getUser())
+				.append(Fields.ACL_PERM, new BasicDBObject("$gte", perm.getPermission()));
+		final DBObject proj = new BasicDBObject(Fields.MONGO_ID, 0).append(Fields.ACL_WSID, 1);
+		// the IDs are never boxed into a collection, as a user may be able to read many
+		// thousands of workspaces
+		final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+		try {
+			for (final DBObject acl: wsmongo.getCollection(COL_WS_ACLS).find(query, proj)) {
+				b.withID((Long) acl.get(Fields.ACL_WSID));
+			}
+			final WorkspaceIDSet ids = b.build();
+			if (!excludeDeletedWorkspaces || ids.isEmpty()) {
+				return ids;
+			}
+			final DBObject delq = new BasicDBObject(Fields.WS_ID,
+					new BasicDBObject("$in", ids.stream().toArray()))
+					.append(Fields.WS_DEL, true);
+			final DBObject delproj = new BasicDBObject(Fields.MONGO_ID, 0)
+					.append(Fields.WS_ID, 1);
+			final WorkspaceIDSet.Builder del = WorkspaceIDSet.getBuilder();
+			for (final DBObject ws: wsmongo.getCollection(COL_WORKSPACES).find(delq, delproj)) {
+				del.withID((Long) ws.get(Fields.WS_ID));
+			}
+			final WorkspaceIDSet deleted = del.build();
+			if (deleted.isEmpty()) {
+				return ids;
+			}
+			final WorkspaceIDSet.Builder live = WorkspaceIDSet.getBuilder();
+			ids.stream().filter(id -> !deleted.contains(id)).forEach(live::withID);
+			return live.build();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
 	private PermissionSet buildPermissionSet(
 			final WorkspaceUser user,
 			final Set<ResolvedWorkspaceID> rmwsis,
@@ -1179,6 +1825,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final WorkspaceUser newUser,
 			final Optional<String> newname)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		secondaryReads.recordWrite(rwsi.getID());
 		final Instant now = Instant.now();
 		final BasicDBObject query = new BasicDBObject(Fields.WS_ID, rwsi.getID());
 		final BasicDBObject set = new BasicDBObject(Fields.WS_OWNER, newUser.getUser())
@@ -1195,6 +1842,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		lockedCache.invalidate(rwsi.getID());
 		final ResolvedWorkspaceID newRwsi = new ResolvedWorkspaceID(
 				rwsi.getID(),
 				newname.isPresent() ? newname.get() : rwsi.getName(), false, false);
@@ -1290,14 +1938,38 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final Date after,
 			final Date before,
 			final boolean showDeleted, 
-			final boolean showOnlyDeleted)
+			final boolean showOnlyDeleted,
+			final long startAfter,
+			final int limit)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
 		final Map<Long, ResolvedWorkspaceID> rwsis = new HashMap<Long, ResolvedWorkspaceID>();
+		// deleted workspaces are only visible to their owners
+		final Set<Long> owned = new HashSet<>();
 		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
 			rwsis.put(rwsi.getID(), rwsi);
+			if (pset.hasUserPermission(rwsi, Permission.OWNER)) {
+				owned.add(rwsi.getID());
+			}
+		}
+		// filter deleted workspaces in the query rather than afterwards so the limit is correct
+		final DBObject wsq = new BasicDBObject("$in", rwsis.keySet());
+		final DBObject q = new BasicDBObject(Fields.WS_ID, wsq);
+		if (showOnlyDeleted) {
+			if (owned.isEmpty()) {
+				return new LinkedList<>();
+			}
+			wsq.put("$in", owned);
+			q.put(Fields.WS_DEL, true);
+		} else if (!showDeleted) {
+			q.put(Fields.WS_DEL, false);
+		} else if (owned.size() < rwsis.size()) {
+			q.put("$or", Arrays.asList(
+					new BasicDBObject(Fields.WS_DEL, false),
+					new BasicDBObject(Fields.WS_ID, new BasicDBObject("$in", owned))));
+		}
+		if (startAfter > 0) {
+			wsq.put("$gt", startAfter);
 		}
-		final DBObject q = new BasicDBObject(Fields.WS_ID,
-				new BasicDBObject("$in", rwsis.keySet()));
 		if (owners != null && !owners.isEmpty()) {
 			q.put(Fields.WS_OWNER, new BasicDBObject("$in", convertWorkspaceUsers(owners)));
 		}
@@ -1322,21 +1994,21 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			}
 			q.put(Fields.WS_MODDATE, d);
 		}
-		final List<Map<String, Object>> ws = query.queryCollection(
-				COL_WORKSPACES, q, FLDS_WS_NO_DESC);
-		
+		// sort on the workspace ID index so paging by ID is a range scan and never sorts in memory
+		final DBObject sort = new BasicDBObject(Fields.WS_ID, 1);
 		final List<WorkspaceInformation> ret = new LinkedList<WorkspaceInformation>();
-		for (final Map<String, Object> w: ws) {
-			final ResolvedWorkspaceID rwsi = rwsis.get((Long) w.get(Fields.WS_ID));
-			final boolean isDeleted = (Boolean) w.get(Fields.WS_DEL);
-			if (showOnlyDeleted) {
-				if (isDeleted && pset.hasUserPermission(rwsi, Permission.OWNER)) {
-					ret.add(generateWSInfo(rwsi, pset, w));
-				}
-			} else if (!isDeleted ||
-					(showDeleted && pset.hasUserPermission(rwsi, Permission.OWNER))) {
-				ret.add(generateWSInfo(rwsi, pset, w));
+		try {
+			final DBCursor cur = query.queryCollectionCursor(
+					COL_WORKSPACES, q, FLDS_WS_NO_DESC, sort, limit).sort(sort)
+					.setReadPreference(secondaryReads.getReadPreference(
+							ReadClass.LIST_WORKSPACE_INFO, rwsis.values()));
+			for (final DBObject w: cur) {
+				final ResolvedWorkspaceID rwsi = rwsis.get((Long) w.get(Fields.WS_ID));
+				ret.add(generateWSInfo(rwsi, pset, QueryMethods.dbObjectToMap(w)));
 			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
 		}
 		return ret;
 	}
@@ -1443,7 +2115,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final ResolvedWorkspaceID wsid, final long objectid,
 			final ObjectSavePackage pkg)
 			throws WorkspaceCommunicationException {
-		final Map<String, Object> version = new HashMap<String, Object>();
+		final Map<String, Object> version = new BasicDBObject();
 		version.put(Fields.VER_SAVEDBY, user.getUser());
 		version.put(Fields.VER_CHKSUM, pkg.wo.getRep().getMD5().getMD5());
 		version.put(Fields.VER_META, metaHashToMongoArray(
@@ -1451,6 +2123,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		version.put(Fields.VER_REF, pkg.refs);
 		version.put(Fields.VER_PROVREF, pkg.provrefs);
 		version.put(Fields.VER_PROV, pkg.provid);
+		version.put(Fields.VER_PROV_DATE, pkg.wo.getProvenance().getDate());
+		version.put(Fields.VER_PROV_WS_ID, pkg.wo.getProvenance().getWorkspaceID());
 		version.put(Fields.VER_TYPE, pkg.wo.getRep().getValidationTypeDefId()
 				.getTypeString());
 		version.put(Fields.VER_SIZE, pkg.wo.getRep().getRelabeledSize());
@@ -1544,11 +2218,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			v.put(Fields.VER_WS_ID, wsid.getID());
 			v.put(Fields.VER_ID, objectid);
 			v.put(Fields.VER_VER, ver++);
-			final DBObject d = new BasicDBObject();
-			for (final Entry<String, Object> e: v.entrySet()) {
-				d.put(e.getKey(), e.getValue());
-			}
-			dbo.add(d);
+			// new versions and versions read from the database are saved without copying
+			dbo.add(v instanceof DBObject ? (DBObject) v : new BasicDBObject(v));
 		}
 
 		try {
@@ -1557,6 +2228,91 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		saveObjectReferences(dbo);
+		saveLatestVersionInfo(wsid, objectid, dbo.get(dbo.size() - 1));
+	}
+	
+	private static final List<String> FLDS_LATEST_INFO = Arrays.asList(
+			Fields.VER_VER, Fields.VER_TYPE, Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
+			Fields.VER_CHKSUM, Fields.VER_SIZE, Fields.VER_META);
+	
+	/* Saved after the versions so the information never describes a version that doesn't
+	 * exist. Only updates the object if the version is still the latest version, so a slow save
+	 * can't overwrite the information from a later save. Until the update completes, or if it
+	 * fails, the information is stale, which is detectable since its version doesn't match the
+	 * object's version count.
+	 */
+	private void saveLatestVersionInfo(
+			final ResolvedWorkspaceID wsid,
+			final long objectid,
+			final DBObject version)
+			throws WorkspaceCommunicationException {
+		final DBObject info = new BasicDBObject();
+		for (final String field: FLDS_LATEST_INFO) {
+			info.put(field, version.get(field));
+		}
+		try {
+			wsmongo.getCollection(COL_WORKSPACE_OBJS).update(
+					new BasicDBObject(Fields.OBJ_WS_ID, wsid.getID())
+							.append(Fields.OBJ_ID, objectid)
+							.append(Fields.OBJ_VCNT, version.get(Fields.VER_VER)),
+					new BasicDBObject("$set", new BasicDBObject(Fields.OBJ_LATEST_INFO, info)));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+	
+	private static DBObject buildLatestVersionInfo(final Map<String, Object> version) {
+		final DBObject info = new BasicDBObject();
+		for (final String field: FLDS_LATEST_INFO) {
+			info.put(field, version.get(field));
+		}
+		return info;
+	}
+	
+	/* Saved after the versions so that a failure leaves missing references, which can be
+	 * rebuilt from the versions, rather than references from versions that don't exist.
+	 */
+	private void saveObjectReferences(final List<DBObject> versions)
+			throws WorkspaceCommunicationException {
+		final List<DBObject> refs = new LinkedList<>();
+		for (final DBObject v: versions) {
+			addObjectReferences(refs, v, Fields.VER_REF, false);
+			addObjectReferences(refs, v, Fields.VER_PROVREF, true);
+		}
+		if (refs.isEmpty()) {
+			return;
+		}
+		try {
+			wsmongo.getCollection(COL_OBJ_REFS).insert(
+					refs, new InsertOptions().continueOnError(true));
+		} catch (DuplicateKeyException dk) {
+			// the references were already added when building the collection for an
+			// existing database, so nothing to do
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private void addObjectReferences(
+			final List<DBObject> refs,
+			final DBObject version,
+			final String field,
+			final boolean provenance) {
+		@SuppressWarnings("unchecked")
+		final List<String> targets = (List<String>) version.get(field);
+		if (targets == null) {
+			return;
+		}
+		for (final String target: new HashSet<>(targets)) {
+			refs.add(new BasicDBObject(Fields.REF_TARGET, target)
+					.append(Fields.REF_SOURCE_WS_ID, version.get(Fields.VER_WS_ID))
+					.append(Fields.REF_SOURCE_ID, version.get(Fields.VER_ID))
+					.append(Fields.REF_SOURCE_VER, version.get(Fields.VER_VER))
+					.append(Fields.REF_PROV, provenance));
+		}
 	}
 	
 	//save brand new object - create container
@@ -1764,7 +2520,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		saveData(rwsi, packages);
 		saveProvenance(packages);
 		updateReferenceCounts(packages);
-		long newid = incrementWorkspaceCounter(rwsi, newobjects);
+		long newid = allocateObjectIDs(rwsi, newobjects);
 		/*  alternate impl: 1) make all save objects 2) increment all version
 		 *  counters 3) batch save versions
 		 *  This probably won't help much. Firstly, saving the same object
@@ -1803,6 +2559,25 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 
+	//returns starting object number, or 0 if no IDs are requested
+	private long allocateObjectIDs(final ResolvedWorkspaceID rwsi, final long newobjects)
+			throws WorkspaceCommunicationException {
+		if (newobjects == 0) {
+			return 0;
+		}
+		if (objectIDBlocks == null || newobjects >= objectIDBlockSize) {
+			return incrementWorkspaceCounter(rwsi, newobjects);
+		}
+		final Long id = objectIDBlocks.take(rwsi.getID(), newobjects);
+		if (id != null) {
+			return id;
+		}
+		// any IDs left in the previous block are abandoned
+		final long first = incrementWorkspaceCounter(rwsi, objectIDBlockSize);
+		objectIDBlocks.put(rwsi.getID(), first + newobjects, first + objectIDBlockSize - 1);
+		return first;
+	}
+	
 	//returns starting object number
 	private long incrementWorkspaceCounter(final ResolvedWorkspaceID wsidmongo,
 			final long newobjects) throws WorkspaceCommunicationException {
@@ -1827,29 +2602,85 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return newid;
 	}
 	
-	// has a side effect of setting the provid field on each package
+	/* Has a side effect of setting the provid field on each package.
+	 * Provenance documents are stored by a hash of their contents, so identical provenance,
+	 * typically from many objects output by the same app run, is stored once and shared by
+	 * the object versions. The provenance date and workspace ID differ for every save, so
+	 * they're stored in the version rather than the provenance document. Provenance documents
+	 * are never modified or deleted, so sharing is safe.
+	 */
 	private void saveProvenance(final List<ObjectSavePackage> packages)
 			throws WorkspaceCommunicationException {
-		final Map<ObjectSavePackage, DBObject> provmap = new HashMap<>();
+		final Map<String, DBObject> hashToDoc = new HashMap<>();
+		final Map<ObjectSavePackage, String> pkgToHash = new HashMap<>();
 		for (final ObjectSavePackage p: packages) {
-			provmap.put(p, new BasicDBObject(toDocument(p.wo.getProvenance())));
+			final Map<String, Object> doc = toDocument(p.wo.getProvenance());
+			final String hash = hashProvenance(doc);
+			pkgToHash.put(p, hash);
+			hashToDoc.put(hash, new BasicDBObject(doc).append(Fields.PROV_HASH, hash));
+		}
+		final Map<String, ObjectId> hashToID = getProvenanceIDs(hashToDoc.keySet());
+		final List<DBObject> toSave = new LinkedList<>();
+		for (final String hash: hashToDoc.keySet()) {
+			if (!hashToID.containsKey(hash)) {
+				toSave.add(hashToDoc.get(hash));
+			}
+		}
+		if (!toSave.isEmpty()) {
+			try {
+				wsmongo.getCollection(COL_PROVENANCE).insert(
+						toSave, new InsertOptions().continueOnError(true));
+				for (final DBObject doc: toSave) {
+					hashToID.put((String) doc.get(Fields.PROV_HASH),
+							(ObjectId) doc.get(Fields.MONGO_ID));
+				}
+			} catch (DuplicateKeyException dk) {
+				// another save stored some of the same provenance, so just look it all up
+				final Set<String> hashes = new HashSet<>();
+				for (final DBObject doc: toSave) {
+					hashes.add((String) doc.get(Fields.PROV_HASH));
+				}
+				hashToID.putAll(getProvenanceIDs(hashes));
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
 		}
+		for (final ObjectSavePackage p: packages) {
+			p.provid = hashToID.get(pkgToHash.get(p)); // ew, side effect
+		}
+	}
+	
+	private Map<String, ObjectId> getProvenanceIDs(final Set<String> hashes)
+			throws WorkspaceCommunicationException {
+		final Map<String, ObjectId> ret = new HashMap<>();
 		try {
-			wsmongo.getCollection(COL_PROVENANCE).insert(new LinkedList<>(provmap.values()));
+			final DBCursor cur = wsmongo.getCollection(COL_PROVENANCE).find(
+					new BasicDBObject(Fields.PROV_HASH, new BasicDBObject("$in", hashes)),
+					new BasicDBObject(Fields.PROV_HASH, 1));
+			for (final DBObject dbo: cur) {
+				ret.put((String) dbo.get(Fields.PROV_HASH), (ObjectId) dbo.get(Fields.MONGO_ID));
+			}
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
-		for (final ObjectSavePackage p: packages) {
-			p.provid = (ObjectId) provmap.get(p).get(Fields.MONGO_ID); // ew, side effect
+		return ret;
+	}
+	
+	private static String hashProvenance(final Map<String, Object> provdoc) {
+		try {
+			return DigestUtils.sha256Hex(PROV_HASH_WRITER.writeValueAsBytes(provdoc));
+		} catch (JsonProcessingException e) {
+			// provenance is built from JSON in the first place
+			throw new RuntimeException("Unable to serialize provenance: " + e.getMessage(), e);
 		}
 	}
 
 	private Map<String, Object> toDocument(final Provenance p) {
 		final Map<String, Object> ret = new HashMap<>();
+		// the date and workspace ID are stored in the version, see saveProvenance
 		ret.put(Fields.PROV_USER, p.getUser().getUser());
-		ret.put(Fields.PROV_DATE, p.getDate());
-		ret.put(Fields.PROV_WS_ID, p.getWorkspaceID());
 		final List<Map<String, Object>> actions = new LinkedList<>();
 		ret.put(Fields.PROV_ACTIONS, actions);
 		for (final ProvenanceAction pa: p.getActions()) {
@@ -1899,114 +2730,45 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 
-	private static class VerCount {
-		final public int ver;
-		final public int count;
-
-		public VerCount (final int ver, final int count) {
-			this.ver = ver;
-			this.count = count;
-		}
-		
-		@Override
-		public String toString() {
-			return "VerCount [ver=" + ver + ", count=" + count + "]";
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + count;
-			result = prime * result + ver;
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			VerCount other = (VerCount) obj;
-			if (count != other.count)
-				return false;
-			if (ver != other.ver)
-				return false;
-			return true;
-		}
-	}
-	
 	private void updateReferenceCounts(final List<ObjectSavePackage> packages)
 			throws WorkspaceCommunicationException {
 		//TODO GC when garbage collection working much more testing of these methods
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
-				countReferences(packages);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
-		updateReferenceCounts(refcounts);
+		updateReferenceCounts(countReferences(packages));
 	}
 	
 	private void updateReferenceCountsForVersions(
 			final List<Map<String, Object>> versions)
 			throws WorkspaceCommunicationException {
 		//TODO GC when garbage collection working much more testing of these methods
-		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
-				countReferencesForVersions(versions);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
-		updateReferenceCounts(refcounts);
+		updateReferenceCounts(countReferencesForVersions(versions));
 	}
 
+	/* Applies the counts with one unordered bulk write containing one update per referenced
+	 * object, incrementing the counts of all the referenced versions of the object. Each update
+	 * targets a single document via the unique workspace / object ID index.
+	 */
 	private void updateReferenceCounts(
 			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts)
 			throws WorkspaceCommunicationException {
-		final Map<VerCount, Map<Long, List<Long>>> queries = 
-				new HashMap<VerCount, Map<Long,List<Long>>>();
+		if (refcounts.isEmpty()) {
+			return;
+		}
+		final BulkWriteOperation bulk = wsmongo.getCollection(COL_WORKSPACE_OBJS)
+				.initializeUnorderedBulkOperation();
 		for (final Long ws: refcounts.keySet()) {
 			for (final Long obj: refcounts.get(ws).keySet()) {
-				for (final Integer ver: refcounts.get(ws).get(obj).keySet()) {
-					final VerCount vc = new VerCount(ver,
-							refcounts.get(ws).get(obj).get(ver).getValue());
-					if (!queries.containsKey(vc)) {
-						queries.put(vc, new HashMap<Long, List<Long>>());
-					}
-					if (!queries.get(vc).containsKey(ws)) {
-						queries.get(vc).put(ws, new LinkedList<Long>());
-					}
-					queries.get(vc).get(ws).add(obj);
+				final Map<Integer, Counter> vers = refcounts.get(ws).get(obj);
+				final DBObject inc = new BasicDBObject();
+				for (final Integer ver: vers.keySet()) {
+					inc.put(Fields.OBJ_REFCOUNTS + Fields.FIELD_SEP + (ver - 1),
+							vers.get(ver).getValue());
 				}
+				bulk.find(new BasicDBObject(Fields.OBJ_WS_ID, ws).append(Fields.OBJ_ID, obj))
+						.updateOne(new BasicDBObject("$inc", inc));
 			}
 		}
-		for (final VerCount vc: queries.keySet()) {
-			updateReferenceCounts(vc, queries.get(vc));
-		}
-	}
-
-	private void updateReferenceCounts(final VerCount vc,
-			final Map<Long, List<Long>> wsToObjs)
-			throws WorkspaceCommunicationException {
-		final DBObject update = new BasicDBObject("$inc",
-				new BasicDBObject(Fields.OBJ_REFCOUNTS + "." + (vc.ver - 1),
-						vc.count));
-		final List<DBObject> orquery = new LinkedList<DBObject>();
-		for (final Long ws: wsToObjs.keySet()) {
-			final DBObject query = new BasicDBObject(Fields.OBJ_WS_ID, ws);
-			query.put(Fields.OBJ_ID, new BasicDBObject("$in",
-					wsToObjs.get(ws)));
-			orquery.add(query);
-		}
 		try {
-			wsmongo.getCollection(COL_WORKSPACE_OBJS).update(
-					new BasicDBObject("$or", orquery), update, false, true);
+			bulk.execute();
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -2031,6 +2793,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final List<Map<String, Object>> versions) {
 		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts =
 				new HashMap<Long, Map<Long,Map<Integer,Counter>>>();
+		countReferencesForVersions(refcounts, versions);
+		return refcounts;
+	}
+	
+	private void countReferencesForVersions(
+			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts,
+			final List<Map<String, Object>> versions) {
 		for (final Map<String, Object> p: versions) {
 			//these were checked to be MongoReferences in saveObjectBuildPackages
 			final Set<Reference> refs = new HashSet<Reference>();
@@ -2047,7 +2816,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			}
 			countReferences(refcounts, refs);
 		}
-		return refcounts;
 	}
 
 	private void countReferences(
@@ -2103,12 +2871,14 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 
+	// all the cacheable version fields, so that versions read via getObjects are cached
 	private static final Set<String> FLDS_VER_GET_OBJECT = newHashSet(
+			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_RVRT,
 			Fields.VER_VER, Fields.VER_META, Fields.VER_TYPE,
 			Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
 			Fields.VER_CHKSUM, Fields.VER_SIZE, Fields.VER_PROV,
 			Fields.VER_PROVREF, Fields.VER_REF, Fields.VER_EXT_IDS,
-			Fields.VER_COPIED);
+			Fields.VER_PROV_DATE, Fields.VER_PROV_WS_ID, Fields.VER_COPIED);
 	
 	@Override
 	public Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>>
@@ -2118,20 +2888,38 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				final long usedDataAllocation,
 				final boolean exceptIfDeleted,
 				final boolean includeDeleted,
-				final boolean exceptIfMissing)
+				final boolean exceptIfMissing,
+				final Set<OptionalField> skip)
 			throws WorkspaceCommunicationException, NoSuchObjectException,
 			TypedObjectExtractionException, CorruptWorkspaceDBException {
 		
+		final boolean skipProv = skip.contains(OptionalField.PROVENANCE);
+		final boolean skipRefs = skip.contains(OptionalField.REFERENCES);
+		final boolean skipExtIDs = skip.contains(OptionalField.EXTRACTED_IDS);
+		final Set<String> fields = new HashSet<>(FLDS_VER_GET_OBJECT);
+		if (skipProv) {
+			fields.remove(Fields.VER_PROV);
+			fields.remove(Fields.VER_PROVREF);
+			fields.remove(Fields.VER_PROV_DATE);
+			fields.remove(Fields.VER_PROV_WS_ID);
+		}
+		if (skipRefs) {
+			fields.remove(Fields.VER_REF);
+		}
+		if (skipExtIDs) {
+			fields.remove(Fields.VER_EXT_IDS);
+		}
 		final Map<ObjectIDResolvedWS, ResolvedObjectID> resobjs =
 				resolveObjectIDs(objs.keySet(), exceptIfDeleted, includeDeleted, exceptIfMissing);
 		final Map<ResolvedObjectID, Map<String, Object>> vers = 
 				queryVersions(
 						new HashSet<ResolvedObjectID>(resobjs.values()),
-						FLDS_VER_GET_OBJECT, !exceptIfMissing);
+						fields, !exceptIfMissing);
 		if (dataMan != null) {
 			checkTotalFileSize(usedDataAllocation, objs, resobjs, vers);
 		}
-		final Map<ObjectId, Provenance> provs = getProvenance(vers);
+		final Map<ResolvedObjectID, Provenance> provs = skipProv ?
+				Collections.emptyMap() : getProvenance(vers);
 		final Map<String, ByteArrayFileCache> chksumToData =
 				new HashMap<String, ByteArrayFileCache>();
 		final Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> ret =
@@ -2141,21 +2929,22 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			if (!vers.containsKey(roi)) {
 				continue; // works if roi is null or vers doesn't have the key
 			}
-			final Provenance prov = provs.get((ObjectId) vers.get(roi).get(Fields.VER_PROV));
+			final Provenance prov = provs.get(roi);
 			final String copyref =
 					(String) vers.get(roi).get(Fields.VER_COPIED);
 			final Reference copied = copyref == null ? null : new Reference(copyref);
 			@SuppressWarnings("unchecked")
-			final Map<String, List<String>> extIDs =
-					(Map<String, List<String>>) vers.get(roi).get(Fields.VER_EXT_IDS);
+			final Map<IdReferenceType, List<String>> extIDs = skipExtIDs ? null : toExternalIDs(
+					(Map<String, List<String>>) vers.get(roi).get(Fields.VER_EXT_IDS));
 			@SuppressWarnings("unchecked")
-			final List<String> refs = (List<String>) vers.get(roi).get(Fields.VER_REF);
+			final List<String> refs = skipRefs ?
+					null : (List<String>) vers.get(roi).get(Fields.VER_REF);
 			final ObjectInformation info = ObjectInfoUtils.generateObjectInfo(
 					roi, vers.get(roi));
 			if (dataMan == null) {
 				ret.put(o, new HashMap<SubsetSelection, WorkspaceObjectData>());
 				ret.get(o).put(SubsetSelection.EMPTY, new WorkspaceObjectData(
-						info, prov, refs, copied, toExternalIDs(extIDs)));
+						info, prov, refs, copied, extIDs));
 			} else {
 				try {
 					if (objs.get(o).isEmpty()) {
@@ -2249,7 +3038,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final Provenance prov,
 			final List<String> refs,
 			final Reference copied,
-			final Map<String, List<String>> extIDs,
+			final Map<IdReferenceType, List<String>> extIDs,
 			final ObjectInformation info,
 			final Map<String, ByteArrayFileCache> chksumToData,
 			final ByteArrayFileCacheManager bafcMan,
@@ -2267,7 +3056,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			 */
 			ret.get(o).put(op, new WorkspaceObjectData(getDataSubSet(
 					chksumToData.get(info.getCheckSum()), op, bafcMan),
-					info, prov, refs, copied, toExternalIDs(extIDs)));
+					info, prov, refs, copied, extIDs));
 		} else {
 			final ByteArrayFileCache data;
 			try {
@@ -2296,7 +3085,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			chksumToData.put(info.getCheckSum(), data);
 			ret.get(o).put(op, new WorkspaceObjectData(
 					getDataSubSet(data, op, bafcMan),
-					info, prov, refs, copied, toExternalIDs(extIDs)));
+					info, prov, refs, copied, extIDs));
 		}
 	}
 	
@@ -2406,6 +3195,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		for (final Reference r: refs) {
 			refStrings.add(r.getId());
 		}
+		if (useReferenceIndex) {
+			return getObjectIncomingReferencesFromIndex(refs, refStrings);
+		}
 		
 		final DBObject q = new BasicDBObject("$or", Arrays.asList(
 				new BasicDBObject(Fields.VER_REF, new BasicDBObject("$in", refStrings)),
@@ -2415,6 +3207,40 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return buildReferenceToReferencesMap(refs, vers);
 	}
 	
+	private static final Set<String> FLDS_OBJ_REFS = newHashSet(
+			Fields.REF_TARGET, Fields.REF_SOURCE_WS_ID, Fields.REF_SOURCE_ID,
+			Fields.REF_SOURCE_VER);
+	
+	private Map<Reference, ObjectReferenceSet> getObjectIncomingReferencesFromIndex(
+			final Set<Reference> refs,
+			final List<String> refStrings)
+			throws WorkspaceCommunicationException {
+		final Map<Reference, Set<Reference>> refToRefs = new HashMap<>();
+		for (final Reference r: refs) {
+			refToRefs.put(r, new HashSet<>());
+		}
+		// covered by the target index
+		final List<Map<String, Object>> increfs = query.queryCollection(COL_OBJ_REFS,
+				new BasicDBObject(Fields.REF_TARGET, new BasicDBObject("$in", refStrings)),
+				FLDS_OBJ_REFS);
+		for (final Map<String, Object> r: increfs) {
+			refToRefs.get(new Reference((String) r.get(Fields.REF_TARGET)))
+					.add(getSourceReference(r));
+		}
+		final Map<Reference, ObjectReferenceSet> ret = new HashMap<>();
+		for (final Reference r: refToRefs.keySet()) {
+			ret.put(r, new ObjectReferenceSet(r, refToRefs.get(r), true));
+		}
+		return ret;
+	}
+	
+	private static Reference getSourceReference(final Map<String, Object> objref) {
+		return new Reference(
+				(Long) objref.get(Fields.REF_SOURCE_WS_ID),
+				(Long) objref.get(Fields.REF_SOURCE_ID),
+				(Integer) objref.get(Fields.REF_SOURCE_VER));
+	}
+	
 	private Map<Reference, ObjectReferenceSet> buildReferenceToReferencesMap(
 			final Set<Reference> refs,
 			final List<Map<String, Object>> vers) {
@@ -2459,6 +3285,11 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			Fields.VER_CHKSUM, Fields.VER_SIZE,
 			Fields.VER_PROVREF, Fields.VER_REF);
 	
+	private static final Set<String> FLDS_GETREFOBJ_FROM_INDEX = newHashSet(
+			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER,
+			Fields.VER_TYPE, Fields.VER_META, Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
+			Fields.VER_CHKSUM, Fields.VER_SIZE);
+	
 	@Override
 	public Map<ObjectIDResolvedWS, Set<ObjectInformation>>
 			getReferencingObjects(final PermissionSet perms,
@@ -2481,6 +3312,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			}
 			ref2id.get(ref).add(oi);
 		}
+		if (useReferenceIndex) {
+			return getReferencingObjectsFromIndex(perms, objs, wsids, ref2id);
+		}
 		final DBObject q = new BasicDBObject(Fields.VER_WS_ID, new BasicDBObject("$in", wsids));
 		q.put("$or", Arrays.asList(new BasicDBObject(Fields.VER_REF,
 						new BasicDBObject("$in", ref2id.keySet())),
@@ -2512,6 +3346,78 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
+	private Map<ObjectIDResolvedWS, Set<ObjectInformation>> getReferencingObjectsFromIndex(
+			final PermissionSet perms,
+			final Set<ObjectIDResolvedWS> objs,
+			final List<Long> wsids,
+			final Map<String, Set<ObjectIDResolvedWS>> ref2id)
+			throws WorkspaceCommunicationException {
+		final Map<ObjectIDResolvedWS, Set<ObjectInformation>> ret = new HashMap<>();
+		for (final ObjectIDResolvedWS o: objs) {
+			ret.put(o, new HashSet<ObjectInformation>());
+		}
+		// the readable workspace filter is applied in the index scan
+		final DBObject q = new BasicDBObject(
+				Fields.REF_TARGET, new BasicDBObject("$in", ref2id.keySet()))
+				.append(Fields.REF_SOURCE_WS_ID, new BasicDBObject("$in", wsids));
+		final List<Map<String, Object>> increfs = query.queryCollection(
+				COL_OBJ_REFS, q, FLDS_OBJ_REFS);
+		if (increfs.isEmpty()) {
+			return ret;
+		}
+		final Map<Reference, Set<String>> source2targets = new HashMap<>();
+		for (final Map<String, Object> r: increfs) {
+			final Reference source = getSourceReference(r);
+			if (!source2targets.containsKey(source)) {
+				source2targets.put(source, new HashSet<>());
+			}
+			source2targets.get(source).add((String) r.get(Fields.REF_TARGET));
+		}
+		final List<DBObject> orquery = new LinkedList<>();
+		for (final Reference source: source2targets.keySet()) {
+			orquery.add(new BasicDBObject(Fields.VER_WS_ID, source.getWorkspaceID())
+					.append(Fields.VER_ID, source.getObjectID())
+					.append(Fields.VER_VER, source.getVersion()));
+		}
+		final List<Map<String, Object>> vers = new LinkedList<>(query.queryCollection(
+				COL_WORKSPACE_VERS, new BasicDBObject("$or", orquery),
+				FLDS_GETREFOBJ_FROM_INDEX));
+		// any missing versions may be shared with the source of a cloned object
+		final Set<Reference> missing = new HashSet<>(source2targets.keySet());
+		for (final Map<String, Object> ver: vers) {
+			missing.remove(new Reference((Long) ver.get(Fields.VER_WS_ID),
+					(Long) ver.get(Fields.VER_ID), (Integer) ver.get(Fields.VER_VER)));
+		}
+		if (!missing.isEmpty()) {
+			final Map<Long, Map<Long, List<Integer>>> ids = new HashMap<>();
+			for (final Reference m: missing) {
+				if (!ids.containsKey(m.getWorkspaceID())) {
+					ids.put(m.getWorkspaceID(), new HashMap<>());
+				}
+				final Map<Long, List<Integer>> objvers = ids.get(m.getWorkspaceID());
+				if (!objvers.containsKey(m.getObjectID())) {
+					objvers.put(m.getObjectID(), new LinkedList<>());
+				}
+				objvers.get(m.getObjectID()).add(m.getVersion());
+			}
+			vers.addAll(query.querySharedVersions(ids, FLDS_GETREFOBJ_FROM_INDEX));
+		}
+		final Map<Map<String, Object>, ObjectInformation> voi = objutils.generateObjectInfo(
+				perms, vers, true, false, false, true, false);
+		for (final Map<String, Object> ver: voi.keySet()) {
+			final Reference source = new Reference(
+					(Long) ver.get(Fields.VER_WS_ID),
+					(Long) ver.get(Fields.VER_ID),
+					(Integer) ver.get(Fields.VER_VER));
+			for (final String ref: source2targets.get(source)) {
+				for (final ObjectIDResolvedWS oi: ref2id.get(ref)) {
+					ret.get(oi).add(voi.get(ver));
+				}
+			}
+		}
+		return ret;
+	}
+	
 	private static final Set<String> FLDS_REF_CNT = newHashSet(
 			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL, Fields.OBJ_VCNT, Fields.OBJ_REFCOUNTS);
 
@@ -2554,46 +3460,72 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
-	private Map<ObjectId, Provenance> getProvenance(
+	/* Versions may share provenance documents, either via copies or identical provenance, but
+	 * the resolved provenance references are stored per version. Each distinct provenance
+	 * document is fetched once.
+	 */
+	private Map<ResolvedObjectID, Provenance> getProvenance(
 			final Map<ResolvedObjectID, Map<String, Object>> vers)
 			throws WorkspaceCommunicationException {
-		final Map<ObjectId, Map<String, Object>> provIDs = new HashMap<>();
+		final Set<ObjectId> provIDs = new HashSet<>();
 		for (final ResolvedObjectID id: vers.keySet()) {
-			provIDs.put((ObjectId) vers.get(id).get(Fields.VER_PROV), vers.get(id));
+			provIDs.add((ObjectId) vers.get(id).get(Fields.VER_PROV));
+		}
+		final Map<ObjectId, Map<String, Object>> provdocs = new HashMap<>();
+		final Set<ObjectId> missing = new HashSet<>();
+		for (final ObjectId oid: provIDs) {
+			final Map<String, Object> p = provenanceCache.get(oid);
+			if (p == null) {
+				missing.add(oid);
+			} else {
+				provdocs.put(oid, p);
+			}
 		}
-		final Map<ObjectId, Provenance> ret = new HashMap<>();
-		try {
-			final DBCursor provs = wsmongo.getCollection(COL_PROVENANCE).find(
-					new BasicDBObject(Fields.MONGO_ID,
-							new BasicDBObject("$in", provIDs.keySet())));
-			for (final DBObject dbo: provs) {
-				final ObjectId oid = (ObjectId) dbo.get(Fields.MONGO_ID);
+		if (!missing.isEmpty()) {
+			try {
+				final DBCursor provs = wsmongo.getCollection(COL_PROVENANCE).find(
+						new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", missing)));
+				for (final DBObject dbo: provs) {
+					final ObjectId oid = (ObjectId) dbo.get(Fields.MONGO_ID);
+					provdocs.put(oid, provenanceCache.put(oid, QueryMethods.dbObjectToMap(dbo)));
+				}
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+		}
+		final Map<ResolvedObjectID, Provenance> ret = new HashMap<>();
+		for (final ResolvedObjectID id: vers.keySet()) {
+			final Map<String, Object> provdoc = provdocs.get(vers.get(id).get(Fields.VER_PROV));
+			if (provdoc != null) {
 				// this list is expected to be ordered in the same order as in the incoming
 				// provenance actions
 				@SuppressWarnings("unchecked")
-				final List<String> resolvedRefs = (List<String>) provIDs.get(oid)
+				final List<String> resolvedRefs = (List<String>) vers.get(id)
 						.get(Fields.VER_PROVREF);
-				ret.put(oid, toProvenance(dbo, resolvedRefs));
+				ret.put(id, toProvenance(provdoc, vers.get(id), resolvedRefs));
 			}
-		} catch (MongoException me) {
-			throw new WorkspaceCommunicationException(
-					"There was a problem communicating with the database", me);
 		}
 		return ret;
 	}
 	
 	private Provenance toProvenance(
-			final DBObject p,
+			final Map<String, Object> p,
+			final Map<String, Object> version,
 			// this list is expected to be ordered in the same order as in the incoming
 			// provenance actions
 			final List<String> resolvedRefs) {
 		// also turns a lazybsonlist into a regularlist
 		final List<String> rrcopy = new LinkedList<>(resolvedRefs);
+		// versions saved before 0.12.0 have the date and workspace ID in the provenance
+		final boolean inVersion = version.containsKey(Fields.VER_PROV_DATE);
 		final Provenance ret = new Provenance(
 				new WorkspaceUser((String) p.get(Fields.PROV_USER)),
-				(Date) p.get(Fields.PROV_DATE));
+				(Date) (inVersion ?
+						version.get(Fields.VER_PROV_DATE) : p.get(Fields.PROV_DATE)));
 		// objects saved before version 0.4.1 will have null workspace IDs
-		ret.setWorkspaceID((Long) p.get(Fields.PROV_WS_ID));
+		ret.setWorkspaceID((Long) (inVersion ?
+				version.get(Fields.VER_PROV_WS_ID) : p.get(Fields.PROV_WS_ID)));
 		
 		@SuppressWarnings("unchecked")
 		final List<Map<String, Object>> actions =
@@ -2741,9 +3673,16 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		final DBObject q = new BasicDBObject(Fields.OBJ_DEL, false);
 		q.put(Fields.OBJ_WS_ID, new BasicDBObject("$in", wsIDtoWS.keySet()));
 		if (!prefix.isEmpty()) {
-			// escape regex chars
-			q.put(Fields.OBJ_NAME,
-					new BasicDBObject("$regex", "^" + Pattern.quote(prefix)));
+			final String successor = prefixSuccessor(prefix);
+			if (successor != null) {
+				// a range rather than an anchored regex so the (ws, name) index bounds are exact
+				q.put(Fields.OBJ_NAME,
+						new BasicDBObject("$gte", prefix).append("$lt", successor));
+			} else {
+				// escape regex chars
+				q.put(Fields.OBJ_NAME,
+						new BasicDBObject("$regex", "^" + Pattern.quote(prefix)));
+			}
 		}
 		if (!includeHidden) {
 			q.put(Fields.OBJ_HIDE, false);
@@ -2763,11 +3702,54 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
+	private static final Set<String> FLDS_NAME_HIDE = newHashSet(
+			Fields.OBJ_NAME, Fields.OBJ_HIDE);
+	
+	@Override
+	public Map<String, Boolean> getObjectNames(final ResolvedWorkspaceID rwsi, final int limit)
+			throws WorkspaceCommunicationException {
+		final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, rwsi.getID())
+				.append(Fields.OBJ_DEL, false);
+		final Map<String, Boolean> ret = new HashMap<>();
+		for (final Map<String, Object> o: query.queryCollection(
+				COL_WORKSPACE_OBJS, q, FLDS_NAME_HIDE, limit)) {
+			ret.put((String) o.get(Fields.OBJ_NAME), (Boolean) o.get(Fields.OBJ_HIDE));
+		}
+		return ret;
+	}
+	
+	/** Get the smallest string that is greater than every string starting with the prefix, or
+	 * null if the successor can't be computed by incrementing the last character of the prefix
+	 * such that Java and Mongo (which compares UTF-8 bytes) agree on the ordering.
+	 * @param prefix the prefix.
+	 * @return the successor of the prefix or null.
+	 */
+	private static String prefixSuccessor(final String prefix) {
+		final int last = prefix.length() - 1;
+		final char c = prefix.charAt(last);
+		// incrementing would overflow or land in or cross the surrogate range
+		if (c >= Character.MIN_SURROGATE - 1) {
+			return null;
+		}
+		return prefix.substring(0, last) + (char) (c + 1);
+	}
+	
 	@Override
 	public List<ObjectInformation> getObjectInformation(
 			final GetObjectInformationParameters params)
 			throws WorkspaceCommunicationException {
-		return objutils.filter(params);
+		final List<ObjectInformation> cached = lockedCache.getList(params);
+		if (cached != null) {
+			return cached;
+		}
+		final ReadPreference readPref = secondaryReads.getReadPreference(
+				ReadClass.LIST_OBJECTS, params.getPermissionSet().getWorkspaces());
+		final List<ObjectInformation> ret = objutils.filter(params, readPref);
+		// a secondary may not have seen the last writes before the workspace was locked
+		if (readPref.equals(ReadPreference.primary())) {
+			lockedCache.putList(params, ret);
+		}
+		return ret;
 	}
 
 	private static final Set<String> FLDS_VER_OBJ_HIST = newHashSet(
@@ -2781,15 +3763,30 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		throws NoSuchObjectException, WorkspaceCommunicationException {
 		final ResolvedObjectID roi = resolveObjectIDs(
 				new HashSet<ObjectIDResolvedWS>(Arrays.asList(oi))).get(oi);
-		final ResolvedObjectIDNoVer o =
-				new ResolvedObjectIDNoVer(roi);
-		final List<Map<String, Object>> versions = queryAllVersions(
-				new HashSet<ResolvedObjectIDNoVer>(Arrays.asList(o)),
-				FLDS_VER_OBJ_HIST).get(o);
+		// resolve the latest version so the versions can be fetched by number from the cache
+		final ObjectIDResolvedWS latestID = new ObjectIDResolvedWS(
+				roi.getWorkspaceIdentifier(), roi.getId());
+		final ResolvedObjectID latest = oi.getVersion() == null ? roi : resolveObjectIDs(
+				new HashSet<>(Arrays.asList(latestID))).get(latestID);
+		final Set<ResolvedObjectID> vers = new HashSet<>();
+		for (int v = 1; v <= latest.getVersion(); v++) {
+			vers.add(new ResolvedObjectID(roi.getWorkspaceIdentifier(), roi.getId(), v,
+					roi.getName(), roi.isDeleted()));
+		}
+		final Map<ResolvedObjectID, Map<String, Object>> versions =
+				queryCachedVersions(vers, FLDS_VER_OBJ_HIST);
+		if (versions.isEmpty()) {
+			throw new NoSuchObjectException(String.format(
+					"No object with name %s exists in workspace %s",
+					roi.getName(), roi.getWorkspaceIdentifier().getID()),
+					new ObjectIDResolvedWS(roi.getWorkspaceIdentifier(), roi.getName()));
+		}
+		final List<ResolvedObjectID> sorted = new ArrayList<>(versions.keySet());
+		Collections.sort(sorted, (r1, r2) -> Integer.compare(r1.getVersion(), r2.getVersion()));
 		final LinkedList<ObjectInformation> ret =
 				new LinkedList<ObjectInformation>();
-		for (final Map<String, Object> v: versions) {
-			ret.add(ObjectInfoUtils.generateObjectInfo(roi, v));
+		for (final ResolvedObjectID r: sorted) {
+			ret.add(ObjectInfoUtils.generateObjectInfo(roi, versions.get(r)));
 		}
 		return ret;
 	}
@@ -2897,10 +3894,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		for (final ObjectIDResolvedWS o: objectIDs) {
 			nover.put(o, new ObjectIDResolvedWSNoVer(o));
 		}
-		final Map<ObjectIDResolvedWSNoVer, Map<String, Object>> ids = 
-				query.queryObjects(
-						new HashSet<ObjectIDResolvedWSNoVer>(nover.values()),
-						fields);
+		final Map<ObjectIDResolvedWSNoVer, Map<String, Object>> ids =
+				queryCachedObjects(new HashSet<>(nover.values()), fields);
 		final Map<ObjectIDResolvedWS, Map<String, Object>> ret =
 				new HashMap<ObjectIDResolvedWS, Map<String,Object>>();
 		for (final ObjectIDResolvedWS oid: nover.keySet()) {
@@ -2935,6 +3930,37 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
+	/* Objects in locked workspaces are served from and added to the locked workspace cache if
+	 * the requested fields are all resolution fields, which never change in a locked workspace.
+	 */
+	private Map<ObjectIDResolvedWSNoVer, Map<String, Object>> queryCachedObjects(
+			final Set<ObjectIDResolvedWSNoVer> objectIDs,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		if (!FLDS_RESOLVE_OBJS.containsAll(fields)) {
+			return query.queryObjects(objectIDs, new HashSet<>(fields));
+		}
+		final Map<ObjectIDResolvedWSNoVer, Map<String, Object>> ret = new HashMap<>();
+		final Set<ObjectIDResolvedWSNoVer> missing = new HashSet<>();
+		for (final ObjectIDResolvedWSNoVer o: objectIDs) {
+			final Map<String, Object> doc = lockedCache.getObject(o);
+			if (doc == null) {
+				missing.add(o);
+			} else {
+				ret.put(o, doc);
+			}
+		}
+		if (!missing.isEmpty()) {
+			final Map<ObjectIDResolvedWSNoVer, Map<String, Object>> docs =
+					query.queryObjects(missing, new HashSet<>(FLDS_RESOLVE_OBJS));
+			for (final ObjectIDResolvedWSNoVer o: docs.keySet()) {
+				lockedCache.putObject(o, docs.get(o));
+				ret.put(o, docs.get(o));
+			}
+		}
+		return ret;
+	}
+	
 	//In rare race conditions an object may exist with a ver count of 1 but
 	//no versions. Really need to move this code to a backend DB with
 	//transactions if we want autoincrementing counters.
@@ -2944,7 +3970,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			boolean ignoreMissing)
 			throws WorkspaceCommunicationException, NoSuchObjectException {
 		final Map<ResolvedObjectID, Map<String, Object>> vers = 
-				query.queryVersions(objectIds, fields);
+				queryCachedVersions(objectIds, fields);
 		if (ignoreMissing) {
 			return vers;
 		}
@@ -2966,6 +3992,53 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return vers;
 	}
 	
+	/* all the version fields, which may all be cached since versions are immutable. Only
+	 * versions fetched with all these fields are cached, so that any query may be answered
+	 * from the cache.
+	 */
+	private static final Set<String> FLDS_VER_CACHE = newHashSet(
+			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER, Fields.VER_TYPE,
+			Fields.VER_CHKSUM, Fields.VER_SIZE, Fields.VER_META, Fields.VER_SAVEDATE,
+			Fields.VER_SAVEDBY, Fields.VER_PROV, Fields.VER_PROVREF, Fields.VER_REF,
+			Fields.VER_PROV_DATE, Fields.VER_PROV_WS_ID,
+			Fields.VER_EXT_IDS, Fields.VER_COPIED, Fields.VER_RVRT);
+	
+	private Map<ResolvedObjectID, Map<String, Object>> queryCachedVersions(
+			final Set<ResolvedObjectID> objectIDs,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		if (!FLDS_VER_CACHE.containsAll(fields)) {
+			return query.queryVersions(objectIDs, fields);
+		}
+		final Map<ResolvedObjectID, Map<String, Object>> ret = new HashMap<>();
+		final Set<ResolvedObjectID> missing = new HashSet<>();
+		for (final ResolvedObjectID roi: objectIDs) {
+			final Map<String, Object> v = versionCache.get(toReference(roi));
+			if (v == null) {
+				missing.add(roi);
+			} else {
+				ret.put(roi, v);
+			}
+		}
+		if (!missing.isEmpty()) {
+			final Map<ResolvedObjectID, Map<String, Object>> vers =
+					query.queryVersions(missing, new HashSet<>(fields));
+			if (fields.containsAll(FLDS_VER_CACHE)) {
+				for (final ResolvedObjectID roi: vers.keySet()) {
+					ret.put(roi, versionCache.put(toReference(roi), vers.get(roi)));
+				}
+			} else {
+				ret.putAll(vers);
+			}
+		}
+		return ret;
+	}
+	
+	private static Reference toReference(final ResolvedObjectID roi) {
+		return new Reference(roi.getWorkspaceIdentifier().getID(), roi.getId(),
+				roi.getVersion());
+	}
+	
 	//In rare race conditions an object may exist with a ver count of 1 but
 	//no versions. Really need to move this code to a backend DB with
 	//transactions if we want autoincrementing counters.
@@ -3100,6 +4173,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	private void setObjectsHidden(final ResolvedWorkspaceID ws,
 			final List<Long> objectIDs, final boolean hide)
 			throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(ws.getID());
 		//TODO CODE general set field method?
 		if (objectIDs.isEmpty()) {
 			throw new IllegalArgumentException("Object IDs cannot be empty");
@@ -3178,6 +4252,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	
 	public Instant setWorkspaceDeleted(final ResolvedWorkspaceID rwsi,
 			final boolean delete) throws WorkspaceCommunicationException {
+		secondaryReads.recordWrite(rwsi.getID());
 		//there's a possibility of a race condition here if a workspace is
 		//deleted and undeleted or vice versa in a very short amount of time,
 		//but that seems so unlikely it's not worth the code
@@ -0,0 +1,62 @@
+package us.kbase.workspace.database.mongo;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/** Blocks of object IDs reserved from workspace counters by this server and handed out locally,
+ * so that concurrent saves of new objects to the same workspace don't all increment the
+ * workspace's counter.
+ *
+ * IDs are never handed out twice, but IDs left in a block when it is replaced or evicted are
+ * never used, leaving gaps in the workspace's object IDs.
+ */
+class ObjectIDBlocks {
+
+	private final Cache<Long, Block> blocks;
+
+	private static class Block {
+		private long next;
+		private final long last;
+
+		private Block(final long first, final long last) {
+			this.next = first;
+			this.last = last;
+		}
+	}
+
+	/** Create the blocks.
+	 * @param maxWorkspaces the maximum number of workspaces for which to keep a block.
+	 */
+	ObjectIDBlocks(final int maxWorkspaces) {
+		blocks = CacheBuilder.newBuilder().maximumSize(maxWorkspaces).build();
+	}
+
+	/** Take consecutive object IDs from a workspace's block.
+	 * @param workspaceID the ID of the workspace.
+	 * @param count the number of IDs to take.
+	 * @return the first ID, or null if there is no block for the workspace or the block has
+	 * fewer than count IDs remaining.
+	 */
+	synchronized Long take(final long workspaceID, final long count) {
+		final Block b = blocks.getIfPresent(workspaceID);
+		if (b == null || b.last - b.next + 1 < count) {
+			return null;
+		}
+		final long first = b.next;
+		b.next += count;
+		return first;
+	}
+
+	/** Set the block of IDs for a workspace, replacing any existing block.
+	 * @param workspaceID the ID of the workspace.
+	 * @param first the first unused ID in the block.
+	 * @param last the last ID in the block.
+	 */
+	synchronized void put(final long workspaceID, final long first, final long last) {
+		if (first <= last) {
+			blocks.put(workspaceID, new Block(first, last));
+		} else {
+			blocks.invalidate(workspaceID);
+		}
+	}
+}
@@ -1,31 +1,40 @@
 package us.kbase.workspace.database.mongo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Map.Entry;
 
+import us.kbase.typedobj.core.TypeDefId;
 import us.kbase.workspace.database.GetObjectInformationParameters;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.PermissionSet;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedObjectID;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
 import us.kbase.workspace.database.UncheckedUserMetadata;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 
+import com.google.common.collect.Iterators;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
 
 /** A collection of utility methods mainly for generating ObjectInfomation
  * objects from mongo records.
@@ -39,12 +48,21 @@ public class ObjectInfoUtils {
 	//TODO JAVADOC
 	
 	private final QueryMethods query;
+	// whether every object document contains the latest version information
+	private final boolean useLatestInfo;
+	// whether workspaces can be cloned with shared versions, see Fields.WS_SHARED_VERS
+	private final boolean sharedVersions;
 	
-	ObjectInfoUtils(final QueryMethods query) {
+	ObjectInfoUtils(
+			final QueryMethods query,
+			final boolean useLatestInfo,
+			final boolean sharedVersions) {
 		if (query == null) {
 			throw new NullPointerException("query argument may not be null");
 		}
 		this.query = query;
+		this.useLatestInfo = useLatestInfo;
+		this.sharedVersions = sharedVersions;
 	}
 	
 	private static final Set<String> FLDS_LIST_OBJ_VER = newHashSet(
@@ -52,12 +70,34 @@ public class ObjectInfoUtils {
 			Fields.VER_SAVEDBY, Fields.VER_VER, Fields.VER_CHKSUM,
 			Fields.VER_SIZE, Fields.VER_ID, Fields.VER_WS_ID);
 	
+	private static final Set<String> FLDS_LIST_LATEST_INFO = newHashSet(
+			Fields.VER_VER, Fields.VER_TYPE, Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
+			Fields.VER_CHKSUM, Fields.VER_SIZE);
+	
+	// the version collection index for listing objects by type
+	private static final DBObject IDX_VER_WS_TYPE_ID_VER = new BasicDBObject(Fields.VER_WS_ID, 1)
+			.append(Fields.VER_TYPE, 1).append(Fields.VER_ID, 1).append(Fields.VER_VER, -1);
+	
+	// the object collection index for listing the latest versions of objects by type
+	private static final DBObject IDX_OBJ_WS_TYPE_ID = new BasicDBObject(Fields.OBJ_WS_ID, 1)
+			.append(Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_TYPE, 1)
+			.append(Fields.OBJ_ID, 1);
+	
 	private static final Set<String> FLDS_LIST_OBJ = newHashSet(
 			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL, Fields.OBJ_HIDE,
 			Fields.OBJ_VCNT, Fields.OBJ_WS_ID);
 	
+	/** List objects.
+	 * @param params the listing parameters.
+	 * @param readPreference the read preference for the object or version query that lists the
+	 * objects.
+	 * @return the objects.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
 	List<ObjectInformation> filter(
-			final GetObjectInformationParameters params)
+			final GetObjectInformationParameters params,
+			final ReadPreference readPreference)
 			throws WorkspaceCommunicationException {
 		/* Could make this method more efficient by doing different queries
 		 * based on the filters. If there's no filters except the workspace,
@@ -75,21 +115,38 @@ public class ObjectInfoUtils {
 		if (pset.isEmpty()) {
 			return new LinkedList<ObjectInformation>();
 		}
-		final DBObject verq = buildQuery(params);
+		if (useLatestInfo && !params.isShowAllVersions()) {
+			return filterLatest(params, readPreference);
+		}
+		final DBObject verq = buildQuery(params, "");
+		final Reference startAfter = params.getStartAfter();
+		if (startAfter != null) {
+			addStartAfter(verq, startAfter.getWorkspaceID(), startAfter.getObjectID(),
+					startAfter.getVersion());
+		}
 		final DBObject projection = buildProjection(params);
 		final DBObject sort = buildSortSpec(params);
-		final DBCursor cur = buildCursor(verq, projection, sort);
+		final DBCursor cur = buildCursor(verq, projection, sort, readPreference);
+		if (params.getStartAfter() != null) {
+			cur.hint(sort);
+		} else if (params.getType() != null) {
+			// don't let the optimizer pick the type/chksum index, which spans all workspaces
+			cur.hint(IDX_VER_WS_TYPE_ID_VER);
+		}
+		final Iterator<Map<String, Object>> vers = addSharedVersions(
+				params, Iterators.transform(cur, v -> QueryMethods.dbObjectToMap(v)),
+				projection, !sort.keySet().isEmpty(), readPreference);
 		
 		//querying on versions directly so no need to worry about race 
 		//condition where the workspace object was saved but no versions
 		//were saved yet
 		
 		final List<ObjectInformation> ret = new LinkedList<>();
-		while (cur.hasNext() && ret.size() < params.getLimit()) {
+		while (hasNext(vers) && ret.size() < params.getLimit()) {
 			final List<Map<String, Object>> verobjs = new ArrayList<>();
-			while (cur.hasNext() && verobjs.size() < querysize) {
+			while (hasNext(vers) && verobjs.size() < querysize) {
 				try {
-					verobjs.add(QueryMethods.dbObjectToMap(cur.next()));
+					verobjs.add(vers.next());
 				} catch (MongoException me) {
 					throw new WorkspaceCommunicationException(
 							"There was a problem communicating with the database", me);
@@ -112,15 +169,379 @@ public class ObjectInfoUtils {
 		return ret;
 	}
 
+	private boolean hasNext(final Iterator<Map<String, Object>> vers)
+			throws WorkspaceCommunicationException {
+		try {
+			return vers.hasNext();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+	
+	// workspace ID ascending, object ID ascending, version descending, as for buildSortSpec
+	private static final Comparator<Map<String, Object>> VERSION_ORDER =
+			Comparator.<Map<String, Object>>comparingLong(v -> (Long) v.get(Fields.VER_WS_ID))
+					.thenComparingLong(v -> (Long) v.get(Fields.VER_ID))
+					.thenComparing(v -> (Integer) v.get(Fields.VER_VER), Comparator.reverseOrder());
+	
+	/* Adds the versions of any workspaces in the listing that share versions with another
+	 * workspace, see Fields.WS_SHARED_VERS, to the versions listed from the version collection.
+	 * If the listing is sorted the shared versions are merged into the sorted versions,
+	 * otherwise they follow them. Nothing is added, and the workspaces aren't checked, if
+	 * workspaces can't be cloned with shared versions.
+	 */
+	private Iterator<Map<String, Object>> addSharedVersions(
+			final GetObjectInformationParameters params,
+			final Iterator<Map<String, Object>> versions,
+			final DBObject projection,
+			final boolean sorted,
+			final ReadPreference readPreference)
+			throws WorkspaceCommunicationException {
+		if (!sharedVersions) {
+			return versions;
+		}
+		final List<Long> wsids = new ArrayList<>();
+		for (final ResolvedWorkspaceID rwsi: params.getPermissionSet().getWorkspaces()) {
+			wsids.add(rwsi.getID());
+		}
+		final List<Long> shared = new ArrayList<>(query.getSharedVersionWorkspaces(wsids));
+		if (shared.isEmpty()) {
+			return versions;
+		}
+		Collections.sort(shared);
+		final Iterator<Map<String, Object>> sharedvers = new SharedVersionIterator(
+				params, shared, projection, readPreference);
+		if (sorted) {
+			return Iterators.mergeSorted(Arrays.asList(versions, sharedvers), VERSION_ORDER);
+		}
+		return Iterators.concat(versions, sharedvers);
+	}
+	
+	/* Lists the versions that the objects in workspaces cloned with shared versions read from
+	 * their source objects, see Fields.OBJ_SOURCE, as if they were stored in the clones, in the
+	 * order of VERSION_ORDER. The objects are read in chunks, and the source versions for each
+	 * chunk are read, rewritten and filtered in memory, since the clone's saver and save date
+	 * replace those of the source.
+	 */
+	private class SharedVersionIterator implements Iterator<Map<String, Object>> {
+		
+		private static final int CHUNK_SIZE = 100;
+		
+		private final GetObjectInformationParameters params;
+		private final Iterator<Long> workspaces;
+		private final DBObject projection;
+		private final ReadPreference readPreference;
+		// the filters on the source versions, excluding the saver and save date
+		private final DBObject sourceQuery;
+		private final Set<String> savers = new HashSet<>();
+		private final LinkedList<Map<String, Object>> next = new LinkedList<>();
+		private long workspaceID = -1;
+		private DBCursor objects = null;
+		
+		private SharedVersionIterator(
+				final GetObjectInformationParameters params,
+				final List<Long> workspaceIDs,
+				final DBObject projection,
+				final ReadPreference readPreference) {
+			this.params = params;
+			final Reference startAfter = params.getStartAfter();
+			final List<Long> wsids = new LinkedList<>();
+			for (final Long wsid: workspaceIDs) {
+				if (startAfter == null || wsid >= startAfter.getWorkspaceID()) {
+					wsids.add(wsid);
+				}
+			}
+			this.workspaces = wsids.iterator();
+			this.projection = projection;
+			this.readPreference = readPreference;
+			sourceQuery = buildQuery(params, "");
+			sourceQuery.removeField(Fields.VER_SAVEDBY);
+			sourceQuery.removeField(Fields.VER_SAVEDATE);
+			savers.addAll(convertWorkspaceUsers(params.getSavers()));
+		}
+		
+		@Override
+		public boolean hasNext() {
+			while (next.isEmpty()) {
+				if (objects != null && objects.hasNext()) {
+					readChunk();
+				} else if (workspaces.hasNext()) {
+					workspaceID = workspaces.next();
+					objects = queryObjects();
+				} else {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		@Override
+		public Map<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return next.removeFirst();
+		}
+		
+		private DBCursor queryObjects() {
+			final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID, workspaceID)
+					.append(Fields.OBJ_SOURCE, new BasicDBObject("$exists", true));
+			final DBObject id = new BasicDBObject();
+			long min = params.getMinObjectID();
+			final Reference startAfter = params.getStartAfter();
+			if (startAfter != null && startAfter.getWorkspaceID() == workspaceID) {
+				min = Math.max(min, startAfter.getObjectID());
+			}
+			if (min > 1) {
+				id.put("$gte", min);
+			}
+			if (params.getMaxObjectID() > 0) {
+				id.put("$lte", params.getMaxObjectID());
+			}
+			if (!id.keySet().isEmpty()) {
+				q.put(Fields.OBJ_ID, id);
+			}
+			final DBObject proj = new BasicDBObject(Fields.MONGO_ID, 0)
+					.append(Fields.OBJ_ID, 1).append(Fields.OBJ_SOURCE, 1);
+			return query.getDatabase().getCollection(query.getObjectCollection())
+					.find(q, proj).sort(new BasicDBObject(Fields.OBJ_WS_ID, 1)
+							.append(Fields.OBJ_ID, 1))
+					.batchSize(CHUNK_SIZE).setReadPreference(readPreference);
+		}
+		
+		private void readChunk() {
+			// source workspace ID -> source object ID -> object
+			final Map<Long, Map<Long, DBObject>> sources = new HashMap<>();
+			final List<Long> ids = new ArrayList<>();
+			while (objects.hasNext() && ids.size() < CHUNK_SIZE) {
+				final DBObject o = objects.next();
+				final DBObject src = (DBObject) o.get(Fields.OBJ_SOURCE);
+				final long srcws = (Long) src.get(Fields.SRC_WS_ID);
+				if (!sources.containsKey(srcws)) {
+					sources.put(srcws, new HashMap<>());
+				}
+				sources.get(srcws).put((Long) src.get(Fields.SRC_ID), o);
+				ids.add((Long) o.get(Fields.OBJ_ID));
+			}
+			// versions may be stored in the clone as well if they're being copied
+			final Set<Reference> stored = new HashSet<>();
+			for (final DBObject v: query.getDatabase().getCollection(
+					query.getVersionCollection()).find(
+							new BasicDBObject(Fields.VER_WS_ID, workspaceID)
+									.append(Fields.VER_ID, new BasicDBObject("$in", ids)),
+							new BasicDBObject(Fields.VER_ID, 1).append(Fields.VER_VER, 1))
+					.setReadPreference(readPreference)) {
+				stored.add(new Reference(workspaceID, (Long) v.get(Fields.VER_ID),
+						(Integer) v.get(Fields.VER_VER)));
+			}
+			final List<Map<String, Object>> vers = new ArrayList<>();
+			for (final Long srcws: sources.keySet()) {
+				final Map<Long, DBObject> srcobjs = sources.get(srcws);
+				sourceQuery.put(Fields.VER_WS_ID, srcws);
+				sourceQuery.put(Fields.VER_ID, new BasicDBObject("$in", srcobjs.keySet()));
+				for (final DBObject v: query.getDatabase().getCollection(
+						query.getVersionCollection()).find(sourceQuery, projection)
+						.setReadPreference(readPreference)) {
+					final DBObject o = srcobjs.get((Long) v.get(Fields.VER_ID));
+					final long objid = (Long) o.get(Fields.OBJ_ID);
+					@SuppressWarnings("unchecked")
+					final Map<String, Object> src = ((DBObject) o.get(Fields.OBJ_SOURCE)).toMap();
+					final int ver = (Integer) v.get(Fields.VER_VER);
+					if (ver <= (Integer) src.get(Fields.SRC_VER) &&
+							!stored.contains(new Reference(workspaceID, objid, ver))) {
+						final Map<String, Object> sv = QueryMethods.toSharedVersion(
+								QueryMethods.dbObjectToMap(v), workspaceID, objid, src,
+								projection.keySet());
+						if (matches(sv)) {
+							vers.add(sv);
+						}
+					}
+				}
+			}
+			Collections.sort(vers, VERSION_ORDER);
+			next.addAll(vers);
+		}
+		
+		// applies the saver, save date, and start after filters
+		private boolean matches(final Map<String, Object> version) {
+			if (!savers.isEmpty() && !savers.contains(version.get(Fields.VER_SAVEDBY))) {
+				return false;
+			}
+			final Date saved = (Date) version.get(Fields.VER_SAVEDATE);
+			if (params.getBefore() != null && !saved.before(params.getBefore())) {
+				return false;
+			}
+			if (params.getAfter() != null && !saved.after(params.getAfter())) {
+				return false;
+			}
+			final Reference startAfter = params.getStartAfter();
+			if (startAfter == null || startAfter.getWorkspaceID() != workspaceID) {
+				return true;
+			}
+			final long objid = (Long) version.get(Fields.VER_ID);
+			return objid > startAfter.getObjectID() || (objid == startAfter.getObjectID() &&
+					(Integer) version.get(Fields.VER_VER) < startAfter.getVersion());
+		}
+	}
+	
+	/* Lists the latest versions from the information stored in the object documents, so only
+	 * the objects that are returned are read, rather than every version of every object.
+	 */
+	private List<ObjectInformation> filterLatest(
+			final GetObjectInformationParameters params,
+			final ReadPreference readPreference)
+			throws WorkspaceCommunicationException {
+		final PermissionSet pset = params.getPermissionSet();
+		final Map<Long, ResolvedWorkspaceID> ids = new HashMap<>();
+		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
+			ids.put(rwsi.getID(), rwsi);
+		}
+		final DBObject projection = new BasicDBObject(Fields.MONGO_ID, 0);
+		for (final String field: FLDS_LIST_OBJ) {
+			projection.put(field, 1);
+		}
+		if (params.isIncludeMetaData()) {
+			projection.put(Fields.OBJ_LATEST_INFO, 1);
+		} else {
+			for (final String field: FLDS_LIST_LATEST_INFO) {
+				projection.put(Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + field, 1);
+			}
+		}
+		/* There's only one document per object, so always sort so the first page is in the same
+		 * order as the following pages. With a type filter, the ws/type/id index is hinted so the
+		 * optimizer doesn't pick the ws/id index, which would scan every object in the
+		 * workspaces, and the in memory sort is bounded by the limit. Otherwise the optimizer
+		 * chooses between the ws/id index and the saved by, save date, and metadata indexes.
+		 */
+		final DBObject sort = new BasicDBObject(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_ID, 1);
+		final Reference startAfter = params.getStartAfter();
+		long lastWsid = startAfter == null ? -1 : startAfter.getWorkspaceID();
+		long lastObjid = startAfter == null ? -1 : startAfter.getObjectID();
+		final List<ObjectInformation> ret = new LinkedList<>();
+		boolean more = true;
+		try {
+			while (more && ret.size() < params.getLimit()) {
+				final DBObject objq = buildQuery(params, Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP);
+				if (!addHiddenAndDeletedFilters(params, objq)) {
+					return ret;
+				}
+				addStartAfter(objq, lastWsid, lastObjid, -1);
+				final int querysize = params.getLimit() - ret.size();
+				final DBCursor cur = query.getDatabase()
+						.getCollection(query.getObjectCollection())
+						.find(objq, projection).sort(sort).limit(querysize)
+						.batchSize(Math.min(querysize, 1000)).setReadPreference(readPreference);
+				if (params.getType() != null) {
+					cur.hint(IDX_OBJ_WS_TYPE_ID);
+				}
+				int count = 0;
+				for (final DBObject obj: cur) {
+					count++;
+					lastWsid = (Long) obj.get(Fields.OBJ_WS_ID);
+					lastObjid = (Long) obj.get(Fields.OBJ_ID);
+					@SuppressWarnings("unchecked")
+					final Map<String, Object> info =
+							(Map<String, Object>) obj.get(Fields.OBJ_LATEST_INFO);
+					/* no version of the object was ever saved, or the latest version hasn't
+					 * been saved yet or the save failed
+					 */
+					if (info == null ||
+							!obj.get(Fields.OBJ_VCNT).equals(info.get(Fields.VER_VER))) {
+						continue;
+					}
+					ret.add(generateObjectInfo(ids.get(lastWsid), lastObjid,
+							(String) obj.get(Fields.OBJ_NAME), info));
+				}
+				// if objects were skipped, query again after the last object if there are more
+				more = count == querysize;
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+	
+	// returns false if no objects can match the query
+	private boolean addHiddenAndDeletedFilters(
+			final GetObjectInformationParameters params,
+			final DBObject objq) {
+		if (!params.isShowHidden()) {
+			objq.put(Fields.OBJ_HIDE, false);
+		}
+		if (!params.isShowDeleted() && !params.isShowOnlyDeleted()) {
+			objq.put(Fields.OBJ_DEL, false);
+			return true;
+		}
+		// deleted objects are only visible in workspaces the user can write to
+		final PermissionSet pset = params.getPermissionSet();
+		final Set<Long> writable = new HashSet<>();
+		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
+			if (params.asAdmin() || pset.hasPermission(rwsi, Permission.WRITE)) {
+				writable.add(rwsi.getID());
+			}
+		}
+		if (params.isShowOnlyDeleted()) {
+			if (writable.isEmpty()) {
+				return false;
+			}
+			objq.put(Fields.OBJ_DEL, true);
+			objq.put(Fields.OBJ_WS_ID, new BasicDBObject("$in", writable));
+		} else if (writable.size() < pset.getWorkspaces().size()) {
+			objq.put("$or", Arrays.asList(
+					new BasicDBObject(Fields.OBJ_DEL, false),
+					new BasicDBObject(Fields.OBJ_WS_ID, new BasicDBObject("$in", writable))));
+		}
+		return true;
+	}
+	
+	/* Restricts the query to the objects or versions after the given object version in
+	 * workspace ID, object ID ascending, version descending order. Along with the sort on the
+	 * ws/id(/ver) index, this makes each page of a listing a range scan of the index starting
+	 * after the previous page, so fetching a page costs the same no matter how many pages
+	 * precede it. Pass a version < 1 to start after all the versions of the object, and a
+	 * workspace ID < 1 to not restrict the query.
+	 */
+	private void addStartAfter(
+			final DBObject query,
+			final long wsid,
+			final long objid,
+			final int ver) {
+		if (wsid < 1) {
+			return;
+		}
+		// narrows the index bounds for the workspace $in clause
+		((DBObject) query.get(Fields.VER_WS_ID)).put("$gte", wsid);
+		final List<DBObject> after = new LinkedList<>();
+		if (ver > 0) {
+			after.add(new BasicDBObject(Fields.VER_WS_ID, wsid)
+					.append(Fields.VER_ID, objid)
+					.append(Fields.VER_VER, new BasicDBObject("$lt", ver)));
+		}
+		after.add(new BasicDBObject(Fields.VER_WS_ID, wsid)
+				.append(Fields.VER_ID, new BasicDBObject("$gt", objid)));
+		after.add(new BasicDBObject(Fields.VER_WS_ID, new BasicDBObject("$gt", wsid)));
+		// the metadata or deleted filters may already use $and or $or
+		@SuppressWarnings("unchecked")
+		List<DBObject> and = (List<DBObject>) query.get("$and");
+		if (and == null) {
+			and = new LinkedList<>();
+			query.put("$and", and);
+		}
+		and.add(new BasicDBObject("$or", after));
+	}
+	
 	private DBCursor buildCursor(
 			final DBObject verq,
 			final DBObject projection,
-			final DBObject sort)
+			final DBObject sort,
+			final ReadPreference readPreference)
 			throws WorkspaceCommunicationException {
 		final DBCursor cur;
 		try {
 			cur = query.getDatabase().getCollection(query.getVersionCollection())
-					.find(verq, projection).sort(sort);
+					.find(verq, projection).sort(sort).setReadPreference(readPreference);
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -150,10 +571,14 @@ public class ObjectInfoUtils {
 	 * use the ws/obj/ver index to sort, at least for smaller data sets. It's still potentially
 	 * dangerous to add the sort, since that forces the optimizer to use the ws/obj/ver index
 	 * (which could return a huge number of results and really slow down the query).
+	 * 
+	 * When paging with a start after reference the sort is required for the paging to be
+	 * correct, and the query is bounded below by the reference, so the ws/obj/ver index is
+	 * always used.
 	 */
 	private DBObject buildSortSpec(final GetObjectInformationParameters params) {
 		final DBObject sort = new BasicDBObject();
-		if (params.isObjectIDFiltersOnly()) {
+		if (params.isObjectIDFiltersOnly() || params.getStartAfter() != null) {
 			sort.put(Fields.VER_WS_ID, 1);
 			sort.put(Fields.VER_ID, 1);
 			sort.put(Fields.VER_VER, -1);
@@ -161,7 +586,12 @@ public class ObjectInfoUtils {
 		return sort;
 	}
 
-	private DBObject buildQuery(final GetObjectInformationParameters params) {
+	/* prefix is prepended to the version fields other than the workspace and object IDs, which
+	 * are the same for the version and object collections.
+	 */
+	private DBObject buildQuery(
+			final GetObjectInformationParameters params,
+			final String prefix) {
 		final Set<Long> ids = new HashSet<Long>();
 		for (final ResolvedWorkspaceID rwsi:
 				params.getPermissionSet().getWorkspaces()) {
@@ -170,11 +600,10 @@ public class ObjectInfoUtils {
 		final DBObject verq = new BasicDBObject();
 		verq.put(Fields.VER_WS_ID, new BasicDBObject("$in", ids));
 		if (params.getType() != null) {
-			verq.put(Fields.VER_TYPE, new BasicDBObject(
-					"$regex", "^" + params.getType().getTypePrefix()));
+			verq.put(prefix + Fields.VER_TYPE, typeQuery(params.getType()));
 		}
 		if (!params.getSavers().isEmpty()) {
-			verq.put(Fields.VER_SAVEDBY, new BasicDBObject(
+			verq.put(prefix + Fields.VER_SAVEDBY, new BasicDBObject(
 					"$in", convertWorkspaceUsers(params.getSavers())));
 		}
 		if (!params.getMetadata().isEmpty()) {
@@ -184,7 +613,7 @@ public class ObjectInfoUtils {
 				final DBObject mentry = new BasicDBObject();
 				mentry.put(Fields.META_KEY, e.getKey());
 				mentry.put(Fields.META_VALUE, e.getValue());
-				andmetaq.add(new BasicDBObject(Fields.VER_META, mentry));
+				andmetaq.add(new BasicDBObject(prefix + Fields.VER_META, mentry));
 			}
 			verq.put("$and", andmetaq); //note more than one entry is untested
 		}
@@ -196,7 +625,7 @@ public class ObjectInfoUtils {
 			if (params.getAfter() != null) {
 				d.put("$gt", params.getAfter());
 			}
-			verq.put(Fields.VER_SAVEDATE, d);
+			verq.put(prefix + Fields.VER_SAVEDATE, d);
 		}
 		if (params.getMinObjectID() > 1 || params.getMaxObjectID() > 0) {
 			final DBObject id = new BasicDBObject();
@@ -212,6 +641,23 @@ public class ObjectInfoUtils {
 		return verq;
 	}
 	
+	/* Matches types exactly if the type has a minor version, otherwise by a range over the types
+	 * with the type's prefix, which is either module.name- or module.name-major.
+	 * The type strings are compared as plain strings, so unlike a prefix $regex the range can
+	 * be used as tight bounds on the ws/type/id/ver indexes, and a major version of 1 doesn't
+	 * match a major version of 10.
+	 */
+	static Object typeQuery(final TypeDefId type) {
+		final String prefix = type.getTypePrefix();
+		if (type.getMinorVersion() != null || type.getMd5() != null) {
+			return prefix;
+		}
+		// the prefix ends in - or ., so incrementing the last character gives the upper bound
+		final int last = prefix.length() - 1;
+		return new BasicDBObject("$gte", prefix).append("$lt",
+				prefix.substring(0, last) + (char) (prefix.charAt(last) + 1));
+	}
+	
 	Map<Map<String, Object>, ObjectInformation> generateObjectInfo(
 			final PermissionSet pset,
 			final List<Map<String, Object>> verobjs,
@@ -221,8 +667,8 @@ public class ObjectInfoUtils {
 			final boolean includeAllVers,
 			final boolean asAdmin)
 			throws WorkspaceCommunicationException {
-		final Map<Map<String, Object>, ObjectInformation> ret =
-				new HashMap<Map<String, Object>, ObjectInformation>();
+		// keyed by the version documents themselves, so there's no need to hash their contents
+		final Map<Map<String, Object>, ObjectInformation> ret = new IdentityHashMap<>();
 		if (verobjs.isEmpty()) {
 			return ret;
 		}
@@ -231,21 +677,19 @@ public class ObjectInfoUtils {
 			ids.put(rwsi.getID(), rwsi);
 		}
 		final Map<Long, Set<Long>> verdata = getObjectIDsFromVersions(verobjs);
-		//TODO PERFORMANCE This $or query might be better as multiple individual queries, test
 		final List<DBObject> orquery = new LinkedList<DBObject>();
 		for (final Long wsid: verdata.keySet()) {
 			final DBObject query = new BasicDBObject(Fields.VER_WS_ID, wsid);
 			query.put(Fields.VER_ID, new BasicDBObject("$in", verdata.get(wsid)));
 			orquery.add(query);
 		}
-		final DBObject objq = new BasicDBObject("$or", orquery);
 		//could include / exclude hidden and deleted objects here? Prob
 		// not worth the effort
 		//we're querying with known versions, so there's no need to exclude
 		//workspace objects with 0 versions
 		final Map<Long, Map<Long, Map<String, Object>>> objdata =
-				organizeObjData(query.queryCollection(
-						query.getObjectCollection(), objq, FLDS_LIST_OBJ));
+				organizeObjData(query.getWorkspaceQueryExecutor().query(
+						query.getObjectCollection(), orquery, FLDS_LIST_OBJ, verobjs.size()));
 		for (final Map<String, Object> vo: verobjs) {
 			final long wsid = (Long) vo.get(Fields.VER_WS_ID);
 			final long id = (Long) vo.get(Fields.VER_ID);
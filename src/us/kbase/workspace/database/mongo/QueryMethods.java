@@ -2,6 +2,7 @@ package us.kbase.workspace.database.mongo;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,6 +13,7 @@ import java.util.Set;
 
 import us.kbase.workspace.database.AllUsers;
 import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedObjectID;
 import us.kbase.workspace.database.ResolvedObjectIDNoVer;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
@@ -38,6 +40,7 @@ public class QueryMethods {
 	private final String objectCollection;
 	private final String versionCollection;
 	private final String workspaceACLCollection;
+	private volatile WorkspaceQueryExecutor workspaceQueryExecutor;
 	
 	QueryMethods(
 			final DB wsmongo,
@@ -68,6 +71,7 @@ public class QueryMethods {
 		this.objectCollection = objectCollection;
 		this.versionCollection = versionCollection;
 		this.workspaceACLCollection = workspaceACLCollection;
+		this.workspaceQueryExecutor = new WorkspaceQueryExecutor(wsmongo);
 	}
 	
 	
@@ -93,6 +97,17 @@ public class QueryMethods {
 	String getWorkspaceACLCollection() {
 		return workspaceACLCollection;
 	}
+	
+	WorkspaceQueryExecutor getWorkspaceQueryExecutor() {
+		return workspaceQueryExecutor;
+	}
+	
+	void setWorkspaceQueryExecutor(final WorkspaceQueryExecutor executor) {
+		if (executor == null) {
+			throw new NullPointerException("executor");
+		}
+		workspaceQueryExecutor = executor;
+	}
 
 
 	Map<String, Object> queryWorkspace(final ResolvedWorkspaceID rwsi,
@@ -265,7 +280,6 @@ public class QueryMethods {
 			}
 		}
 		
-		//TODO PERFORMANCE This $or query might be better as multiple individual queries, test
 		final List<DBObject> orquery = new LinkedList<DBObject>();
 		for (final ResolvedWorkspaceID rwsi: names.keySet()) {
 			final DBObject query = new BasicDBObject(Fields.OBJ_WS_ID,
@@ -290,8 +304,8 @@ public class QueryMethods {
 		fields.add(Fields.OBJ_ID);
 		fields.add(Fields.OBJ_NAME);
 		fields.add(Fields.OBJ_WS_ID);
-		final List<Map<String, Object>> queryres = queryCollection(
-				objectCollection, new BasicDBObject("$or", orquery), fields);
+		final List<Map<String, Object>> queryres = workspaceQueryExecutor.query(
+				objectCollection, orquery, fields, objectIDs.size());
 
 		final Map<ObjectIDResolvedWSNoVer, Map<String, Object>> ret =
 				new HashMap<ObjectIDResolvedWSNoVer, Map<String, Object>>();
@@ -421,10 +435,162 @@ public class QueryMethods {
 					ret.get(rwsi).get(id).put(ver, r);
 				}
 			}
+			addSharedVersions(rwsi.getID(), ids.get(rwsi), fields, ret.get(rwsi));
+		}
+		return ret;
+	}
+	
+	/** Get versions that are shared with a source object, see Fields.OBJ_SOURCE, and so are
+	 * not in the version collection.
+	 * @param ids the versions to get as a map of workspace ID -> object ID -> version numbers.
+	 * Versions that are not shared are ignored.
+	 * @param fields the fields to retrieve from the versions.
+	 * @return the shared versions, rewritten as the versions of the clones, in no particular
+	 * order.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
+	List<Map<String, Object>> querySharedVersions(
+			final Map<Long, Map<Long, List<Integer>>> ids,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		final Set<String> f = new HashSet<>(fields);
+		f.add(Fields.VER_ID);
+		f.add(Fields.VER_VER);
+		final List<Map<String, Object>> ret = new LinkedList<>();
+		for (final Long wsid: ids.keySet()) {
+			final Map<Long, Map<Integer, Map<String, Object>>> versions = new HashMap<>();
+			for (final Long objectID: ids.get(wsid).keySet()) {
+				versions.put(objectID, new HashMap<>());
+			}
+			addSharedVersions(wsid, ids.get(wsid), f, versions);
+			for (final Map<Integer, Map<String, Object>> objvers: versions.values()) {
+				ret.addAll(objvers.values());
+			}
 		}
 		return ret;
 	}
 	
+	/** Get the workspaces that share versions with other workspaces, see Fields.WS_SHARED_VERS.
+	 * @param workspaceIDs the IDs of the workspaces to check.
+	 * @return the IDs of the workspaces that share versions.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
+	Set<Long> getSharedVersionWorkspaces(final Collection<Long> workspaceIDs)
+			throws WorkspaceCommunicationException {
+		final Set<Long> ret = new HashSet<>();
+		if (workspaceIDs.isEmpty()) {
+			return ret;
+		}
+		for (final Map<String, Object> ws: queryCollection(workspaceCollection,
+				new BasicDBObject(Fields.WS_ID, new BasicDBObject("$in", workspaceIDs))
+						.append(Fields.WS_SHARED_VERS, true),
+				new HashSet<>(Arrays.asList(Fields.WS_ID)))) {
+			ret.add((Long) ws.get(Fields.WS_ID));
+		}
+		return ret;
+	}
+	
+	/* Adds any versions that are shared with a source object, see Fields.OBJ_SOURCE, to the
+	 * versions of a workspace. Objects are only checked for a source if all their versions were
+	 * requested or some of the requested versions are missing, so objects that don't share
+	 * versions cost nothing extra.
+	 */
+	private void addSharedVersions(
+			final long workspaceID,
+			final Map<Long, List<Integer>> ids,
+			final Set<String> fields,
+			final Map<Long, Map<Integer, Map<String, Object>>> versions)
+			throws WorkspaceCommunicationException {
+		final List<Long> check = new LinkedList<>();
+		for (final Long objectID: ids.keySet()) {
+			if (ids.get(objectID).isEmpty() ||
+					!versions.get(objectID).keySet().containsAll(ids.get(objectID))) {
+				check.add(objectID);
+			}
+		}
+		if (check.isEmpty()) {
+			return;
+		}
+		final List<Map<String, Object>> objs = queryCollection(objectCollection,
+				new BasicDBObject(Fields.OBJ_WS_ID, workspaceID)
+						.append(Fields.OBJ_ID, new BasicDBObject("$in", check))
+						.append(Fields.OBJ_SOURCE, new BasicDBObject("$exists", true)),
+				new HashSet<>(Arrays.asList(Fields.OBJ_ID, Fields.OBJ_SOURCE)));
+		for (final Map<String, Object> o: objs) {
+			final Long objectID = (Long) o.get(Fields.OBJ_ID);
+			@SuppressWarnings("unchecked")
+			final Map<String, Object> src = (Map<String, Object>) o.get(Fields.OBJ_SOURCE);
+			final long srcws = (Long) src.get(Fields.SRC_WS_ID);
+			final long srcid = (Long) src.get(Fields.SRC_ID);
+			final int srcver = (Integer) src.get(Fields.SRC_VER);
+			final Map<Integer, Map<String, Object>> objvers = versions.get(objectID);
+			final List<Integer> shared = new LinkedList<>();
+			for (final Integer ver: ids.get(objectID)) {
+				if (ver <= srcver && !objvers.containsKey(ver)) {
+					shared.add(ver);
+				}
+			}
+			final DBObject q = new BasicDBObject(Fields.VER_WS_ID, srcws)
+					.append(Fields.VER_ID, srcid);
+			if (ids.get(objectID).isEmpty()) {
+				q.put(Fields.VER_VER, new BasicDBObject("$lte", srcver));
+			} else if (shared.isEmpty()) {
+				continue;
+			} else {
+				q.put(Fields.VER_VER, new BasicDBObject("$in", shared));
+			}
+			for (final Map<String, Object> v: queryCollection(versionCollection, q, fields)) {
+				final Integer ver = (Integer) v.get(Fields.VER_VER);
+				// the versions may have been copied into the clone since the first query
+				if (objvers.containsKey(ver)) {
+					continue;
+				}
+				objvers.put(ver, toSharedVersion(v, workspaceID, objectID, src, fields));
+			}
+		}
+	}
+	
+	/** Rewrites a version read from a source object so that it is identical to the version
+	 * that would have been saved in a clone of the object.
+	 * @param version the source version. Modified in place.
+	 * @param workspaceID the ID of the clone's workspace.
+	 * @param objectID the ID of the clone.
+	 * @param source the clone's OBJ_SOURCE field.
+	 * @param fields the fields that were retrieved from the version. Only those fields are
+	 * rewritten.
+	 * @return the version.
+	 */
+	static Map<String, Object> toSharedVersion(
+			final Map<String, Object> version,
+			final long workspaceID,
+			final long objectID,
+			final Map<String, Object> source,
+			final Set<String> fields) {
+		final Reference copied = new Reference(
+				(Long) source.get(Fields.SRC_WS_ID),
+				(Long) source.get(Fields.SRC_ID),
+				(Integer) version.get(Fields.VER_VER));
+		version.put(Fields.VER_ID, objectID);
+		if (fields.contains(Fields.VER_WS_ID)) {
+			version.put(Fields.VER_WS_ID, workspaceID);
+		}
+		if (fields.contains(Fields.VER_SAVEDBY)) {
+			version.put(Fields.VER_SAVEDBY, source.get(Fields.SRC_SAVEDBY));
+		}
+		if (fields.contains(Fields.VER_SAVEDATE)) {
+			version.put(Fields.VER_SAVEDATE, source.get(Fields.SRC_SAVEDATE));
+		}
+		if (fields.contains(Fields.VER_RVRT)) {
+			version.put(Fields.VER_RVRT, null);
+		}
+		if (fields.contains(Fields.VER_COPIED)) {
+			version.put(Fields.VER_COPIED, copied.toString());
+		}
+		return version;
+	}
+	
 	List<Map<String, Object>> queryCollection(final String collection,
 			final DBObject query, final Set<String> fields)
 			throws WorkspaceCommunicationException {
@@ -489,8 +655,12 @@ public class QueryMethods {
 		}
 	}
 	
-	//since LazyBsonObject.toMap() is not supported
+	//since LazyBsonObject.toMap() is not supported. Documents decoded into DecodedDocuments are
+	//already maps and are returned as is.
 	static Map<String, Object> dbObjectToMap(final DBObject o) {
+		if (o instanceof DecodedDocument) {
+			return (DecodedDocument) o;
+		}
 		final Map<String, Object> m = new HashMap<String, Object>();
 		for (final String name: o.keySet()) {
 			m.put(name, o.get(name));
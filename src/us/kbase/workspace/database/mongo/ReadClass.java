@@ -0,0 +1,14 @@
+package us.kbase.workspace.database.mongo;
+
+/** Classes of read only calls that may be routed to MongoDB replica set secondaries.
+ * See {@link MongoWorkspaceDB#setSecondaryReads(java.util.Set)}.
+ */
+public enum ReadClass {
+	
+	/** Object listings, as for the list_objects API method. */
+	LIST_OBJECTS,
+	
+	/** Workspace listings, as for the list_workspace_info API method. */
+	LIST_WORKSPACE_INFO;
+	
+}
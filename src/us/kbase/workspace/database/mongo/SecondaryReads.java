@@ -0,0 +1,85 @@
+package us.kbase.workspace.database.mongo;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mongodb.ReadPreference;
+
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+
+/** Routes reads to replica set secondaries with bounded staleness.
+ *
+ * Reads of workspaces written via this instance within the staleness bound, plus the client's
+ * heartbeat frequency, are sent to the primary, so clients see their own writes when all their
+ * calls go to the same server. The driver only estimates a secondary's staleness at each
+ * heartbeat, so a secondary may be up to a heartbeat further behind than the bound when it is
+ * selected. Writes via other servers may take up to the staleness bound plus a heartbeat to be
+ * visible to routed reads.
+ */
+class SecondaryReads {
+	
+	/** The maximum staleness of a secondary, in seconds. This is the minimum allowed by
+	 * MongoDB.
+	 */
+	static final int MAX_STALENESS_SEC = 90;
+	
+	private static final int MAX_RECENT_WRITES = 100000;
+	
+	private final Set<ReadClass> classes;
+	private final ReadPreference secondary = ReadPreference.secondaryPreferred(
+			MAX_STALENESS_SEC, TimeUnit.SECONDS);
+	// workspaces written within the staleness bound plus a heartbeat
+	private final Cache<Long, Boolean> recentWrites;
+	
+	/** Create the router.
+	 * @param classes the classes of reads to route to secondaries. All other reads go to the
+	 * primary.
+	 * @param heartbeatFrequencyMS the MongoDB client's heartbeat frequency in milliseconds.
+	 */
+	SecondaryReads(final Set<ReadClass> classes, final int heartbeatFrequencyMS) {
+		if (heartbeatFrequencyMS < 0) {
+			throw new IllegalArgumentException("heartbeatFrequencyMS must be >= 0");
+		}
+		this.classes = classes.isEmpty() ?
+				EnumSet.noneOf(ReadClass.class) : EnumSet.copyOf(classes);
+		recentWrites = CacheBuilder.newBuilder()
+				.expireAfterWrite(
+						TimeUnit.SECONDS.toMillis(MAX_STALENESS_SEC) + heartbeatFrequencyMS,
+						TimeUnit.MILLISECONDS)
+				.maximumSize(MAX_RECENT_WRITES)
+				.build();
+	}
+	
+	/** Record that a workspace has been written.
+	 * @param workspaceID the ID of the workspace.
+	 */
+	void recordWrite(final long workspaceID) {
+		if (!classes.isEmpty()) {
+			recentWrites.put(workspaceID, true);
+		}
+	}
+	
+	/** Get the read preference for a read.
+	 * @param readClass the class of the read.
+	 * @param workspaces the workspaces to be read.
+	 * @return the primary read preference if the read class isn't routed to secondaries or
+	 * any of the workspaces were recently written, or the secondary read preference otherwise.
+	 */
+	ReadPreference getReadPreference(
+			final ReadClass readClass,
+			final Collection<ResolvedWorkspaceID> workspaces) {
+		if (!classes.contains(readClass)) {
+			return ReadPreference.primary();
+		}
+		for (final ResolvedWorkspaceID rwsi: workspaces) {
+			if (recentWrites.getIfPresent(rwsi.getID()) != null) {
+				return ReadPreference.primary();
+			}
+		}
+		return secondary;
+	}
+}
@@ -0,0 +1,226 @@
+package us.kbase.workspace.database.mongo;
+
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Runs a query made up of one clause per workspace, e.g. {ws: 1, id: {$in: [...]}}, choosing
+ * between a single $or query and concurrent per-clause queries based on the number of clauses
+ * and the number of items requested.
+ *
+ * An $or query is planned and run clause by clause on the server, so it's cheap for a few
+ * clauses but grows slower than separate queries as the clause count increases. Separate queries
+ * each cost a round trip, so they're only used when there are enough items to fetch to amortize
+ * the round trips.
+ *
+ * The default thresholds have not been measured against a deployed database. They are
+ * estimates: up to 10 clauses keeps an $or query to a handful of index scans, and 100 items
+ * spread over more than 10 workspaces is enough work per clause for a round trip each to pay
+ * off. The performance/ QueryStrategyTiming harness times both strategies for a range of
+ * workspace and item counts against a MongoDB instance, and its results should be used to set
+ * the thresholds in the workspace configuration for a particular deployment.
+ *
+ * Concurrent queries for all executors run in a single shared, bounded pool of daemon threads
+ * that exit when idle, so creating executors doesn't create threads.
+ */
+public class WorkspaceQueryExecutor {
+
+	/** The default maximum number of clauses in an $or query. */
+	public static final int DEFAULT_MAX_OR_CLAUSES = 10;
+	/** The default minimum number of items for which concurrent queries are used. */
+	public static final int DEFAULT_MIN_CONCURRENT_ITEMS = 100;
+
+	private static final int MAX_THREADS = 20;
+	private static final int THREAD_KEEP_ALIVE_SEC = 60;
+
+	// the calling thread runs the query if all the threads are busy
+	private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+			0,
+			MAX_THREADS,
+			THREAD_KEEP_ALIVE_SEC,
+			TimeUnit.SECONDS,
+			new SynchronousQueue<>(),
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ws-query-%d").build(),
+			new ThreadPoolExecutor.CallerRunsPolicy());
+
+	/** A query strategy. */
+	public enum Strategy {
+		/** The query has only one clause and is run as is. */
+		SINGLE,
+		/** The clauses are combined into one $or query. */
+		OR,
+		/** Each clause is run as a separate query, concurrently. */
+		CONCURRENT;
+	}
+
+	private final DB db;
+	private final int maxOrClauses;
+	private final int minConcurrentItems;
+
+	/** Create an executor with the default thresholds.
+	 * @param db the database to query.
+	 */
+	public WorkspaceQueryExecutor(final DB db) {
+		this(db, DEFAULT_MAX_OR_CLAUSES, DEFAULT_MIN_CONCURRENT_ITEMS);
+	}
+
+	/** Create an executor.
+	 * @param db the database to query.
+	 * @param maxOrClauses the maximum number of clauses to combine into an $or query. Queries
+	 * with more clauses are run concurrently, if there are enough items.
+	 * @param minConcurrentItems the minimum number of items requested for the clauses to be run
+	 * concurrently. Queries for fewer items are always run as an $or query.
+	 */
+	public WorkspaceQueryExecutor(
+			final DB db,
+			final int maxOrClauses,
+			final int minConcurrentItems) {
+		nonNull(db, "db");
+		if (maxOrClauses < 1) {
+			throw new IllegalArgumentException("maxOrClauses must be > 0");
+		}
+		this.db = db;
+		this.maxOrClauses = maxOrClauses;
+		this.minConcurrentItems = minConcurrentItems;
+	}
+
+	/** Choose the strategy for a query.
+	 * @param clauses the number of clauses in the query.
+	 * @param items the number of items requested by the query.
+	 * @return the strategy.
+	 */
+	public Strategy chooseStrategy(final int clauses, final int items) {
+		if (clauses == 1) {
+			return Strategy.SINGLE;
+		}
+		if (clauses <= maxOrClauses || items < minConcurrentItems) {
+			return Strategy.OR;
+		}
+		return Strategy.CONCURRENT;
+	}
+
+	/** Run a query, choosing the strategy with {@link #chooseStrategy(int, int)}.
+	 * @param collection the collection to query.
+	 * @param clauses the query clauses. A document matches the query if it matches any clause.
+	 * The clauses must not match the same document more than once.
+	 * @param fields the fields to return.
+	 * @param items the number of items requested by the query, usually the total number of
+	 * IDs or names in the clauses.
+	 * @return the matching documents, in no particular order.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
+	public List<Map<String, Object>> query(
+			final String collection,
+			final List<DBObject> clauses,
+			final Set<String> fields,
+			final int items)
+			throws WorkspaceCommunicationException {
+		return query(collection, clauses, fields, chooseStrategy(clauses.size(), items));
+	}
+
+	/** Run a query with a specific strategy.
+	 * @param collection the collection to query.
+	 * @param clauses the query clauses. A document matches the query if it matches any clause.
+	 * The clauses must not match the same document more than once.
+	 * @param fields the fields to return.
+	 * @param strategy the strategy to use. {@link Strategy#SINGLE} is treated as
+	 * {@link Strategy#OR} if there is more than one clause.
+	 * @return the matching documents, in no particular order.
+	 * @throws WorkspaceCommunicationException if a communication error with the storage system
+	 * occurs.
+	 */
+	public List<Map<String, Object>> query(
+			final String collection,
+			final List<DBObject> clauses,
+			final Set<String> fields,
+			final Strategy strategy)
+			throws WorkspaceCommunicationException {
+		nonNull(collection, "collection");
+		nonNull(clauses, "clauses");
+		nonNull(fields, "fields");
+		nonNull(strategy, "strategy");
+		if (clauses.isEmpty()) {
+			return new ArrayList<>();
+		}
+		final Strategy s = strategy == Strategy.SINGLE && clauses.size() > 1 ?
+				Strategy.OR : strategy;
+		if (s == Strategy.SINGLE) {
+			return find(collection, clauses.get(0), fields);
+		} else if (s == Strategy.OR) {
+			return find(collection, new BasicDBObject("$or", clauses), fields);
+		} else {
+			return findConcurrently(collection, clauses, fields);
+		}
+	}
+
+	private List<Map<String, Object>> findConcurrently(
+			final String collection,
+			final List<DBObject> clauses,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		final List<Future<List<Map<String, Object>>>> futures = new ArrayList<>();
+		for (final DBObject clause: clauses) {
+			futures.add(EXECUTOR.submit(() -> find(collection, clause, fields)));
+		}
+		final List<Map<String, Object>> ret = new ArrayList<>();
+		try {
+			for (final Future<List<Map<String, Object>>> f: futures) {
+				ret.addAll(f.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WorkspaceCommunicationException(
+					"Interrupted while communicating with the database", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof WorkspaceCommunicationException) {
+				throw (WorkspaceCommunicationException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			for (final Future<List<Map<String, Object>>> f: futures) {
+				f.cancel(true);
+			}
+		}
+		return ret;
+	}
+
+	private List<Map<String, Object>> find(
+			final String collection,
+			final DBObject query,
+			final Set<String> fields)
+			throws WorkspaceCommunicationException {
+		final DBObject projection = new BasicDBObject(Fields.MONGO_ID, 0);
+		for (final String field: fields) {
+			projection.put(field, 1);
+		}
+		final List<Map<String, Object>> ret = new ArrayList<>();
+		try (final DBCursor cur = db.getCollection(collection).find(query, projection)) {
+			for (final DBObject o: cur) {
+				ret.add(QueryMethods.dbObjectToMap(o));
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+}
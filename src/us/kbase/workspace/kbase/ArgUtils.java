@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.google.common.collect.Lists;
 
 import us.kbase.common.service.Tuple11;
 import us.kbase.common.service.Tuple12;
@@ -216,15 +217,16 @@ public class ArgUtils {
 		return params;
 	}
 	
+	/* The list conversion methods below return lazily converted views of the input lists. Each
+	 * element is converted when the JSON serializer reaches it, so the serializer writes the
+	 * tuples one at a time rather than holding a second list of up to 10000 tuples and their
+	 * boxed values in memory along with the input list. Objects are logged immediately.
+	 * Don't alter the input lists after calling these methods.
+	 */
+	
 	public static List<Tuple9<Long, String, String, String, Long, String, String, String, Map<String, String>>>
 			wsInfoToTuple (final List<WorkspaceInformation> info) {
-		final List<Tuple9<Long, String, String, String, Long, String, String, String, Map<String, String>>> ret =
-				new LinkedList<Tuple9<Long, String, String, String, Long, String,
-						String, String, Map<String, String>>>();
-		for (final WorkspaceInformation wi: info) {
-			ret.add(wsInfoToTuple(wi));
-		}
-		return ret;
+		return Lists.transform(info, wi -> wsInfoToTuple(wi));
 	}
 
 	public static Tuple9<Long, String, String, String, Long, String, String, String, Map<String, String>>
@@ -243,13 +245,7 @@ public class ArgUtils {
 	
 	public static List<Tuple7<String, String, String, Long, String, String, Long>> wsInfoToMetaTuple(
 			List<WorkspaceInformation> info) {
-		final List<Tuple7<String, String, String, Long, String, String, Long>> ret =
-				new LinkedList<Tuple7<String, String, String, Long, String,
-				String, Long>>();
-		for (final WorkspaceInformation wi: info) {
-			ret.add(wsInfoToMetaTuple(wi));
-		}
-		return ret;
+		return Lists.transform(info, wi -> wsInfoToMetaTuple(wi));
 	}
 	
 	public static Tuple7<String, String, String, Long, String, String, Long>
@@ -269,23 +265,25 @@ public class ArgUtils {
 			objInfoToTuple(
 					final ObjectInformation info,
 					final boolean logObjects) {
-		final List<ObjectInformation> m = new ArrayList<ObjectInformation>();
-		m.add(info);
-		return objInfoToTuple(m, logObjects).get(0);
+		if (logObjects) {
+			logObject(info);
+		}
+		return toTuple(info);
 	}
 
 	public static List<List<Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, Map<String, String>>>>
 			translateObjectInfoList(
 					final List<Set<ObjectInformation>> lsoi,
 					final boolean logObjects) {
-		final List<List<Tuple11<Long, String, String, String, Long, String,
-				Long, String, String, Long, Map<String, String>>>> ret = 
-				new LinkedList<List<Tuple11<Long,String,String,String,Long,String,Long,String,String,Long,Map<String,String>>>>();
-		for (Set<ObjectInformation> soi: lsoi) {
-			ret.add(objInfoToTuple(new LinkedList<ObjectInformation>(soi),
-					logObjects));
+		final List<List<ObjectInformation>> infos = new ArrayList<>(lsoi.size());
+		for (final Set<ObjectInformation> soi: lsoi) {
+			final List<ObjectInformation> loi = new ArrayList<>(soi);
+			if (logObjects) {
+				loi.stream().forEach(m -> logObject(m));
+			}
+			infos.add(loi);
 		}
-		return ret;
+		return Lists.transform(infos, loi -> objInfoToTuple(loi, false));
 	}
 	
 	public static List<Tuple11<Long, String, String, String, Long, String,
@@ -293,49 +291,49 @@ public class ArgUtils {
 			objInfoToTuple(
 					final List<ObjectInformation> info,
 					final boolean logObjects) {
-
-		//oh the humanity
-		final List<Tuple11<Long, String, String, String, Long, String,
-			Long, String, String, Long, Map<String, String>>> ret = 
-			new ArrayList<Tuple11<Long, String, String, String, Long,
-			String, Long, String, String, Long, Map<String, String>>>();
-		for (ObjectInformation m: info) {
-			if (m == null) {
-				ret.add(null);
-			} else {
-				if (logObjects) {
-					getLogger().info("Object {}/{}/{} {}", m.getWorkspaceId(),
-							m.getObjectId(), m.getVersion(),
-							m.getTypeString());
+		if (logObjects) {
+			for (final ObjectInformation m: info) {
+				if (m != null) {
+					logObject(m);
 				}
-				ret.add(new Tuple11<Long, String, String, String, Long,
-						String, Long, String, String, Long, Map<String, String>>()
-						.withE1(m.getObjectId())
-						.withE2(m.getObjectName())
-						.withE3(m.getTypeString())
-						.withE4(formatDate(m.getSavedDate()))
-						.withE5(new Long(m.getVersion()))
-						.withE6(m.getSavedBy().getUser())
-						.withE7(m.getWorkspaceId())
-						.withE8(m.getWorkspaceName())
-						.withE9(m.getCheckSum())
-						.withE10(m.getSize())
-						.withE11(m.getUserMetaData() == null ? null :
-							m.getUserMetaData().getMetadata()));
 			}
 		}
-		return ret;
+		return Lists.transform(info, m -> m == null ? null : toTuple(m));
+	}
+	
+	private static void logObject(final ObjectInformation m) {
+		getLogger().info("Object {}/{}/{} {}", m.getWorkspaceId(),
+				m.getObjectId(), m.getVersion(), m.getTypeString());
 	}
 	
+	private static Tuple11<Long, String, String, String, Long, String,
+			Long, String, String, Long, Map<String, String>> toTuple(final ObjectInformation m) {
+		//oh the humanity
+		return new Tuple11<Long, String, String, String, Long,
+				String, Long, String, String, Long, Map<String, String>>()
+				.withE1(m.getObjectId())
+				.withE2(m.getObjectName())
+				.withE3(m.getTypeString())
+				.withE4(formatDate(m.getSavedDate()))
+				.withE5(new Long(m.getVersion()))
+				.withE6(m.getSavedBy().getUser())
+				.withE7(m.getWorkspaceId())
+				.withE8(m.getWorkspaceName())
+				.withE9(m.getCheckSum())
+				.withE10(m.getSize())
+				.withE11(m.getUserMetaData() == null ? null :
+					m.getUserMetaData().getMetadata());
+	}
 	
 	public static Tuple12<String, String, String, Long, String, String, String,
 			String, String, String, Map<String, String>, Long>
 			objInfoToMetaTuple(
 					final ObjectInformation info,
 					final boolean logObjects) {
-		final List<ObjectInformation> m = new ArrayList<ObjectInformation>();
-		m.add(info);
-		return objInfoToMetaTuple(m, logObjects).get(0);
+		if (logObjects) {
+			logObject(info);
+		}
+		return toMetaTuple(info);
 	}
 	
 	public static List<Tuple12<String, String, String, Long, String, String, String,
@@ -343,34 +341,33 @@ public class ArgUtils {
 			objInfoToMetaTuple(
 					final List<ObjectInformation> info,
 					final boolean logObjects) {
-		//oh the humanity
-		final List<Tuple12<String, String, String, Long, String, String, String,
-		String, String, String, Map<String, String>, Long>> ret = 
-		new ArrayList<Tuple12<String, String, String, Long, String, String,
-		String, String, String, String, Map<String, String>, Long>>();
-		
-		for (ObjectInformation m: info) {
-			if (logObjects) {
-				getLogger().info("Object {}/{}/{} {}", m.getWorkspaceId(),
-						m.getObjectId(), m.getVersion(), m.getTypeString());
+		if (logObjects) {
+			for (final ObjectInformation m: info) {
+				logObject(m);
 			}
-			ret.add(new Tuple12<String, String, String, Long, String, String, String,
-					String, String, String, Map<String, String>, Long>()
-					.withE1(m.getObjectName())
-					.withE2(m.getTypeString())
-					.withE3(formatDate(m.getSavedDate()))
-					.withE4(new Long(m.getVersion()))
-					.withE5("") //command is deprecated
-					.withE6(m.getSavedBy().getUser())
-					.withE7(m.getSavedBy().getUser()) //owner is deprecated
-					.withE8(m.getWorkspaceName())
-					.withE9("")//ref is deprecated
-					.withE10(m.getCheckSum())
-					.withE11(m.getUserMetaData() == null ? null : 
-						m.getUserMetaData().getMetadata())
-					.withE12(m.getObjectId()));
 		}
-		return ret;
+		return Lists.transform(info, m -> toMetaTuple(m));
+	}
+	
+	private static Tuple12<String, String, String, Long, String, String, String,
+			String, String, String, Map<String, String>, Long> toMetaTuple(
+					final ObjectInformation m) {
+		//oh the humanity
+		return new Tuple12<String, String, String, Long, String, String, String,
+				String, String, String, Map<String, String>, Long>()
+				.withE1(m.getObjectName())
+				.withE2(m.getTypeString())
+				.withE3(formatDate(m.getSavedDate()))
+				.withE4(new Long(m.getVersion()))
+				.withE5("") //command is deprecated
+				.withE6(m.getSavedBy().getUser())
+				.withE7(m.getSavedBy().getUser()) //owner is deprecated
+				.withE8(m.getWorkspaceName())
+				.withE9("")//ref is deprecated
+				.withE10(m.getCheckSum())
+				.withE11(m.getUserMetaData() == null ? null : 
+					m.getUserMetaData().getMetadata())
+				.withE12(m.getObjectId());
 	}
 	
 	public static List<ObjectData> translateObjectData(
@@ -386,25 +383,30 @@ public class ArgUtils {
 			}
 			final PermError error = makeExternalIDsReadable(o, permHandler);
 			final ByteArrayFileCache resource = o.getSerializedData();
-			ret.add(new ObjectData()
+			final ObjectData od = new ObjectData()
 					.withData(resource == null ? null : resource.getUObject())
 					.withInfo(objInfoToTuple(o.getObjectInfo(), logObjects))
 					.withPath(toObjectPath(o.getObjectInfo().getReferencePath()))
-					.withProvenance(translateProvenanceActions(
-							o.getProvenance().getActions()))
-					.withCreator(o.getProvenance().getUser().getUser())
-					.withOrigWsid(o.getProvenance().getWorkspaceID())
-					.withCreated(formatDate(
-							o.getProvenance().getDate()))
-					.withEpoch(o.getProvenance().getDate().getTime())
 					.withRefs(o.getReferences())
 					.withCopied(o.getCopyReference() == null ? null :
 						o.getCopyReference().getId())
 					.withCopySourceInaccessible(
 							o.isCopySourceInaccessible() ? 1L: 0L)
-					.withExtractedIds(toRawExternalIDs(o.getExtractedIds()))
 					.withHandleError(error.error)
-					.withHandleStacktrace(error.stackTrace));
+					.withHandleStacktrace(error.stackTrace);
+			// skipped parts of the object are null and omitted from the results
+			final Provenance p = o.getProvenance();
+			if (p != null) {
+				od.withProvenance(translateProvenanceActions(p.getActions()))
+						.withCreator(p.getUser().getUser())
+						.withOrigWsid(p.getWorkspaceID())
+						.withCreated(formatDate(p.getDate()))
+						.withEpoch(p.getDate().getTime());
+			}
+			if (o.getExtractedIds() != null) {
+				od.withExtractedIds(toRawExternalIDs(o.getExtractedIds()));
+			}
+			ret.add(od);
 		}
 		return ret;
 	}
@@ -493,12 +495,13 @@ public class ArgUtils {
 	private static PermError makeExternalIDsReadable(
 			final WorkspaceObjectData o,
 			final IdReferencePermissionHandlerSet permhandler) {
-		for (final IdReferenceType t: o.getExtractedIds().keySet()) {
-			try {
-				permhandler.addReadPermission(t, o.getExtractedIds().get(t));
-			} catch (IdReferencePermissionHandlerException e) {
-				return new PermError(e.getMessage(), ExceptionUtils.getStackTrace(e));
-			}
+		if (o.getExtractedIds() == null) {
+			return new PermError(null, null);
+		}
+		try {
+			permhandler.addReadPermissions(o.getExtractedIds());
+		} catch (IdReferencePermissionHandlerException e) {
+			return new PermError(e.getMessage(), ExceptionUtils.getStackTrace(e));
 		}
 		return new PermError(null, null);
 	}
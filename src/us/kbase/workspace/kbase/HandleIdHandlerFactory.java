@@ -4,11 +4,9 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import us.kbase.abstracthandle.AbstractHandleClient;
@@ -16,6 +14,7 @@ import us.kbase.auth.AuthToken;
 import us.kbase.common.service.JsonClientException;
 import us.kbase.common.service.ServerException;
 import us.kbase.common.service.UnauthorizedException;
+import us.kbase.typedobj.idref.AssociatedIdIndex;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.HandlerLockedException;
 //import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdParseException;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceException;
@@ -120,7 +119,7 @@ public class HandleIdHandlerFactory implements IdReferenceHandlerFactory {
 	
 	private class HandleIdHandler<T> extends IdReferenceHandler<T> {
 
-		private final Map<T, Set<String>> ids = new HashMap<T, Set<String>>();
+		private final AssociatedIdIndex<T> ids = new AssociatedIdIndex<>();
 		private final AuthToken userToken;
 		
 		private HandleIdHandler(final AuthToken userToken) {
@@ -139,16 +138,7 @@ public class HandleIdHandlerFactory implements IdReferenceHandlerFactory {
 						TYPE, associatedObject, "" + id,
 						attributes, null);
 			}
-			boolean unique = true;
-			if (!ids.containsKey(associatedObject)) {
-				ids.put(associatedObject, new HashSet<String>());
-			}
-			if (ids.get(associatedObject).contains(id)) {
-				unique = false;
-			} else {
-				ids.get(associatedObject).add(id);
-			}
-			return unique;
+			return ids.add(associatedObject, id);
 		}
 		
 //		@Override
@@ -163,10 +153,7 @@ public class HandleIdHandlerFactory implements IdReferenceHandlerFactory {
 
 		@Override
 		protected void processIdsImpl() throws IdReferenceHandlerException {
-			final Set<String> handles = new HashSet<String>();
-			for (final Set<String> idset: ids.values()) {
-				handles.addAll(idset);
-			}
+			final List<String> handles = ids.getIds();
 			if (handles.isEmpty()) {
 				return;
 			}
@@ -210,10 +197,8 @@ public class HandleIdHandlerFactory implements IdReferenceHandlerFactory {
 		@Override
 		protected RemappedId getRemappedIdImpl(String oldId)
 				throws NoSuchIdException {
-			for (final T assobj: ids.keySet()) {
-				if (ids.get(assobj).contains(oldId)) {
-					return new SimpleRemappedId(oldId);
-				}
+			if (ids.indexOf(oldId) >= 0) {
+				return new SimpleRemappedId(oldId);
 			}
 			throw new NoSuchIdException("No such ID contained in this mapper: "
 					+ oldId);
@@ -222,10 +207,7 @@ public class HandleIdHandlerFactory implements IdReferenceHandlerFactory {
 		@Override
 		protected Set<RemappedId> getRemappedIdsImpl(T associatedObject) {
 			final Set<RemappedId> newids = new HashSet<RemappedId>();
-			if (!ids.containsKey(associatedObject)) {
-				return newids;
-			}
-			for (final String id: ids.get(associatedObject)) {
+			for (final String id: ids.getIds(associatedObject)) {
 				newids.add(new SimpleRemappedId(id));
 			}
 			return newids;
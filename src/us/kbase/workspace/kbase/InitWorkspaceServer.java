@@ -10,12 +10,17 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.DB;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientOptions;
@@ -47,11 +52,13 @@ import us.kbase.workspace.database.exceptions.WorkspaceDBException;
 import us.kbase.workspace.database.mongo.BlobStore;
 import us.kbase.workspace.database.mongo.GridFSBlobStore;
 import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.database.mongo.ReadClass;
 import us.kbase.workspace.database.mongo.S3BlobStore;
 import us.kbase.workspace.database.mongo.S3ClientWithPresign;
 import us.kbase.workspace.database.mongo.ShockBlobStore;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
 import us.kbase.workspace.kbase.KBaseWorkspaceConfig.ListenerConfig;
+import us.kbase.workspace.kbase.KBaseWorkspaceConfig.SecondaryReadMethod;
 import us.kbase.workspace.kbase.ShockIdHandlerFactory.ShockClientCloner;
 import us.kbase.workspace.kbase.admin.AdministratorHandler;
 import us.kbase.workspace.kbase.admin.AdministratorHandlerException;
@@ -74,6 +81,11 @@ public class InitWorkspaceServer {
 	private static final int ADMIN_CACHE_EXP_TIME_MS = 5 * 60 * 1000; // cache admin role for 5m
 	
 	private static int maxUniqueIdCountPerCall = 100000;
+	
+	// threads for processing ID types concurrently. If all threads are busy the calling thread
+	// processes the IDs.
+	private static final int ID_PROCESSING_MAX_THREADS = 100;
+	private static final int ID_PROCESSING_THREAD_KEEP_ALIVE_SEC = 60;
 
 	private static int instanceCount = 0;
 	private static boolean wasTempFileCleaningDone = false;
@@ -188,6 +200,7 @@ public class InitWorkspaceServer {
 					new ResourceUsageConfigurationBuilder().build(),
 					wsdeps.validator,
 					wsdeps.listeners);
+			ws.setObjectNameCacheSize(cfg.getObjectNameCacheWorkspaces());
 			ah = getAdminHandler(cfg, ws);
 		} catch (WorkspaceInitException wie) {
 			rep.reportFail(wie.getLocalizedMessage());
@@ -201,6 +214,7 @@ public class InitWorkspaceServer {
 				.getBuilder(maxUniqueIdCountPerCall)
 				.withFactory(new HandleIdHandlerFactory(hsc))
 				.withFactory(wsdeps.shockFac.factory)
+				.withProcessingExecutor(buildIDProcessingExecutor())
 				.build();
 		WorkspaceServerMethods wsmeth = new WorkspaceServerMethods(ws, types, builder, auth);
 		WorkspaceAdministration wsadmin = new WorkspaceAdministration(
@@ -216,6 +230,18 @@ public class InitWorkspaceServer {
 				ws, wsmeth, wsadmin, types, wsdeps.shockFac.client, hscNoToken);
 	}
 	
+	private static ExecutorService buildIDProcessingExecutor() {
+		return new ThreadPoolExecutor(
+				0,
+				ID_PROCESSING_MAX_THREADS,
+				ID_PROCESSING_THREAD_KEEP_ALIVE_SEC,
+				TimeUnit.SECONDS,
+				new SynchronousQueue<>(),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("id-processing-%d")
+						.build(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+	
 	private static AdministratorHandler getAdminHandler(
 			final KBaseWorkspaceConfig cfg,
 			final Workspace ws) throws WorkspaceInitException {
@@ -276,7 +302,18 @@ public class InitWorkspaceServer {
 		}
 		deps.validator = new TypedObjectValidator(new LocalTypeProvider(deps.typeDB));
 		try {
-			deps.mongoWS = new MongoWorkspaceDB(db, bs, tfm);
+			final MongoWorkspaceDB mongoWS = new MongoWorkspaceDB(db, bs, tfm);
+			mongoWS.setObjectIDBlockSize(
+					cfg.getObjectIDBlockSize(), cfg.getObjectIDBlockMaxWorkspaces());
+			mongoWS.setWorkspaceModDateInterval(cfg.getWorkspaceModDateIntervalSec());
+			mongoWS.setSecondaryReads(getReadClasses(cfg.getSecondaryReads()));
+			mongoWS.setLockedWorkspaceCacheSizes(cfg.getLockedWorkspaceCacheObjects(),
+					cfg.getLockedWorkspaceCacheListedObjects());
+			mongoWS.setDocumentCacheSizes(cfg.getVersionCacheSizeMB() * 1024L * 1024,
+					cfg.getProvenanceCacheSizeMB() * 1024L * 1024);
+			mongoWS.setWorkspaceQueryThresholds(
+					cfg.getQueryMaxOrClauses(), cfg.getQueryMinConcurrentItems());
+			deps.mongoWS = mongoWS;
 		} catch (WorkspaceDBException wde) {
 			throw new WorkspaceInitException(
 					"Error initializing the workspace database: " +
@@ -288,6 +325,23 @@ public class InitWorkspaceServer {
 		return deps;
 	}
 	
+	private static Set<ReadClass> getReadClasses(final Set<SecondaryReadMethod> methods) {
+		final Set<ReadClass> ret = new HashSet<>();
+		for (final SecondaryReadMethod m: methods) {
+			switch (m) {
+			case LIST_OBJECTS:
+				ret.add(ReadClass.LIST_OBJECTS);
+				break;
+			case LIST_WORKSPACE_INFO:
+				ret.add(ReadClass.LIST_WORKSPACE_INFO);
+				break;
+			default:
+				throw new IllegalStateException("Unexpected method: " + m);
+			}
+		}
+		return ret;
+	}
+	
 	private static class ShockFactoryBits {
 		private final ShockIdHandlerFactory factory;
 		private final BasicShockClient client;
@@ -332,16 +386,27 @@ public class InitWorkspaceServer {
 
 	private static MongoClient buildMongo(final KBaseWorkspaceConfig c, final String dbName)
 			throws WorkspaceInitException {
-		//TODO ZLATER MONGO handle shards & replica sets
+		//TODO ZLATER MONGO handle shards
+		// more than one host is treated as a replica set seed list
+		final List<ServerAddress> hosts = new LinkedList<>();
+		for (final String host: c.getHost().split(",")) {
+			if (!host.trim().isEmpty()) {
+				hosts.add(new ServerAddress(host.trim()));
+			}
+		}
 		try {
 			if (c.getMongoUser() != null) {
 				final MongoCredential creds = MongoCredential.createCredential(
 						c.getMongoUser(), dbName, c.getMongoPassword().toCharArray());
 				// unclear if and when it's safe to clear the password
-				return new MongoClient(new ServerAddress(c.getHost()), creds,
-						MongoClientOptions.builder().build());
+				if (hosts.size() > 1) {
+					return new MongoClient(hosts, creds, MongoClientOptions.builder().build());
+				}
+				return new MongoClient(hosts.get(0), creds, MongoClientOptions.builder().build());
+			} else if (hosts.size() > 1) {
+				return new MongoClient(hosts);
 			} else {
-				return new MongoClient(new ServerAddress(c.getHost()));
+				return new MongoClient(hosts.get(0));
 			}
 		} catch (MongoException e) {
 			LoggerFactory.getLogger(InitWorkspaceServer.class).error(
@@ -0,0 +1,501 @@
+package us.kbase.workspace.kbase;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/** Handles JSON-RPC batch requests, where the request body is a JSON array of JSON-RPC calls,
+ * so that clients making many small calls, such as when loading a page, need only make one HTTP
+ * request.
+ *
+ * Each call in the batch is dispatched to the servlet as if it were a request on its own, with
+ * the headers, including the authorization header, of the batch request. The first call is run
+ * on its own, so the servlet validates the batch's token once and caches it, and the remaining
+ * calls reuse the cached token rather than each asking the authentication service to validate
+ * it at the same time. The remaining calls are run concurrently, up to a limit per batch, on a
+ * thread pool shared by all batches. The response is a JSON array of the call responses in the
+ * same order as the calls. Each response is written as soon as it and all the responses before
+ * it are complete.
+ *
+ * Call responses are held in memory until they are written, so methods that send or return
+ * object data cannot be called in a batch. Requests whose body is not a JSON array are passed
+ * to the servlet unaltered.
+ */
+public class JsonRpcBatchHandler {
+
+	/** The maximum number of calls in a batch. */
+	public static final int MAX_BATCH_CALLS = 100;
+
+	/** The maximum size of a batch request body in bytes. */
+	public static final int MAX_BATCH_BYTES = 1000000;
+
+	/** The default maximum number of threads that run batch calls. */
+	public static final int DEFAULT_THREADS = 50;
+
+	/** The default maximum number of calls from one batch that run concurrently. */
+	public static final int DEFAULT_CALL_CONCURRENCY = 10;
+
+	/** The methods that cannot be called in a batch. */
+	public static final Set<String> UNBATCHABLE_METHODS = Collections.unmodifiableSet(
+			new HashSet<>(Arrays.asList(
+					"Workspace.save_object", "Workspace.save_objects", "Workspace.get_object",
+					"Workspace.get_objects", "Workspace.get_objects2",
+					"Workspace.get_object_subset", "Workspace.get_referenced_objects",
+					"Workspace.administer")));
+
+	// JSON-RPC error codes
+	private static final int PARSE_ERROR = -32700;
+	private static final int INVALID_REQUEST = -32600;
+	private static final int INTERNAL_ERROR = -32603;
+
+	// more than enough leading whitespace for any reasonable client
+	private static final int MAX_PEEK = 100;
+
+	private static final int THREAD_KEEP_ALIVE_SEC = 60;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Dispatcher dispatcher;
+	private final ExecutorService executor;
+	private final int callConcurrency;
+
+	/** Dispatches a single JSON-RPC call to the servlet. */
+	public interface Dispatcher {
+
+		/** Dispatch the call.
+		 * @param request the request containing the call.
+		 * @param response the response to which the call's response is written.
+		 * @throws ServletException if the servlet fails.
+		 * @throws IOException if an IO error occurs.
+		 */
+		void dispatch(HttpServletRequest request, HttpServletResponse response)
+				throws ServletException, IOException;
+	}
+
+	/** Create the handler with the default number of threads and calls per batch.
+	 * @param dispatcher the dispatcher for single calls, normally the servlet's service method.
+	 */
+	public JsonRpcBatchHandler(final Dispatcher dispatcher) {
+		this(dispatcher, DEFAULT_THREADS, DEFAULT_CALL_CONCURRENCY);
+	}
+
+	/** Create the handler.
+	 * @param dispatcher the dispatcher for single calls, normally the servlet's service method.
+	 * @param threads the maximum number of threads, shared by all batches, that run batch calls.
+	 * If all the threads are busy, calls run on the thread handling the batch request.
+	 * @param callConcurrency the maximum number of calls from one batch that run concurrently.
+	 */
+	public JsonRpcBatchHandler(
+			final Dispatcher dispatcher,
+			final int threads,
+			final int callConcurrency) {
+		this.dispatcher = requireNonNull(dispatcher, "dispatcher");
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		if (callConcurrency < 1) {
+			throw new IllegalArgumentException("callConcurrency must be at least 1");
+		}
+		this.callConcurrency = callConcurrency;
+		// the calling thread runs the call if all the threads are busy
+		executor = new ThreadPoolExecutor(
+				0,
+				threads,
+				THREAD_KEEP_ALIVE_SEC,
+				TimeUnit.SECONDS,
+				new SynchronousQueue<>(),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("rpc-batch-%d").build(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/** Handle a request. Requests other than POST requests with a JSON array body are passed to
+	 * the dispatcher.
+	 * @param request the request.
+	 * @param response the response.
+	 * @throws ServletException if the servlet fails.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void handle(final HttpServletRequest request, final HttpServletResponse response)
+			throws ServletException, IOException {
+		if (!"POST".equals(request.getMethod())) {
+			dispatcher.dispatch(request, response);
+			return;
+		}
+		final PushbackInputStream body = new PushbackInputStream(
+				request.getInputStream(), MAX_PEEK);
+		if (!isBatch(body)) {
+			dispatcher.dispatch(new BodyRequest(request, body, request.getContentLength()),
+					response);
+			return;
+		}
+		final JsonNode batch;
+		try {
+			batch = MAPPER.readTree(readBody(body));
+		} catch (JsonProcessingException e) {
+			writeError(response, PARSE_ERROR, "Invalid JSON in batch request: " +
+					e.getOriginalMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			writeError(response, INVALID_REQUEST, e.getMessage());
+			return;
+		}
+		if (batch.size() < 1 || batch.size() > MAX_BATCH_CALLS) {
+			writeError(response, INVALID_REQUEST, String.format(
+					"Batch requests must contain between 1 and %s calls", MAX_BATCH_CALLS));
+			return;
+		}
+		response.setContentType("application/json");
+		final ResultWriter out = new ResultWriter(response.getOutputStream());
+		// validates and caches the token before any calls run concurrently
+		out.write(runCall(request, response, batch.get(0)));
+		final Semaphore permits = new Semaphore(callConcurrency);
+		final List<Future<byte[]>> results = new ArrayList<>();
+		for (int i = 1; i < batch.size(); i++) {
+			// write completed results, which frees their permits, until a call can be started
+			while (!permits.tryAcquire()) {
+				out.write(getResult(results.get(out.count - 1)));
+			}
+			final JsonNode call = batch.get(i);
+			results.add(executor.submit(() -> {
+				try {
+					return runCall(request, response, call);
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+		while (out.count <= results.size()) {
+			out.write(getResult(results.get(out.count - 1)));
+		}
+		out.finish();
+	}
+
+	// writes the call results as a JSON array
+	private static class ResultWriter {
+
+		private final OutputStream out;
+		private int count = 0;
+
+		private ResultWriter(final OutputStream out) {
+			this.out = out;
+		}
+
+		private void write(final byte[] result) throws IOException {
+			out.write(count == 0 ? '[' : ',');
+			out.write(result);
+			out.flush();
+			count++;
+		}
+
+		private void finish() throws IOException {
+			out.write(']');
+			out.flush();
+		}
+	}
+
+	// leaves the stream unaltered
+	private boolean isBatch(final PushbackInputStream body) throws IOException {
+		final byte[] peeked = new byte[MAX_PEEK];
+		int count = 0;
+		int b;
+		do {
+			b = body.read();
+			if (b < 0) {
+				break;
+			}
+			peeked[count++] = (byte) b;
+		} while (Character.isWhitespace(b) && count < MAX_PEEK);
+		body.unread(peeked, 0, count);
+		return b == '[';
+	}
+
+	private byte[] readBody(final InputStream body) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		int read;
+		while ((read = body.read(buffer)) > -1) {
+			bytes.write(buffer, 0, read);
+			if (bytes.size() > MAX_BATCH_BYTES) {
+				throw new IllegalArgumentException(String.format(
+						"Batch requests may be no larger than %s bytes", MAX_BATCH_BYTES));
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private byte[] getResult(final Future<byte[]> result) throws IOException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for batch call", e);
+		} catch (ExecutionException e) {
+			// runCall catches everything, so this should never happen
+			return toError(null, INTERNAL_ERROR, e.getCause().getMessage());
+		}
+	}
+
+	private byte[] runCall(
+			final HttpServletRequest request,
+			final HttpServletResponse callResponse,
+			final JsonNode call)
+			throws IOException {
+		if (!call.isObject()) {
+			return toError(null, INVALID_REQUEST, "Each call in a batch must be a JSON object");
+		}
+		final JsonNode id = call.get("id");
+		final JsonNode method = call.get("method");
+		if (method == null || !method.isTextual()) {
+			return toError(id, INVALID_REQUEST, "Call is missing the method name");
+		}
+		if (UNBATCHABLE_METHODS.contains(method.asText())) {
+			return toError(id, INVALID_REQUEST, String.format(
+					"Method %s cannot be called in a batch request", method.asText()));
+		}
+		final byte[] body = MAPPER.writeValueAsBytes(call);
+		final BufferedResponse response = new BufferedResponse(callResponse);
+		try {
+			dispatcher.dispatch(new BodyRequest(
+					request, new ByteArrayInputStream(body), body.length), response);
+			response.flushWriter();
+		} catch (Exception e) {
+			return toError(id, INTERNAL_ERROR, e.getMessage());
+		}
+		if (response.errorMessage != null) {
+			return toError(id, INTERNAL_ERROR, response.errorMessage);
+		}
+		if (response.body.size() == 0) {
+			return toError(id, INTERNAL_ERROR, "No response from server for call");
+		}
+		return response.body.toByteArray();
+	}
+
+	private void writeError(
+			final HttpServletResponse response,
+			final int code,
+			final String message)
+			throws IOException {
+		response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		response.setContentType("application/json");
+		response.getOutputStream().write(toError(null, code, message));
+	}
+
+	// matches the error format of the servlet
+	private static byte[] toError(final JsonNode id, final int code, final String message)
+			throws JsonProcessingException {
+		final ObjectNode ret = MAPPER.createObjectNode();
+		ret.put("version", "1.1");
+		ret.set("id", id);
+		final ObjectNode error = ret.putObject("error");
+		error.put("name", "JSONRPCError");
+		error.put("code", code);
+		error.put("message", message);
+		error.putNull("error");
+		return MAPPER.writeValueAsBytes(ret);
+	}
+
+	// a request with a replacement body
+	private static class BodyRequest extends HttpServletRequestWrapper {
+
+		private final InputStream body;
+		private final int contentLength;
+
+		private BodyRequest(
+				final HttpServletRequest request,
+				final InputStream body,
+				final int contentLength) {
+			super(request);
+			this.body = body;
+			this.contentLength = contentLength;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			return new ServletInputStream() {
+
+				@Override
+				public int read() throws IOException {
+					return body.read();
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len)
+						throws IOException {
+					return body.read(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public int getContentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public String getHeader(final String name) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				return contentLength < 0 ? null : Integer.toString(contentLength);
+			}
+			return super.getHeader(name);
+		}
+	}
+
+	/* A response that buffers the body in memory. Headers and status codes are discarded, since
+	 * the batch response has a single set of headers and status and the call status is in the
+	 * call response body. Calls run concurrently, so nothing may alter the batch response.
+	 */
+	private static class BufferedResponse extends HttpServletResponseWrapper {
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		private PrintWriter writer = null;
+		private String errorMessage = null;
+
+		private BufferedResponse(final HttpServletResponse response) {
+			super(response);
+		}
+
+		private void flushWriter() {
+			if (writer != null) {
+				writer.flush();
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return new ServletOutputStream() {
+
+				@Override
+				public void write(final int b) {
+					body.write(b);
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) {
+					body.write(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public PrintWriter getWriter() {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+			}
+			return writer;
+		}
+
+		@Override
+		public void sendError(final int sc, final String msg) {
+			errorMessage = msg == null ? "HTTP error " + sc : msg;
+		}
+
+		@Override
+		public void sendError(final int sc) {
+			sendError(sc, null);
+		}
+
+		@Override
+		public void sendRedirect(final String location) {
+			errorMessage = "Unexpected redirect for call to " + location;
+		}
+
+		@Override
+		public void setStatus(final int sc) {}
+
+		@Override
+		public void setStatus(final int sc, final String sm) {}
+
+		@Override
+		public void setHeader(final String name, final String value) {}
+
+		@Override
+		public void addHeader(final String name, final String value) {}
+
+		@Override
+		public void setIntHeader(final String name, final int value) {}
+
+		@Override
+		public void addIntHeader(final String name, final int value) {}
+
+		@Override
+		public void setDateHeader(final String name, final long date) {}
+
+		@Override
+		public void addDateHeader(final String name, final long date) {}
+
+		@Override
+		public void setContentLength(final int len) {}
+
+		@Override
+		public void setContentType(final String type) {}
+
+		@Override
+		public void setCharacterEncoding(final String charset) {}
+
+		@Override
+		public void setBufferSize(final int size) {}
+
+		@Override
+		public void flushBuffer() {}
+
+		@Override
+		public boolean isCommitted() {
+			return false;
+		}
+
+		@Override
+		public void reset() {
+			flushWriter();
+			body.reset();
+			errorMessage = null;
+		}
+
+		@Override
+		public void resetBuffer() {
+			flushWriter();
+			body.reset();
+		}
+	}
+}
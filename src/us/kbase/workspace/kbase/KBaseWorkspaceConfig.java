@@ -81,6 +81,46 @@ public class KBaseWorkspaceConfig {
 	//directory for temp files
 	private static final String TEMP_DIR = "temp-dir";
 	
+	//optional object name cache
+	private static final String OBJECT_NAME_CACHE = "object-name-cache-workspaces";
+	
+	//optional object ID block allocation
+	private static final String OBJECT_ID_BLOCK_SIZE = "object-id-block-size";
+	
+	//optional routing of read only calls to replica set secondaries
+	private static final String SECONDARY_READS = "mongodb-secondary-reads";
+	
+	//optional caps on concurrent calls to data heavy methods
+	private static final String METHOD_CONCURRENCY_LIMITS = "method-concurrency-limits";
+	
+	//optional gzip compression of responses
+	private static final String RESPONSE_COMPRESSION_LEVEL = "response-compression-level";
+	
+	//optional thresholds for choosing the query strategy for objects in many workspaces
+	private static final String QUERY_MAX_OR_CLAUSES = "query-max-or-clauses";
+	private static final String QUERY_MIN_CONCURRENT_ITEMS = "query-min-concurrent-items";
+	
+	//optional in memory caches of immutable object versions and provenance
+	private static final String VERSION_CACHE_SIZE = "version-cache-size-mb";
+	private static final String PROVENANCE_CACHE_SIZE = "provenance-cache-size-mb";
+	
+	//optional in memory caches of object resolution and listings for locked workspaces
+	private static final String LOCKED_CACHE_OBJECTS = "locked-workspace-cache-objects";
+	private static final String LOCKED_CACHE_LISTED_OBJECTS =
+			"locked-workspace-cache-listed-objects";
+	
+	//optional limit on the number of workspaces with reserved object ID blocks
+	private static final String OBJECT_ID_BLOCK_MAX_WS = "object-id-block-max-workspaces";
+	
+	//optional minimum interval between workspace modification date updates
+	private static final String MODDATE_INTERVAL = "workspace-moddate-interval-sec";
+	
+	//optional maximum number of threads running the calls in batch requests
+	private static final String BATCH_THREADS = "batch-threads";
+	
+	//optional maximum number of calls from one batch request that run concurrently
+	private static final String BATCH_CALL_CONCURRENCY = "batch-call-concurrency";
+	
 	private static final String TRUE_STR = "true";
 	
 	// the auth2 urls are checked when getting the url
@@ -121,6 +161,31 @@ public class KBaseWorkspaceConfig {
 	private final List<String> infoMessages;
 	private final String paramReport;
 	private final List<ListenerConfig> listenerConfigs;
+	private final int objectNameCacheWorkspaces;
+	private final int objectIDBlockSize;
+	private final Set<SecondaryReadMethod> secondaryReads;
+	private final Map<String, Integer> methodConcurrencyLimits;
+	private final int responseCompressionLevel;
+	private final int queryMaxOrClauses;
+	private final int queryMinConcurrentItems;
+	private final int versionCacheSizeMB;
+	private final int provenanceCacheSizeMB;
+	private final int lockedCacheObjects;
+	private final int lockedCacheListedObjects;
+	private final int objectIDBlockMaxWorkspaces;
+	private final int modDateIntervalSec;
+	
+	/** The read only API methods whose reads may be sent to MongoDB replica set secondaries. */
+	public enum SecondaryReadMethod {
+		
+		/** The list_objects method. */
+		LIST_OBJECTS,
+		
+		/** The list_workspace_info method. */
+		LIST_WORKSPACE_INFO;
+	}
+	private final int batchThreads;
+	private final int batchCallConcurrency;
 	
 	public static class ListenerConfig {
 		
@@ -290,6 +355,25 @@ public class KBaseWorkspaceConfig {
 		}
 		
 		listenerConfigs = getListenerConfigs(config, paramErrors);
+		objectNameCacheWorkspaces = getNonNegativeInt(config, OBJECT_NAME_CACHE, paramErrors);
+		objectIDBlockSize = getNonNegativeInt(config, OBJECT_ID_BLOCK_SIZE, paramErrors);
+		secondaryReads = getSecondaryReadMethods(config, SECONDARY_READS, paramErrors);
+		methodConcurrencyLimits = getMethodLimits(
+				config, METHOD_CONCURRENCY_LIMITS, paramErrors);
+		responseCompressionLevel = getCompressionLevel(
+				config, RESPONSE_COMPRESSION_LEVEL, paramErrors);
+		queryMaxOrClauses = getNonNegativeInt(config, QUERY_MAX_OR_CLAUSES, paramErrors);
+		queryMinConcurrentItems = getNonNegativeInt(
+				config, QUERY_MIN_CONCURRENT_ITEMS, paramErrors);
+		versionCacheSizeMB = getNonNegativeInt(config, VERSION_CACHE_SIZE, paramErrors);
+		provenanceCacheSizeMB = getNonNegativeInt(config, PROVENANCE_CACHE_SIZE, paramErrors);
+		lockedCacheObjects = getNonNegativeInt(config, LOCKED_CACHE_OBJECTS, paramErrors);
+		lockedCacheListedObjects = getNonNegativeInt(
+				config, LOCKED_CACHE_LISTED_OBJECTS, paramErrors);
+		objectIDBlockMaxWorkspaces = getNonNegativeInt(config, OBJECT_ID_BLOCK_MAX_WS, paramErrors);
+		modDateIntervalSec = getNonNegativeInt(config, MODDATE_INTERVAL, paramErrors);
+		batchThreads = getNonNegativeInt(config, BATCH_THREADS, paramErrors);
+		batchCallConcurrency = getNonNegativeInt(config, BATCH_CALL_CONCURRENCY, paramErrors);
 		errors = Collections.unmodifiableList(paramErrors);
 		infoMessages = Collections.unmodifiableList(infoMsgs);
 		paramReport = generateParamReport(config);
@@ -309,6 +393,87 @@ public class KBaseWorkspaceConfig {
 		return Collections.unmodifiableSet(ret);
 	}
 
+	// the methods are named as in the API, e.g. list_objects
+	private Set<SecondaryReadMethod> getSecondaryReadMethods(
+			final Map<String, String> config,
+			final String configKey,
+			final List<String> errors) {
+		final Set<SecondaryReadMethod> ret = new HashSet<>();
+		for (final String s: getStringSet(config, configKey)) {
+			try {
+				ret.add(SecondaryReadMethod.valueOf(s.toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				errors.add(String.format("Illegal method for parameter %s: %s", configKey, s));
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	// optional, 0 if missing
+	private static int getCompressionLevel(
+			final Map<String, String> config,
+			final String configKey,
+			final List<String> errors) {
+		final int level = getNonNegativeInt(config, configKey, errors);
+		if (level > 9) {
+			errors.add(String.format("Compression level for parameter %s must be between " +
+					"0 and 9: %s", configKey, level));
+			return 0;
+		}
+		return level;
+	}
+
+	/* limits are specified as method:limit, e.g. get_objects2:10. Entries are read in order,
+	 * rather than as a set, so that duplicate entries for a method are caught.
+	 */
+	private Map<String, Integer> getMethodLimits(
+			final Map<String, String> config,
+			final String configKey,
+			final List<String> errors) {
+		final String limits = config.get(configKey);
+		if (nullOrEmpty(limits)) {
+			return Collections.emptyMap();
+		}
+		final Map<String, Integer> ret = new HashMap<>();
+		final Set<String> seen = new HashSet<>();
+		for (final String entry: limits.split(",")) {
+			final String s = entry.trim();
+			if (s.isEmpty()) {
+				continue;
+			}
+			final String[] methodAndLimit = s.split(":");
+			if (methodAndLimit.length != 2) {
+				errors.add(String.format(
+						"Illegal method limit for parameter %s: %s", configKey, s));
+				continue;
+			}
+			final String method = methodAndLimit[0].trim();
+			if (!MethodConcurrencyLimits.LIMITABLE_METHODS.contains(method)) {
+				errors.add(String.format(
+						"Illegal method for parameter %s: %s", configKey, method));
+				continue;
+			}
+			if (!seen.add(method)) {
+				errors.add(String.format(
+						"Duplicate method for parameter %s: %s", configKey, method));
+				continue;
+			}
+			try {
+				final int limit = Integer.parseInt(methodAndLimit[1].trim());
+				if (limit > 0) {
+					ret.put(method, limit);
+					continue;
+				}
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+			errors.add(String.format(
+					"Invalid positive integer limit for method %s in parameter %s: %s",
+					method, configKey, methodAndLimit[1].trim()));
+		}
+		return Collections.unmodifiableMap(ret);
+	}
+
 	private List<ListenerConfig> getListenerConfigs(
 			final Map<String, String> config,
 			final List<String> paramErrors) {
@@ -377,7 +542,13 @@ public class KBaseWorkspaceConfig {
 				Arrays.asList(HOST, DB, TYPE_DB, MONGO_USER, KBASE_AUTH_URL, KBASE_AUTH2_URL,
 						KBASE_AUTH_ADMIN_READ_ONLY_ROLES, KBASE_AUTH_ADMIN_FULL_ROLES,
 						BACKEND_TYPE, BACKEND_URL, BACKEND_USER, BACKEND_REGION,
-						BACKEND_CONTAINER, BACKEND_SSC_SSL));
+						BACKEND_CONTAINER, BACKEND_SSC_SSL, OBJECT_NAME_CACHE,
+						OBJECT_ID_BLOCK_SIZE, SECONDARY_READS, METHOD_CONCURRENCY_LIMITS,
+						RESPONSE_COMPRESSION_LEVEL, QUERY_MAX_OR_CLAUSES,
+						QUERY_MIN_CONCURRENT_ITEMS, VERSION_CACHE_SIZE, PROVENANCE_CACHE_SIZE,
+						LOCKED_CACHE_OBJECTS, LOCKED_CACHE_LISTED_OBJECTS,
+						OBJECT_ID_BLOCK_MAX_WS, MODDATE_INTERVAL, BATCH_THREADS,
+						BATCH_CALL_CONCURRENCY));
 		if (!ignoreHandleService) {
 			paramSet.addAll(Arrays.asList(HANDLE_SERVICE_URL));
 		}
@@ -422,6 +593,28 @@ public class KBaseWorkspaceConfig {
 		return null;
 	}
 	
+	// optional, 0 if missing
+	private static int getNonNegativeInt(
+			final Map<String, String> wsConfig,
+			final String configKey,
+			final List<String> errors) {
+		final String intStr = wsConfig.get(configKey);
+		if (nullOrEmpty(intStr)) {
+			return 0;
+		}
+		try {
+			final int i = Integer.parseInt(intStr.trim());
+			if (i >= 0) {
+				return i;
+			}
+		} catch (NumberFormatException e) {
+			// fall through
+		}
+		errors.add("Invalid non-negative integer for parameter " + configKey + ": " +
+				intStr.trim());
+		return 0;
+	}
+	
 	// assume optional for now
 	private static Region getRegion(
 			final Map<String, String> wsConfig,
@@ -517,7 +710,117 @@ public class KBaseWorkspaceConfig {
 	public String getMongoPassword() {
 		return mongoPassword;
 	}
+	
+	/** Get the maximum number of workspaces for which object names will be cached in memory.
+	 * @return the number of workspaces, or 0 if object names should not be cached.
+	 */
+	public int getObjectNameCacheWorkspaces() {
+		return objectNameCacheWorkspaces;
+	}
+	
+	/** Get the number of object IDs to reserve at once for saving new objects to a workspace.
+	 * @return the number of IDs, or 0 if IDs should be allocated one save at a time.
+	 */
+	public int getObjectIDBlockSize() {
+		return objectIDBlockSize;
+	}
+	
+	/** Get the API methods whose reads are sent to MongoDB replica set secondaries.
+	 * @return the methods.
+	 */
+	public Set<SecondaryReadMethod> getSecondaryReads() {
+		return secondaryReads;
+	}
+	
+	/** Get the maximum number of concurrent calls allowed for each capped API method.
+	 * @return a map of API method name to the maximum number of calls. Methods not in the map
+	 * are not capped.
+	 */
+	public Map<String, Integer> getMethodConcurrencyLimits() {
+		return methodConcurrencyLimits;
+	}
+	
+	/** Get the gzip compression level for responses to clients that accept gzip.
+	 * @return the level, from 1 to 9, or 0 if responses should not be compressed.
+	 */
+	public int getResponseCompressionLevel() {
+		return responseCompressionLevel;
+	}
 
+	/** Get the maximum number of workspaces to combine into a single $or query when fetching
+	 * objects from many workspaces.
+	 * @return the maximum number of workspaces, or 0 to use the default.
+	 */
+	public int getQueryMaxOrClauses() {
+		return queryMaxOrClauses;
+	}
+	
+	/** Get the minimum number of objects requested from many workspaces for the workspaces to be
+	 * queried concurrently.
+	 * @return the minimum number of objects, or 0 to use the default.
+	 */
+	public int getQueryMinConcurrentItems() {
+		return queryMinConcurrentItems;
+	}
+	
+	/** Get the approximate maximum memory used to cache object versions.
+	 * @return the cache size in megabytes, or 0 if versions should not be cached.
+	 */
+	public int getVersionCacheSizeMB() {
+		return versionCacheSizeMB;
+	}
+	
+	/** Get the approximate maximum memory used to cache object provenance.
+	 * @return the cache size in megabytes, or 0 if provenance should not be cached.
+	 */
+	public int getProvenanceCacheSizeMB() {
+		return provenanceCacheSizeMB;
+	}
+	
+	/** Get the maximum number of objects in locked workspaces whose name and ID resolution is
+	 * cached.
+	 * @return the number of objects, or 0 if resolution should not be cached.
+	 */
+	public int getLockedWorkspaceCacheObjects() {
+		return lockedCacheObjects;
+	}
+	
+	/** Get the maximum total number of objects in the cached object listings for locked
+	 * workspaces.
+	 * @return the number of objects, or 0 if listings should not be cached.
+	 */
+	public int getLockedWorkspaceCacheListedObjects() {
+		return lockedCacheListedObjects;
+	}
+	
+	/** Get the maximum number of workspaces for which a block of reserved object IDs is kept.
+	 * @return the number of workspaces, or 0 to use the default.
+	 */
+	public int getObjectIDBlockMaxWorkspaces() {
+		return objectIDBlockMaxWorkspaces;
+	}
+	
+	/** Get the minimum number of seconds between updates of a workspace's modification date.
+	 * @return the number of seconds, or 0 to update the date on every change.
+	 */
+	public int getWorkspaceModDateIntervalSec() {
+		return modDateIntervalSec;
+	}
+	
+	/** Get the maximum number of threads, shared by all batch requests, that run the calls in JSON-RPC batch requests.
+	 * @return the number of threads, or 0 to use the default.
+	 */
+	public int getBatchThreads() {
+		return batchThreads;
+	}
+	
+	/** Get the maximum number of calls from a single JSON-RPC batch request that run concurrently.
+	 * @return the number of calls, or 0 to use the default.
+	 */
+	public int getBatchCallConcurrency() {
+		return batchCallConcurrency;
+	}
+	
 	public boolean ignoreHandleService() {
 		return ignoreHandleService;
 	}
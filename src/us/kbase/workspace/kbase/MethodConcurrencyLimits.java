@@ -0,0 +1,117 @@
+package us.kbase.workspace.kbase;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/** Caps on the number of calls to data heavy API methods that may run concurrently. Each servlet
+ * container thread is held for the entire length of a call, including waits on the blob store
+ * and writing the response, so without caps a spike in calls to one slow method can exhaust the
+ * container's thread pool and stall every other method.
+ *
+ * A permit held via {@link #hold(String)} lasts until {@link #releaseHeld()} is called, which
+ * the servlet does once the response has been written, so the cap covers writing the response
+ * as well as the method body.
+ *
+ * Calls over a method's cap fail as soon as the method is invoked rather than waiting for a
+ * running call to finish. They still hold a container thread while the servlet reads the
+ * request and writes the error, but not for the length of a call.
+ */
+public class MethodConcurrencyLimits {
+
+	/** The API methods that may be capped. The methods must not be callable in a batch, see
+	 * {@link JsonRpcBatchHandler#UNBATCHABLE_METHODS}, since held permits are only released by
+	 * the servlet thread that handled the request, not by the batch handler's worker threads.
+	 */
+	public static final Set<String> LIMITABLE_METHODS = Collections.unmodifiableSet(
+			new LinkedHashSet<>(Arrays.asList("save_objects", "get_objects2", "get_objects",
+					"get_object", "get_object_subset")));
+
+	private final Map<String, Semaphore> permits = new HashMap<>();
+	private final ThreadLocal<Permit> held = new ThreadLocal<>();
+
+	/** A permit to run a call to a capped method. Closing the permit allows another call to the
+	 * method to run. Closing the permit more than once has no effect.
+	 */
+	public static class Permit implements AutoCloseable {
+
+		private Semaphore permits;
+
+		private Permit(final Semaphore permits) {
+			this.permits = permits;
+		}
+
+		@Override
+		public void close() {
+			if (permits != null) {
+				permits.release();
+				permits = null;
+			}
+		}
+	}
+
+	/** Create the caps.
+	 * @param limits a map of API method name to the maximum number of concurrent calls to the
+	 * method. Methods not in the map are not capped.
+	 */
+	public MethodConcurrencyLimits(final Map<String, Integer> limits) {
+		requireNonNull(limits, "limits");
+		for (final String method: limits.keySet()) {
+			if (!LIMITABLE_METHODS.contains(method)) {
+				throw new IllegalArgumentException("Method cannot be limited: " + method);
+			}
+			final Integer limit = requireNonNull(limits.get(method), "null limit for " + method);
+			if (limit < 1) {
+				throw new IllegalArgumentException(String.format(
+						"Limit for method %s must be at least 1", method));
+			}
+			permits.put(method, new Semaphore(limit));
+		}
+	}
+
+	/** Get a permit to run a call to a method.
+	 * @param method the API method name.
+	 * @return the permit, which must be closed when the call is complete.
+	 * @throws IllegalStateException if the maximum number of calls to the method are already
+	 * running.
+	 */
+	public Permit acquire(final String method) {
+		final Semaphore s = permits.get(method);
+		if (s == null) {
+			return new Permit(null);
+		}
+		if (!s.tryAcquire()) {
+			throw new IllegalStateException(String.format(
+					"The server is currently handling the maximum number of %s calls. " +
+					"Please try again later", method));
+		}
+		return new Permit(s);
+	}
+
+	/** Get a permit to run a call to a method and hold it on the current thread until
+	 * {@link #releaseHeld()} is called on the thread. Any permit already held by the thread is
+	 * released first.
+	 * @param method the API method name.
+	 * @throws IllegalStateException if the maximum number of calls to the method are already
+	 * running.
+	 */
+	public void hold(final String method) {
+		releaseHeld();
+		held.set(acquire(method));
+	}
+
+	/** Release the permit held by the current thread, if any. */
+	public void releaseHeld() {
+		final Permit p = held.get();
+		if (p != null) {
+			held.remove();
+			p.close();
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package us.kbase.workspace.kbase;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/** Compresses responses with gzip when the client accepts gzip in the Accept-Encoding header.
+ *
+ * The response is compressed as it is written, so it is never held in memory. The
+ * Content-Encoding header is only set when the servlet first gets the output stream or writer,
+ * so responses that never get either are unaffected. The gzip stream is finished even if the
+ * servlet throws an exception, so any partial body is still a complete gzip stream.
+ */
+public class ResponseCompressionHandler {
+
+	/** The gzip content coding. */
+	public static final String GZIP = "gzip";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final JsonRpcBatchHandler.Dispatcher dispatcher;
+	private final int level;
+
+	/** Create the handler.
+	 * @param dispatcher the dispatcher that writes the uncompressed response.
+	 * @param level the compression level, from 1, the fastest, to 9, the smallest, or 0 to never
+	 * compress responses.
+	 */
+	public ResponseCompressionHandler(
+			final JsonRpcBatchHandler.Dispatcher dispatcher,
+			final int level) {
+		this.dispatcher = requireNonNull(dispatcher, "dispatcher");
+		if (level < 0 || level > 9) {
+			throw new IllegalArgumentException("level must be between 0 and 9 inclusive");
+		}
+		this.level = level;
+	}
+
+	/** Handle a request, compressing the response if the client accepts gzip and compression is
+	 * enabled.
+	 * @param request the request.
+	 * @param response the response.
+	 * @throws ServletException if the servlet fails.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void handle(final HttpServletRequest request, final HttpServletResponse response)
+			throws ServletException, IOException {
+		if (level < 1 || !acceptsGzip(request.getHeader("Accept-Encoding"))) {
+			dispatcher.dispatch(request, response);
+			return;
+		}
+		response.addHeader("Vary", "Accept-Encoding");
+		final CompressingResponse cr = new CompressingResponse(response, level);
+		try {
+			dispatcher.dispatch(request, cr);
+		} finally {
+			cr.finish();
+		}
+	}
+
+	// only an explicit gzip coding is recognized, * is ignored
+	private boolean acceptsGzip(final String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (final String coding: acceptEncoding.split(",")) {
+			final String[] parts = coding.split(";");
+			if (!GZIP.equalsIgnoreCase(parts[0].trim())) {
+				continue;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				final String param = parts[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						return Double.parseDouble(param.substring(2).trim()) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	// a response that gzips the body and drops the length of the uncompressed body
+	private static class CompressingResponse extends HttpServletResponseWrapper {
+
+		private final int level;
+		private GzipOutputStream out = null;
+		private PrintWriter writer = null;
+
+		private CompressingResponse(final HttpServletResponse response, final int level) {
+			super(response);
+			this.level = level;
+		}
+
+		private void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			if (out != null) {
+				out.finish();
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (out == null) {
+				super.setHeader("Content-Encoding", GZIP);
+				out = new GzipOutputStream(
+						new LevelGZIPOutputStream(super.getOutputStream(), level));
+			}
+			return out;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(
+						getOutputStream(), StandardCharsets.UTF_8));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentLength(final int len) {}
+
+		@Override
+		public void setHeader(final String name, final String value) {
+			if (!"Content-Length".equalsIgnoreCase(name)) {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(final String name, final String value) {
+			if (!"Content-Length".equalsIgnoreCase(name)) {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setIntHeader(final String name, final int value) {
+			if (!"Content-Length".equalsIgnoreCase(name)) {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addIntHeader(final String name, final int value) {
+			if (!"Content-Length".equalsIgnoreCase(name)) {
+				super.addIntHeader(name, value);
+			}
+		}
+	}
+
+	/* The servlet may close the stream itself, which writes the gzip trailer, so the stream is
+	 * only finished if it's still open.
+	 */
+	private static class GzipOutputStream extends ServletOutputStream {
+
+		private final GZIPOutputStream gzip;
+		private boolean closed = false;
+
+		private GzipOutputStream(final GZIPOutputStream gzip) {
+			this.gzip = gzip;
+		}
+
+		private void finish() throws IOException {
+			if (!closed) {
+				gzip.finish();
+				gzip.flush();
+			}
+		}
+
+		private void checkOpen() throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			checkOpen();
+			gzip.write(b);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			checkOpen();
+			gzip.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (!closed) {
+				gzip.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				gzip.close();
+			}
+		}
+	}
+
+	private static class LevelGZIPOutputStream extends GZIPOutputStream {
+
+		/* Flushes don't sync flush the compressor, since the servlet flushing its writer would
+		 * otherwise end a deflate block and hurt compression. The whole body is written when
+		 * the response is finished.
+		 */
+		private LevelGZIPOutputStream(final OutputStream out, final int level)
+				throws IOException {
+			super(out, BUFFER_SIZE, false);
+			def.setLevel(level);
+		}
+	}
+}
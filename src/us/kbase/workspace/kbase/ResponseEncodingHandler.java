@@ -0,0 +1,320 @@
+package us.kbase.workspace.kbase;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+/** Encodes responses in a compact binary format, rather than JSON text, when the client asks for
+ * the format in the Accept header. The supported formats are Smile
+ * (application/x-jackson-smile) and CBOR (application/cbor).
+ *
+ * Quality values in the Accept header are honored. The offered format with the highest quality
+ * is chosen, unless JSON, either explicitly or via a wildcard, has a higher quality. Formats with
+ * a quality of 0 are never chosen. Clients that don't ask for an offered format receive JSON.
+ *
+ * The JSON response written by the servlet is transcoded to the binary format as it is written,
+ * so the response is never held in memory. The JSON is still generated and then parsed again, so
+ * a binary response costs more server CPU than the same response as JSON.
+ *
+ * The Jackson data format jars for Smile and CBOR are optional. A format is only offered if its
+ * jar is on the classpath, and clients asking only for unavailable formats receive JSON.
+ */
+public class ResponseEncodingHandler {
+
+	/** The Smile media type. */
+	public static final String SMILE = "application/x-jackson-smile";
+	/** The CBOR media type. */
+	public static final String CBOR = "application/cbor";
+
+	private static final String JSON = "application/json";
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private static final Map<String, String> FACTORY_CLASSES;
+	static {
+		final Map<String, String> fc = new LinkedHashMap<>();
+		fc.put(SMILE, "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+		fc.put(CBOR, "com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+		FACTORY_CLASSES = Collections.unmodifiableMap(fc);
+	}
+
+	private final JsonRpcBatchHandler.Dispatcher dispatcher;
+	private final Map<String, JsonFactory> factories;
+
+	/** Create the handler with the formats whose Jackson data format jars are on the classpath.
+	 * @param dispatcher the dispatcher that writes the JSON response.
+	 */
+	public ResponseEncodingHandler(final JsonRpcBatchHandler.Dispatcher dispatcher) {
+		this(dispatcher, getAvailableFactories());
+	}
+
+	/** Create the handler.
+	 * @param dispatcher the dispatcher that writes the JSON response.
+	 * @param factories a map of media type to the factory that writes that type, in order of
+	 * preference when the client gives more than one type the same quality.
+	 */
+	public ResponseEncodingHandler(
+			final JsonRpcBatchHandler.Dispatcher dispatcher,
+			final Map<String, JsonFactory> factories) {
+		this.dispatcher = requireNonNull(dispatcher, "dispatcher");
+		this.factories = Collections.unmodifiableMap(
+				new LinkedHashMap<>(requireNonNull(factories, "factories")));
+	}
+
+	/** Get factories for the supported binary formats whose Jackson data format jars are on the
+	 * classpath.
+	 * @return a map of media type to the factory that writes that type, in order of preference.
+	 */
+	public static Map<String, JsonFactory> getAvailableFactories() {
+		final Map<String, JsonFactory> ret = new LinkedHashMap<>();
+		for (final String type: FACTORY_CLASSES.keySet()) {
+			try {
+				ret.put(type, (JsonFactory) Class.forName(FACTORY_CLASSES.get(type))
+						.getConstructor().newInstance());
+			} catch (ClassNotFoundException e) {
+				// the jar isn't present, so the format isn't offered
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Unable to create factory for " + type, e);
+			}
+		}
+		return ret;
+	}
+
+	/** Get the media types of the binary formats the handler offers.
+	 * @return the media types.
+	 */
+	public Set<String> getMediaTypes() {
+		return factories.keySet();
+	}
+
+	/** Handle a request, encoding the response in a binary format if the client asks for one
+	 * of the offered formats.
+	 * @param request the request.
+	 * @param response the response.
+	 * @throws ServletException if the servlet fails.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public void handle(final HttpServletRequest request, final HttpServletResponse response)
+			throws ServletException, IOException {
+		final String type = negotiate(request.getHeader("Accept"));
+		if (type == null) {
+			dispatcher.dispatch(request, response);
+			return;
+		}
+		response.setContentType(type);
+		response.addHeader("Vary", "Accept");
+		final TranscodingResponse tr = new TranscodingResponse(
+				response, factories.get(type).createGenerator(response.getOutputStream()));
+		dispatcher.dispatch(request, tr);
+		tr.finish();
+	}
+
+	/* Returns the offered type with the highest quality, or null to send JSON. Binary types win
+	 * ties with JSON, and ties between binary types go to the type offered first. Wildcards only
+	 * match JSON, since binary formats are only sent to clients that ask for them by name.
+	 */
+	private String negotiate(final String accept) {
+		if (accept == null || factories.isEmpty()) {
+			return null;
+		}
+		final Map<String, Double> quality = new HashMap<>();
+		double wildcard = 0;
+		for (final String range: accept.split(",")) {
+			final String[] parts = range.split(";");
+			final String type = parts[0].trim().toLowerCase();
+			final double q = getQuality(parts);
+			if ("*/*".equals(type) || "application/*".equals(type)) {
+				wildcard = Math.max(wildcard, q);
+			} else if (!quality.containsKey(type) || quality.get(type) < q) {
+				quality.put(type, q);
+			}
+		}
+		final double json = quality.containsKey(JSON) ? quality.get(JSON) : wildcard;
+		String best = null;
+		double bestq = 0;
+		for (final String type: factories.keySet()) {
+			final Double q = quality.get(type);
+			if (q != null && q > bestq) {
+				best = type;
+				bestq = q;
+			}
+		}
+		return bestq >= json ? best : null;
+	}
+
+	// a missing quality is 1, and an unparseable quality is 0
+	private double getQuality(final String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			final String param = parts[i].trim();
+			if (param.startsWith("q=")) {
+				try {
+					final double q = Double.parseDouble(param.substring(2).trim());
+					return q < 0 || q > 1 || Double.isNaN(q) ? 0 : q;
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/* A response that transcodes the JSON written to it to another format. Headers describing
+	 * the JSON body are dropped.
+	 */
+	private static class TranscodingResponse extends HttpServletResponseWrapper {
+
+		private final TranscodingOutputStream out;
+		private PrintWriter writer = null;
+
+		private TranscodingResponse(
+				final HttpServletResponse response,
+				final JsonGenerator generator)
+				throws IOException {
+			super(response);
+			out = new TranscodingOutputStream(generator);
+		}
+
+		private void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			out.finish();
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return out;
+		}
+
+		@Override
+		public PrintWriter getWriter() {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentLength(final int len) {}
+
+		@Override
+		public void setContentType(final String type) {}
+
+		@Override
+		public void setCharacterEncoding(final String charset) {}
+
+		@Override
+		public void setHeader(final String name, final String value) {
+			if (!isBodyHeader(name)) {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(final String name, final String value) {
+			if (!isBodyHeader(name)) {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setIntHeader(final String name, final int value) {
+			if (!isBodyHeader(name)) {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addIntHeader(final String name, final int value) {
+			if (!isBodyHeader(name)) {
+				super.addIntHeader(name, value);
+			}
+		}
+
+		private boolean isBodyHeader(final String name) {
+			return "Content-Length".equalsIgnoreCase(name) ||
+					"Content-Type".equalsIgnoreCase(name);
+		}
+	}
+
+	// feeds the JSON to a non-blocking parser and copies each complete token to the generator
+	private static class TranscodingOutputStream extends ServletOutputStream {
+
+		private final JsonParser parser;
+		private final ByteArrayFeeder feeder;
+		private final JsonGenerator generator;
+		private boolean finished = false;
+
+		private TranscodingOutputStream(final JsonGenerator generator) throws IOException {
+			this.generator = generator;
+			parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+			feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (finished) {
+				throw new IOException("Stream is closed");
+			}
+			if (len < 1) {
+				return;
+			}
+			// the parser doesn't copy the input, so it must all be consumed before returning
+			feeder.feedInput(b, off, off + len);
+			copyTokens();
+		}
+
+		private void copyTokens() throws IOException {
+			JsonToken t;
+			while ((t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+				generator.copyCurrentEvent(parser);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			generator.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		private void finish() throws IOException {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			feeder.endOfInput();
+			copyTokens();
+			generator.flush();
+			parser.close();
+		}
+	}
+}
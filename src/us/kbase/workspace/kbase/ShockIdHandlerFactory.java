@@ -5,11 +5,8 @@ import static java.util.Objects.requireNonNull;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,6 +20,7 @@ import us.kbase.shock.client.exceptions.InvalidShockUrlException;
 import us.kbase.shock.client.exceptions.ShockAuthorizationException;
 import us.kbase.shock.client.exceptions.ShockHttpException;
 import us.kbase.shock.client.exceptions.ShockNoNodeException;
+import us.kbase.typedobj.idref.AssociatedIdIndex;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdParseException;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceException;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet.IdReferenceHandlerException;
@@ -161,8 +159,9 @@ public class ShockIdHandlerFactory implements IdReferenceHandlerFactory {
 	
 	private class ShockIdHandler<T> extends IdReferenceHandler<T> {
 
-		private final Map<T, Set<String>> ids = new HashMap<T, Set<String>>();
-		private final Map<String, String> remapped = new HashMap<>();
+		private final AssociatedIdIndex<T> ids = new AssociatedIdIndex<>();
+		// remapped IDs, indexed by the ID's index in the ID index
+		private String[] remapped;
 		private final AuthToken userToken;
 		
 		private ShockIdHandler(final AuthToken userToken) {
@@ -188,32 +187,22 @@ public class ShockIdHandlerFactory implements IdReferenceHandlerFactory {
 				throw new IdParseException("Illegal bytestream ID: " + id,
 						TYPE, associatedObject, id, null, null);
 			}
-			boolean unique = true;
-			if (!ids.containsKey(associatedObject)) {
-				ids.put(associatedObject, new HashSet<>());
-			}
-			if (ids.get(associatedObject).contains(id)) {
-				unique = false;
-			} else {
-				ids.get(associatedObject).add(id);
-			}
-			return unique;
+			return ids.add(associatedObject, id);
 		}
 		
 
 		@Override
 		protected void processIdsImpl() throws IdReferenceHandlerException {
-			if (ids.isEmpty()) {
+			final List<String> nodes = ids.getIds();
+			remapped = new String[nodes.size()];
+			if (nodes.isEmpty()) {
 				return;
 			}
 			// check readability first, then make copies
 			final Set<String> unowned = ensureNodesUserOwnedAndGetUnownedNodes();
-			for (final T assObj: ids.keySet()) {
-				for (final String node: ids.get(assObj)) {
-					if (!remapped.containsKey(node)) {
-						remapped.put(node, unowned.contains(node) ? own(node) : node);
-					}
-				}
+			for (int i = 0; i < remapped.length; i++) {
+				final String node = nodes.get(i);
+				remapped[i] = unowned.contains(node) ? own(node) : node;
 			}
 		}
 
@@ -250,52 +239,46 @@ public class ShockIdHandlerFactory implements IdReferenceHandlerFactory {
 			}
 			// prevents client from creating & deleting a shock node every startup
 			client.updateToken(userToken);
-			final Set<String> seen = new HashSet<>();
 			final Set<String> unowned = new HashSet<>();
 			final String adminUser = adminClient.getToken().getUserName();
-			for (final T assObj: ids.keySet()) {
-				for (final String node: ids.get(assObj)) {
-					if (seen.contains(node)) {
-						continue;
-					}
-					seen.add(node);
-					final ShockACL acls;
-					try {
-						// checked id syntax on add
-						// ensures user can read the node
-						acls = client.getACLs(new ShockNodeId(node));
-					} catch (ShockAuthorizationException e) {
-						throw new IdReferenceException(String.format(
-								"User %s cannot read bytestream node %s",
-								userToken.getUserName(), node),
-								TYPE, assObj, node, null, null);
-					} catch (ShockNoNodeException e) {
-						throw new IdReferenceException(
-								String.format("Bytestream node %s does not exist", node),
-								TYPE, assObj, node, null, null);
-					} catch (IOException e) {
-						throw new IdReferenceHandlerException(
-								"There was an IO problem while attempting to contact " +
-								"bytestream storage to process IDs: " + e.getMessage(), TYPE, e);
-					} catch (ShockHttpException e) {
-						throw new IdReferenceHandlerException(
-								"Bytestream storage reported a problem while attempting to " +
-								"process IDs: " + e.getMessage(), TYPE, e);
-					}
-					if (acls.getOwner().getUsername().equals(adminUser)) {
-						// clean acls up since a user could create a node and then chown it to
-						// the workspace
-						// TODO BYTESTREAM there's actually no way to unshare nodes when the WS owns them. Need to add a function to do that.
-						removeFromACL(node, adminUser, acls.getWrite(), ShockACLType.WRITE);
-						removeFromACL(node, adminUser, acls.getDelete(), ShockACLType.DELETE);
-					} else if (!acls.getOwner().getUsername().equals(userToken.getUserName())) {
-						throw new IdReferenceException(String.format(
-								"User %s does not own bytestream node %s",
-								userToken.getUserName(), node),
-								TYPE, assObj, node, null, null);
-					} else {
-						unowned.add(node); // own the node
-					}
+			for (final String node: ids.getIds()) {
+				final T assObj = ids.getFirstAssociatedObject(node);
+				final ShockACL acls;
+				try {
+					// checked id syntax on add
+					// ensures user can read the node
+					acls = client.getACLs(new ShockNodeId(node));
+				} catch (ShockAuthorizationException e) {
+					throw new IdReferenceException(String.format(
+							"User %s cannot read bytestream node %s",
+							userToken.getUserName(), node),
+							TYPE, assObj, node, null, null);
+				} catch (ShockNoNodeException e) {
+					throw new IdReferenceException(
+							String.format("Bytestream node %s does not exist", node),
+							TYPE, assObj, node, null, null);
+				} catch (IOException e) {
+					throw new IdReferenceHandlerException(
+							"There was an IO problem while attempting to contact " +
+							"bytestream storage to process IDs: " + e.getMessage(), TYPE, e);
+				} catch (ShockHttpException e) {
+					throw new IdReferenceHandlerException(
+							"Bytestream storage reported a problem while attempting to " +
+							"process IDs: " + e.getMessage(), TYPE, e);
+				}
+				if (acls.getOwner().getUsername().equals(adminUser)) {
+					// clean acls up since a user could create a node and then chown it to
+					// the workspace
+					// TODO BYTESTREAM there's actually no way to unshare nodes when the WS owns them. Need to add a function to do that.
+					removeFromACL(node, adminUser, acls.getWrite(), ShockACLType.WRITE);
+					removeFromACL(node, adminUser, acls.getDelete(), ShockACLType.DELETE);
+				} else if (!acls.getOwner().getUsername().equals(userToken.getUserName())) {
+					throw new IdReferenceException(String.format(
+							"User %s does not own bytestream node %s",
+							userToken.getUserName(), node),
+							TYPE, assObj, node, null, null);
+				} else {
+					unowned.add(node); // own the node
 				}
 			}
 			return unowned;
@@ -329,20 +312,19 @@ public class ShockIdHandlerFactory implements IdReferenceHandlerFactory {
 		@Override
 		protected RemappedId getRemappedIdImpl(final String oldId)
 				throws NoSuchIdException {
-			if (!remapped.containsKey(oldId)) {
+			final int idx = ids.indexOf(oldId);
+			if (idx < 0) {
 				throw new NoSuchIdException(
 						"No such ID contained in this mapper: " + oldId);
 			}
-			return new SimpleRemappedId(remapped.get(oldId));
+			return new SimpleRemappedId(remapped[idx]);
 		}
 
 		@Override
 		protected Set<RemappedId> getRemappedIdsImpl(final T associatedObject) {
-			if (!ids.containsKey(associatedObject)) {
-				return Collections.emptySet();
-			}
-			return ids.get(associatedObject).stream()
-					.map(i -> new SimpleRemappedId(remapped.get(i))).collect(Collectors.toSet());
+			return ids.getIds(associatedObject).stream()
+					.map(i -> new SimpleRemappedId(remapped[ids.indexOf(i)]))
+					.collect(Collectors.toSet());
 		}
 
 		@Override
@@ -22,9 +22,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.JsonParseException;
 
@@ -67,6 +69,7 @@ import us.kbase.workspace.database.ObjectIdentifier;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.User;
 import us.kbase.workspace.database.UserWorkspaceIDs;
@@ -74,6 +77,7 @@ import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
+import us.kbase.workspace.database.WorkspaceObjectData.OptionalField;
 import us.kbase.workspace.database.WorkspaceSaveObject;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
@@ -434,8 +438,18 @@ public class WorkspaceServerMethods {
 				processObjectSpecifications(params.getObjects());
 		final boolean noData = longToBoolean(params.getNoData(), false);
 		final boolean ignoreErrors = longToBoolean(params.getIgnoreErrors(), false);
+		final Set<OptionalField> skip = new HashSet<>();
+		if (longToBoolean(params.getSkipProvenance(), false)) {
+			skip.add(OptionalField.PROVENANCE);
+		}
+		if (longToBoolean(params.getSkipRefs(), false)) {
+			skip.add(OptionalField.REFERENCES);
+		}
+		if (longToBoolean(params.getSkipExtractedIds(), false)) {
+			skip.add(OptionalField.EXTRACTED_IDS);
+		}
 		final List<WorkspaceObjectData> objects = ws.getObjects(
-				user, loi, noData, ignoreErrors, asAdmin);
+				user, loi, noData, ignoreErrors, asAdmin, skip);
 		resourcesToDelete.set(objects);
 		return new GetObjects2Results().withData(translateObjectData(objects, user, true));
 	}
@@ -505,7 +519,9 @@ public class WorkspaceServerMethods {
 				after, before,
 				longToBoolean(params.getExcludeGlobal()),
 				longToBoolean(params.getShowDeleted()),
-				longToBoolean(params.getShowOnlyDeleted())));
+				longToBoolean(params.getShowOnlyDeleted()),
+				checkLong(params.getStartAfter(), -1),
+				longToInt(params.getLimit(), "Limit", -1)));
 	}
 	
 	/** Lists IDs of workspaces to which the user has access. Should be faster than
@@ -595,7 +611,9 @@ public class WorkspaceServerMethods {
 			.withShowAllVersions(longToBoolean(params.getShowAllVersions()))
 			.withIncludeMetaData(longToBoolean(params.getIncludeMetadata()))
 			.withExcludeGlobal(longToBoolean(params.getExcludeGlobal()))
-			.withLimit(longToInt(params.getLimit(), "Limit", -1));
+			.withLimit(longToInt(params.getLimit(), "Limit", -1))
+			.withStartAfter(params.getStartAfter() == null ? null :
+				new Reference(params.getStartAfter()));
 		
 		return objInfoToTuple(ws.listObjects(lop), false);
 	}
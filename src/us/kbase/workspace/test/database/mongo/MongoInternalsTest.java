@@ -14,6 +14,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -581,6 +582,8 @@ public class MongoInternalsTest {
 				is("config"));
 		assertThat("not in update", (Boolean)cd.get("inupdate"), is(false));
 		assertThat("schema v1", (Integer)cd.get("schemaver"), is(1));
+		assertThat("ref index complete", (Boolean)cd.get("refindex"), is(true));
+		assertThat("latest info complete", (Boolean)cd.get("latestinfo"), is(true));
 		
 		//check startup works with the config object in place
 		MongoWorkspaceDB m = new MongoWorkspaceDB(
@@ -764,7 +767,7 @@ public class MongoInternalsTest {
 		}
 		
 		mwdb.cloneWorkspace(user, rwsi, wsi2.getName(), false, null,
-				new WorkspaceUserMetadata(), null);
+				new WorkspaceUserMetadata(), null, false);
 		final ResolvedWorkspaceID rwsi2 = mwdb.resolveWorkspace(wsi2);
 		ObjectIDResolvedWS oidrw2_1 = new ObjectIDResolvedWS(rwsi2,
 				rso.getObjectIdentifier().getName().get());
@@ -810,7 +813,7 @@ public class MongoInternalsTest {
 				new BasicDBObject("$inc", new BasicDBObject("numver", 1)));
 		
 		mwdb.cloneWorkspace(user, rwsi, wsi3.getName(), false, null,
-				new WorkspaceUserMetadata(), null);
+				new WorkspaceUserMetadata(), null, false);
 		final ResolvedWorkspaceID rwsi3 = mwdb.resolveWorkspace(wsi3);
 		ObjectIDResolvedWS oidrw3_1 = new ObjectIDResolvedWS(rwsi3,
 				rso.getObjectIdentifier().getName().get());
@@ -859,6 +862,54 @@ public class MongoInternalsTest {
 		}
 	}
 
+	@Test
+	public void setListRaceCondition() throws Exception {
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("setListRace");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		final Provenance p = new Provenance(user);
+		final Map<String, Object> data = new HashMap<String, Object>();
+		for (final String name: Arrays.asList("obj", "obj2")) {
+			ws.saveObjects(user, wsi, Arrays.asList(new WorkspaceSaveObject(
+					new ObjectIDNoWSNoVer(name), new UObject(data), SAFE_TYPE, null, p, false)),
+					fac);
+		}
+		final ListObjectsParameters lop = new ListObjectsParameters(user, Arrays.asList(wsi));
+		assertThat("incorrect listing", listNamesAndVersions(lop),
+				is(Arrays.asList("obj 1", "obj2 1")));
+		
+		/* The version count is incremented but the version is not yet saved, or the save
+		 * failed. The latest version information still describes version 1, which is no
+		 * longer the latest version, so the object is not listed, rather than listing a
+		 * version that can't be retrieved.
+		 */
+		final long wsid = mwdb.resolveWorkspace(wsi).getID();
+		db.getCollection("workspaceObjects").update(
+				new BasicDBObject("id", 1L).append("ws", wsid),
+				new BasicDBObject("$inc", new BasicDBObject("numver", 1)));
+		assertThat("incorrect listing", listNamesAndVersions(lop),
+				is(Arrays.asList("obj2 1")));
+		
+		// the next save updates the latest version information
+		ws.saveObjects(user, wsi, Arrays.asList(new WorkspaceSaveObject(
+				new ObjectIDNoWSNoVer("obj"), new UObject(data), SAFE_TYPE, null, p, false)),
+				fac);
+		assertThat("incorrect listing", listNamesAndVersions(lop),
+				is(Arrays.asList("obj 3", "obj2 1")));
+		final ObjectInformation info = ws.getObjectInformation(user, Arrays.asList(
+				new ObjectIdentifier(wsi, "obj")), false, false).get(0);
+		assertThat("incorrect version", info.getVersion(), is(3));
+	}
+	
+	private List<String> listNamesAndVersions(final ListObjectsParameters lop)
+			throws Exception {
+		final List<String> ret = new LinkedList<>();
+		for (final ObjectInformation oi: ws.listObjects(lop)) {
+			ret.add(oi.getObjectName() + " " + oi.getVersion());
+		}
+		return ret;
+	}
+	
 	private void failGetObjectsNoSuchObjectExcp(
 			Set<ObjectIDResolvedWS> oidsetver, String msg)
 			throws WorkspaceCommunicationException,
@@ -871,7 +922,7 @@ public class MongoInternalsTest {
 		final ByteArrayFileCacheManager man = new ByteArrayFileCacheManager(
 				10000, 10000, mwdb.getTempFilesManager());
 		try {
-			mwdb.getObjects(paths, man, 0, true, false, true);
+			mwdb.getObjects(paths, man, 0, true, false, true, Collections.emptySet());
 			fail("operated on object with no version");
 		} catch (NoSuchObjectException nsoe) {
 			assertThat("correct exception message", nsoe.getMessage(),
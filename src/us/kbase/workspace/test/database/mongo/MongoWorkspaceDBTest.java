@@ -3,15 +3,25 @@ package us.kbase.workspace.test.database.mongo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static us.kbase.common.test.TestCommon.set;
 
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
 import org.junit.AfterClass;
@@ -22,6 +32,7 @@ import org.junit.Test;
 import com.google.common.collect.ImmutableMap;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 
@@ -36,18 +47,29 @@ import us.kbase.typedobj.core.TempFilesManager;
 import us.kbase.typedobj.core.TypeDefId;
 import us.kbase.typedobj.core.TypeDefName;
 import us.kbase.typedobj.core.ValidatedTypedObject;
+import us.kbase.workspace.database.AllUsers;
+import us.kbase.workspace.database.GetObjectInformationParameters;
 import us.kbase.workspace.database.ObjectIDNoWSNoVer;
 import us.kbase.workspace.database.ObjectIDResolvedWS;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.ObjectReferenceSet;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.PermissionSet;
 import us.kbase.workspace.database.Provenance;
 import us.kbase.workspace.database.Provenance.ProvenanceAction;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.WorkspaceIDSet;
+import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
+import us.kbase.workspace.database.WorkspaceObjectData.OptionalField;
 import us.kbase.workspace.database.WorkspaceSaveObject;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
 import us.kbase.workspace.database.mongo.BlobStore;
 import us.kbase.workspace.database.mongo.Fields;
 import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
+import us.kbase.workspace.database.mongo.ReadClass;
 
 //TODO TEST start moving a bunch of the tests from Workspace test to here, and use mocks in workspace test.
 
@@ -84,6 +106,53 @@ public class MongoWorkspaceDBTest {
 		TestCommon.destroyDB(MONGO_DB);
 	}
 	
+	private static MongoWorkspaceDB newDB() throws Exception {
+		return new MongoWorkspaceDB(MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+	}
+	
+	// creates a workspace owned by user u
+	private static ResolvedWorkspaceID createWorkspace(
+			final MongoWorkspaceDB db,
+			final String name)
+			throws Exception {
+		final WorkspaceInformation wsi = db.createWorkspace(
+				new WorkspaceUser("u"), name, false, null, new WorkspaceUserMetadata());
+		return new ResolvedWorkspaceID(wsi.getId(), name, false, false);
+	}
+	
+	private interface DBCall {
+		void call() throws Exception;
+	}
+	
+	/* Run the call with the mongo profiler on and get the profiled finds the call made, keyed
+	 * by collection.
+	 */
+	private Map<String, List<DBObject>> profileFinds(final DBCall call) throws Exception {
+		final DBCollection profile = MONGO_DB.getCollection("system.profile");
+		final Date start = new Date();
+		MONGO_DB.command(new BasicDBObject("profile", 2));
+		try {
+			call.call();
+		} finally {
+			MONGO_DB.command(new BasicDBObject("profile", 0));
+		}
+		final Map<String, List<DBObject>> ret = new HashMap<>();
+		for (final DBObject op: profile.find(new BasicDBObject("ts", new BasicDBObject(
+				"$gte", start)))) {
+			final DBObject cmd = getCommand(op);
+			if (cmd != null && cmd.get("find") != null) {
+				ret.computeIfAbsent((String) cmd.get("find"), k -> new LinkedList<>()).add(op);
+			}
+		}
+		return ret;
+	}
+	
+	// the find command is under command in mongo 3.6+ and query in earlier versions
+	private DBObject getCommand(final DBObject profiledOp) {
+		return (DBObject) (profiledOp.containsField("command") ?
+				profiledOp.get("command") : profiledOp.get("query"));
+	}
+	
 	@Test
 	public void getProvenanceWithNullFields() throws Exception {
 		// check that older provenance records with missing fields don't throw NPEs.
@@ -141,7 +210,8 @@ public class MongoWorkspaceDBTest {
 						0,
 						true,
 						false,
-						true);
+						true,
+						set());
 		
 		final Provenance pgot = res.get(new ObjectIDResolvedWS(wsid, 1))
 				.get(SubsetSelection.EMPTY).getProvenance();
@@ -203,11 +273,1087 @@ public class MongoWorkspaceDBTest {
 						0,
 						true,
 						false,
-						true);
+						true,
+						set());
 		
 		final WorkspaceObjectData wod = res.get(new ObjectIDResolvedWS(wsid, 1))
 				.get(SubsetSelection.EMPTY);
 		assertThat("incorrect data", wod.getSerializedData(), nullValue());
 		assertThat("incorrect ext ids", wod.getExtractedIds(), is(Collections.emptyMap()));
 	}
+
+	@Test
+	public void versionAndProvenanceCache() throws Exception {
+		// versions and provenance are immutable, so once read they're served from the cache,
+		// while the mutable object name is always read from the db.
+		final MongoWorkspaceDB db = newDB();
+		db.setDocumentCacheSizes(1000000, 1000000);
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		saveObject(db, wsid, "o");
+		saveObject(db, wsid, "o");
+		final ObjectIDResolvedWS o = new ObjectIDResolvedWS(wsid, 1);
+
+		checkCachedInfo(db, o, "o", "Mod.Type-5.1", "u");
+
+		MONGO_DB.getCollection("workspaceObjVersions").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject(Fields.VER_TYPE, "Mod.Type-6.0")),
+				false, true);
+		MONGO_DB.getCollection("provenance").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("user", "u2")), false, true);
+		db.renameObject(o, "o2");
+
+		// cached versions and provenance aren't read from the db at all
+		final Map<String, List<DBObject>> finds = profileFinds(
+				() -> checkCachedInfo(db, o, "o2", "Mod.Type-5.1", "u"));
+		assertThat("versions queried", finds.containsKey("workspaceObjVersions"), is(false));
+		assertThat("provenance queried", finds.containsKey("provenance"), is(false));
+		assertThat("objects not queried", finds.containsKey("workspaceObjects"), is(true));
+		checkCachedInfo(newDB(), o, "o2", "Mod.Type-6.0", "u2");
+	}
+
+	@Test
+	public void partialVersionsNotCached() throws Exception {
+		// versions read with only some fields aren't cached, as they can't answer every query
+		final MongoWorkspaceDB db = newDB();
+		db.setDocumentCacheSizes(1000000, 1000000);
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		saveObject(db, wsid, "o");
+		final ObjectIDResolvedWS o = new ObjectIDResolvedWS(wsid, 1);
+
+		assertThat("incorrect type", db.getObjectInformation(set(o), false, true, false, true)
+				.get(o).getTypeString(), is("Mod.Type-5.1"));
+
+		MONGO_DB.getCollection("workspaceObjVersions").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject(Fields.VER_TYPE, "Mod.Type-6.0")),
+				false, true);
+
+		assertThat("incorrect type", db.getObjectInformation(set(o), false, true, false, true)
+				.get(o).getTypeString(), is("Mod.Type-6.0"));
+	}
+
+	@Test
+	public void getObjectsSkipFields() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		saveObject(db, wsid, "a");
+		final ObjectIDResolvedWS o = new ObjectIDResolvedWS(wsid, "a");
+
+		final WorkspaceObjectData all = db.getObjects(ImmutableMap.of(o, set()),
+				null, 0, true, false, true, set()).get(o).get(SubsetSelection.EMPTY);
+		assertThat("incorrect user", all.getProvenance().getUser(), is(new WorkspaceUser("u")));
+		assertThat("incorrect refs", all.getReferences(), is(Collections.emptyList()));
+		assertThat("incorrect ext ids", all.getExtractedIds(), is(Collections.emptyMap()));
+
+		final WorkspaceObjectData none = db.getObjects(ImmutableMap.of(o, set()),
+				null, 0, true, false, true, set(OptionalField.PROVENANCE,
+						OptionalField.REFERENCES, OptionalField.EXTRACTED_IDS))
+				.get(o).get(SubsetSelection.EMPTY);
+		assertThat("incorrect name", none.getObjectInfo().getObjectName(), is("a"));
+		assertThat("incorrect prov", none.getProvenance(), nullValue());
+		assertThat("incorrect refs", none.getReferences(), nullValue());
+		assertThat("incorrect ext ids", none.getExtractedIds(), nullValue());
+
+		final WorkspaceObjectData prov = db.getObjects(ImmutableMap.of(o, set()),
+				null, 0, true, false, true, set(OptionalField.REFERENCES))
+				.get(o).get(SubsetSelection.EMPTY);
+		assertThat("incorrect user", prov.getProvenance().getUser(), is(new WorkspaceUser("u")));
+		assertThat("incorrect refs", prov.getReferences(), nullValue());
+		assertThat("incorrect ext ids", prov.getExtractedIds(), is(Collections.emptyMap()));
+	}
+
+	@Test
+	public void getObjectsSkipFieldsProjection() throws Exception {
+		// skipped fields are left out of the version query, not just out of the results
+		final MongoWorkspaceDB db = newDB();
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		saveObject(db, wsid, "a");
+		final ObjectIDResolvedWS o = new ObjectIDResolvedWS(wsid, "a");
+		final Set<String> skipped = set(Fields.VER_PROV, Fields.VER_PROVREF,
+				Fields.VER_PROV_DATE, Fields.VER_PROV_WS_ID, Fields.VER_REF, Fields.VER_EXT_IDS);
+
+		final Set<String> all = getVersionProjection(() -> db.getObjects(
+				ImmutableMap.of(o, set()), null, 0, true, false, true, set()));
+		assertThat("missing fields", all.containsAll(skipped), is(true));
+
+		final Set<String> none = getVersionProjection(() -> db.getObjects(
+				ImmutableMap.of(o, set()), null, 0, true, false, true, set(
+						OptionalField.PROVENANCE, OptionalField.REFERENCES,
+						OptionalField.EXTRACTED_IDS)));
+		final Set<String> expected = new HashSet<>(all);
+		expected.removeAll(skipped);
+		assertThat("incorrect fields", none, is(expected));
+		assertThat("missing type", none.contains(Fields.VER_TYPE), is(true));
+
+		final Set<String> refs = getVersionProjection(() -> db.getObjects(
+				ImmutableMap.of(o, set()), null, 0, true, false, true,
+				set(OptionalField.REFERENCES)));
+		final Set<String> expected2 = new HashSet<>(all);
+		expected2.remove(Fields.VER_REF);
+		assertThat("incorrect fields", refs, is(expected2));
+	}
+
+	// get the fields projected by the finds on the versions collection made by the call
+	private Set<String> getVersionProjection(final DBCall call) throws Exception {
+		final Set<String> ret = new HashSet<>();
+		for (final DBObject op: profileFinds(call).getOrDefault(
+				"workspaceObjVersions", Collections.emptyList())) {
+			final DBObject cmd = getCommand(op);
+			if (cmd.containsField("projection")) {
+				ret.addAll(((DBObject) cmd.get("projection")).keySet());
+			}
+		}
+		ret.remove(Fields.MONGO_ID);
+		assertThat("no version query", ret.isEmpty(), is(false));
+		return ret;
+	}
+
+	@Test
+	public void provenanceDeduplicated() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		final ResolvedWorkspaceID wsid2 = createWorkspace(db, "ws2");
+		// the provenance differs only by date and workspace, and is saved in separate calls
+		saveObject(db, wsid, "a", new Date(10000));
+		saveObject(db, wsid, "b", new Date(20000));
+		saveObject(db, wsid2, "c", new Date(30000));
+
+		assertThat("incorrect prov count",
+				MONGO_DB.getCollection("provenance").count(), is(1L));
+		final DBObject prov = MONGO_DB.getCollection("provenance").findOne();
+		assertThat("missing hash", prov.get("hash") instanceof String, is(true));
+		assertThat("date in shared prov", prov.containsField("date"), is(false));
+		assertThat("wsid in shared prov", prov.containsField("wsid"), is(false));
+		final Set<Object> provids = new HashSet<>();
+		for (final DBObject v: MONGO_DB.getCollection("workspaceObjVersions").find()) {
+			provids.add(v.get("provenance"));
+		}
+		assertThat("incorrect prov ids", provids, is(set(prov.get("_id"))));
+
+		final ObjectIDResolvedWS a = new ObjectIDResolvedWS(wsid, "a");
+		final ObjectIDResolvedWS b = new ObjectIDResolvedWS(wsid, "b");
+		final ObjectIDResolvedWS c = new ObjectIDResolvedWS(wsid2, "c");
+		final Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> res =
+				db.getObjects(ImmutableMap.of(a, set(), b, set(), c, set()),
+						null, 0, true, false, true, set());
+		checkProvenance(res.get(a), new Date(10000), 1L);
+		checkProvenance(res.get(b), new Date(20000), 1L);
+		checkProvenance(res.get(c), new Date(30000), 2L);
+	}
+
+	@Test
+	public void provenanceBeforeVersionDates() throws Exception {
+		// versions saved before the date and workspace ID moved to the version read them from
+		// the provenance document
+		final MongoWorkspaceDB db = newDB();
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		saveObject(db, wsid, "a", new Date(10000));
+		MONGO_DB.getCollection("workspaceObjVersions").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("provdate", "")
+						.append("provwsid", "")));
+		MONGO_DB.getCollection("provenance").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("date", new Date(40000))
+						.append("wsid", 7L)));
+
+		final ObjectIDResolvedWS a = new ObjectIDResolvedWS(wsid, "a");
+		checkProvenance(db.getObjects(ImmutableMap.of(a, set()), null, 0, true, false, true,
+				set()).get(a), new Date(40000), 7L);
+	}
+
+	private void checkProvenance(
+			final Map<SubsetSelection, WorkspaceObjectData> data,
+			final Date date,
+			final long wsid) {
+		final Provenance p = data.get(SubsetSelection.EMPTY).getProvenance();
+		assertThat("incorrect user", p.getUser(), is(new WorkspaceUser("u")));
+		assertThat("incorrect date", p.getDate(), is(date));
+		assertThat("incorrect wsid", p.getWorkspaceID(), is(wsid));
+	}
+
+	private void checkCachedInfo(
+			final MongoWorkspaceDB db,
+			final ObjectIDResolvedWS o,
+			final String name,
+			final String type,
+			final String provUser)
+			throws Exception {
+		final ObjectInformation info = db.getObjectInformation(set(o), false, true, false, true)
+				.get(o);
+		assertThat("incorrect name", info.getObjectName(), is(name));
+		assertThat("incorrect type", info.getTypeString(), is(type));
+		assertThat("incorrect version", info.getVersion(), is(2));
+
+		final List<ObjectInformation> hist = db.getObjectHistory(o);
+		assertThat("incorrect history count", hist.size(), is(2));
+		for (int i = 0; i < 2; i++) {
+			assertThat("incorrect name", hist.get(i).getObjectName(), is(name));
+			assertThat("incorrect type", hist.get(i).getTypeString(), is(type));
+			assertThat("incorrect version", hist.get(i).getVersion(), is(i + 1));
+		}
+
+		final WorkspaceObjectData wod = db.getObjects(ImmutableMap.of(o, set()),
+				null, 0, true, false, true, set()).get(o).get(SubsetSelection.EMPTY);
+		assertThat("incorrect name", wod.getObjectInfo().getObjectName(), is(name));
+		assertThat("incorrect type", wod.getObjectInfo().getTypeString(), is(type));
+		assertThat("incorrect prov user", wod.getProvenance().getUser(),
+				is(new WorkspaceUser(provUser)));
+	}
+
+	private void saveObject(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID wsid,
+			final String name)
+			throws Exception {
+		saveObject(db, wsid, name, set(), Collections.emptyList());
+	}
+
+	private void saveObject(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID wsid,
+			final String name,
+			final Set<Reference> refs,
+			final List<Reference> provrefs)
+			throws Exception {
+		saveObject(db, wsid, name, new AbsoluteTypeDefId(new TypeDefName("Mod.Type"), 5, 1),
+				refs, provrefs);
+	}
+	
+	private void saveObject(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID wsid,
+			final String name,
+			final Date provDate)
+			throws Exception {
+		saveObject(db, wsid, name, new AbsoluteTypeDefId(new TypeDefName("Mod.Type"), 5, 1),
+				set(), Collections.emptyList(), provDate);
+	}
+	
+	private void saveObject(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID wsid,
+			final String name,
+			final AbsoluteTypeDefId type,
+			final Set<Reference> refs,
+			final List<Reference> provrefs)
+			throws Exception {
+		saveObject(db, wsid, name, type, refs, provrefs, new Date(10000));
+	}
+	
+	private void saveObject(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID wsid,
+			final String name,
+			final AbsoluteTypeDefId type,
+			final Set<Reference> refs,
+			final List<Reference> provrefs,
+			final Date provDate)
+			throws Exception {
+		final ValidatedTypedObject vto = mock(ValidatedTypedObject.class);
+		when(vto.getValidationTypeDefId()).thenReturn(type);
+		when(vto.extractMetadata(16000)).thenReturn(new ExtractedMetadata(Collections.emptyMap()));
+		when(vto.getMD5()).thenReturn(new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+		when(vto.getRelabeledSize()).thenReturn(22L);
+		
+		final Provenance p = new Provenance(new WorkspaceUser("u"), provDate);
+		p.setWorkspaceID(wsid.getID());
+		db.saveObjects(new WorkspaceUser("u"), wsid,
+				Arrays.asList(new WorkspaceSaveObject(
+						new ObjectIDNoWSNoVer(name),
+						new UObject(ImmutableMap.of("foo", "bar")),
+						TypeDefId.fromTypeString(type.getTypeString()),
+						null,
+						p,
+						false)
+						.resolve(vto, refs, provrefs, Collections.emptyMap())
+						));
+	}
+	
+	@Test
+	public void objectReferences() throws Exception {
+		// check the object references collection is maintained on save and copy, and that
+		// lookups are the same with and without the collection.
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		final Reference target = new Reference(1, 1, 1);
+		final Reference other = new Reference(1, 2, 1);
+		
+		saveObject(db, wsid, "target");
+		saveObject(db, wsid, "other");
+		saveObject(db, wsid, "source", set(target, other), Arrays.asList(target));
+		db.copyObject(u, new ObjectIDResolvedWS(wsid, "source"),
+				new ObjectIDResolvedWS(wsid, "copy"));
+		
+		final Set<Map<String, Object>> gotrefs = new HashSet<>();
+		for (final DBObject r: MONGO_DB.getCollection("objectReferences").find(
+				new BasicDBObject(), new BasicDBObject("_id", 0))) {
+			gotrefs.add(r.toMap());
+		}
+		assertThat("incorrect references", gotrefs, is(set(
+				objref("1/1/1", 1, 3, 1, false),
+				objref("1/2/1", 1, 3, 1, false),
+				objref("1/1/1", 1, 3, 1, true),
+				objref("1/1/1", 1, 4, 1, false),
+				objref("1/2/1", 1, 4, 1, false),
+				objref("1/1/1", 1, 4, 1, true))));
+		
+		final Map<Reference, ObjectReferenceSet> expected = ImmutableMap.of(
+				target, new ObjectReferenceSet(target,
+						set(new Reference(1, 3, 1), new Reference(1, 4, 1)), true),
+				other, new ObjectReferenceSet(other,
+						set(new Reference(1, 3, 1), new Reference(1, 4, 1)), true));
+		assertThat("incorrect incoming refs", db.getObjectIncomingReferences(set(target, other)),
+				is(expected));
+		final Map<ObjectIDResolvedWS, Set<ObjectInformation>> refobjs = db.getReferencingObjects(
+				db.getPermissions(u, Permission.READ, false),
+				set(new ObjectIDResolvedWS(wsid, 1), new ObjectIDResolvedWS(wsid, 2)));
+		assertThat("incorrect referencing object count",
+				refobjs.get(new ObjectIDResolvedWS(wsid, 1)).size(), is(2));
+		
+		// check the version collection is used if the references collection is incomplete
+		MONGO_DB.getCollection("config").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("refindex", "")));
+		final MongoWorkspaceDB olddb = newDB();
+		MONGO_DB.getCollection("objectReferences").remove(new BasicDBObject());
+		
+		assertThat("incorrect incoming refs",
+				olddb.getObjectIncomingReferences(set(target, other)), is(expected));
+		assertThat("incorrect referencing objects", olddb.getReferencingObjects(
+				olddb.getPermissions(u, Permission.READ, false),
+				set(new ObjectIDResolvedWS(wsid, 1), new ObjectIDResolvedWS(wsid, 2))),
+				is(refobjs));
+	}
+	
+	@Test
+	public void cloneWorkspace() throws Exception {
+		// check the bulk clone writes complete objects, versions, references and counts.
+		final MongoWorkspaceDB db = newDB();
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		final Reference target = new Reference(1, 1, 1);
+		
+		saveObject(db, wsid, "target");
+		saveObject(db, wsid, "source", set(target), Arrays.asList(target));
+		saveObject(db, wsid, "source");
+		
+		final WorkspaceInformation wsi = db.cloneWorkspace(new WorkspaceUser("u2"), wsid, "ws2",
+				false, null, new WorkspaceUserMetadata(), set(), false);
+		assertThat("incorrect max id", wsi.getMaximumObjectID(), is(2L));
+		
+		final DBObject srctarget = MONGO_DB.getCollection("workspaceObjects").findOne(
+				new BasicDBObject("ws", 1).append("id", 1));
+		assertThat("incorrect ref counts", srctarget.get("refcnt"), is(Arrays.asList(2)));
+		final DBObject obj = MONGO_DB.getCollection("workspaceObjects").findOne(
+				new BasicDBObject("ws", 2).append("id", 2));
+		assertThat("incorrect version count", obj.get("numver"), is(2));
+		assertThat("incorrect ref counts", obj.get("refcnt"), is(Arrays.asList(0, 0)));
+		assertThat("incorrect name", obj.get("name"), is("source"));
+		assertThat("incorrect latest version saver",
+				((DBObject) obj.get("latestinfo")).get("savedby"), is("u2"));
+		
+		final DBObject ver = MONGO_DB.getCollection("workspaceObjVersions").findOne(
+				new BasicDBObject("ws", 2).append("id", 2).append("ver", 1));
+		assertThat("incorrect copied", ver.get("copied"), is("1/2/1"));
+		assertThat("incorrect saver", ver.get("savedby"), is("u2"));
+		assertThat("incorrect refs", ver.get("refs"), is(Arrays.asList("1/1/1")));
+		assertThat("incorrect references", MONGO_DB.getCollection("objectReferences").count(
+				new BasicDBObject("ws", 2)), is(2L));
+	}
+	
+	@Test
+	public void cloneWorkspaceSharedVersions() throws Exception {
+		// check a clone sharing versions returns the same versions as a copy without storing
+		// them, and that the versions are only copied when the clone is cloned.
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final WorkspaceUser u2 = new WorkspaceUser("u2");
+		final ResolvedWorkspaceID wsid = createWorkspace(db, "ws");
+		final Reference target = new Reference(1, 1, 1);
+		
+		saveObject(db, wsid, "target");
+		saveObject(db, wsid, "source", set(target), Arrays.asList(target));
+		saveObject(db, wsid, "source");
+		
+		db.cloneWorkspace(u2, wsid, "copy", false, null, new WorkspaceUserMetadata(), set(),
+				false);
+		db.cloneWorkspace(u2, wsid, "shared", false, null, new WorkspaceUserMetadata(), set(),
+				true);
+		final ResolvedWorkspaceID copy = new ResolvedWorkspaceID(2, "copy", false, false);
+		final ResolvedWorkspaceID shared = new ResolvedWorkspaceID(3, "shared", false, false);
+		final ObjectIDResolvedWS sharedsrc = new ObjectIDResolvedWS(shared, "source");
+		
+		final DBObject sharedws = new BasicDBObject("ws", 3);
+		assertThat("incorrect versions", MONGO_DB.getCollection("workspaceObjVersions")
+				.count(sharedws), is(0L));
+		assertThat("incorrect ref counts", MONGO_DB.getCollection("workspaceObjects").findOne(
+				new BasicDBObject("ws", 1).append("id", 1)).get("refcnt"),
+				is(Arrays.asList(3)));
+		assertThat("incorrect references", MONGO_DB.getCollection("objectReferences")
+				.count(sharedws), is(2L));
+		
+		final List<ObjectInformation> copyhist = db.getObjectHistory(
+				new ObjectIDResolvedWS(copy, "source"));
+		final List<ObjectInformation> sharedhist = db.getObjectHistory(sharedsrc);
+		checkSharedHistory(sharedhist, copyhist);
+		final WorkspaceObjectData wod = db.getObjects(ImmutableMap.of(
+				new ObjectIDResolvedWS(shared, "source", 1), set()),
+				null, 0, true, false, true, set()).values().iterator().next()
+				.get(SubsetSelection.EMPTY);
+		assertThat("incorrect copy ref", wod.getCopyReference(), is(new Reference(1, 2, 1)));
+		assertThat("incorrect refs", wod.getReferences(), is(Arrays.asList("1/1/1")));
+		
+		// new versions are stored in the clone
+		saveObject(db, shared, "source");
+		final List<ObjectInformation> newhist = db.getObjectHistory(sharedsrc);
+		assertThat("incorrect history count", newhist.size(), is(3));
+		assertThat("incorrect saver", newhist.get(2).getSavedBy(), is(u));
+		
+		// listing all versions and finding referencing objects read the shared versions
+		final PermissionSet perms = db.getPermissions(u2, shared);
+		final GetObjectInformationParameters params = listParams(perms, false, false, false);
+		when(params.isShowAllVersions()).thenReturn(true);
+		assertThat("incorrect list", toRefs(db.getObjectInformation(params)), is(Arrays.asList(
+				"3/1/1", "3/2/3", "3/2/2", "3/2/1")));
+		when(params.getStartAfter()).thenReturn(new Reference(3, 2, 3));
+		assertThat("incorrect list", toRefs(db.getObjectInformation(params)), is(Arrays.asList(
+				"3/2/2", "3/2/1")));
+		when(params.getStartAfter()).thenReturn(null);
+		when(params.getSavers()).thenReturn(Arrays.asList(u2));
+		assertThat("incorrect list", toRefs(db.getObjectInformation(params)), is(Arrays.asList(
+				"3/1/1", "3/2/2", "3/2/1")));
+		final ObjectIDResolvedWS targetid = new ObjectIDResolvedWS(wsid, "target", 1);
+		final Set<ObjectInformation> refobjs = db.getReferencingObjects(
+				perms, set(targetid)).get(targetid);
+		assertThat("incorrect referencing objects", toRefs(new LinkedList<>(refobjs)),
+				is(Arrays.asList("3/2/1")));
+		assertThat("incorrect referencing object saver",
+				refobjs.iterator().next().getSavedBy(), is(u2));
+		assertThat("incorrect versions", MONGO_DB.getCollection("workspaceObjVersions")
+				.count(sharedws), is(1L));
+		
+		// cloning the clone copies the shared versions into it
+		db.cloneWorkspace(u2, shared, "shared2", false, null, new WorkspaceUserMetadata(),
+				set(), true);
+		assertThat("incorrect versions", MONGO_DB.getCollection("workspaceObjVersions")
+				.count(sharedws), is(4L));
+		assertThat("incorrect shared objects", MONGO_DB.getCollection("workspaceObjects")
+				.count(new BasicDBObject("ws", 3).append(
+						"src", new BasicDBObject("$exists", true))), is(0L));
+		assertThat("incorrect shared workspaces", MONGO_DB.getCollection("workspaces")
+				.count(new BasicDBObject("ws", 3).append(
+						"sharedvers", new BasicDBObject("$exists", true))), is(0L));
+		final List<ObjectInformation> copiedhist = db.getObjectHistory(sharedsrc);
+		assertThat("incorrect history", copiedhist.subList(0, 2), is(sharedhist));
+	}
+	
+	private List<String> toRefs(final List<ObjectInformation> objs) {
+		return objs.stream().map(o -> o.getWorkspaceId() + "/" + o.getObjectId() + "/" +
+				o.getVersion()).collect(Collectors.toList());
+	}
+	
+	private void checkSharedHistory(
+			final List<ObjectInformation> shared,
+			final List<ObjectInformation> copy) {
+		assertThat("incorrect history count", shared.size(), is(copy.size()));
+		for (int i = 0; i < copy.size(); i++) {
+			final ObjectInformation s = shared.get(i);
+			final ObjectInformation c = copy.get(i);
+			assertThat("incorrect workspace", s.getWorkspaceId(), is(3L));
+			assertThat("incorrect version", s.getVersion(), is(c.getVersion()));
+			assertThat("incorrect id", s.getObjectId(), is(c.getObjectId()));
+			assertThat("incorrect name", s.getObjectName(), is(c.getObjectName()));
+			assertThat("incorrect saver", s.getSavedBy(), is(c.getSavedBy()));
+			assertThat("incorrect type", s.getTypeString(), is(c.getTypeString()));
+			assertThat("incorrect checksum", s.getCheckSum(), is(c.getCheckSum()));
+		}
+	}
+	
+	@Test
+	public void getWorkspaceIDs() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u1 = new WorkspaceUser("u1");
+		final WorkspaceUser u2 = new WorkspaceUser("u2");
+		final AllUsers all = new AllUsers('*');
+		for (final String name: Arrays.asList("own", "write", "pub", "delpub", "none")) {
+			db.createWorkspace(name.equals("own") ? u1 : u2, name, false, null,
+					new WorkspaceUserMetadata());
+		}
+		db.setPermissions(new ResolvedWorkspaceID(2, "write", false, false), Arrays.asList(u1),
+				Permission.WRITE);
+		db.setGlobalPermission(new ResolvedWorkspaceID(3, "pub", false, false), Permission.READ);
+		final ResolvedWorkspaceID delpub = new ResolvedWorkspaceID(4, "delpub", false, false);
+		db.setGlobalPermission(delpub, Permission.READ);
+		db.setPermissions(delpub, Arrays.asList(u1), Permission.READ);
+		db.setWorkspaceDeleted(delpub, true);
+		
+		assertThat("incorrect ids", db.getWorkspaceIDs(u1, Permission.READ, false),
+				is(wsids(1, 2, 4)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(u1, Permission.READ, true),
+				is(wsids(1, 2)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(u1, Permission.WRITE, true),
+				is(wsids(1, 2)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(u1, Permission.OWNER, true),
+				is(wsids(1)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(all, Permission.READ, false),
+				is(wsids(3, 4)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(all, Permission.READ, true),
+				is(wsids(3)));
+		assertThat("incorrect ids", db.getWorkspaceIDs(
+				new WorkspaceUser("u3"), Permission.READ, true), is(WorkspaceIDSet.empty()));
+	}
+	
+	private WorkspaceIDSet wsids(final long... ids) {
+		final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+		for (final long id: ids) {
+			b.withID(id);
+		}
+		return b.build();
+	}
+	
+	@Test
+	public void listLatestVersions() throws Exception {
+		// check the latest version information is maintained on the object documents, and that
+		// listing objects is the same with and without it.
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		final ResolvedWorkspaceID ws2 = createWorkspace(db, "ws2");
+		
+		for (final String name: Arrays.asList("a", "a", "a", "hidden", "deleted")) {
+			saveObject(db, ws1, name, set(), Collections.emptyList());
+		}
+		saveObject(db, ws2, "a2");
+		saveObject(db, ws2, "deleted2");
+		db.copyObject(u, new ObjectIDResolvedWS(ws1, "a", 1), new ObjectIDResolvedWS(ws2, "a2"));
+		db.revertObject(u, new ObjectIDResolvedWS(ws1, "a", 2));
+		db.setObjectsHidden(set(new ObjectIDResolvedWS(ws1, "hidden")), true);
+		db.setObjectsDeleted(set(new ObjectIDResolvedWS(ws1, "deleted"),
+				new ObjectIDResolvedWS(ws2, "deleted2")), true);
+		
+		final DBObject a = MONGO_DB.getCollection("workspaceObjects").findOne(
+				new BasicDBObject("ws", 1L).append("id", 1L));
+		final DBObject info = (DBObject) a.get("latestinfo");
+		// the information is only listed if its version is the version count
+		assertThat("incorrect latest version", a.get("numver"), is(4));
+		assertThat("incorrect latest info version", info.get("ver"), is(4));
+		assertThat("incorrect type", info.get("type"), is("Mod.Type-5.1"));
+		assertThat("incorrect size", info.get("size"), is(22L));
+		
+		// the user can't see the deleted objects in ws2
+		final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+				.withWorkspace(ws1, Permission.WRITE, Permission.NONE)
+				.withWorkspace(ws2, Permission.READ, Permission.NONE)
+				.build();
+		final List<List<ObjectInformation>> got = new LinkedList<>();
+		for (final boolean[] flags: Arrays.asList(
+				new boolean[] {false, false, false},
+				new boolean[] {true, false, false},
+				new boolean[] {false, true, false},
+				new boolean[] {true, true, false},
+				new boolean[] {true, false, true})) {
+			got.add(db.getObjectInformation(listParams(pset, flags[0], flags[1], flags[2])));
+		}
+		assertThat("incorrect object names", got.stream().map(l -> l.stream()
+				.map(oi -> oi.getObjectName() + "/" + oi.getVersion())
+				.collect(Collectors.toSet())).collect(Collectors.toList()),
+				is(Arrays.asList(
+						set("a/4", "a2/2"),
+						set("a/4", "a2/2", "hidden/1"),
+						set("a/4", "a2/2", "deleted/1"),
+						set("a/4", "a2/2", "hidden/1", "deleted/1"),
+						set("deleted/1"))));
+		
+		// the listing only reads the object documents with a single indexed query, and only
+		// projects the latest version metadata if it's requested
+		final Set<String> listed = set(Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL,
+				Fields.OBJ_HIDE, Fields.OBJ_VCNT, Fields.OBJ_WS_ID);
+		for (final boolean includeMeta: Arrays.asList(false, true)) {
+			final GetObjectInformationParameters params = listParams(pset, false, false, false);
+			when(params.isIncludeMetaData()).thenReturn(includeMeta);
+			final Map<String, List<DBObject>> finds = profileFinds(
+					() -> db.getObjectInformation(params));
+			assertThat("versions queried", finds.containsKey("workspaceObjVersions"),
+					is(false));
+			assertThat("incorrect object query count", finds.get("workspaceObjects").size(),
+					is(1));
+			final DBObject op = finds.get("workspaceObjects").get(0);
+			final Set<String> proj = ((DBObject) getCommand(op).get("projection")).keySet();
+			assertThat("missing fields", proj.containsAll(listed), is(true));
+			assertThat("incorrect info projection", proj.contains(Fields.OBJ_LATEST_INFO),
+					is(includeMeta));
+			assertThat("metadata projected", proj.contains(
+					Fields.OBJ_LATEST_INFO + Fields.FIELD_SEP + Fields.VER_META), is(false));
+			assertThat("incorrect plan", ((String) op.get("planSummary")).startsWith("IXSCAN"),
+					is(true));
+		}
+		
+		// check the version collection is used if the latest version information is incomplete
+		MONGO_DB.getCollection("config").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("latestinfo", "")));
+		final MongoWorkspaceDB olddb = newDB();
+		MONGO_DB.getCollection("workspaceObjects").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("latestinfo", "")),
+				false, true);
+		int i = 0;
+		for (final boolean[] flags: Arrays.asList(
+				new boolean[] {false, false, false},
+				new boolean[] {true, false, false},
+				new boolean[] {false, true, false},
+				new boolean[] {true, true, false},
+				new boolean[] {true, false, true})) {
+			assertThat("incorrect objects", new HashSet<>(olddb.getObjectInformation(
+					listParams(pset, flags[0], flags[1], flags[2]))),
+					is(new HashSet<>(got.get(i++))));
+		}
+	}
+	
+	@Test
+	public void objectIDBlocks() throws Exception {
+		// two servers reserving blocks of IDs from the same workspace
+		final MongoWorkspaceDB db1 = newDB();
+		final MongoWorkspaceDB db2 = newDB();
+		db1.setObjectIDBlockSize(10, 0);
+		db2.setObjectIDBlockSize(10, 0);
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db1, "ws1");
+		saveObject(db1, ws1, "a");
+		saveObject(db2, ws1, "b");
+		saveObject(db1, ws1, "c");
+		saveObject(db1, ws1, "a"); // no new IDs
+		saveObject(db2, ws1, "d");
+		
+		final DBCollection objs = MONGO_DB.getCollection("workspaceObjects");
+		final Map<String, Long> ids = new HashMap<>();
+		for (final DBObject o: objs.find(new BasicDBObject("ws", 1L))) {
+			ids.put((String) o.get("name"), (Long) o.get("id"));
+		}
+		assertThat("incorrect ids", ids, is(ImmutableMap.of("a", 1L, "b", 11L, "c", 2L, "d", 12L)));
+		assertThat("incorrect max id", db1.getWorkspaceInformation(u, ws1).getMaximumObjectID(),
+				is(20L));
+		
+		// without blocks IDs are allocated from the counter, skipping the unused block IDs
+		db1.setObjectIDBlockSize(0, 0);
+		saveObject(db1, ws1, "e");
+		assertThat("incorrect id", objs.findOne(new BasicDBObject("ws", 1L).append("name", "e"))
+				.get("id"), is(21L));
+		assertThat("incorrect max id", db1.getWorkspaceInformation(u, ws1).getMaximumObjectID(),
+				is(21L));
+	}
+	
+	@Test
+	public void objectIDBlocksMaxWorkspaces() throws Exception {
+		// only the block for the most recently used workspace is kept
+		final MongoWorkspaceDB db = newDB();
+		db.setObjectIDBlockSize(10, 1);
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		final ResolvedWorkspaceID ws2 = createWorkspace(db, "ws2");
+		saveObject(db, ws1, "a");
+		saveObject(db, ws2, "a");
+		saveObject(db, ws1, "b");
+		saveObject(db, ws1, "c");
+		
+		final DBCollection objs = MONGO_DB.getCollection("workspaceObjects");
+		final Map<String, Long> ids = new HashMap<>();
+		for (final DBObject o: objs.find(new BasicDBObject("ws", 1L))) {
+			ids.put((String) o.get("name"), (Long) o.get("id"));
+		}
+		assertThat("incorrect ids", ids, is(ImmutableMap.of("a", 1L, "b", 11L, "c", 12L)));
+	}
+	
+	@Test
+	public void objectIDBlocksFail() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		failSetObjectIDBlockSize(db, -1, 0, new IllegalArgumentException(
+				"blockSize must be >= 0"));
+		failSetObjectIDBlockSize(db, 10, -1, new IllegalArgumentException(
+				"maxWorkspaces must be >= 0"));
+	}
+	
+	private void failSetObjectIDBlockSize(
+			final MongoWorkspaceDB db,
+			final int blockSize,
+			final int maxWorkspaces,
+			final Exception expected) {
+		try {
+			db.setObjectIDBlockSize(blockSize, maxWorkspaces);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	@Test
+	public void workspaceModDateOnlyMovesForward() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		final Date future = new Date(System.currentTimeMillis() + 3600000);
+		MONGO_DB.getCollection("workspaces").update(new BasicDBObject("ws", 1L),
+				new BasicDBObject("$set", new BasicDBObject("moddate", future)));
+		
+		saveObject(db, ws1, "a");
+		
+		assertThat("incorrect mod date", db.getWorkspaceInformation(u, ws1)
+				.getModDate(), is(future.toInstant()));
+	}
+	
+	@Test
+	public void workspaceModDateInterval() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		db.setWorkspaceModDateInterval(3600);
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		
+		// within the interval the date isn't updated
+		final Date recent = new Date(System.currentTimeMillis() - 600000);
+		MONGO_DB.getCollection("workspaces").update(new BasicDBObject("ws", 1L),
+				new BasicDBObject("$set", new BasicDBObject("moddate", recent)));
+		saveObject(db, ws1, "a");
+		assertThat("incorrect mod date", db.getWorkspaceInformation(u, ws1)
+				.getModDate(), is(recent.toInstant()));
+		
+		// outside the interval it is
+		final Date old = new Date(System.currentTimeMillis() - 7200000);
+		MONGO_DB.getCollection("workspaces").update(new BasicDBObject("ws", 1L),
+				new BasicDBObject("$set", new BasicDBObject("moddate", old)));
+		final Instant before = Instant.now();
+		saveObject(db, ws1, "b");
+		assertThat("mod date not updated", db.getWorkspaceInformation(u, ws1)
+				.getModDate().isBefore(before.minusSeconds(1)), is(false));
+		
+		try {
+			db.setWorkspaceModDateInterval(-1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"seconds must be >= 0"));
+		}
+	}
+	
+	@Test
+	public void secondaryReads() throws Exception {
+		// the test server is standalone, so this only checks the reads are still answered
+		final MongoWorkspaceDB db1 = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db1, "ws1");
+		saveObject(db1, ws1, "a");
+		
+		// the workspace was written via db1 but not db2
+		for (final MongoWorkspaceDB db: Arrays.asList(db1, newDB())) {
+			db.setSecondaryReads(set(ReadClass.LIST_OBJECTS, ReadClass.LIST_WORKSPACE_INFO));
+			final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+					.withWorkspace(ws1, Permission.OWNER, Permission.NONE)
+					.build();
+			final List<ObjectInformation> objs = db.getObjectInformation(
+					listParams(pset, false, false, false));
+			assertThat("incorrect object count", objs.size(), is(1));
+			assertThat("incorrect object", objs.get(0).getObjectName(), is("a"));
+			final List<WorkspaceInformation> wsis = db.getWorkspaceInformation(
+					pset, null, null, null, null, false, false, 0, 10);
+			assertThat("incorrect workspace count", wsis.size(), is(1));
+			assertThat("incorrect workspace", wsis.get(0).getName(), is("ws1"));
+		}
+	}
+	
+	@Test
+	public void listLatestVersionsStale() throws Exception {
+		// an object whose version count was incremented but whose version wasn't saved
+		// isn't listed, as for the version collection.
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		saveObject(db, ws1, "a");
+		saveObject(db, ws1, "b");
+		MONGO_DB.getCollection("workspaceObjects").update(
+				new BasicDBObject("ws", 1L).append("id", 1L),
+				new BasicDBObject("$inc", new BasicDBObject("numver", 1)));
+		
+		final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+				.withWorkspace(ws1, Permission.WRITE, Permission.NONE)
+				.build();
+		final List<ObjectInformation> got = db.getObjectInformation(
+				listParams(pset, false, false, false));
+		assertThat("incorrect object count", got.size(), is(1));
+		assertThat("incorrect object", got.get(0).getObjectName(), is("b"));
+	}
+
+	@Test
+	public void lockedWorkspaceCache() throws Exception {
+		// objects in locked workspaces can't change, so resolution and listings are cached.
+		final MongoWorkspaceDB db = newDB();
+		db.setLockedWorkspaceCacheSizes(100, 100);
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		saveObject(db, ws1, "a");
+		db.lockWorkspace(ws1);
+		final ResolvedWorkspaceID locked = new ResolvedWorkspaceID(1, "ws1", true, false);
+
+		checkLockedCache(db, locked, 1);
+		checkLockedCache(db, ws1, 1);
+
+		// simulate a change that can't happen via the API
+		MONGO_DB.getCollection("workspaceObjects").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("del", true).append("hide", true)));
+
+		// resolution and listings for the locked workspace don't touch the object documents
+		final Map<String, List<DBObject>> finds = profileFinds(
+				() -> checkLockedCache(db, locked, 1));
+		assertThat("objects queried", finds.containsKey("workspaceObjects"), is(false));
+		checkLockedCache(db, ws1, 0);
+		checkLockedCache(newDB(), locked, 0);
+
+		// renaming the workspace clears the cache for the workspace
+		db.renameWorkspace(locked, "ws2");
+		checkLockedCache(db, locked, 0);
+	}
+
+	@Test
+	public void lockedWorkspaceCacheSecondaryReads() throws Exception {
+		// a secondary may not have seen the writes before the lock, so its listings aren't cached
+		final MongoWorkspaceDB db1 = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db1, "ws1");
+		saveObject(db1, ws1, "a");
+		db1.lockWorkspace(ws1);
+		final ResolvedWorkspaceID locked = new ResolvedWorkspaceID(1, "ws1", true, false);
+		// the workspace wasn't written via db, so its listings are read from a secondary
+		final MongoWorkspaceDB db = newDB();
+		db.setLockedWorkspaceCacheSizes(100, 100);
+		db.setSecondaryReads(set(ReadClass.LIST_OBJECTS));
+		final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+				.withWorkspace(locked, Permission.OWNER, Permission.NONE)
+				.build();
+
+		assertThat("incorrect list count", db.getObjectInformation(
+				listParams(pset, false, false, false)).size(), is(1));
+
+		// simulate a change that can't happen via the API
+		MONGO_DB.getCollection("workspaceObjects").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("hide", true)));
+
+		assertThat("incorrect list count", db.getObjectInformation(
+				listParams(pset, false, false, false)).size(), is(0));
+	}
+
+	private void checkLockedCache(
+			final MongoWorkspaceDB db,
+			final ResolvedWorkspaceID rwsi,
+			final int expectedCount)
+			throws Exception {
+		final ObjectIDResolvedWS o = new ObjectIDResolvedWS(rwsi, "a");
+		assertThat("incorrect info count", db.getObjectInformation(
+				set(o), false, false, false, false).size(), is(expectedCount));
+		final PermissionSet pset = PermissionSet.getBuilder(
+				new WorkspaceUser("u"), new AllUsers('*'))
+				.withWorkspace(rwsi, Permission.OWNER, Permission.NONE)
+				.build();
+		assertThat("incorrect list count", db.getObjectInformation(
+				listParams(pset, false, false, false)).size(), is(expectedCount));
+	}
+
+	@Test
+	public void listObjectsByType() throws Exception {
+		// check types are matched by name, major version, or full version, and that the ws/type
+		// indexes are used so only objects of the type are examined.
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		final ResolvedWorkspaceID ws2 = createWorkspace(db, "ws2");
+		final Map<String, String> objs = new LinkedHashMap<>();
+		objs.put("a", "Mod.Type-1.0");
+		objs.put("b", "Mod.Type-1.2");
+		objs.put("c", "Mod.Type-1.20");
+		objs.put("d", "Mod.Type-10.0");
+		objs.put("e", "Mod.Type-2.1");
+		objs.put("f", "Mod.Typer-1.0");
+		objs.put("g", "Mod2.Type-1.2");
+		for (final Entry<String, String> e: objs.entrySet()) {
+			saveObject(db, ws1, e.getKey(), AbsoluteTypeDefId.fromAbsoluteTypeString(
+					e.getValue()), set(), Collections.emptyList());
+		}
+		saveObject(db, ws2, "h", AbsoluteTypeDefId.fromAbsoluteTypeString("Mod.Type-1.2"),
+				set(), Collections.emptyList());
+		final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+				.withWorkspace(ws1, Permission.WRITE, Permission.NONE)
+				.withWorkspace(ws2, Permission.READ, Permission.NONE)
+				.build();
+		
+		MONGO_DB.command(new BasicDBObject("profile", 2));
+		try {
+			for (final boolean allVers: Arrays.asList(false, true)) {
+				final String col = allVers ? "workspaceObjVersions" : "workspaceObjects";
+				final String index = allVers ? "IXSCAN { ws: 1, type: 1, id: 1, ver: -1 }" :
+					"IXSCAN { ws: 1, latestinfo.type: 1, id: 1 }";
+				checkListByType(db, pset, allVers, "Mod.Type", col, index,
+						Arrays.asList("a", "b", "c", "d", "e", "h"));
+				checkListByType(db, pset, allVers, "Mod.Type-1", col, index,
+						Arrays.asList("a", "b", "c", "h"));
+				checkListByType(db, pset, allVers, "Mod.Type-1.2", col, index,
+						Arrays.asList("b", "h"));
+				checkListByType(db, pset, allVers, "Mod.Type-10", col, index,
+						Arrays.asList("d"));
+				checkListByType(db, pset, allVers, "Mod.Typer", col, index,
+						Arrays.asList("f"));
+				checkListByType(db, pset, allVers, "Mod.Type-3", col, index,
+						Arrays.asList());
+			}
+		} finally {
+			MONGO_DB.command(new BasicDBObject("profile", 0));
+		}
+	}
+	
+	private void checkListByType(
+			final MongoWorkspaceDB db,
+			final PermissionSet pset,
+			final boolean showAllVersions,
+			final String type,
+			final String collection,
+			final String index,
+			final List<String> expected)
+			throws Exception {
+		final GetObjectInformationParameters params = listParams(pset, false, false, false);
+		when(params.getType()).thenReturn(TypeDefId.fromTypeString(type));
+		when(params.isObjectIDFiltersOnly()).thenReturn(false);
+		when(params.isShowAllVersions()).thenReturn(showAllVersions);
+		assertThat("incorrect objects for " + type, db.getObjectInformation(params).stream()
+				.map(oi -> oi.getObjectName()).sorted().collect(Collectors.toList()),
+				is(expected));
+		
+		// the query plan must use the ws/type index and only examine objects of the type
+		final DBObject profile = MONGO_DB.getCollection("system.profile")
+				.find(new BasicDBObject("command.find", collection))
+				.sort(new BasicDBObject("ts", -1)).limit(1).next();
+		assertThat("incorrect plan for " + type, profile.get("planSummary"), is(index));
+		assertThat("incorrect docs examined for " + type, profile.get("docsExamined"),
+				is(expected.size()));
+	}
+	
+	@Test
+	public void listObjectsStartAfter() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final ResolvedWorkspaceID ws1 = createWorkspace(db, "ws1");
+		final ResolvedWorkspaceID ws2 = createWorkspace(db, "ws2");
+		for (final String name: Arrays.asList("a", "b", "b", "c")) {
+			saveObject(db, ws1, name, set(), Collections.emptyList());
+		}
+		for (final String name: Arrays.asList("d", "e", "e")) {
+			saveObject(db, ws2, name, set(), Collections.emptyList());
+		}
+		final PermissionSet pset = PermissionSet.getBuilder(u, new AllUsers('*'))
+				.withWorkspace(ws1, Permission.WRITE, Permission.NONE)
+				.withWorkspace(ws2, Permission.READ, Permission.NONE)
+				.build();
+		
+		final List<String> latest = Arrays.asList("1/1/1", "1/2/2", "1/3/1", "2/1/1", "2/2/2");
+		final List<String> all = Arrays.asList(
+				"1/1/1", "1/2/2", "1/2/1", "1/3/1", "2/1/1", "2/2/2", "2/2/1");
+		assertThat("incorrect pages", pageObjects(db, pset, false), is(latest));
+		assertThat("incorrect pages", pageObjects(db, pset, true), is(all));
+		
+		// check paging is the same without the latest version information
+		MONGO_DB.getCollection("config").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("latestinfo", "")));
+		final MongoWorkspaceDB olddb = newDB();
+		assertThat("incorrect pages", pageObjects(olddb, pset, false), is(latest));
+		assertThat("incorrect pages", pageObjects(olddb, pset, true), is(all));
+	}
+	
+	// pages through the objects 2 at a time and returns the object references
+	private List<String> pageObjects(
+			final MongoWorkspaceDB db,
+			final PermissionSet pset,
+			final boolean showAllVersions)
+			throws Exception {
+		final List<String> ret = new LinkedList<>();
+		Reference startAfter = null;
+		while (true) {
+			final GetObjectInformationParameters params = listParams(pset, false, false, false);
+			when(params.isShowAllVersions()).thenReturn(showAllVersions);
+			when(params.getLimit()).thenReturn(2);
+			when(params.getStartAfter()).thenReturn(startAfter);
+			final List<ObjectInformation> page = db.getObjectInformation(params);
+			if (page.isEmpty()) {
+				return ret;
+			}
+			for (final ObjectInformation oi: page) {
+				ret.add(oi.getWorkspaceId() + "/" + oi.getObjectId() + "/" + oi.getVersion());
+			}
+			final ObjectInformation last = page.get(page.size() - 1);
+			startAfter = new Reference(
+					last.getWorkspaceId(), last.getObjectId(), last.getVersion());
+		}
+	}
+	
+	@Test
+	public void listWorkspacesStartAfter() throws Exception {
+		final MongoWorkspaceDB db = newDB();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final WorkspaceUser u2 = new WorkspaceUser("u2");
+		final PermissionSet.Builder b = PermissionSet.getBuilder(u, new AllUsers('*'));
+		for (int i = 1; i <= 6; i++) {
+			final WorkspaceUser owner = i == 5 ? u2 : u;
+			db.createWorkspace(owner, "ws" + i, false, null, new WorkspaceUserMetadata());
+			b.withWorkspace(new ResolvedWorkspaceID(i, "ws" + i, false, false),
+					i == 5 ? Permission.READ : Permission.OWNER, Permission.NONE);
+		}
+		db.setWorkspaceDeleted(new ResolvedWorkspaceID(3, "ws3", false, false), true);
+		db.setWorkspaceDeleted(new ResolvedWorkspaceID(5, "ws5", false, false), true);
+		final PermissionSet pset = b.build();
+		
+		assertThat("incorrect workspaces", pageWorkspaces(db, pset, false, false),
+				is(Arrays.asList(1L, 2L, 4L, 6L)));
+		assertThat("incorrect workspaces", pageWorkspaces(db, pset, true, false),
+				is(Arrays.asList(1L, 2L, 3L, 4L, 6L)));
+		assertThat("incorrect workspaces", pageWorkspaces(db, pset, false, true),
+				is(Arrays.asList(3L)));
+		assertThat("incorrect workspaces", db.getWorkspaceInformation(
+				pset, null, null, null, null, false, false, -1, -1).stream()
+						.map(wi -> wi.getId()).collect(Collectors.toList()),
+				is(Arrays.asList(1L, 2L, 4L, 6L)));
+	}
+	
+	// pages through the workspaces 2 at a time and returns the workspace IDs
+	private List<Long> pageWorkspaces(
+			final MongoWorkspaceDB db,
+			final PermissionSet pset,
+			final boolean showDeleted,
+			final boolean showOnlyDeleted)
+			throws Exception {
+		final List<Long> ret = new LinkedList<>();
+		long startAfter = -1;
+		while (true) {
+			final List<WorkspaceInformation> page = db.getWorkspaceInformation(
+					pset, null, null, null, null, showDeleted, showOnlyDeleted, startAfter, 2);
+			if (page.isEmpty()) {
+				return ret;
+			}
+			assertThat("incorrect page size", page.size() <= 2, is(true));
+			page.stream().forEach(wi -> ret.add(wi.getId()));
+			startAfter = page.get(page.size() - 1).getId();
+		}
+	}
+	
+	private GetObjectInformationParameters listParams(
+			final PermissionSet pset,
+			final boolean showHidden,
+			final boolean showDeleted,
+			final boolean showOnlyDeleted) {
+		final GetObjectInformationParameters params = mock(GetObjectInformationParameters.class);
+		when(params.getPermissionSet()).thenReturn(pset);
+		when(params.getSavers()).thenReturn(Collections.emptyList());
+		when(params.getMetadata()).thenReturn(new WorkspaceUserMetadata());
+		when(params.isShowHidden()).thenReturn(showHidden);
+		when(params.isShowDeleted()).thenReturn(showDeleted);
+		when(params.isShowOnlyDeleted()).thenReturn(showOnlyDeleted);
+		when(params.isObjectIDFiltersOnly()).thenReturn(true);
+		when(params.getLimit()).thenReturn(10000);
+		return params;
+	}
+	
+	private Map<String, Object> objref(
+			final String target,
+			final long ws,
+			final long id,
+			final int ver,
+			final boolean prov) {
+		return ImmutableMap.of("tgt", target, "ws", ws, "id", id, "ver", ver, "prov", prov);
+	}
 }
@@ -0,0 +1,135 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.workspace.database.mongo.WorkspaceQueryExecutor;
+import us.kbase.workspace.database.mongo.WorkspaceQueryExecutor.Strategy;
+
+public class WorkspaceQueryExecutorTest {
+
+	private static final String COL = "objs";
+	private static final Set<String> FIELDS = new HashSet<>(Arrays.asList("ws", "id"));
+
+	private static MongoController MONGO;
+	private static DB MONGO_DB;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		TestCommon.stfuLoggers();
+		MONGO = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " + MONGO.getTempDir());
+		System.out.println("Started test mongo instance at localhost:" +
+				MONGO.getServerPort());
+
+		final MongoClient mc = new MongoClient("localhost:" + MONGO.getServerPort());
+		MONGO_DB = mc.getDB("test_" + WorkspaceQueryExecutorTest.class.getSimpleName());
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (MONGO != null) {
+			System.out.println("destroying mongo temp files");
+			MONGO.destroy(TestCommon.getDeleteTempFiles());
+		}
+	}
+
+	@Before
+	public void clearDB() throws Exception {
+		TestCommon.destroyDB(MONGO_DB);
+		for (long ws = 1; ws <= 4; ws++) {
+			for (long id = 1; id <= 3; id++) {
+				MONGO_DB.getCollection(COL).insert(new BasicDBObject("ws", ws).append("id", id)
+						.append("name", "n" + id));
+			}
+		}
+	}
+
+	private static DBObject clause(final long ws, final Long... ids) {
+		return new BasicDBObject("ws", ws).append("id", new BasicDBObject(
+				"$in", Arrays.asList(ids)));
+	}
+
+	private static Set<Map<String, Object>> docs(final long... wsAndIDs) {
+		final Set<Map<String, Object>> ret = new HashSet<>();
+		for (int i = 0; i < wsAndIDs.length; i += 2) {
+			ret.add(ImmutableMap.of("ws", wsAndIDs[i], "id", wsAndIDs[i + 1]));
+		}
+		return ret;
+	}
+
+	@Test
+	public void chooseStrategy() throws Exception {
+		final WorkspaceQueryExecutor e = new WorkspaceQueryExecutor(MONGO_DB, 2, 10);
+		assertThat("incorrect strategy", e.chooseStrategy(1, 1000), is(Strategy.SINGLE));
+		assertThat("incorrect strategy", e.chooseStrategy(2, 1000), is(Strategy.OR));
+		assertThat("incorrect strategy", e.chooseStrategy(3, 9), is(Strategy.OR));
+		assertThat("incorrect strategy", e.chooseStrategy(3, 10), is(Strategy.CONCURRENT));
+
+		final WorkspaceQueryExecutor d = new WorkspaceQueryExecutor(MONGO_DB);
+		assertThat("incorrect strategy", d.chooseStrategy(10, 1000), is(Strategy.OR));
+		assertThat("incorrect strategy", d.chooseStrategy(11, 99), is(Strategy.OR));
+		assertThat("incorrect strategy", d.chooseStrategy(11, 100), is(Strategy.CONCURRENT));
+	}
+
+	@Test
+	public void queryAllStrategies() throws Exception {
+		final WorkspaceQueryExecutor e = new WorkspaceQueryExecutor(MONGO_DB);
+		final List<DBObject> clauses = Arrays.asList(
+				clause(1, 1L, 3L), clause(2, 2L), clause(4, 1L, 2L, 3L, 4L), clause(5, 1L));
+		final Set<Map<String, Object>> expected = docs(1, 1, 1, 3, 2, 2, 4, 1, 4, 2, 4, 3);
+
+		for (final Strategy s: Arrays.asList(Strategy.OR, Strategy.CONCURRENT, Strategy.SINGLE)) {
+			assertThat("incorrect docs for " + s,
+					new HashSet<>(e.query(COL, clauses, FIELDS, s)), is(expected));
+		}
+		assertThat("incorrect docs",
+				new HashSet<>(e.query(COL, Arrays.asList(clause(3, 2L)), FIELDS, Strategy.SINGLE)),
+				is(docs(3, 2)));
+		assertThat("incorrect docs",
+				new HashSet<>(e.query(COL, Arrays.asList(clause(3, 2L)), FIELDS, 1)),
+				is(docs(3, 2)));
+		assertThat("incorrect docs", e.query(COL, new LinkedList<>(), FIELDS, Strategy.OR),
+				is(Collections.emptyList()));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, 1, new NullPointerException("db"));
+		failConstruct(MONGO_DB, 0, new IllegalArgumentException("maxOrClauses must be > 0"));
+	}
+
+	private void failConstruct(final DB db, final int maxOr, final Exception expected) {
+		try {
+			new WorkspaceQueryExecutor(db, maxOr, 1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
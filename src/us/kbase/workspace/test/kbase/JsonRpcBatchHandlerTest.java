@@ -0,0 +1,312 @@
+package us.kbase.workspace.test.kbase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.kbase.JsonRpcBatchHandler;
+
+public class JsonRpcBatchHandlerTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// echoes the method and the authorization header of each call
+	private static class EchoDispatcher implements JsonRpcBatchHandler.Dispatcher {
+
+		private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void dispatch(final HttpServletRequest request, final HttpServletResponse response)
+				throws IOException {
+			final String body = IOUtils.toString(request.getInputStream(), "UTF-8");
+			bodies.add(body);
+			assertThat("incorrect length", request.getContentLength(),
+					is(body.getBytes(StandardCharsets.UTF_8).length));
+			final Map<?, ?> call = MAPPER.readValue(body, Map.class);
+			if ("Workspace.fail".equals(call.get("method"))) {
+				response.sendError(500, "oh dear");
+				return;
+			}
+			if ("Workspace.writer".equals(call.get("method"))) {
+				final PrintWriter w = response.getWriter();
+				w.write("{\"id\":" + MAPPER.writeValueAsString(call.get("id")) + "}");
+				return;
+			}
+			response.setStatus(200);
+			response.setHeader("Content-Length", "1");
+			response.getOutputStream().write(MAPPER.writeValueAsBytes(
+					MAPPER.createObjectNode()
+							.put("id", (String) call.get("id"))
+							.put("result", call.get("method") + " " +
+									request.getHeader("Authorization"))));
+		}
+	}
+
+	private static class Out extends ServletOutputStream {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		@Override
+		public void write(final int b) {
+			out.write(b);
+		}
+	}
+
+	private static HttpServletRequest request(final String method, final String body)
+			throws Exception {
+		final HttpServletRequest req = mock(HttpServletRequest.class);
+		final InputStream is = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+		when(req.getMethod()).thenReturn(method);
+		when(req.getHeader("Authorization")).thenReturn("token");
+		when(req.getContentLength()).thenReturn(body.getBytes(StandardCharsets.UTF_8).length);
+		when(req.getInputStream()).thenReturn(new ServletInputStream() {
+
+			@Override
+			public int read() throws IOException {
+				return is.read();
+			}
+		});
+		return req;
+	}
+
+	private static Out response(final HttpServletResponse res) throws Exception {
+		final Out out = new Out();
+		when(res.getOutputStream()).thenReturn(out);
+		return out;
+	}
+
+	@Test
+	public void passThrough() throws Exception {
+		final EchoDispatcher d = new EchoDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+
+		h.handle(request("POST", "  \n {\"id\": \"1\", \"method\": \"Workspace.ver\"}"), res);
+
+		assertThat("incorrect bodies", d.bodies, is(Arrays.asList(
+				"  \n {\"id\": \"1\", \"method\": \"Workspace.ver\"}")));
+		assertThat("incorrect response", out.out.toString("UTF-8"),
+				is("{\"id\":\"1\",\"result\":\"Workspace.ver token\"}"));
+	}
+
+	@Test
+	public void passThroughGet() throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d);
+		final HttpServletRequest req = request("GET", "");
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+
+		h.handle(req, res);
+
+		verify(d).dispatch(req, res);
+	}
+
+	@Test
+	public void batch() throws Exception {
+		final EchoDispatcher d = new EchoDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+
+		h.handle(request("POST", " [{\"id\": \"1\", \"method\": \"Workspace.list_objects\"}," +
+				"{\"id\": \"2\", \"method\": \"Workspace.get_objects2\"}," +
+				"3," +
+				"{\"id\": \"4\"}," +
+				"{\"id\": \"5\", \"method\": \"Workspace.fail\"}," +
+				"{\"id\": \"6\", \"method\": \"Workspace.writer\"}," +
+				"{\"id\": \"7\", \"method\": \"Workspace.get_permissions_mass\"}]"), res);
+
+		verify(res).setContentType("application/json");
+		assertThat("incorrect response", out.out.toString("UTF-8"), is("[" +
+				"{\"id\":\"1\",\"result\":\"Workspace.list_objects token\"}," +
+				error("\"2\"", -32600,
+						"Method Workspace.get_objects2 cannot be called in a batch request") +
+				"," +
+				error("null", -32600, "Each call in a batch must be a JSON object") + "," +
+				error("\"4\"", -32600, "Call is missing the method name") + "," +
+				error("\"5\"", -32603, "oh dear") + "," +
+				"{\"id\":\"6\"}," +
+				"{\"id\":\"7\",\"result\":\"Workspace.get_permissions_mass token\"}" +
+				"]"));
+		assertThat("incorrect call count", d.bodies.size(), is(4));
+	}
+
+	// tracks the number of calls running at once
+	private static class ConcurrencyDispatcher implements JsonRpcBatchHandler.Dispatcher {
+
+		private final AtomicInteger running = new AtomicInteger();
+		private final AtomicInteger max = new AtomicInteger();
+		private final List<String> ids = Collections.synchronizedList(new ArrayList<>());
+		private volatile boolean firstRanAlone = false;
+
+		@Override
+		public void dispatch(final HttpServletRequest request, final HttpServletResponse response)
+				throws IOException {
+			final Map<?, ?> call = MAPPER.readValue(request.getInputStream(), Map.class);
+			final int r = running.incrementAndGet();
+			max.accumulateAndGet(r, Math::max);
+			ids.add((String) call.get("id"));
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			if ("0".equals(call.get("id"))) {
+				firstRanAlone = running.get() == 1 && ids.size() == 1;
+			}
+			running.decrementAndGet();
+			response.getOutputStream().write(MAPPER.writeValueAsBytes(
+					MAPPER.createObjectNode().put("id", (String) call.get("id"))));
+		}
+	}
+
+	@Test
+	public void batchCallConcurrency() throws Exception {
+		final ConcurrencyDispatcher d = new ConcurrencyDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d, 20, 3);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+		final List<String> calls = new ArrayList<>();
+		final List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			calls.add("{\"id\": \"" + i + "\", \"method\": \"Workspace.ver\"}");
+			expected.add("{\"id\":\"" + i + "\"}");
+		}
+
+		h.handle(request("POST", "[" + String.join(",", calls) + "]"), res);
+
+		assertThat("incorrect response", out.out.toString("UTF-8"),
+				is("[" + String.join(",", expected) + "]"));
+		assertThat("first call didn't run alone", d.firstRanAlone, is(true));
+		assertThat("incorrect first call", d.ids.get(0), is("0"));
+		assertThat("too many concurrent calls", d.max.get() <= 3, is(true));
+		assertThat("calls not concurrent", d.max.get() > 1, is(true));
+	}
+
+	@Test
+	public void batchSingleThread() throws Exception {
+		// with one thread, calls run on the calling thread when the thread is busy
+		final ConcurrencyDispatcher d = new ConcurrencyDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d, 1, 10);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+
+		h.handle(request("POST", "[{\"id\": \"0\", \"method\": \"Workspace.ver\"}," +
+				"{\"id\": \"1\", \"method\": \"Workspace.ver\"}," +
+				"{\"id\": \"2\", \"method\": \"Workspace.ver\"}," +
+				"{\"id\": \"3\", \"method\": \"Workspace.ver\"}]"), res);
+
+		assertThat("incorrect response", out.out.toString("UTF-8"),
+				is("[{\"id\":\"0\"},{\"id\":\"1\"},{\"id\":\"2\"},{\"id\":\"3\"}]"));
+		assertThat("too many concurrent calls", d.max.get() <= 2, is(true));
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		failConstruct(null, 1, 1, new NullPointerException("dispatcher"));
+		failConstruct(d, 0, 1, new IllegalArgumentException("threads must be at least 1"));
+		failConstruct(d, 1, 0, new IllegalArgumentException(
+				"callConcurrency must be at least 1"));
+	}
+
+	private void failConstruct(
+			final JsonRpcBatchHandler.Dispatcher d,
+			final int threads,
+			final int callConcurrency,
+			final Exception expected) {
+		try {
+			new JsonRpcBatchHandler(d, threads, callConcurrency);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	private static String error(final String id, final int code, final String message) {
+		return "{\"version\":\"1.1\",\"id\":" + id + ",\"error\":{\"name\":\"JSONRPCError\"," +
+				"\"code\":" + code + ",\"message\":\"" + message + "\",\"error\":null}}";
+	}
+
+	@Test
+	public void batchFailEmpty() throws Exception {
+		failBatch("[]", -32600, "Batch requests must contain between 1 and 100 calls");
+	}
+
+	@Test
+	public void batchFailTooManyCalls() throws Exception {
+		final List<String> calls = Collections.nCopies(
+				101, "{\"id\": \"1\", \"method\": \"Workspace.ver\"}");
+		failBatch("[" + String.join(",", calls) + "]", -32600,
+				"Batch requests must contain between 1 and 100 calls");
+	}
+
+	@Test
+	public void batchFailTooLarge() throws Exception {
+		final String big = "[\"" + String.join("", Collections.nCopies(1000000, "a")) + "\"]";
+		failBatch(big, -32600, "Batch requests may be no larger than 1000000 bytes");
+	}
+
+	@Test
+	public void batchFailBadJSON() throws Exception {
+		final EchoDispatcher d = new EchoDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+
+		h.handle(request("POST", "[{\"id\": \"1\""), res);
+
+		verify(res).setStatus(500);
+		final Map<?, ?> err = (Map<?, ?>) MAPPER.readValue(out.out.toByteArray(), Map.class)
+				.get("error");
+		assertThat("incorrect code", err.get("code"), is(-32700));
+		assertThat("incorrect message",
+				((String) err.get("message")).startsWith("Invalid JSON in batch request: "),
+				is(true));
+		assertThat("incorrect call count", d.bodies.size(), is(0));
+	}
+
+	private void failBatch(final String body, final int code, final String message)
+			throws Exception {
+		final EchoDispatcher d = new EchoDispatcher();
+		final JsonRpcBatchHandler h = new JsonRpcBatchHandler(d);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = response(res);
+
+		h.handle(request("POST", body), res);
+
+		verify(res).setStatus(500);
+		verify(res).setContentType("application/json");
+		assertThat("incorrect response", out.out.toString("UTF-8"),
+				is(error("null", code, message)));
+		assertThat("incorrect call count", d.bodies.size(), is(0));
+	}
+}
@@ -24,6 +24,7 @@ import us.kbase.common.test.TestCommon;
 import us.kbase.workspace.kbase.BackendType;
 import us.kbase.workspace.kbase.KBaseWorkspaceConfig;
 import us.kbase.workspace.kbase.KBaseWorkspaceConfig.ListenerConfig;
+import us.kbase.workspace.kbase.KBaseWorkspaceConfig.SecondaryReadMethod;
 
 public class KBaseWorkspaceConfigTest {
 	
@@ -132,6 +133,23 @@ public class KBaseWorkspaceConfigTest {
 		assertThat("incorrect listeners", kwc.getListenerConfigs(), is(MT));
 		assertThat("incorrect mongo pwd", kwc.getMongoPassword(), nullValue());
 		assertThat("incorrect mongo user", kwc.getMongoUser(), nullValue());
+		assertThat("incorrect name cache", kwc.getObjectNameCacheWorkspaces(), is(0));
+		assertThat("incorrect ID block size", kwc.getObjectIDBlockSize(), is(0));
+		assertThat("incorrect secondary reads", kwc.getSecondaryReads(),
+				is(Collections.emptySet()));
+		assertThat("incorrect method limits", kwc.getMethodConcurrencyLimits(),
+				is(Collections.emptyMap()));
+		assertThat("incorrect compression", kwc.getResponseCompressionLevel(), is(0));
+		assertThat("incorrect max or clauses", kwc.getQueryMaxOrClauses(), is(0));
+		assertThat("incorrect min concurrent items", kwc.getQueryMinConcurrentItems(), is(0));
+		assertThat("incorrect version cache", kwc.getVersionCacheSizeMB(), is(0));
+		assertThat("incorrect provenance cache", kwc.getProvenanceCacheSizeMB(), is(0));
+		assertThat("incorrect locked cache objects", kwc.getLockedWorkspaceCacheObjects(), is(0));
+		assertThat("incorrect locked cache listed objects", kwc.getLockedWorkspaceCacheListedObjects(), is(0));
+		assertThat("incorrect ID block max workspaces", kwc.getObjectIDBlockMaxWorkspaces(), is(0));
+		assertThat("incorrect moddate interval", kwc.getWorkspaceModDateIntervalSec(), is(0));
+		assertThat("incorrect batch threads", kwc.getBatchThreads(), is(0));
+		assertThat("incorrect batch call concurrency", kwc.getBatchCallConcurrency(), is(0));
 		assertThat("incorrect param report", kwc.getParamReport(), is(paramReport));
 		assertThat("incorrect bytestream token", kwc.getBytestreamToken(), nullValue());
 		assertThat("incorrect bytestream url", kwc.getBytestreamURL(), nullValue());
@@ -162,6 +180,21 @@ public class KBaseWorkspaceConfigTest {
 				.with("backend-user", "    someuser    ")
 				.with("backend-token", "    token token token    ")
 				.with("backend-trust-all-ssl-certificates", "    true    ")
+				.with("object-name-cache-workspaces", "    100    ")
+				.with("object-id-block-size", "    1000    ")
+				.with("mongodb-secondary-reads", "  list_objects ,  , list_workspace_info  ")
+				.with("method-concurrency-limits", "  get_objects2 : 10 ,  , save_objects:5  ")
+				.with("response-compression-level", "   6   ")
+				.with("query-max-or-clauses", "   20   ")
+				.with("query-min-concurrent-items", "   500   ")
+				.with("version-cache-size-mb", "   200   ")
+				.with("provenance-cache-size-mb", "   100   ")
+				.with("locked-workspace-cache-objects", "   100000   ")
+				.with("locked-workspace-cache-listed-objects", "   50000   ")
+				.with("object-id-block-max-workspaces", "   5000   ")
+				.with("workspace-moddate-interval-sec", "   5   ")
+				.with("batch-threads", "   20   ")
+				.with("batch-call-concurrency", "   4   ")
 				.with("handle-service-token", "    hstoken    ")
 				.with("handle-manager-token", "    hmtoken    ")  // test service takes precedence
 				.with("handle-service-url", "     " + CI_SERV + "handle_service    ")
@@ -189,6 +222,21 @@ public class KBaseWorkspaceConfigTest {
 				"backend-url=" + CI_SERV + "shock-api\n" +
 				"backend-user=someuser\n" +
 				"backend-trust-all-ssl-certificates=true\n" +
+				"object-name-cache-workspaces=100\n" +
+				"object-id-block-size=1000\n" +
+				"mongodb-secondary-reads=list_objects ,  , list_workspace_info\n" +
+				"method-concurrency-limits=get_objects2 : 10 ,  , save_objects:5\n" +
+				"response-compression-level=6\n" +
+				"query-max-or-clauses=20\n" +
+				"query-min-concurrent-items=500\n" +
+				"version-cache-size-mb=200\n" +
+				"provenance-cache-size-mb=100\n" +
+				"locked-workspace-cache-objects=100000\n" +
+				"locked-workspace-cache-listed-objects=50000\n" +
+				"object-id-block-max-workspaces=5000\n" +
+				"workspace-moddate-interval-sec=5\n" +
+				"batch-threads=20\n" +
+				"batch-call-concurrency=4\n" +
 				"handle-service-url=" + CI_SERV + "handle_service\n" +
 				"bytestream-url=" + CI_SERV + "shock-api2\n" +
 				"bytestream-user=otheruser\n" +
@@ -223,6 +271,23 @@ public class KBaseWorkspaceConfigTest {
 				new ListenerConfig("us.kbase.MyListener2", ImmutableMap.of("key1", "value3")))));
 		assertThat("incorrect mongo pwd", kwc.getMongoPassword(), is("mpwd"));
 		assertThat("incorrect mongo user", kwc.getMongoUser(), is("muser"));
+		assertThat("incorrect name cache", kwc.getObjectNameCacheWorkspaces(), is(100));
+		assertThat("incorrect ID block size", kwc.getObjectIDBlockSize(), is(1000));
+		assertThat("incorrect secondary reads", kwc.getSecondaryReads(),
+				is(set(SecondaryReadMethod.LIST_OBJECTS, SecondaryReadMethod.LIST_WORKSPACE_INFO)));
+		assertThat("incorrect method limits", kwc.getMethodConcurrencyLimits(),
+				is(ImmutableMap.of("get_objects2", 10, "save_objects", 5)));
+		assertThat("incorrect compression", kwc.getResponseCompressionLevel(), is(6));
+		assertThat("incorrect max or clauses", kwc.getQueryMaxOrClauses(), is(20));
+		assertThat("incorrect min concurrent items", kwc.getQueryMinConcurrentItems(), is(500));
+		assertThat("incorrect version cache", kwc.getVersionCacheSizeMB(), is(200));
+		assertThat("incorrect provenance cache", kwc.getProvenanceCacheSizeMB(), is(100));
+		assertThat("incorrect locked cache objects", kwc.getLockedWorkspaceCacheObjects(), is(100000));
+		assertThat("incorrect locked cache listed objects", kwc.getLockedWorkspaceCacheListedObjects(), is(50000));
+		assertThat("incorrect ID block max workspaces", kwc.getObjectIDBlockMaxWorkspaces(), is(5000));
+		assertThat("incorrect moddate interval", kwc.getWorkspaceModDateIntervalSec(), is(5));
+		assertThat("incorrect batch threads", kwc.getBatchThreads(), is(20));
+		assertThat("incorrect batch call concurrency", kwc.getBatchCallConcurrency(), is(4));
 		assertThat("incorrect param report", kwc.getParamReport(), is(paramReport));
 		assertThat("incorrect bytestream token", kwc.getBytestreamToken(), is("token token"));
 		assertThat("incorrect bytestream url", kwc.getBytestreamURL(),
@@ -882,6 +947,370 @@ public class KBaseWorkspaceConfigTest {
 		assertThat("incorrect ignore hs", kwc.ignoreHandleService(), is(true));
 	}
 	
+	@Test
+	public void configFailBadObjectNameCache() throws Exception {
+		configFailBadObjectNameCache("   foo   ", "foo");
+		configFailBadObjectNameCache("-1", "-1");
+		configFailBadObjectNameCache("1.5", "1.5");
+		configFailBadObjectNameCache("2147483648", "2147483648");
+	}
+	
+	private void configFailBadObjectNameCache(final String value, final String reported)
+			throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("object-name-cache-workspaces", value)
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter object-name-cache-workspaces: " +
+				reported)));
+		assertThat("incorrect name cache", kwc.getObjectNameCacheWorkspaces(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadObjectIDBlockSize() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("object-id-block-size", "   -10   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter object-id-block-size: -10")));
+		assertThat("incorrect ID block size", kwc.getObjectIDBlockSize(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadSecondaryReads() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("mongodb-secondary-reads", "list_objects, get_objects2")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Illegal method for parameter mongodb-secondary-reads: get_objects2")));
+		assertThat("incorrect secondary reads", kwc.getSecondaryReads(),
+				is(set(SecondaryReadMethod.LIST_OBJECTS)));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadResponseCompressionLevel() throws Exception {
+		failBadResponseCompressionLevel("   10   ",
+				"Compression level for parameter response-compression-level must be between " +
+				"0 and 9: 10");
+		failBadResponseCompressionLevel("   -1   ",
+				"Invalid non-negative integer for parameter response-compression-level: -1");
+	}
+	
+	private void failBadResponseCompressionLevel(final String level, final String error) {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("response-compression-level", level)
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(error)));
+		assertThat("incorrect compression", kwc.getResponseCompressionLevel(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadQueryMaxOrClauses() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("query-max-or-clauses", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter query-max-or-clauses: -1")));
+		assertThat("incorrect max or clauses", kwc.getQueryMaxOrClauses(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadQueryMinConcurrentItems() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("query-min-concurrent-items", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter query-min-concurrent-items: -1")));
+		assertThat("incorrect min concurrent items", kwc.getQueryMinConcurrentItems(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadVersionCacheSize() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("version-cache-size-mb", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter version-cache-size-mb: -1")));
+		assertThat("incorrect version cache", kwc.getVersionCacheSizeMB(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadProvenanceCacheSize() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("provenance-cache-size-mb", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter provenance-cache-size-mb: -1")));
+		assertThat("incorrect provenance cache", kwc.getProvenanceCacheSizeMB(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadLockedWorkspaceCacheObjects() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("locked-workspace-cache-objects", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter locked-workspace-cache-objects: -1")));
+		assertThat("incorrect locked cache objects", kwc.getLockedWorkspaceCacheObjects(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadLockedWorkspaceCacheListedObjects() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("locked-workspace-cache-listed-objects", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter locked-workspace-cache-listed-objects: -1")));
+		assertThat("incorrect locked cache listed objects", kwc.getLockedWorkspaceCacheListedObjects(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadObjectIDBlockMaxWorkspaces() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("object-id-block-max-workspaces", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter object-id-block-max-workspaces: -1")));
+		assertThat("incorrect ID block max workspaces", kwc.getObjectIDBlockMaxWorkspaces(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadWorkspaceModDateInterval() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("workspace-moddate-interval-sec", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter workspace-moddate-interval-sec: -1")));
+		assertThat("incorrect moddate interval", kwc.getWorkspaceModDateIntervalSec(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadBatchThreads() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("batch-threads", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter batch-threads: -1")));
+		assertThat("incorrect batch threads", kwc.getBatchThreads(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadBatchCallConcurrency() throws Exception {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("batch-call-concurrency", "   -1   ")
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Invalid non-negative integer for parameter batch-call-concurrency: -1")));
+		assertThat("incorrect batch call concurrency", kwc.getBatchCallConcurrency(), is(0));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
+	@Test
+	public void configFailBadMethodConcurrencyLimits() throws Exception {
+		failBadMethodConcurrencyLimit("get_objects2", "Illegal method limit for parameter " +
+				"method-concurrency-limits: get_objects2");
+		failBadMethodConcurrencyLimit("get_objects2:1:2", "Illegal method limit for " +
+				"parameter method-concurrency-limits: get_objects2:1:2");
+		failBadMethodConcurrencyLimit("list_objects:10", "Illegal method for parameter " +
+				"method-concurrency-limits: list_objects");
+		failBadMethodConcurrencyLimit("get_objects2: 0", "Invalid positive integer limit " +
+				"for method get_objects2 in parameter method-concurrency-limits: 0");
+		failBadMethodConcurrencyLimit("get_objects2:ten", "Invalid positive integer limit " +
+				"for method get_objects2 in parameter method-concurrency-limits: ten");
+		failBadMethodConcurrencyLimit("save_objects:4", "Duplicate method for parameter " +
+				"method-concurrency-limits: save_objects");
+		failBadMethodConcurrencyLimit(" save_objects : 3", "Duplicate method for parameter " +
+				"method-concurrency-limits: save_objects");
+	}
+	
+	private void failBadMethodConcurrencyLimit(final String limit, final String error) {
+		final Map<String, String> cfg = MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true")
+				.with("method-concurrency-limits", "save_objects:3, " + limit)
+				.build();
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(cfg);
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(error)));
+		assertThat("incorrect method limits", kwc.getMethodConcurrencyLimits(),
+				is(ImmutableMap.of("save_objects", 3)));
+		assertThat("incorrect has err", kwc.hasErrors(), is(true));
+	}
+	
 	@Test
 	public void configFailS3ParamsMissing() throws Exception {
 		configFailS3ParamsMissing(null);
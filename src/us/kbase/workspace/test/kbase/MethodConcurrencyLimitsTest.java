@@ -0,0 +1,163 @@
+package us.kbase.workspace.test.kbase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.kbase.JsonRpcBatchHandler;
+import us.kbase.workspace.kbase.MethodConcurrencyLimits;
+import us.kbase.workspace.kbase.MethodConcurrencyLimits.Permit;
+
+public class MethodConcurrencyLimitsTest {
+
+	private static final String BUSY = "The server is currently handling the maximum number " +
+			"of %s calls. Please try again later";
+
+	@Test
+	public void uncappedMethods() throws Exception {
+		final MethodConcurrencyLimits l = new MethodConcurrencyLimits(
+				ImmutableMap.of("get_objects2", 1));
+
+		// methods not in the map, whether limitable or not, are never capped
+		for (int i = 0; i < 5; i++) {
+			l.acquire("save_objects");
+			l.acquire("list_objects");
+		}
+		new MethodConcurrencyLimits(Collections.emptyMap()).acquire("get_objects2").close();
+	}
+
+	@Test
+	public void capAndRelease() throws Exception {
+		final MethodConcurrencyLimits l = new MethodConcurrencyLimits(
+				ImmutableMap.of("get_objects2", 2, "save_objects", 1));
+
+		final Permit p1 = l.acquire("get_objects2");
+		final Permit p2 = l.acquire("get_objects2");
+		final Permit p3 = l.acquire("save_objects");
+		failAcquire(l, "get_objects2");
+		failAcquire(l, "save_objects");
+
+		p1.close();
+		p1.close(); // no effect
+		final Permit p4 = l.acquire("get_objects2");
+		failAcquire(l, "get_objects2");
+
+		p2.close();
+		p3.close();
+		p4.close();
+		// all the permits were released
+		final Permit p5 = l.acquire("get_objects2");
+		final Permit p6 = l.acquire("get_objects2");
+		failAcquire(l, "get_objects2");
+		p5.close();
+		p6.close();
+		l.acquire("save_objects").close();
+		l.acquire("save_objects").close();
+	}
+
+	@Test
+	public void limitableMethodsAreUnbatchable() throws Exception {
+		// permits held by batch worker threads would never be released
+		for (final String method: MethodConcurrencyLimits.LIMITABLE_METHODS) {
+			assertThat("batchable method " + method, JsonRpcBatchHandler.UNBATCHABLE_METHODS
+					.contains("Workspace." + method), is(true));
+		}
+	}
+
+	@Test
+	public void holdAndRelease() throws Exception {
+		final MethodConcurrencyLimits l = new MethodConcurrencyLimits(
+				ImmutableMap.of("get_objects2", 1, "save_objects", 1));
+
+		l.releaseHeld(); // nothing held, no effect
+		l.hold("get_objects2");
+		failAcquire(l, "get_objects2");
+		l.releaseHeld();
+		final Permit p = l.acquire("get_objects2");
+
+		l.hold("save_objects");
+		failHold(l, "get_objects2");
+		// the failed hold released the permit the thread already held
+		l.acquire("save_objects").close();
+		p.close();
+
+		l.hold("get_objects2");
+		l.hold("save_objects"); // releases the get_objects2 permit
+		l.acquire("get_objects2").close();
+		failAcquire(l, "save_objects");
+		l.hold("list_objects"); // uncapped, releases the save_objects permit
+		l.acquire("save_objects").close();
+
+		l.hold("save_objects");
+		l.releaseHeld();
+		l.releaseHeld();
+		l.acquire("save_objects").close();
+	}
+
+	@Test
+	public void holdPerThread() throws Exception {
+		final MethodConcurrencyLimits l = new MethodConcurrencyLimits(
+				ImmutableMap.of("get_objects2", 1));
+
+		l.hold("get_objects2");
+		final Thread t = new Thread(() -> l.releaseHeld());
+		t.start();
+		t.join();
+		// another thread's release has no effect on this thread's permit
+		failAcquire(l, "get_objects2");
+		l.releaseHeld();
+		l.acquire("get_objects2").close();
+	}
+
+	private void failHold(final MethodConcurrencyLimits l, final String method) {
+		try {
+			l.hold(method);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalStateException(
+					String.format(BUSY, method)));
+		}
+	}
+
+	private void failAcquire(final MethodConcurrencyLimits l, final String method) {
+		try {
+			l.acquire(method);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalStateException(
+					String.format(BUSY, method)));
+		}
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, new NullPointerException("limits"));
+
+		final Map<String, Integer> nullLimit = new HashMap<>();
+		nullLimit.put("get_objects", null);
+		failConstruct(nullLimit, new NullPointerException("null limit for get_objects"));
+
+		failConstruct(ImmutableMap.of("list_objects", 1), new IllegalArgumentException(
+				"Method cannot be limited: list_objects"));
+		failConstruct(ImmutableMap.of("get_object_subset", 0), new IllegalArgumentException(
+				"Limit for method get_object_subset must be at least 1"));
+	}
+
+	private void failConstruct(final Map<String, Integer> limits, final Exception expected) {
+		try {
+			new MethodConcurrencyLimits(limits);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
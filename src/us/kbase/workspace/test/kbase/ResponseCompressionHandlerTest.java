@@ -0,0 +1,200 @@
+package us.kbase.workspace.test.kbase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.kbase.JsonRpcBatchHandler;
+import us.kbase.workspace.kbase.ResponseCompressionHandler;
+
+public class ResponseCompressionHandlerTest {
+
+	private static final String BODY = "{\"result\": [\"" +
+			String.join("", Collections.nCopies(10000, "ACGT")) + "\"]}";
+
+	private static class Out extends ServletOutputStream {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private boolean closed = false;
+
+		@Override
+		public void write(final int b) throws IOException {
+			if (closed) {
+				throw new IOException("closed");
+			}
+			out.write(b);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static HttpServletRequest request(final String acceptEncoding) {
+		final HttpServletRequest req = mock(HttpServletRequest.class);
+		when(req.getHeader("Accept-Encoding")).thenReturn(acceptEncoding);
+		return req;
+	}
+
+	@Test
+	public void noCompression() throws Exception {
+		noCompression(1, null);
+		noCompression(1, "identity, deflate");
+		noCompression(1, "*");
+		noCompression(1, "gzip;q=0");
+		noCompression(1, "gzip; q=0.0, deflate");
+		noCompression(1, "gzip;q=foo");
+		noCompression(0, "gzip");
+	}
+
+	private void noCompression(final int level, final String acceptEncoding) throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		final HttpServletRequest req = request(acceptEncoding);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+
+		new ResponseCompressionHandler(d, level).handle(req, res);
+
+		verify(d).dispatch(req, res);
+		verifyNoMoreInteractions(res);
+	}
+
+	@Test
+	public void compressOutputStream() throws Exception {
+		compress(1, "deflate, gzip", (req, res) -> {
+			res.setContentLength(BODY.length());
+			res.setHeader("Content-Length", "1");
+			res.setHeader("X-Foo", "bar");
+			res.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+		});
+	}
+
+	@Test
+	public void compressWriter() throws Exception {
+		compress(9, "GZIP ; q=0.5", (req, res) -> {
+			res.setHeader("X-Foo", "bar");
+			res.getWriter().write(BODY);
+		});
+	}
+
+	@Test
+	public void compressAndClose() throws Exception {
+		final Out out = compress(1, "gzip", (req, res) -> {
+			res.setHeader("X-Foo", "bar");
+			final ServletOutputStream os = res.getOutputStream();
+			os.write(BODY.getBytes(StandardCharsets.UTF_8));
+			os.close();
+			os.flush();
+			os.close();
+			try {
+				os.write(1);
+				fail("expected exception");
+			} catch (Exception got) {
+				TestCommon.assertExceptionCorrect(got, new IOException("Stream closed"));
+			}
+		});
+		assertThat("not closed", out.closed, is(true));
+	}
+
+	private Out compress(
+			final int level,
+			final String acceptEncoding,
+			final JsonRpcBatchHandler.Dispatcher d)
+			throws Exception {
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = new Out();
+		when(res.getOutputStream()).thenReturn(out);
+
+		new ResponseCompressionHandler(d, level).handle(request(acceptEncoding), res);
+
+		verify(res).addHeader("Vary", "Accept-Encoding");
+		verify(res).setHeader("Content-Encoding", "gzip");
+		verify(res).setHeader("X-Foo", "bar");
+		verify(res).getOutputStream();
+		verifyNoMoreInteractions(res);
+		assertThat("not compressed", out.out.size() < BODY.length() / 10, is(true));
+		final String body = IOUtils.toString(new GZIPInputStream(
+				new ByteArrayInputStream(out.out.toByteArray())), "UTF-8");
+		assertThat("incorrect body", body, is(BODY));
+		return out;
+	}
+
+	@Test
+	public void dispatchFail() throws Exception {
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = new Out();
+		when(res.getOutputStream()).thenReturn(out);
+
+		try {
+			new ResponseCompressionHandler((req, r) -> {
+				r.getWriter().write(BODY);
+				throw new ServletException("oops");
+			}, 1).handle(request("gzip"), res);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new ServletException("oops"));
+		}
+
+		verify(res).addHeader("Vary", "Accept-Encoding");
+		verify(res).setHeader("Content-Encoding", "gzip");
+		verify(res).getOutputStream();
+		verifyNoMoreInteractions(res);
+		final String body = IOUtils.toString(new GZIPInputStream(
+				new ByteArrayInputStream(out.out.toByteArray())), "UTF-8");
+		assertThat("incorrect body", body, is(BODY));
+	}
+
+	@Test
+	public void noBody() throws Exception {
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+
+		new ResponseCompressionHandler((req, r) -> r.setStatus(204), 1)
+				.handle(request("gzip"), res);
+
+		verify(res).addHeader("Vary", "Accept-Encoding");
+		verify(res).setStatus(204);
+		verifyNoMoreInteractions(res);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		failConstruct(null, 1, new NullPointerException("dispatcher"));
+		failConstruct(d, -1, new IllegalArgumentException(
+				"level must be between 0 and 9 inclusive"));
+		failConstruct(d, 10, new IllegalArgumentException(
+				"level must be between 0 and 9 inclusive"));
+	}
+
+	private void failConstruct(
+			final JsonRpcBatchHandler.Dispatcher d,
+			final int level,
+			final Exception expected) {
+		try {
+			new ResponseCompressionHandler(d, level);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
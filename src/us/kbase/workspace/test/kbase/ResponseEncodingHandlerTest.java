@@ -0,0 +1,220 @@
+package us.kbase.workspace.test.kbase;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import us.kbase.workspace.kbase.JsonRpcBatchHandler;
+import us.kbase.workspace.kbase.ResponseEncodingHandler;
+
+public class ResponseEncodingHandlerTest {
+
+	/* Binary output is hard to compare, so most of these tests "transcode" pretty printed JSON to
+	 * compact JSON with a plain JSON factory standing in for a binary format factory.
+	 */
+
+	private static final String TYPE = "application/x-test";
+	private static final String TYPE2 = "application/x-test2";
+
+	private static final String JSON = "{\n  \"id\" : \"1\",\n  \"result\" : [ {\n" +
+			"    \"data\" : [ 1, 2.5, -3E10, true, null, \"\\u00e9\\u4e16\" ]\n  } ]\n}";
+	private static final String COMPACT =
+			"{\"id\":\"1\",\"result\":[{\"data\":[1,2.5,-3.0E10,true,null,\"é世\"]}]}";
+
+	private static class Out extends ServletOutputStream {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		@Override
+		public void write(final int b) {
+			out.write(b);
+		}
+	}
+
+	private static HttpServletRequest request(final String accept) {
+		final HttpServletRequest req = mock(HttpServletRequest.class);
+		when(req.getHeader("Accept")).thenReturn(accept);
+		return req;
+	}
+
+	private static ResponseEncodingHandler handler(final JsonRpcBatchHandler.Dispatcher d) {
+		return new ResponseEncodingHandler(d, ImmutableMap.of(TYPE, new JsonFactory()));
+	}
+
+	@Test
+	public void mediaTypes() throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		assertThat("incorrect types", handler(d).getMediaTypes(),
+				is(Collections.singleton(TYPE)));
+		assertThat("incorrect types", new ResponseEncodingHandler(d, Collections.emptyMap())
+				.getMediaTypes(), is(Collections.emptySet()));
+	}
+
+	@Test
+	public void noEncoding() throws Exception {
+		noEncoding(null);
+		noEncoding("application/json");
+		noEncoding("application/x-test2, application/cbor");
+	}
+
+	private void noEncoding(final String accept) throws Exception {
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		final HttpServletRequest req = request(accept);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+
+		handler(d).handle(req, res);
+
+		verify(d).dispatch(req, res);
+		verifyNoMoreInteractions(res);
+	}
+
+	@Test
+	public void encodeOutputStream() throws Exception {
+		// write a byte at a time to split tokens and multibyte characters across writes
+		encode("application/json;q=0.5, " + TYPE + ";q=0.9", (req, res) -> {
+			res.setContentType("application/json");
+			res.setContentLength(1000);
+			res.setHeader("Content-Length", "1000");
+			res.setHeader("X-Foo", "bar");
+			for (final byte b: JSON.getBytes(StandardCharsets.UTF_8)) {
+				res.getOutputStream().write(b);
+			}
+		});
+	}
+
+	@Test
+	public void encodeWriter() throws Exception {
+		encode(" " + TYPE.toUpperCase() + " ", (req, res) -> {
+			final PrintWriter w = res.getWriter();
+			w.write(JSON);
+			res.setHeader("X-Foo", "bar");
+		});
+	}
+
+	private void encode(final String accept, final JsonRpcBatchHandler.Dispatcher d)
+			throws Exception {
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = new Out();
+		when(res.getOutputStream()).thenReturn(out);
+
+		handler(d).handle(request(accept), res);
+
+		verify(res).setContentType(TYPE);
+		verify(res).addHeader("Vary", "Accept");
+		verify(res).getOutputStream();
+		verify(res).setHeader("X-Foo", "bar");
+		verifyNoMoreInteractions(res);
+		assertThat("incorrect body", out.out.toString("UTF-8"), is(COMPACT));
+	}
+
+	@Test
+	public void factories() throws Exception {
+		// the data format jars are optional, so only the formats present are offered, in order
+		final List<String> types = new ArrayList<>(
+				ResponseEncodingHandler.getAvailableFactories().keySet());
+		final List<String> expected = new ArrayList<>(Arrays.asList(
+				ResponseEncodingHandler.SMILE, ResponseEncodingHandler.CBOR));
+		expected.retainAll(types);
+		assertThat("incorrect types", types, is(expected));
+		assertThat("incorrect types", new ResponseEncodingHandler(
+				mock(JsonRpcBatchHandler.Dispatcher.class)).getMediaTypes(),
+				is(ImmutableSet.copyOf(types)));
+	}
+
+	@Test
+	public void negotiate() throws Exception {
+		negotiate(TYPE, TYPE);
+		negotiate(TYPE2 + ", " + TYPE, TYPE);
+		negotiate(TYPE + ";q=0.5, " + TYPE2 + ";q=0.6", TYPE2);
+		negotiate(TYPE + ";q=0.6, " + TYPE2 + ";q=0.6", TYPE);
+		negotiate(TYPE + ";q=0.1, " + TYPE + ";q=0.8, " + TYPE2 + ";q=0.6", TYPE);
+		negotiate(TYPE + ";q=0, " + TYPE2, TYPE2);
+		negotiate(TYPE + "; q = 0.3 , application/json;q=0.3", TYPE);
+		negotiate(TYPE + ";level=1;q=0.7, application/json;q=0.6", TYPE);
+		negotiate(TYPE + ";q=0.5, */*;q=0.4", TYPE);
+		negotiate(TYPE + ", application/json;q=0", TYPE);
+	}
+
+	@Test
+	public void negotiateJSON() throws Exception {
+		negotiate(TYPE + ";q=0", null);
+		negotiate(TYPE + ";q=0, " + TYPE2 + ";q=0.0", null);
+		negotiate(TYPE + ";q=0.5, application/json", null);
+		negotiate(TYPE + ";q=0.5, application/json;q=0.6", null);
+		negotiate(TYPE + ";q=0.5, */*", null);
+		negotiate(TYPE + ";q=0.5, application/*;q=0.6", null);
+		negotiate(TYPE + ";q=0.5, */*;q=0.1, application/json", null);
+		negotiate("*/*", null);
+		negotiate("application/*", null);
+		// bad qualities are treated as 0
+		negotiate(TYPE + ";q=foo", null);
+		negotiate(TYPE + ";q=", null);
+		negotiate(TYPE + ";q=1.1", null);
+		negotiate(TYPE + ";q=-0.5", null);
+		negotiate(TYPE + ";q=NaN", null);
+	}
+
+	private void negotiate(final String accept, final String expected) throws Exception {
+		final Map<String, JsonFactory> factories = ImmutableMap.of(
+				TYPE, new JsonFactory(), TYPE2, new JsonFactory());
+		final JsonRpcBatchHandler.Dispatcher d = mock(JsonRpcBatchHandler.Dispatcher.class);
+		final HttpServletRequest req = request(accept);
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		when(res.getOutputStream()).thenReturn(new Out());
+
+		new ResponseEncodingHandler(d, factories).handle(req, res);
+
+		if (expected == null) {
+			verify(d).dispatch(req, res);
+			verifyNoMoreInteractions(res);
+		} else {
+			verify(res).setContentType(expected);
+		}
+	}
+
+	@Test
+	public void encodeSmile() throws Exception {
+		final HttpServletResponse res = mock(HttpServletResponse.class);
+		final Out out = new Out();
+		when(res.getOutputStream()).thenReturn(out);
+
+		new ResponseEncodingHandler((req, r) -> r.getWriter().write(JSON))
+				.handle(request(ResponseEncodingHandler.SMILE), res);
+
+		final JsonFactory fac = ResponseEncodingHandler.getAvailableFactories()
+				.get(ResponseEncodingHandler.SMILE);
+		if (fac == null) {
+			// the Smile jar isn't present, so the client receives JSON
+			verify(res, never()).setContentType(ResponseEncodingHandler.SMILE);
+			assertThat("incorrect body", out.out.toString("UTF-8"), is(JSON));
+		} else {
+			verify(res).setContentType(ResponseEncodingHandler.SMILE);
+			assertThat("incorrect body", new ObjectMapper(fac).readTree(out.out.toByteArray()),
+					is(new ObjectMapper().readTree(COMPACT)));
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static us.kbase.common.test.TestCommon.set;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.database.ObjectNameCache;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+public class ObjectNameCacheTest {
+
+	private static final ResolvedWorkspaceID WS1 = new ResolvedWorkspaceID(1, "ws1", false, false);
+	private static final ResolvedWorkspaceID WS2 = new ResolvedWorkspaceID(2, "ws2", false, false);
+
+	private static final Map<String, Boolean> NAMES1 = ImmutableMap.of(
+			"ab", false, "abc", true, "abd", false, "b", false, "aa", false);
+
+	private class FakeTicker extends Ticker {
+
+		private final AtomicLong nanos = new AtomicLong();
+
+		public FakeTicker advance(long nanoseconds) {
+			nanos.addAndGet(nanoseconds);
+			return this;
+		}
+
+		@Override
+		public long read() {
+			return nanos.get();
+		}
+	}
+
+	private static Map<ResolvedWorkspaceID, List<String>> names(
+			final ResolvedWorkspaceID ws,
+			final String... names) {
+		return ImmutableMap.of(ws, Arrays.asList(names));
+	}
+
+	@Test
+	public void prefix() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000, new FakeTicker());
+
+		when(db.getObjectNames(WS1, 6)).thenReturn(NAMES1);
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "", true, 1000),
+				is(names(WS1, "aa", "ab", "abc", "abd", "b")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "ab", true, 1000),
+				is(names(WS1, "ab", "abc", "abd")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "ab", false, 1000),
+				is(names(WS1, "ab", "abd")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "abb", true, 1000),
+				is(Collections.emptyMap()));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "ab", true, 2),
+				is(names(WS1, "ab", "abc")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "c", true, 1000),
+				is(Collections.emptyMap()));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(), "", true, 1000),
+				is(Collections.emptyMap()));
+		verify(db, times(1)).getObjectNames(WS1, 6);
+	}
+
+	@Test
+	public void limitAcrossWorkspaces() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000, new FakeTicker());
+
+		when(db.getObjectNames(WS1, 6)).thenReturn(NAMES1);
+		when(db.getObjectNames(WS2, 6)).thenReturn(ImmutableMap.of("ab", false, "abe", false));
+
+		final Map<ResolvedWorkspaceID, List<String>> got = cache.getNamesByPrefix(
+				set(WS1, WS2), "ab", true, 4);
+		assertThat("incorrect count", got.values().stream().mapToInt(l -> l.size()).sum(),
+				is(4));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1, WS2), "ab", true, 1000),
+				is(ImmutableMap.of(WS1, Arrays.asList("ab", "abc", "abd"),
+						WS2, Arrays.asList("ab", "abe"))));
+	}
+
+	@Test
+	public void tooManyNames() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 4, 5000, new FakeTicker());
+
+		when(db.getObjectNames(WS1, 5)).thenReturn(NAMES1);
+		when(db.getObjectNames(WS2, 5)).thenReturn(ImmutableMap.of("abe", false));
+		when(db.getNamesByPrefix(set(WS1), "ab", false, 99)).thenReturn(names(WS1, "abd", "ab"));
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1, WS2), "ab", false, 100),
+				is(ImmutableMap.of(WS1, Arrays.asList("abd", "ab"), WS2, Arrays.asList("abe"))));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1, WS2), "ab", false, 100),
+				is(ImmutableMap.of(WS1, Arrays.asList("abd", "ab"), WS2, Arrays.asList("abe"))));
+		// the workspace is remembered as too large until the entry expires
+		verify(db, times(1)).getObjectNames(WS1, 5);
+		verify(db, times(2)).getNamesByPrefix(set(WS1), "ab", false, 99);
+	}
+
+	@Test
+	public void expireAndInvalidate() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final FakeTicker ticker = new FakeTicker();
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000, ticker);
+
+		when(db.getObjectNames(WS1, 6)).thenReturn(ImmutableMap.of("a", false),
+				ImmutableMap.of("a", false, "ab", false),
+				ImmutableMap.of("a", true, "ab", false),
+				ImmutableMap.of("ab", false));
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a")));
+		ticker.advance(4999L * 1000000);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a")));
+		ticker.advance(1000001);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		cache.invalidate(2);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		cache.invalidate(1);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "ab")));
+		cache.invalidateAll();
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", true, 10),
+				is(names(WS1, "ab")));
+		verify(db, times(4)).getObjectNames(WS1, 6);
+	}
+
+	@Test
+	public void addNames() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final FakeTicker ticker = new FakeTicker();
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000, ticker);
+
+		when(db.getObjectNames(WS1, 6)).thenReturn(ImmutableMap.of("a", false, "ab", true),
+				ImmutableMap.of("ac", false));
+
+		// names for uncached workspaces are ignored
+		cache.addNames(2, ImmutableMap.of("ad", false));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a")));
+		cache.addNames(1, ImmutableMap.of("ab", false, "aa", true, "b", false));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", true, 10),
+				is(names(WS1, "a", "aa", "ab")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		verify(db, times(1)).getObjectNames(WS1, 6);
+
+		// adding names doesn't extend the time the loaded names are cached
+		ticker.advance(5000L * 1000000);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "ac")));
+		verify(db, times(2)).getObjectNames(WS1, 6);
+	}
+
+	@Test
+	public void addNamesTooMany() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 3, 5000, new FakeTicker());
+
+		when(db.getObjectNames(WS1, 4)).thenReturn(ImmutableMap.of("a", false, "ab", false));
+		when(db.getNamesByPrefix(set(WS1), "a", false, 10)).thenReturn(names(WS1, "ab", "a"));
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		cache.addNames(1, ImmutableMap.of("ac", false, "ad", false));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "ab", "a")));
+		verify(db, times(1)).getObjectNames(WS1, 4);
+	}
+
+	@Test
+	public void addNamesLargeBatch() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5000, 5000, new FakeTicker());
+
+		final Map<String, Boolean> loaded = new HashMap<>();
+		for (int i = 0; i < 1010; i++) {
+			loaded.put("a" + i, false);
+		}
+		final Map<String, Boolean> reloaded = new HashMap<>(loaded);
+		reloaded.put("b", false);
+		when(db.getObjectNames(WS1, 5001)).thenReturn(loaded, reloaded);
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "b", false, 10),
+				is(Collections.emptyMap()));
+		// a batch of up to a tenth of the cached names is merged
+		final Map<String, Boolean> batch = new HashMap<>();
+		for (int i = 0; i < 101; i++) {
+			batch.put("c" + i, false);
+		}
+		cache.addNames(1, batch);
+		assertThat("incorrect count", cache.getNamesByPrefix(set(WS1), "c", false, 1000)
+				.get(WS1).size(), is(101));
+		verify(db, times(1)).getObjectNames(WS1, 5001);
+
+		// a batch of more than a tenth of the cached names invalidates the names
+		for (int i = 101; i < 112; i++) {
+			batch.put("c" + i, false);
+		}
+		cache.addNames(1, batch);
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "b", false, 10),
+				is(names(WS1, "b")));
+		verify(db, times(2)).getObjectNames(WS1, 5001);
+	}
+
+	@Test
+	public void changeDuringLoad() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000, new FakeTicker());
+
+		// a save occurs while the first load is in progress
+		when(db.getObjectNames(WS1, 6)).thenAnswer(inv -> {
+			cache.addNames(1, ImmutableMap.of("ab", false));
+			return ImmutableMap.of("a", false);
+		}).thenReturn(ImmutableMap.of("a", false, "ab", false));
+
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		assertThat("incorrect names", cache.getNamesByPrefix(set(WS1), "a", false, 10),
+				is(names(WS1, "a", "ab")));
+		verify(db, times(2)).getObjectNames(WS1, 6);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		failConstruct(null, 1, new FakeTicker(), new NullPointerException("db"));
+		failConstruct(db, 1, null, new NullPointerException("ticker"));
+		failConstruct(db, 0, new FakeTicker(),
+				new IllegalArgumentException("maxNames must be > 0"));
+	}
+
+	private void failConstruct(
+			final WorkspaceDatabase db,
+			final int maxNames,
+			final Ticker ticker,
+			final Exception expected) {
+		try {
+			new ObjectNameCache(db, 10, maxNames, 5000, ticker);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void getFail() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ObjectNameCache cache = new ObjectNameCache(db, 10, 5, 5000);
+		when(db.getObjectNames(WS1, 6)).thenThrow(new WorkspaceCommunicationException("oh poop"));
+
+		failGet(cache, null, "", new NullPointerException("rwsis"));
+		failGet(cache, set(WS1), null, new NullPointerException("prefix"));
+		failGet(cache, set(WS1), "", new WorkspaceCommunicationException("oh poop"));
+	}
+
+	private void failGet(
+			final ObjectNameCache cache,
+			final Set<ResolvedWorkspaceID> rwsis,
+			final String prefix,
+			final Exception expected) {
+		try {
+			cache.getNamesByPrefix(rwsis, prefix, true, 10);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -32,6 +32,7 @@ import us.kbase.workspace.database.PermissionSet;
 import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
 import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.WorkspaceIDSet;
 import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.exceptions.InaccessibleObjectException;
@@ -515,10 +516,10 @@ public class ObjectResolverTest {
 		final Reference pathendref = new Reference("4/1/1");
 		final ObjectIDResolvedWS pathendresfinal = new ObjectIDResolvedWS(rwsi2, 1, 1);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi2, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi2.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -559,10 +560,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -601,10 +602,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -647,10 +648,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi2, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi2.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -689,10 +690,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi2, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi2.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -737,9 +738,10 @@ public class ObjectResolverTest {
 		final Reference pathendref = new Reference("4/1/1");
 		final ObjectIDResolvedWS pathendresfinal = new ObjectIDResolvedWS(rwsi2, 1, 1);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -778,10 +780,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi2, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi2.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -821,10 +823,10 @@ public class ObjectResolverTest {
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		final Reference pathendref = new Reference("4/1/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi2, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi2.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -877,10 +879,10 @@ public class ObjectResolverTest {
 		final Reference garbageref2 = new Reference("64/5/1");
 		final Reference garbageref3 = new Reference("67/13/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -932,9 +934,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 
 		final Builder or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath);
 		
@@ -954,9 +957,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 
 		final ObjectResolver or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath)
 				.withIgnoreInaccessible(true).resolve();
@@ -993,10 +997,10 @@ public class ObjectResolverTest {
 		final Reference garbageref2 = new Reference("64/5/1");
 		final Reference garbageref3 = new Reference("67/13/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsireadable, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsireadable.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1053,10 +1057,10 @@ public class ObjectResolverTest {
 		final Reference garbageref2 = new Reference("64/5/1");
 		final Reference garbageref3 = new Reference("67/13/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsireadable, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsireadable.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1118,10 +1122,10 @@ public class ObjectResolverTest {
 		final Reference garbageref2 = new Reference("64/5/1");
 		final Reference garbageref3 = new Reference("67/13/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1181,10 +1185,10 @@ public class ObjectResolverTest {
 		final Reference garbageref2 = new Reference("64/5/1");
 		final Reference garbageref3 = new Reference("67/13/1");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1241,10 +1245,10 @@ public class ObjectResolverTest {
 		
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1276,10 +1280,10 @@ public class ObjectResolverTest {
 		
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1313,10 +1317,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(Collections.emptyMap());
 		
 		final Builder or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath);
@@ -1341,10 +1345,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(Collections.emptyMap());
 		
 		final ObjectResolver or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath)
@@ -1386,9 +1390,10 @@ public class ObjectResolverTest {
 		final Reference garbageref3 = new Reference("67/13/1");
 		
 		//set up
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1460,9 +1465,10 @@ public class ObjectResolverTest {
 		final Reference garbageref3 = new Reference("67/13/1");
 		
 		//set up
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1531,9 +1537,10 @@ public class ObjectResolverTest {
 		final Reference garbageref3 = new Reference("67/13/1");
 		
 		//set up
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1598,10 +1605,10 @@ public class ObjectResolverTest {
 		
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1634,10 +1641,10 @@ public class ObjectResolverTest {
 		
 		final ObjectIDResolvedWS pathendresws = new ObjectIDResolvedWS(rwsi2, "objfoo2");
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(ImmutableMap.of(wsi2, rwsi2));
 		when(wsdb.getPermissions(user, set(rwsi2))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1671,10 +1678,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(Collections.emptyMap());
 		
 		final ObjectResolver or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath)
@@ -1704,10 +1711,10 @@ public class ObjectResolverTest {
 		final ObjectIdentifier pathend = new ObjectIdentifier(wsi2, "objfoo2");
 		final ObjectIDWithRefPath objpath = new ObjectIDWithRefPath(pathend);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi1, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi1.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi2), true)).thenReturn(Collections.emptyMap());
 		
 		final Builder or = ObjectResolver.getBuilder(wsdb, user).withObject(objpath)
@@ -1739,10 +1746,10 @@ public class ObjectResolverTest {
 		final Reference topref = new Reference("3/27/1");
 		final ObjectIDResolvedWS objres = new ObjectIDResolvedWS(rwsi, 24, 1);
 		
-		when(wsdb.getPermissions(user, Permission.READ, false)).thenReturn(
-				PermissionSet.getBuilder(user, new AllUsers('*'))
-				.withWorkspace(rwsi, Permission.READ, Permission.NONE)
-				.build());
+		when(wsdb.getWorkspaceIDs(user, Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.getBuilder().withID(rwsi.getID()).build());
+		when(wsdb.getWorkspaceIDs(new AllUsers('*'), Permission.READ, true)).thenReturn(
+				WorkspaceIDSet.empty());
 		when(wsdb.resolveWorkspaces(set(wsi), true)).thenReturn(ImmutableMap.of(wsi, rwsi));
 		when(wsdb.getPermissions(user, set(rwsi))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -0,0 +1,174 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.database.AllUsers;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.ReadableWorkspaceIDCache;
+import us.kbase.workspace.database.WorkspaceDatabase;
+import us.kbase.workspace.database.WorkspaceIDSet;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+public class ReadableWorkspaceIDCacheTest {
+
+	private static final AllUsers ALL = new AllUsers('*');
+	private static final WorkspaceUser U1 = new WorkspaceUser("u1");
+
+	private class FakeTicker extends Ticker {
+
+		private final AtomicLong nanos = new AtomicLong();
+
+		public FakeTicker advance(long nanoseconds) {
+			nanos.addAndGet(nanoseconds);
+			return this;
+		}
+
+		@Override
+		public long read() {
+			return nanos.get();
+		}
+	}
+
+	private static WorkspaceIDSet set(final long... ids) {
+		final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+		for (final long id: ids) {
+			b.withID(id);
+		}
+		return b.build();
+	}
+
+	@Test
+	public void query() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		when(db.getWorkspaceIDs(U1, Permission.READ, true)).thenReturn(set(1, 4));
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenReturn(set(2, 4, 6));
+
+		assertThat("incorrect ids", ReadableWorkspaceIDCache.queryReadableWorkspaceIDs(db, U1),
+				is(set(1, 2, 4, 6)));
+		assertThat("incorrect ids", ReadableWorkspaceIDCache.queryReadableWorkspaceIDs(db, null),
+				is(set(2, 4, 6)));
+	}
+
+	@Test
+	public void cache() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final FakeTicker ticker = new FakeTicker();
+		final ReadableWorkspaceIDCache cache = new ReadableWorkspaceIDCache(db, 10, 5000, ticker);
+
+		when(db.getWorkspaceIDs(U1, Permission.READ, true)).thenReturn(set(1), set(1, 3));
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenReturn(
+				set(2), set(2), set(2, 5), set(2, 5));
+
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2)));
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(null), is(set(2)));
+		ticker.advance(4999L * 1000000);
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2)));
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(null), is(set(2)));
+		verify(db, times(1)).getWorkspaceIDs(U1, Permission.READ, true);
+		verify(db, times(2)).getWorkspaceIDs(ALL, Permission.READ, true);
+
+		ticker.advance(1000001);
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2, 3, 5)));
+		cache.invalidateAll();
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(null), is(set(2, 5)));
+		verify(db, times(2)).getWorkspaceIDs(U1, Permission.READ, true);
+		verify(db, times(4)).getWorkspaceIDs(ALL, Permission.READ, true);
+	}
+
+	@Test
+	public void invalidate() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ReadableWorkspaceIDCache cache = new ReadableWorkspaceIDCache(
+				db, 10, 5000, new FakeTicker());
+
+		when(db.getWorkspaceIDs(U1, Permission.READ, true)).thenReturn(set(1), set(1, 3));
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenReturn(set(2));
+
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2)));
+		cache.invalidateAll();
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2, 3)));
+	}
+
+	@Test
+	public void invalidateDuringLoad() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		final ReadableWorkspaceIDCache cache = new ReadableWorkspaceIDCache(
+				db, 10, 5000, new FakeTicker());
+
+		// the permissions change while the first load is in progress
+		when(db.getWorkspaceIDs(U1, Permission.READ, true)).thenAnswer(inv -> {
+			cache.invalidateAll();
+			return set(1);
+		}).thenReturn(set(1, 3));
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenReturn(set(2));
+
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2)));
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2, 3)));
+		assertThat("incorrect ids", cache.getReadableWorkspaceIDs(U1), is(set(1, 2, 3)));
+		verify(db, times(2)).getWorkspaceIDs(U1, Permission.READ, true);
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		failConstruct(null, new FakeTicker(), new NullPointerException("db"));
+		failConstruct(db, null, new NullPointerException("ticker"));
+	}
+
+	private void failConstruct(
+			final WorkspaceDatabase db,
+			final Ticker ticker,
+			final Exception expected) {
+		try {
+			new ReadableWorkspaceIDCache(db, 10, 5000, ticker);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void getFailCommunication() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenThrow(
+				new WorkspaceCommunicationException("oh poop"));
+		failGet(new ReadableWorkspaceIDCache(db, 10, 5000), U1,
+				new WorkspaceCommunicationException("oh poop"));
+	}
+
+	@Test
+	public void getFailCorrupt() throws Exception {
+		final WorkspaceDatabase db = mock(WorkspaceDatabase.class);
+		when(db.getWorkspaceIDs(ALL, Permission.READ, true)).thenThrow(
+				new CorruptWorkspaceDBException("oh poop"));
+		failGet(new ReadableWorkspaceIDCache(db, 10, 5000), null,
+				new CorruptWorkspaceDBException("oh poop"));
+	}
+
+	private void failGet(
+			final ReadableWorkspaceIDCache cache,
+			final WorkspaceUser user,
+			final Exception expected) {
+		try {
+			cache.getReadableWorkspaceIDs(user);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
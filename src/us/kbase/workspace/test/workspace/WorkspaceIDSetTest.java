@@ -0,0 +1,129 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.database.WorkspaceIDSet;
+
+public class WorkspaceIDSetTest {
+
+	private static List<Long> ids(final WorkspaceIDSet set) {
+		return set.stream().boxed().collect(Collectors.toList());
+	}
+
+	@Test
+	public void empty() {
+		for (final WorkspaceIDSet s: Arrays.asList(
+				WorkspaceIDSet.empty(), WorkspaceIDSet.getBuilder().build())) {
+			assertThat("incorrect size", s.size(), is(0));
+			assertThat("incorrect empty", s.isEmpty(), is(true));
+			assertThat("incorrect contains", s.contains(1), is(false));
+			assertThat("incorrect ids", ids(s), is(Arrays.asList()));
+			assertThat("incorrect toString", s.toString(), is("WorkspaceIDSet [ids=[]]"));
+		}
+	}
+
+	@Test
+	public void dense() {
+		final WorkspaceIDSet s = WorkspaceIDSet.getBuilder()
+				.withID(7).withID(3).withID(5).withID(3).withID(4).build();
+		assertThat("incorrect size", s.size(), is(4));
+		assertThat("incorrect empty", s.isEmpty(), is(false));
+		assertThat("incorrect ids", ids(s), is(Arrays.asList(3L, 4L, 5L, 7L)));
+		for (final long id: Arrays.asList(3L, 4L, 5L, 7L)) {
+			assertThat("incorrect contains " + id, s.contains(id), is(true));
+		}
+		for (final long id: Arrays.asList(-1L, 0L, 1L, 2L, 6L, 8L, 64L, 1000L, Long.MAX_VALUE)) {
+			assertThat("incorrect contains " + id, s.contains(id), is(false));
+		}
+		assertThat("incorrect toString", s.toString(), is("WorkspaceIDSet [ids=[3, 4, 5, 7]]"));
+	}
+
+	@Test
+	public void sparse() {
+		final WorkspaceIDSet s = WorkspaceIDSet.getBuilder()
+				.withID(Long.MAX_VALUE).withID(1).withID(100000).withID(1).build();
+		assertThat("incorrect size", s.size(), is(3));
+		assertThat("incorrect ids", ids(s), is(Arrays.asList(1L, 100000L, Long.MAX_VALUE)));
+		for (final long id: Arrays.asList(1L, 100000L, Long.MAX_VALUE)) {
+			assertThat("incorrect contains " + id, s.contains(id), is(true));
+		}
+		for (final long id: Arrays.asList(0L, 2L, 99999L, 100001L, Long.MAX_VALUE - 1)) {
+			assertThat("incorrect contains " + id, s.contains(id), is(false));
+		}
+	}
+
+	@Test
+	public void manyIDs() {
+		final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+		for (long i = 10000; i > 0; i -= 2) {
+			b.withID(i);
+		}
+		final WorkspaceIDSet s = b.build();
+		assertThat("incorrect size", s.size(), is(5000));
+		for (long i = 0; i <= 10001; i++) {
+			assertThat("incorrect contains " + i, s.contains(i), is(i > 0 && i % 2 == 0));
+		}
+	}
+
+	@Test
+	public void withIDs() {
+		final WorkspaceIDSet s1 = WorkspaceIDSet.getBuilder().withID(1).withID(3).build();
+		final WorkspaceIDSet s2 = WorkspaceIDSet.getBuilder().withID(3).withID(1L << 40).build();
+		final WorkspaceIDSet s = WorkspaceIDSet.getBuilder()
+				.withIDs(s1).withIDs(s2).withIDs(WorkspaceIDSet.empty()).build();
+		assertThat("incorrect ids", ids(s), is(Arrays.asList(1L, 3L, 1L << 40)));
+	}
+
+	@Test
+	public void equals() {
+		final WorkspaceIDSet s1 = WorkspaceIDSet.getBuilder().withID(2).withID(1).build();
+		final WorkspaceIDSet s2 = WorkspaceIDSet.getBuilder().withID(1).withID(2).withID(1)
+				.build();
+		assertThat("incorrect equals", s1.equals(s1), is(true));
+		assertThat("incorrect equals", s1.equals(s2), is(true));
+		assertThat("incorrect hashcode", s1.hashCode(), is(s2.hashCode()));
+		assertThat("incorrect equals", s1.equals(null), is(false));
+		assertThat("incorrect equals", s1.equals(Arrays.asList(1L, 2L)), is(false));
+		assertThat("incorrect equals", s1.equals(WorkspaceIDSet.getBuilder().withID(1).build()),
+				is(false));
+		assertThat("incorrect equals", s1.equals(
+				WorkspaceIDSet.getBuilder().withID(1).withID(3).build()), is(false));
+		assertThat("incorrect equals", WorkspaceIDSet.empty().equals(
+				WorkspaceIDSet.getBuilder().build()), is(true));
+	}
+
+	@Test
+	public void withIDFail() {
+		failWithID(0);
+		failWithID(-1);
+	}
+
+	private void failWithID(final long id) {
+		try {
+			WorkspaceIDSet.getBuilder().withID(id);
+			fail("expected exception");
+		} catch (Exception e) {
+			TestCommon.assertExceptionCorrect(e, new IllegalArgumentException(
+					"Workspace IDs must be > 0"));
+		}
+	}
+
+	@Test
+	public void withIDsFail() {
+		try {
+			WorkspaceIDSet.getBuilder().withIDs(null);
+			fail("expected exception");
+		} catch (Exception e) {
+			TestCommon.assertExceptionCorrect(e, new NullPointerException("ids"));
+		}
+	}
+}
@@ -140,7 +140,7 @@ public class WorkspaceListenerTest {
 		when(db.getPermissions(user, set(rwsi))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
 						.withWorkspace(rwsi, Permission.READ, Permission.NONE).build());
-		when(db.cloneWorkspace(user, rwsi, "whee", false, null, meta, null)).thenReturn(WS_INFO);
+		when(db.cloneWorkspace(user, rwsi, "whee", false, null, meta, null, false)).thenReturn(WS_INFO);
 		
 		ws.cloneWorkspace(user, wsi, "whee", false, null, null, null);
 		
@@ -166,7 +166,7 @@ public class WorkspaceListenerTest {
 		when(db.getPermissions(user, set(rwsi))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
 						.withWorkspace(rwsi, Permission.READ, Permission.NONE).build());
-		when(db.cloneWorkspace(user, rwsi, "whee", true, null, meta, null))
+		when(db.cloneWorkspace(user, rwsi, "whee", true, null, meta, null, false))
 				.thenReturn(WS_INFO_READABLE);
 		
 		ws.cloneWorkspace(user, wsi, "whee", true, null, null, null);
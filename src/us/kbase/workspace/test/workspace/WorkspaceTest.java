@@ -6477,7 +6477,13 @@ public class WorkspaceTest extends WorkspaceTester {
 		checkGetByPrefix(u, wsi, "aba|abc", mtlist);
 		// end a quote, which is what Pattern.quote does to make a literal sequence
 		checkGetByPrefix(u, wsi, "\\E.*", mtlist);
-		
+
+		// range boundaries
+		checkGetByPrefix(u, wsi, "ab", Arrays.asList("ab.", "aba", "abc"));
+		checkGetByPrefix(u, wsi, "abb", mtlist);
+		checkGetByPrefix(u, wsi, "fop", mtlist);
+		checkGetByPrefix(u, wsi, "a￿", mtlist);
+		checkGetByPrefix(u, wsi, "퟿", mtlist);
 	}
 	
 	@Test
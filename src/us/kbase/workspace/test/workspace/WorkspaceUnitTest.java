@@ -265,7 +265,7 @@ public class WorkspaceUnitTest {
 		
 		when(mocks.db.cloneWorkspace(
 				new WorkspaceUser("foo"), rwsi, "new", false, expected,
-				new WorkspaceUserMetadata(), set()))
+				new WorkspaceUserMetadata(), set(), false))
 				.thenReturn(wsinfo);
 		
 		final WorkspaceInformation wsinforet = mocks.ws.cloneWorkspace(
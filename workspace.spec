@@ -640,6 +640,11 @@ module Workspace {
 			cloned workspace. Either an object ID or a object name must be
 			specified in each ObjectIdentity - any supplied reference strings,
 			workspace names or IDs, and versions are ignored. 
+		boolean share_versions - share the object versions with the cloned
+			workspace rather than copying them, which is much faster for
+			workspaces with many versions. The new workspace is otherwise
+			identical to a copy. Ignored if the workspace database does not
+			support sharing versions. Default false.
 	*/
 	typedef structure { 
 		WorkspaceIdentity wsi;
@@ -648,6 +653,7 @@ module Workspace {
 		string description;
 		usermeta meta;
 		list<ObjectIdentity> exclude;
+		boolean share_versions;
 	} CloneWorkspaceParams;
 	
 	/*
@@ -1077,11 +1083,20 @@ module Workspace {
 			Default false.
 		boolean no_data - return the provenance, references, and
 			object_info for this object without the object data. Default false.
+		boolean skip_provenance - don't return the provenance, creator, orig_wsid,
+			created, and epoch fields for the objects. Default false.
+		boolean skip_refs - don't return the references extracted from the
+			objects. Default false.
+		boolean skip_extracted_ids - don't return the external IDs extracted
+			from the objects. Default false.
 	*/
 	typedef structure {
 		list<ObjectSpecification> objects;
 		boolean ignoreErrors;
 		boolean no_data;
+		boolean skip_provenance;
+		boolean skip_refs;
+		boolean skip_extracted_ids;
 	} GetObjects2Params;
 	
 	/* Results from the get_objects2 function.
@@ -1221,6 +1236,12 @@ module Workspace {
 			user.
 		boolean showOnlyDeleted - only show deleted workspaces that are owned
 			by the user.
+		ws_id start_after - only return workspaces with an ID greater than
+			this value. The workspaces are returned in order of their IDs, so
+			to page through the workspaces, set start_after to the ID of the
+			last workspace in the previous page.
+		int limit - limit the output to X workspaces. Limit values < 1, the
+			default, mean no limit.
 		
 	*/
 	typedef structure { 
@@ -1234,6 +1255,8 @@ module Workspace {
 		boolean excludeGlobal;
 		boolean showDeleted;
 		boolean showOnlyDeleted;
+		ws_id start_after;
+		int limit;
 	} ListWorkspaceInfoParams;
 	
 	/*
@@ -1365,6 +1388,15 @@ module Workspace {
 			parameter only has an effect when filtering by types alone.
 		int limit - limit the output to X objects. Default and maximum value
 			is 10000. Limit values < 1 are treated as 10000, the default.
+		obj_ref start_after - only return objects after this object version,
+			which must be an absolute reference (e.g. 2/3/4), in order of
+			workspace ID, then object ID, then descending version. To page
+			through the objects, set start_after to the reference of the last
+			object in the previous page. Each page costs the same to fetch
+			regardless of how many pages precede it. The first page is
+			returned in the same order if only the latest versions are listed
+			or no filters other than the workspace and object ID filters are
+			provided.
 		
 	*/
 	typedef structure {
@@ -1387,6 +1419,7 @@ module Workspace {
 		boolean includeMetadata;
 		boolean excludeGlobal;
 		int limit;
+		obj_ref start_after;
 	} ListObjectsParams;
 	
 	/*